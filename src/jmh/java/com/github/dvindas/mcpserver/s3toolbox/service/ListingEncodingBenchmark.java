@@ -0,0 +1,69 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and cost of the JSON a listing tool returns: the flat key list of list_s3_files against the grouped and the
+ * delta-encoded form of list_s3_files_compact. The {@code jsonChars} counter is the size of one result, which is what
+ * the conversation pays for.
+ *
+ * @author dvindas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingEncodingBenchmark {
+
+    @Param({"1000", "10000"})
+    public int keyCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<String> keys;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Output {
+        public long jsonChars;
+    }
+
+    @Setup
+    public void setUp() {
+        // Log-like layout: a directory per day and host, numbered files in each
+        keys = new ArrayList<>(keyCount);
+        for (var i = 0; keys.size() < keyCount; i++) {
+            keys.add("logs/2025/05/%02d/host-%02d/app-%06d.log.gz".formatted(1 + i / 400 % 28, i / 100 % 4, i));
+        }
+        keys.sort(null);
+    }
+
+    @Benchmark
+    public String flatList(final Output output) throws Exception {
+        return count(output, objectMapper.writeValueAsString(keys));
+    }
+
+    @Benchmark
+    public String grouped(final Output output) throws Exception {
+        return count(output, objectMapper.writeValueAsString(
+                CompactKeyEncoder.encode("bench", "logs/", keys.iterator(), false, Integer.MAX_VALUE)));
+    }
+
+    @Benchmark
+    public String deltaEncoded(final Output output) throws Exception {
+        return count(output, objectMapper.writeValueAsString(
+                CompactKeyEncoder.encode("bench", "logs/", keys.iterator(), true, Integer.MAX_VALUE)));
+    }
+
+    private static String count(final Output output, final String json) {
+        output.jsonChars = json.length();
+        return json;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of moving payloads through tool calls without any S3 traffic: Base64 in both directions and the JSON
+ * (de)serialization of the tool request and result records.
+ *
+ * @author dvindas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadSerializationBenchmark {
+
+    @Param({"1024", "1048576", "8388608"})
+    public int payloadSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] content;
+    private String base64Content;
+    private GetS3ObjectResponse getResponse;
+    private String putRequestJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = new byte[payloadSize];
+        base64Content = Base64.getEncoder().encodeToString(content);
+        getResponse = new GetS3ObjectResponse("payload.bin", content, "application/octet-stream");
+        putRequestJson = objectMapper.writeValueAsString(new PutS3ObjectRequest("bench", "payload/", "payload.bin",
+                "application/octet-stream", base64Content, null, null));
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return Base64.getEncoder().encodeToString(content);
+    }
+
+    /**
+     * The streaming decode put_s3_object uses while writing the request body.
+     */
+    @Benchmark
+    public long base64DecodeStreaming() throws Exception {
+        try (var decoded = Base64Payloads.open(base64Content)) {
+            return decoded.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public String serializeGetObjectResponse() throws Exception {
+        return objectMapper.writeValueAsString(getResponse);
+    }
+
+    @Benchmark
+    public PutS3ObjectRequest deserializePutObjectRequest() throws Exception {
+        return objectMapper.readValue(putRequestJson, PutS3ObjectRequest.class);
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectsMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.ListS3ObjectsPageResponse;
+import com.github.dvindas.mcpserver.s3toolbox.support.FakeS3Server;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing and metadata operations against {@link FakeS3Server}, with and without per-request latency. The latency
+ * variant shows how well pagination and fan-out hide round trips, the zero-latency one shows client-side overhead.
+ *
+ * @author dvindas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S3ActionsBenchmark {
+
+    private static final String BUCKET = "bench";
+
+    @Param({"0", "10"})
+    public int latencyMillis;
+
+    @Param({"10000"})
+    public int objectCount;
+
+    private FakeS3Server server;
+    private S3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ActionsServiceImpl actionsService;
+    private S3BatchServiceImpl batchService;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FakeS3Server(Duration.ofMillis(latencyMillis), objectCount, 1024);
+        s3Client = server.client(50);
+        s3IoExecutor = new InstrumentedExecutorService("bench", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(5));
+        final var properties = new S3ToolboxProperties();
+        actionsService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+        batchService = new S3BatchServiceImpl(s3Client, s3IoExecutor, actionsService, properties, event -> {
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        s3Client.close();
+        s3IoExecutor.close();
+        server.close();
+    }
+
+    /**
+     * Follows continuation tokens through every page of the listing.
+     */
+    @Benchmark
+    public ListS3ObjectsPageResponse listObjectsPage() {
+        return actionsService.listObjectsPage(BUCKET, "objects/", null, 1000, objectCount);
+    }
+
+    /**
+     * HeadObject and GetObjectAttributes issued in parallel for one key.
+     */
+    @Benchmark
+    public GetS3ObjectMetadataResponse getObjectMetadata() {
+        return actionsService.getObjectMetadata(BUCKET, "objects/obj-00000001");
+    }
+
+    /**
+     * Lists a prefix and HEADs its first 100 objects concurrently.
+     */
+    @Benchmark
+    public GetS3ObjectsMetadataResponse getObjectsMetadataFanOut() {
+        return batchService.getObjectsMetadata(BUCKET, null, "objects/", 100, false);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.support.FakeS3Server;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * get_s3_object and put_s3_object with inline payloads up to the default 10 MB inline limit. Puts above the 16 MB
+ * multipart threshold are covered by {@link S3TransferBenchmark}.
+ *
+ * @author dvindas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S3ObjectPayloadBenchmark {
+
+    private static final String BUCKET = "bench";
+
+    @Param({"1024", "1048576", "8388608"})
+    public int payloadSize;
+
+    private FakeS3Server server;
+    private S3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ActionsServiceImpl actionsService;
+    private PutS3ObjectRequest putRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FakeS3Server(Duration.ZERO, 0, payloadSize);
+        s3Client = server.client(50);
+        s3IoExecutor = new InstrumentedExecutorService("bench", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(5));
+        final var properties = new S3ToolboxProperties();
+        actionsService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+        putRequest = new PutS3ObjectRequest(BUCKET, "payload/", String.valueOf(payloadSize),
+                "application/octet-stream", Base64.getEncoder().encodeToString(new byte[payloadSize]), null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        s3Client.close();
+        s3IoExecutor.close();
+        server.close();
+    }
+
+    @Benchmark
+    public GetS3ObjectResponse getObject() {
+        return actionsService.getObject(BUCKET, "payload/" + payloadSize, null, null);
+    }
+
+    @Benchmark
+    public PutS3ObjectResponse putObject() {
+        return actionsService.putObject(putRequest);
+    }
+
+}
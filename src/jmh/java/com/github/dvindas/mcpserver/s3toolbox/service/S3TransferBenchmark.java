@@ -0,0 +1,87 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.UploadS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.support.FakeS3Server;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel ranged downloads to a file and multipart uploads from a memory-mapped file. Each invocation moves the
+ * whole payload, so it runs as single shots; pass {@code -p payloadSize=1073741824} for the 1 GB case.
+ *
+ * @author dvindas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class S3TransferBenchmark {
+
+    private static final String BUCKET = "bench";
+
+    @Param({"67108864"})
+    public long payloadSize;
+
+    private FakeS3Server server;
+    private S3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3TransferServiceImpl transferService;
+    private Path directory;
+    private Path source;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FakeS3Server(Duration.ZERO, 0, payloadSize);
+        s3Client = server.client(50);
+        s3IoExecutor = new InstrumentedExecutorService("bench", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(5));
+        final var properties = new S3ToolboxProperties();
+        transferService = new S3TransferServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), event -> {
+        });
+
+        directory = Files.createTempDirectory("s3-transfer-bench");
+        source = directory.resolve("source.bin");
+        try (var file = new RandomAccessFile(source.toFile(), "rw")) {
+            file.setLength(payloadSize);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        s3Client.close();
+        s3IoExecutor.close();
+        server.close();
+        try (var files = Files.walk(directory)) {
+            for (final var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public DownloadS3ObjectResponse downloadToFile() {
+        return transferService.downloadToFile(BUCKET, "payload/" + payloadSize,
+                directory.resolve("download.bin").toString(), true, true);
+    }
+
+    @Benchmark
+    public UploadS3ObjectResponse uploadFromFile() {
+        return transferService.uploadFromFile(BUCKET, "payload/" + payloadSize, source.toString(),
+                "application/octet-stream");
+    }
+
+}
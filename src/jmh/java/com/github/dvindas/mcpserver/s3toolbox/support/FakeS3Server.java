@@ -0,0 +1,252 @@
+package com.github.dvindas.mcpserver.s3toolbox.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * In-process HTTP stand-in for S3, so benchmarks go through the real SDK client, HTTP stack and XML parsing. Objects
+ * are synthetic: a key whose last path segment is a number is an object of that many bytes, any other key has
+ * {@code defaultObjectSize} bytes. Bodies are generated while they are written and uploads are drained without being
+ * stored, so payloads of a gigabyte cost no memory. Each bucket lists {@code objectCount} keys named
+ * {@code <prefix>obj-00000000} onwards.
+ * <p>
+ * Supports the path-style requests the services send: ListObjectsV2, HeadObject, GetObjectAttributes, ranged
+ * GetObject, PutObject, DeleteObjects and the multipart upload calls. Every request waits {@code latency} first.
+ *
+ * @author dvindas
+ */
+public class FakeS3Server implements AutoCloseable {
+
+    private static final String ETAG = "\"9b2cf535f27731c974343645a3985328\"";
+    private static final String LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT";
+    private static final byte[] BLOCK = new byte[64 * 1024];
+
+    static {
+        // Without TCP_NODELAY, Nagle and delayed ACKs add ~40 ms to every small response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        for (var i = 0; i < BLOCK.length; i++) {
+            BLOCK[i] = (byte) ('a' + i % 26);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final int objectCount;
+    private final long defaultObjectSize;
+    private final Map<Long, String> checksums = new ConcurrentHashMap<>();
+
+    public FakeS3Server(final Duration latency, final int objectCount, final long defaultObjectSize)
+            throws IOException {
+        this.latency = latency;
+        this.objectCount = objectCount;
+        this.defaultObjectSize = defaultObjectSize;
+        // Platform threads, so the server never competes with the code under test for virtual thread carriers
+        this.executor = Executors.newCachedThreadPool(Thread.ofPlatform().name("fake-s3-", 0).daemon(true).factory());
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    /**
+     * Blocking client configured like the production one, pointed at this server.
+     */
+    public S3Client client(final int maxConnections) {
+        return S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(endpoint())
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("bench", "bench")))
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .expectContinueEnabled(false))
+                .build();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            final var path = exchange.getRequestURI().getRawPath().substring(1);
+            final var slash = path.indexOf('/');
+            final var key = slash < 0 ? "" : URLDecoder.decode(path.substring(slash + 1), StandardCharsets.UTF_8);
+            final var query = query(exchange.getRequestURI().getRawQuery());
+
+            // Upload bodies are read in full so the client sees the same back pressure as with a real endpoint
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> {
+                    if (key.isEmpty()) {
+                        list(exchange, query);
+                    } else if (query.containsKey("attributes")) {
+                        xml(exchange, 200, "<GetObjectAttributesResponse><StorageClass>STANDARD</StorageClass>"
+                                + "</GetObjectAttributesResponse>");
+                    } else {
+                        get(exchange, key);
+                    }
+                }
+                case "HEAD" -> {
+                    objectHeaders(exchange);
+                    exchange.getResponseHeaders().set("x-amz-checksum-crc32", crc32Of(sizeOf(key)));
+                    exchange.getResponseHeaders().set("x-amz-checksum-type", "FULL_OBJECT");
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(sizeOf(key)));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "PUT" -> {
+                    exchange.getResponseHeaders().set("ETag", ETAG);
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        xml(exchange, 200, "<InitiateMultipartUploadResult><Key>%s</Key><UploadId>%s</UploadId>"
+                                .formatted(key, UUID.randomUUID()) + "</InitiateMultipartUploadResult>");
+                    } else if (query.containsKey("uploadId")) {
+                        xml(exchange, 200, "<CompleteMultipartUploadResult><Key>%s</Key><ETag>%s</ETag>"
+                                .formatted(key, ETAG) + "</CompleteMultipartUploadResult>");
+                    } else {
+                        xml(exchange, 200, "<DeleteResult></DeleteResult>");
+                    }
+                }
+                case "DELETE" -> exchange.sendResponseHeaders(204, -1);
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void list(final HttpExchange exchange, final Map<String, String> query) throws IOException {
+        final var prefix = query.getOrDefault("prefix", "");
+        final var maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        final var start = Integer.parseInt(query.getOrDefault("continuation-token", "0"));
+        final var end = Math.min(objectCount, start + maxKeys);
+
+        final var body = new StringBuilder(256 + (end - start) * 256)
+                .append("<ListBucketResult><Prefix>").append(prefix).append("</Prefix>")
+                .append("<KeyCount>").append(end - start).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(end < objectCount).append("</IsTruncated>");
+        if (end < objectCount) {
+            body.append("<NextContinuationToken>").append(end).append("</NextContinuationToken>");
+        }
+        for (var i = start; i < end; i++) {
+            body.append("<Contents><Key>").append(prefix).append("obj-%08d".formatted(i)).append("</Key>")
+                    .append("<LastModified>2025-01-01T00:00:00.000Z</LastModified>")
+                    .append("<ETag>&quot;9b2cf535f27731c974343645a3985328&quot;</ETag>")
+                    .append("<Size>").append(defaultObjectSize).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        xml(exchange, 200, body.append("</ListBucketResult>").toString());
+    }
+
+    private void get(final HttpExchange exchange, final String key) throws IOException {
+        final var size = sizeOf(key);
+        var start = 0L;
+        var end = size - 1;
+        final var range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            final var bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Long.parseLong(bounds[0]);
+            end = bounds[1].isEmpty() ? size - 1 : Math.min(size - 1, Long.parseLong(bounds[1]));
+            if (start >= size) {
+                xml(exchange, 416, "<Error><Code>InvalidRange</Code></Error>");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes %d-%d/%d".formatted(start, end, size));
+        }
+
+        objectHeaders(exchange);
+        final var length = end - start + 1;
+        exchange.sendResponseHeaders(range == null ? 200 : 206, length == 0 ? -1 : length);
+        try (var body = exchange.getResponseBody()) {
+            for (var remaining = length; remaining > 0; remaining -= BLOCK.length) {
+                body.write(BLOCK, 0, (int) Math.min(BLOCK.length, remaining));
+            }
+        }
+    }
+
+    private static void objectHeaders(final HttpExchange exchange) {
+        final var headers = exchange.getResponseHeaders();
+        headers.set("ETag", ETAG);
+        headers.set("Last-Modified", LAST_MODIFIED);
+        headers.set("Content-Type", "application/octet-stream");
+        headers.set("Accept-Ranges", "bytes");
+    }
+
+    /**
+     * Full-object CRC32 of a synthetic body, so downloads verify their result the same way they do against S3.
+     */
+    private String crc32Of(final long size) {
+        return checksums.computeIfAbsent(size, ignored -> {
+            final var crc32 = new CRC32();
+            for (var remaining = size; remaining > 0; remaining -= BLOCK.length) {
+                crc32.update(BLOCK, 0, (int) Math.min(BLOCK.length, remaining));
+            }
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc32.getValue()).array());
+        });
+    }
+
+    private long sizeOf(final String key) {
+        final var name = key.substring(key.lastIndexOf('/') + 1);
+        return !name.isEmpty() && name.chars().allMatch(Character::isDigit) ? Long.parseLong(name) : defaultObjectSize;
+    }
+
+    private static void xml(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final var bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(final String rawQuery) {
+        final var query = new HashMap<String, String>();
+        if (rawQuery != null) {
+            for (final var parameter : rawQuery.split("&")) {
+                final var separator = parameter.indexOf('=');
+                final var name = separator < 0 ? parameter : parameter.substring(0, separator);
+                final var value = separator < 0 ? "" : parameter.substring(separator + 1);
+                query.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.github.dvindas.mcpserver.s3toolbox.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor decorator that tracks how many tasks were submitted, how many are running and how long they waited for a
+ * thread. {@link #close()} drains in-flight tasks for a bounded time before interrupting them.
+ *
+ * @author dvindas
+ */
+@Slf4j
+public class InstrumentedExecutorService extends AbstractExecutorService {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final Duration shutdownTimeout;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    public InstrumentedExecutorService(final String name, final ExecutorService delegate,
+                                       final Duration shutdownTimeout) {
+        this.name = name;
+        this.delegate = delegate;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final var enqueuedAt = System.nanoTime();
+        submitted.incrementAndGet();
+        delegate.execute(() -> {
+            queueWaitNanos.addAndGet(System.nanoTime() - enqueuedAt);
+            peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                command.run();
+                completed.incrementAndGet();
+            } catch (RuntimeException | Error e) {
+                failed.incrementAndGet();
+                throw e;
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Stats stats() {
+        final var started = completed.get() + failed.get() + active.get();
+        return new Stats(submitted.get(), completed.get(), failed.get(), active.get(), peakActive.get(),
+                started == 0 ? 0 : queueWaitNanos.get() / started / 1_000);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Executor '{}' did not terminate within {}, interrupting {} running tasks", name,
+                        shutdownTimeout, active.get());
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Executor '{}' shut down: {}", name, stats());
+    }
+
+    /**
+     * @param averageQueueWaitMicros average time a task waited between submission and start
+     */
+    public record Stats(long submitted, long completed, long failed, int active, int peakActive,
+                        long averageQueueWaitMicros) {
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.github.dvindas.mcpserver.s3toolbox.concurrent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side token bucket per bucket, key prefix and request class, taken before every S3 call is sent. S3 scales
+ * its request rate per partitioned prefix, so bulk work on a hot prefix is paced at that prefix's limit instead of
+ * running into 503 SlowDown and spending its retries. Each SlowDown answer cuts the rate of the prefix by
+ * {@code backoff-factor}; it then climbs back linearly over {@code recovery-time}.
+ * <p>
+ * Waiting happens on the thread that starts the call, which is never an event loop thread of the async client.
+ * Retries are not paced here but by the backoff of the retry strategy.
+ *
+ * @author dvindas
+ */
+@Slf4j
+public class S3RateLimiter implements ExecutionInterceptor {
+
+    /**
+     * Concurrent requests answered with SlowDown together count as one signal.
+     */
+    static final long DECREASE_GUARD_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final S3ToolboxProperties.RateLimit config;
+    private final MeterRegistry registry;
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public S3RateLimiter(final S3ToolboxProperties.RateLimit config, final MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+    }
+
+    @Override
+    public void beforeExecution(final Context.BeforeExecution context, final ExecutionAttributes executionAttributes) {
+        final var target = Target.of(context.request(), executionAttributes, config.getPrefixDepth());
+        if (target == null) {
+            return;
+        }
+        final var waitNanos = bucket(target).reserve(System.nanoTime());
+        if (waitNanos <= 0) {
+            return;
+        }
+        Timer.builder("s3.client.rate.limit.waits")
+                .tag("bucket", target.bucket())
+                .tag("class", target.reads() ? "read" : "write")
+                .register(registry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AbortedException.create("Interrupted while waiting for the S3 request rate limit", e);
+        }
+    }
+
+    @Override
+    public void afterTransmission(final Context.AfterTransmission context,
+                                  final ExecutionAttributes executionAttributes) {
+        final var statusCode = context.httpResponse().statusCode();
+        if (statusCode != 503 && statusCode != 429) {
+            return;
+        }
+        final var target = Target.of(context.request(), executionAttributes, config.getPrefixDepth());
+        if (target != null && bucket(target).throttled(System.nanoTime())) {
+            log.warn("S3 throttled {} requests to '{}/{}', slowing down to {} per second",
+                    target.reads() ? "read" : "write", target.bucket(), target.prefix(),
+                    Math.round(bucket(target).rate()));
+        }
+    }
+
+    /**
+     * Current rate of the given prefix, for tests and diagnostics.
+     */
+    double rate(final String bucketName, final String prefix, final boolean reads) {
+        final var bucket = buckets.getIfPresent(new Target(bucketName, prefix, reads).id());
+        return bucket == null ? (reads ? config.getReadsPerSecond() : config.getWritesPerSecond()) : bucket.rate();
+    }
+
+    private TokenBucket bucket(final Target target) {
+        return buckets.get(target.id(), id -> new TokenBucket(
+                target.reads() ? config.getReadsPerSecond() : config.getWritesPerSecond(), config.getMinPerSecond(),
+                config.getBackoffFactor(), config.getRecoveryTime().toNanos(), System.nanoTime()));
+    }
+
+    /**
+     * Prefix of a key made of its first {@code depth} '/'-separated segments, or of all its complete segments when it
+     * has fewer.
+     */
+    static String prefixOf(final String key, final int depth) {
+        var end = 0;
+        for (var segment = 0; segment < depth; segment++) {
+            final var slash = key.indexOf('/', end);
+            if (slash < 0) {
+                break;
+            }
+            end = slash + 1;
+        }
+        return key.substring(0, end);
+    }
+
+    record Target(String bucket, String prefix, boolean reads) {
+
+        static Target of(final SdkRequest request, final ExecutionAttributes executionAttributes, final int depth) {
+            final var bucket = request.getValueForField("Bucket", String.class).orElse(null);
+            if (bucket == null) {
+                return null;
+            }
+            final var key = request.getValueForField("Key", String.class)
+                    .or(() -> request.getValueForField("Prefix", String.class))
+                    .orElse("");
+            final var operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+            final var reads = operation != null && (operation.startsWith("Get") || operation.startsWith("Head")
+                    || operation.startsWith("List") || operation.startsWith("Select"));
+            return new Target(bucket, prefixOf(key, depth), reads);
+        }
+
+        String id() {
+            return (reads ? "r:" : "w:") + bucket + "/" + prefix;
+        }
+    }
+
+    /**
+     * Token bucket holding up to one second of requests. A request that finds it empty reserves the next token and
+     * waits for it, so concurrent callers are spread evenly instead of retrying in lockstep.
+     */
+    static final class TokenBucket {
+
+        private final double maxRate;
+        private final double minRate;
+        private final double backoffFactor;
+        private final long recoveryNanos;
+        private double rate;
+        private double tokens;
+        private long updatedAt;
+        private long decreasedAt;
+
+        TokenBucket(final double maxRate, final double minRate, final double backoffFactor,
+                    final long recoveryNanos, final long now) {
+            this.maxRate = maxRate;
+            this.minRate = Math.min(minRate, maxRate);
+            this.backoffFactor = backoffFactor;
+            this.recoveryNanos = Math.max(1, recoveryNanos);
+            this.rate = maxRate;
+            this.tokens = maxRate;
+            this.updatedAt = now;
+            this.decreasedAt = now - DECREASE_GUARD_NANOS;
+        }
+
+        /**
+         * @return nanoseconds to wait before the reserved request may be sent
+         */
+        synchronized long reserve(final long now) {
+            advance(now);
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / rate * 1_000_000_000);
+        }
+
+        /**
+         * @return whether the rate was lowered
+         */
+        synchronized boolean throttled(final long now) {
+            advance(now);
+            if (now - decreasedAt < DECREASE_GUARD_NANOS) {
+                return false;
+            }
+            decreasedAt = now;
+            rate = Math.max(minRate, rate * backoffFactor);
+            // Drop the burst allowance so the lower rate applies at once
+            tokens = Math.min(tokens, 0);
+            return true;
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        private void advance(final long now) {
+            final var elapsed = Math.max(0, now - updatedAt);
+            updatedAt = now;
+            rate = Math.min(maxRate, rate + maxRate * elapsed / recoveryNanos);
+            tokens = Math.min(rate, tokens + rate * elapsed / 1_000_000_000);
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.github.dvindas.mcpserver.s3toolbox.config;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * @author dvindas
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for blocking S3 calls fanned out by the services. Closed with the context, which lets in-flight
+     * requests finish within {@code s3-toolbox.executor.shutdown-timeout}.
+     */
+    @Bean
+    public InstrumentedExecutorService s3IoExecutor(final S3ToolboxProperties properties) {
+        final var executor = properties.getExecutor();
+        final var delegate = switch (executor.getType()) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-io-", 0).factory());
+            case FIXED -> Executors.newFixedThreadPool(executor.getPoolSize(),
+                    Thread.ofPlatform().name("s3-io-", 0).daemon(true).factory());
+        };
+        return new InstrumentedExecutorService("s3-io", delegate, executor.getShutdownTimeout());
+    }
+
+}
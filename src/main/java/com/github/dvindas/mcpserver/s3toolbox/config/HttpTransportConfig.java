@@ -0,0 +1,64 @@
+package com.github.dvindas.mcpserver.s3toolbox.config;
+
+import com.github.dvindas.mcpserver.s3toolbox.transport.SessionConcurrencyFilter;
+import com.github.dvindas.mcpserver.s3toolbox.transport.VirtualThreadSchedulerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.mcp.server.autoconfigure.McpServerProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Serving many MCP clients from one process over HTTP/SSE, enabled by the {@code http} profile. All sessions share
+ * the S3 clients, their connection pools and the caches; tool calls run on virtual threads and each session is
+ * limited to {@code s3-toolbox.http.max-concurrent-calls-per-session} messages in flight.
+ * <p>
+ * The transport has no authentication, so startup fails unless {@code s3-toolbox.transfer.local-root} confines the
+ * local files that transfer, sync and archive tools may read or overwrite.
+ *
+ * @author dvindas
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "spring.ai.mcp.server.stdio", havingValue = "false")
+@RequiredArgsConstructor
+public class HttpTransportConfig {
+
+    private final S3ToolboxProperties properties;
+
+    @PostConstruct
+    void requireLocalRoot() {
+        final var localRoot = properties.getTransfer().getLocalRoot();
+        if (localRoot == null || localRoot.toString().isBlank()) {
+            throw new IllegalStateException("s3-toolbox.transfer.local-root must be set when serving over HTTP, "
+                    + "otherwise every client reaching the port can read and overwrite any file of this server");
+        }
+    }
+
+    @PostConstruct
+    void runToolCallsOnVirtualThreads() {
+        Schedulers.setFactory(new VirtualThreadSchedulerFactory());
+    }
+
+    @PreDestroy
+    void resetSchedulers() {
+        Schedulers.resetFactory();
+    }
+
+    @Bean
+    public FilterRegistrationBean<SessionConcurrencyFilter> sessionConcurrencyFilter(
+            final McpServerProperties mcpServerProperties, final MeterRegistry meterRegistry) {
+        final var http = properties.getHttp();
+        final var registration = new FilterRegistrationBean<>(new SessionConcurrencyFilter(
+                http.getMaxConcurrentCallsPerSession(), http.getSessionQueueTimeout(), meterRegistry));
+        registration.addUrlPatterns(mcpServerProperties.getSseMessageEndpoint());
+        return registration;
+    }
+
+}
@@ -1,22 +1,31 @@
 package com.github.dvindas.mcpserver.s3toolbox.config;
 
+import com.github.dvindas.mcpserver.s3toolbox.metrics.InstrumentedToolCallback;
+import com.github.dvindas.mcpserver.s3toolbox.tool.S3ErrorReportingToolCallback;
 import com.github.dvindas.mcpserver.s3toolbox.tool.S3Tool;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.support.ToolCallbacks;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * @author dvindas
  */
 @Configuration
+@ImportRuntimeHints(S3ToolRuntimeHints.class)
 public class MCPConfiguration {
 
     @Bean
-    public List<ToolCallback> registerTools(S3Tool S3Tool) {
-        return List.of(ToolCallbacks.from(S3Tool));
+    public List<ToolCallback> registerTools(S3Tool S3Tool, MeterRegistry meterRegistry) {
+        return Arrays.stream(ToolCallbacks.from(S3Tool))
+                .<ToolCallback>map(toolCallback -> new InstrumentedToolCallback(
+                        new S3ErrorReportingToolCallback(toolCallback), meterRegistry))
+                .toList();
     }
 
 }
\ No newline at end of file
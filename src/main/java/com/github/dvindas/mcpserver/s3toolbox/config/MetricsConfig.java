@@ -0,0 +1,45 @@
+package com.github.dvindas.mcpserver.s3toolbox.config;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.metrics.S3HttpClientMetrics;
+import com.github.dvindas.mcpserver.s3toolbox.metrics.S3RequestMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author dvindas
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public S3RequestMetrics s3RequestMetrics(final MeterRegistry registry) {
+        return new S3RequestMetrics(registry);
+    }
+
+    @Bean
+    public S3HttpClientMetrics s3HttpClientMetrics(final MeterRegistry registry) {
+        return new S3HttpClientMetrics(registry);
+    }
+
+    @Bean
+    public MeterBinder s3IoExecutorMetrics(final InstrumentedExecutorService s3IoExecutor) {
+        return registry -> {
+            final var name = s3IoExecutor.name();
+            FunctionCounter.builder("s3.executor.submitted", s3IoExecutor, executor -> executor.stats().submitted())
+                    .tag("executor", name).register(registry);
+            FunctionCounter.builder("s3.executor.failed", s3IoExecutor, executor -> executor.stats().failed())
+                    .tag("executor", name).register(registry);
+            Gauge.builder("s3.executor.active", s3IoExecutor, executor -> executor.stats().active())
+                    .tag("executor", name).register(registry);
+            Gauge.builder("s3.executor.queue.wait", s3IoExecutor,
+                            executor -> executor.stats().averageQueueWaitMicros())
+                    .tag("executor", name).baseUnit("microseconds").register(registry);
+        };
+    }
+
+}
@@ -1,8 +1,22 @@
 package com.github.dvindas.mcpserver.s3toolbox.config;
 
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.S3RateLimiter;
+import com.github.dvindas.mcpserver.s3toolbox.metrics.S3HttpClientMetrics;
+import com.github.dvindas.mcpserver.s3toolbox.metrics.S3RequestMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.retries.api.BackoffStrategy;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 
 
@@ -10,13 +24,81 @@ import software.amazon.awssdk.services.s3.S3Client;
  * @author dvindas
  */
 @Configuration
+@EnableConfigurationProperties(S3ToolboxProperties.class)
 public class S3Config {
 
     @Bean
-    public S3Client s3Client() {
+    public S3Client s3Client(final S3ToolboxProperties properties, final ObjectProvider<S3RateLimiter> rateLimiter,
+                             final S3RequestMetrics requestMetrics, final S3HttpClientMetrics httpClientMetrics) {
+        final var client = properties.getClient();
         return S3Client.builder()
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(client.getMaxConnections())
+                        .connectionTimeout(client.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(client.getConnectionAcquisitionTimeout())
+                        .connectionTimeToLive(client.getConnectionTimeToLive())
+                        .connectionMaxIdleTime(client.getConnectionMaxIdleTime())
+                        .socketTimeout(client.getSocketTimeout()))
+                .overrideConfiguration(overrideConfiguration(client, rateLimiter, requestMetrics, httpClientMetrics))
                 .build();
     }
 
-}
\ No newline at end of file
+    /**
+     * Only created on first use by query_s3_object, since SelectObjectContent is not available on the blocking
+     * client.
+     */
+    @Bean
+    @Lazy
+    public S3AsyncClient s3AsyncClient(final S3ToolboxProperties properties,
+                                       final ObjectProvider<S3RateLimiter> rateLimiter,
+                                       final S3RequestMetrics requestMetrics,
+                                       final S3HttpClientMetrics httpClientMetrics) {
+        final var client = properties.getClient();
+        return S3AsyncClient.builder()
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(client.getMaxConcurrency())
+                        .maxPendingConnectionAcquires(client.getMaxPendingConnectionAcquires())
+                        .connectionTimeout(client.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(client.getConnectionAcquisitionTimeout())
+                        .connectionTimeToLive(client.getConnectionTimeToLive())
+                        .connectionMaxIdleTime(client.getConnectionMaxIdleTime())
+                        .readTimeout(client.getSocketTimeout())
+                        .writeTimeout(client.getSocketTimeout()))
+                .overrideConfiguration(overrideConfiguration(client, rateLimiter, requestMetrics, httpClientMetrics))
+                .build();
+    }
+
+    /**
+     * Shared by both clients, so the query client paces the same prefixes as the tool client.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "s3-toolbox.rate-limit", name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public S3RateLimiter s3RateLimiter(final S3ToolboxProperties properties, final MeterRegistry registry) {
+        return new S3RateLimiter(properties.getRateLimit(), registry);
+    }
+
+    private static ClientOverrideConfiguration overrideConfiguration(final S3ToolboxProperties.Client client,
+                                                                     final ObjectProvider<S3RateLimiter> rateLimiter,
+                                                                     final S3RequestMetrics requestMetrics,
+                                                                     final S3HttpClientMetrics httpClientMetrics) {
+        final var builder = ClientOverrideConfiguration.builder()
+                .apiCallTimeout(client.getApiCallTimeout())
+                .retryStrategy(AwsRetryStrategy.forRetryMode(client.getRetryMode()).toBuilder()
+                        .maxAttempts(client.getMaxAttempts())
+                        .backoffStrategy(BackoffStrategy.exponentialDelay(client.getRetryBaseDelay(),
+                                client.getMaxBackoff()))
+                        .throttlingBackoffStrategy(BackoffStrategy.exponentialDelay(client.getThrottlingBaseDelay(),
+                                client.getMaxBackoff()))
+                        .build());
+        // Added first, so the request metrics do not count the time spent waiting for the rate limit
+        rateLimiter.ifAvailable(builder::addExecutionInterceptor);
+        return builder
+                .addExecutionInterceptor(requestMetrics)
+                .addMetricPublisher(httpClientMetrics)
+                .build();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.github.dvindas.mcpserver.s3toolbox.config;
+
+import com.github.dvindas.mcpserver.s3toolbox.tool.S3Tool;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Reflection hints for a native image. Tool arguments and results are bound by Jackson and their JSON schema is
+ * generated from the method signatures, so every type reachable from an {@link Tool @Tool} method of {@link S3Tool}
+ * is registered for binding; new tools are covered without touching this class. The AWS SDK ships its own native
+ * image configuration.
+ *
+ * @author dvindas
+ */
+public class S3ToolRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(final RuntimeHints hints, final ClassLoader classLoader) {
+        hints.reflection().registerType(S3Tool.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        Arrays.stream(S3Tool.class.getMethods())
+                .filter(method -> method.isAnnotationPresent(Tool.class))
+                .flatMap(method -> Stream.concat(Stream.of(method.getGenericReturnType()),
+                        Arrays.stream(method.getGenericParameterTypes())))
+                // The tool context is passed in by Spring AI, not bound from the arguments
+                .filter(type -> type != ToolContext.class)
+                .forEach(type -> bindingRegistrar.registerReflectionHints(hints.reflection(), type));
+    }
+
+}
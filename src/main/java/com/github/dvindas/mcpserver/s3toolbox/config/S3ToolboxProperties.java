@@ -0,0 +1,489 @@
+package com.github.dvindas.mcpserver.s3toolbox.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.retry.RetryMode;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tunables of the S3 toolbox, bound from the {@code s3-toolbox.*} properties.
+ *
+ * @author dvindas
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "s3-toolbox")
+public class S3ToolboxProperties {
+
+    private final Client client = new Client();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Executor executor = new Executor();
+    private final Listing listing = new Listing();
+    private final Metadata metadata = new Metadata();
+    private final Get get = new Get();
+    private final Transfer transfer = new Transfer();
+    private final UploadSession uploadSession = new UploadSession();
+    private final Batch batch = new Batch();
+    private final Copy copy = new Copy();
+    private final Sync sync = new Sync();
+    private final Archive archive = new Archive();
+    private final Query query = new Query();
+    private final Index index = new Index();
+    private final Resources resources = new Resources();
+    private final Cache cache = new Cache();
+    private final ContentCache contentCache = new ContentCache();
+    private final Metrics metrics = new Metrics();
+    private final Http http = new Http();
+
+    public enum ExecutorType {
+        VIRTUAL, FIXED
+    }
+
+    @Getter
+    @Setter
+    public static class Client {
+
+        /**
+         * Connection pool size of the blocking client.
+         */
+        private int maxConnections = 50;
+
+        /**
+         * Maximum number of concurrent requests (and connections) of the async client used by S3 Select queries.
+         */
+        private int maxConcurrency = 50;
+
+        /**
+         * Query requests allowed to wait for a connection of the async client before failing fast.
+         */
+        private int maxPendingConnectionAcquires = 10_000;
+
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+        private Duration connectionAcquisitionTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Pooled connections are closed after this age so DNS changes are picked up. Zero keeps them forever.
+         */
+        private Duration connectionTimeToLive = Duration.ZERO;
+        private Duration connectionMaxIdleTime = Duration.ofSeconds(60);
+        private Duration socketTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Upper bound of a whole API call including retries. Unset means no limit.
+         */
+        private Duration apiCallTimeout;
+
+        /**
+         * Retry strategy of both clients. {@code adaptive_v2} also delays new requests once S3 starts throttling.
+         */
+        private RetryMode retryMode = RetryMode.ADAPTIVE_V2;
+
+        /**
+         * Attempts per API call, including the first one.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Base delay of the jittered exponential backoff between attempts.
+         */
+        private Duration retryBaseDelay = Duration.ofMillis(100);
+
+        /**
+         * Base delay after a throttling error such as 503 SlowDown, longer so the prefix gets time to scale.
+         */
+        private Duration throttlingBaseDelay = Duration.ofSeconds(1);
+
+        private Duration maxBackoff = Duration.ofSeconds(20);
+    }
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+
+        /**
+         * Paces requests per bucket and key prefix on the client, before S3 answers with 503 SlowDown.
+         */
+        private boolean enabled = true;
+
+        /**
+         * GET, HEAD, LIST and SELECT requests per second to one prefix; S3 supports 5,500 per partitioned prefix.
+         */
+        private int readsPerSecond = 5500;
+
+        /**
+         * PUT, COPY, POST and DELETE requests per second to one prefix; S3 supports 3,500 per partitioned prefix.
+         */
+        private int writesPerSecond = 3500;
+
+        /**
+         * Leading '/'-separated segments of a key that make up its prefix, e.g. 1 puts 'logs/a/b.gz' in 'logs/'.
+         */
+        private int prefixDepth = 1;
+
+        /**
+         * Factor applied to the rate of a prefix each time S3 answers with SlowDown.
+         */
+        private double backoffFactor = 0.5;
+
+        /**
+         * Time a throttled prefix takes to climb back linearly from zero to its full rate.
+         */
+        private Duration recoveryTime = Duration.ofSeconds(30);
+
+        /**
+         * Lowest rate a throttled prefix is slowed down to, per second.
+         */
+        private int minPerSecond = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Executor {
+
+        /**
+         * {@code virtual} starts a virtual thread per task; {@code fixed} uses a pool of {@code pool-size} threads.
+         */
+        private ExecutorType type = ExecutorType.VIRTUAL;
+
+        private int poolSize = 32;
+
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Listing {
+
+        /**
+         * Maximum number of ListObjectsV2 requests in flight for a single sharded listing.
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * The keyspace is split by delimiter until at least this many shards exist (or the depth limit is reached).
+         */
+        private int targetShards = 64;
+
+        /**
+         * Maximum number of delimiter levels explored while splitting the keyspace.
+         */
+        private int maxShardDepth = 3;
+
+        /**
+         * Largest shards listed in a summarize_s3_prefix response; the totals always cover every shard.
+         */
+        private int maxReportedShards = 100;
+
+        private String delimiter = "/";
+    }
+
+    @Getter
+    @Setter
+    public static class Metadata {
+
+        /**
+         * Skips the GetObjectAttributes round trip and takes the storage class from HeadObject, which omits it for
+         * STANDARD objects.
+         */
+        private boolean headOnly = false;
+
+        /**
+         * HeadObject requests in flight for a single get_s3_objects_metadata call.
+         */
+        private int maxConcurrency = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Get {
+
+        /**
+         * Largest body returned inline by get_s3_object; bigger objects must be read by range or in chunks.
+         */
+        private DataSize maxInlineSize = DataSize.ofMegabytes(10);
+
+        /**
+         * Chunk size used by get_s3_object_chunk when the caller does not pass one. Capped at the inline limit.
+         */
+        private DataSize defaultChunkSize = DataSize.ofMegabytes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Transfer {
+
+        /**
+         * Size of each ranged GET of a parallel download.
+         */
+        private DataSize partSize = DataSize.ofMegabytes(8);
+
+        /**
+         * Uploads larger than this are sent as a multipart upload instead of a single PUT.
+         */
+        private DataSize multipartThreshold = DataSize.ofMegabytes(16);
+
+        /**
+         * Parts transferred concurrently for a single object.
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * Buffer used to copy each part between the network and the file.
+         */
+        private DataSize bufferSize = DataSize.ofKilobytes(64);
+
+        /**
+         * When set, local paths used by transfer tools must resolve inside this directory.
+         */
+        private Path localRoot;
+    }
+
+    @Getter
+    @Setter
+    public static class UploadSession {
+
+        /**
+         * Sessions without an append for this long are aborted together with their multipart upload.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Sessions open at the same time; each holds one part-sized off-heap buffer.
+         */
+        private int maxSessions = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * DeleteObjects requests, of up to 1000 keys each, in flight for a single batch delete.
+         */
+        private int maxConcurrency = 4;
+
+        /**
+         * Per-key errors included in a batch response; further errors are only counted.
+         */
+        private int maxReportedErrors = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Copy {
+
+        /**
+         * Objects copied concurrently by copy_s3_prefix and move_s3_prefix. Each copy of a large object also waits for
+         * its parts, so with the fixed executor this should stay well below the pool size.
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * Objects larger than this are copied with parallel UploadPartCopy requests; CopyObject accepts at most 5GB.
+         */
+        private DataSize multipartThreshold = DataSize.ofGigabytes(5);
+
+        /**
+         * Size of each UploadPartCopy request, raised when needed to stay within the 10,000 part limit.
+         */
+        private DataSize partSize = DataSize.ofMegabytes(256);
+
+        /**
+         * How often a prefix copy reports its progress to the client.
+         */
+        private Duration progressInterval = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Sync {
+
+        /**
+         * Files checked or transferred concurrently by sync_s3_prefix; each large file is also split into parts.
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * How often a sync reports its progress to the client.
+         */
+        private Duration progressInterval = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+
+        /**
+         * Objects fetched ahead of the one being compressed by download_s3_prefix_archive.
+         */
+        private int prefetchObjects = 4;
+
+        /**
+         * Bytes of each prefetched object held in memory; the rest of a larger object is streamed when its turn
+         * comes, so an archive never holds more than {@code prefetch-objects} times this size.
+         */
+        private DataSize prefetchSize = DataSize.ofMegabytes(4);
+
+        /**
+         * Archive bytes returned by one call when no local path is given, and buffered ahead of the next call.
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(1);
+
+        /**
+         * Deflate level from 0 (store) to 9 (smallest).
+         */
+        private int compressionLevel = 6;
+
+        /**
+         * How often an archive written to a local file reports its progress to the client.
+         */
+        private Duration progressInterval = Duration.ofSeconds(2);
+
+        /**
+         * Chunked archives not read for this long are cancelled.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Chunked archives open at the same time.
+         */
+        private int maxSessions = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Query {
+
+        /**
+         * Total size of the rows returned by one query_s3_object call; the query stops once it is reached.
+         */
+        private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+
+        /**
+         * Longer lines and records are matched and returned cut to this length.
+         */
+        private DataSize maxLineLength = DataSize.ofKilobytes(64);
+
+        /**
+         * Object bytes a local scan reads before it stops and returns the rows found so far.
+         */
+        private DataSize maxScanSize = DataSize.ofGigabytes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        /**
+         * Directory holding the key index files of find_s3_objects, one per bucket and prefix. Files younger than
+         * {@code max-age} are reused after a restart.
+         */
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "s3-toolbox-key-index");
+
+        /**
+         * An index older than this is listed again from scratch, which picks up changes made outside this server.
+         * Changes made through this server only relist the prefixes they touched.
+         */
+        private Duration maxAge = Duration.ofMinutes(15);
+
+        /**
+         * Total size of the index files kept by this server. Beyond it the least recently queried indexes are dropped
+         * and their files deleted; expired ones are dropped regardless.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+
+        /**
+         * Keys per front-coded block; larger blocks are smaller on disk but decode more keys to reach a prefix.
+         */
+        private int blockSize = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class Resources {
+
+        /**
+         * Objects kept registered as MCP resources by get_s3_object_resource; the least recently requested one is
+         * removed beyond this count.
+         */
+        private int maxRegistered = 256;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Serves repeated bucket, listing and metadata lookups from memory instead of S3.
+         */
+        private boolean enabled = true;
+
+        private Duration bucketsTtl = Duration.ofMinutes(5);
+        private Duration listingTtl = Duration.ofSeconds(30);
+        private Duration metadataTtl = Duration.ofSeconds(60);
+
+        /**
+         * Metadata entries kept at most; the least valuable ones are evicted first (W-TinyLFU).
+         */
+        private long maxMetadataEntries = 10_000;
+
+        /**
+         * Estimated heap size of the cached listings.
+         */
+        private DataSize maxListingSize = DataSize.ofMegabytes(32);
+    }
+
+    @Getter
+    @Setter
+    public static class ContentCache {
+
+        /**
+         * Keeps the bodies returned by get_s3_object on local disk and revalidates them with a conditional GET.
+         * Requires {@code s3-toolbox.cache.enabled}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory shared by the caches of all processes. Each process uses its own subdirectory and deletes it at
+         * shutdown; the ones left by processes that are no longer running are deleted at startup.
+         */
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "s3-toolbox-content-cache");
+
+        /**
+         * Disk space used by cached objects; the least recently read ones are evicted first.
+         */
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /**
+         * File the Prometheus text exposition of all meters is written to. Unset disables the export.
+         */
+        private Path exportFile;
+
+        private Duration exportInterval = Duration.ofSeconds(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+
+        /**
+         * Messages of one MCP session handled at the same time when serving over HTTP/SSE; further ones wait.
+         */
+        private int maxConcurrentCallsPerSession = 8;
+
+        /**
+         * How long a message waits for a slot of its session before it is rejected with 429.
+         */
+        private Duration sessionQueueTimeout = Duration.ofSeconds(30);
+    }
+
+}
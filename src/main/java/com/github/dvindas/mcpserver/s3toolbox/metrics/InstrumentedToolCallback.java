@@ -0,0 +1,120 @@
+package com.github.dvindas.mcpserver.s3toolbox.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.dvindas.mcpserver.s3toolbox.tool.S3ThrottledException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times every call of an MCP tool as {@code s3.tool.calls}, tagged by tool, bucket and outcome ({@code success},
+ * {@code error} or {@code throttled}).
+ *
+ * @author dvindas
+ */
+public class InstrumentedToolCallback implements ToolCallback {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String NONE = "none";
+
+    private final ToolCallback delegate;
+    private final MeterRegistry registry;
+
+    public InstrumentedToolCallback(final ToolCallback delegate, final MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(final String toolInput) {
+        return timed(toolInput, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(final String toolInput, final ToolContext toolContext) {
+        return timed(toolInput, () -> delegate.call(toolInput, toolContext));
+    }
+
+    private String timed(final String toolInput, final Supplier<String> call) {
+        final var startedAt = System.nanoTime();
+        var outcome = "error";
+        try {
+            final var result = call.get();
+            outcome = "success";
+            return result;
+        } catch (S3ThrottledException e) {
+            outcome = "throttled";
+            throw e;
+        } finally {
+            Timer.builder("s3.tool.calls")
+                    .tag("tool", delegate.getToolDefinition().name())
+                    .tag("bucket", bucketOf(toolInput))
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Every bucket-scoped tool names its bucket {@code bucketName}, either as an argument or inside a request object.
+     * The input is streamed and left as soon as the bucket is found, so large payloads such as the Base64 content of
+     * an upload are skipped over instead of being copied into a tree.
+     */
+    static String bucketOf(final String toolInput) {
+        if (toolInput == null) {
+            return NONE;
+        }
+        try (var parser = JSON_FACTORY.createParser(toolInput)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return NONE;
+            }
+            final var bucketName = findBucketName(parser, true);
+            return bucketName == null || bucketName.isEmpty() ? NONE : bucketName;
+        } catch (Exception e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Looks for {@code bucketName} among the fields of the object the parser is in, and of its object fields when
+     * {@code nested}.
+     */
+    private static String findBucketName(final JsonParser parser, final boolean nested) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var field = parser.currentName();
+            final var value = parser.nextToken();
+            if ("bucketName".equals(field) && value == JsonToken.VALUE_STRING) {
+                return parser.getText();
+            }
+            if (nested && value == JsonToken.START_OBJECT) {
+                final var bucketName = findBucketName(parser, false);
+                if (bucketName != null) {
+                    return bucketName;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+}
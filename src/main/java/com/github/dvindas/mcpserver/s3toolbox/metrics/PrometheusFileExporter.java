@@ -0,0 +1,69 @@
+package com.github.dvindas.mcpserver.s3toolbox.metrics;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the Prometheus text exposition of all meters to {@code s3-toolbox.metrics.export-file} every
+ * {@code export-interval}, and once more at shutdown. The server speaks MCP over stdio and has no HTTP endpoint to
+ * scrape, so the file is meant for the node_exporter textfile collector or for reading by hand. Each export replaces
+ * the file atomically, so readers never see a partial one.
+ *
+ * @author dvindas
+ */
+@Component
+@ConditionalOnProperty(name = "s3-toolbox.metrics.export-file")
+@Slf4j
+public class PrometheusFileExporter {
+
+    private final PrometheusMeterRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    public PrometheusFileExporter(final PrometheusMeterRegistry registry, final S3ToolboxProperties properties)
+            throws IOException {
+        this.registry = registry;
+        this.file = properties.getMetrics().getExportFile().toAbsolutePath();
+        Files.createDirectories(file.getParent());
+
+        final var interval = properties.getMetrics().getExportInterval().toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("metrics-export").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::export, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        export();
+    }
+
+    void export() {
+        try {
+            final var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(temporary, registry.scrape(), StandardCharsets.UTF_8);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keeps the schedule alive; the next export tries again
+            log.warn("Could not export metrics to '{}': {}", file, e.getMessage());
+        }
+    }
+
+}
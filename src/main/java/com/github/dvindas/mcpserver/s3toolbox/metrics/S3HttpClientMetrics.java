@@ -0,0 +1,81 @@
+package com.github.dvindas.mcpserver.s3toolbox.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns the connection pool figures the SDK reports with every request into gauges per HTTP client
+ * ({@code s3.http.connections.leased}, {@code .available}, {@code .pending}, {@code .max}) and a timer of the time
+ * spent waiting for a connection ({@code s3.http.connections.acquire}). The gauges show the state seen by the most
+ * recent request.
+ *
+ * @author dvindas
+ */
+public class S3HttpClientMetrics implements MetricPublisher {
+
+    private final MeterRegistry registry;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public S3HttpClientMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void publish(final MetricCollection metricCollection) {
+        if (metricCollection.name().equals("HttpClient")) {
+            final var clientName = first(metricCollection.metricValues(HttpMetric.HTTP_CLIENT_NAME));
+            final var pool = pools.computeIfAbsent(clientName == null ? "unknown" : clientName, this::register);
+            update(pool.leased, metricCollection, HttpMetric.LEASED_CONCURRENCY);
+            update(pool.available, metricCollection, HttpMetric.AVAILABLE_CONCURRENCY);
+            update(pool.pending, metricCollection, HttpMetric.PENDING_CONCURRENCY_ACQUIRES);
+            update(pool.max, metricCollection, HttpMetric.MAX_CONCURRENCY);
+            metricCollection.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION).forEach(pool.acquire::record);
+        }
+        metricCollection.children().forEach(this::publish);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Pool register(final String clientName) {
+        final var pool = new Pool(new AtomicInteger(), new AtomicInteger(), new AtomicInteger(), new AtomicInteger(),
+                Timer.builder("s3.http.connections.acquire").tag("client", clientName).register(registry));
+        gauge("s3.http.connections.leased", clientName, pool.leased);
+        gauge("s3.http.connections.available", clientName, pool.available);
+        gauge("s3.http.connections.pending", clientName, pool.pending);
+        gauge("s3.http.connections.max", clientName, pool.max);
+        return pool;
+    }
+
+    private void gauge(final String name, final String clientName, final AtomicInteger value) {
+        Gauge.builder(name, value, AtomicInteger::get).tag("client", clientName).register(registry);
+    }
+
+    private static void update(final AtomicInteger gauge, final MetricCollection metricCollection,
+                               final SdkMetric<Integer> metric) {
+        final var value = first(metricCollection.metricValues(metric));
+        if (value != null) {
+            gauge.set(value);
+        }
+    }
+
+    private static <T> T first(final List<T> values) {
+        return values.isEmpty() ? null : values.getFirst();
+    }
+
+    private record Pool(AtomicInteger leased, AtomicInteger available, AtomicInteger pending, AtomicInteger max,
+                        Timer acquire) {
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.github.dvindas.mcpserver.s3toolbox.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.SdkHttpHeaders;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every S3 API call made through the clients, tagged by operation and bucket:
+ * <ul>
+ *     <li>{@code s3.client.requests}: call latency including retries, with outcome and final HTTP status</li>
+ *     <li>{@code s3.client.retries}: attempts beyond the first</li>
+ *     <li>{@code s3.client.throttled}: attempts answered with 503 SlowDown or 429</li>
+ *     <li>{@code s3.client.bytes}: payload sizes sent and received, from the request and response headers</li>
+ * </ul>
+ *
+ * @author dvindas
+ */
+public class S3RequestMetrics implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> STARTED_AT = new ExecutionAttribute<>("S3RequestMetrics.startedAt");
+    private static final ExecutionAttribute<Integer> ATTEMPTS = new ExecutionAttribute<>("S3RequestMetrics.attempts");
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    public S3RequestMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void beforeExecution(final Context.BeforeExecution context, final ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(STARTED_AT, System.nanoTime());
+        executionAttributes.putAttribute(ATTEMPTS, 0);
+    }
+
+    @Override
+    public void beforeTransmission(final Context.BeforeTransmission context,
+                                   final ExecutionAttributes executionAttributes) {
+        final var attempts = executionAttributes.getAttribute(ATTEMPTS) + 1;
+        executionAttributes.putAttribute(ATTEMPTS, attempts);
+        final var tags = tags(context.request(), executionAttributes);
+        if (attempts > 1) {
+            Counter.builder("s3.client.retries").tags(tags).register(registry).increment();
+        }
+        recordBytes(context.httpRequest(), tags.and("direction", "sent"));
+    }
+
+    @Override
+    public void afterTransmission(final Context.AfterTransmission context,
+                                  final ExecutionAttributes executionAttributes) {
+        final var tags = tags(context.request(), executionAttributes);
+        final var statusCode = context.httpResponse().statusCode();
+        if (statusCode == 503 || statusCode == 429) {
+            Counter.builder("s3.client.throttled").tags(tags).register(registry).increment();
+        }
+        // The Content-Length of a HEAD response describes the object, not bytes on the wire
+        if (context.httpRequest().method() != SdkHttpMethod.HEAD) {
+            recordBytes(context.httpResponse(), tags.and("direction", "received"));
+        }
+    }
+
+    @Override
+    public void afterExecution(final Context.AfterExecution context, final ExecutionAttributes executionAttributes) {
+        record(context.request(), executionAttributes, "success", context.httpResponse().statusCode());
+    }
+
+    @Override
+    public void onExecutionFailure(final Context.FailedExecution context,
+                                   final ExecutionAttributes executionAttributes) {
+        final var statusCode = context.exception() instanceof SdkServiceException serviceException
+                ? serviceException.statusCode()
+                : context.httpResponse().map(SdkHttpResponse::statusCode).orElse(0);
+        record(context.request(), executionAttributes, "error", statusCode);
+    }
+
+    private void record(final SdkRequest request, final ExecutionAttributes executionAttributes,
+                        final String outcome, final int statusCode) {
+        final var startedAt = executionAttributes.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        Timer.builder("s3.client.requests")
+                .tags(tags(request, executionAttributes))
+                .tag("outcome", outcome)
+                .tag("status", statusCode == 0 ? NONE : String.valueOf(statusCode))
+                .register(registry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Streaming uploads are sent with {@code aws-chunked} encoding, where only the decoded length is the payload.
+     */
+    private void recordBytes(final SdkHttpHeaders headers, final Tags tags) {
+        headers.firstMatchingHeader("x-amz-decoded-content-length")
+                .or(() -> headers.firstMatchingHeader("Content-Length"))
+                .map(Long::parseLong)
+                .filter(bytes -> bytes > 0)
+                .ifPresent(bytes -> DistributionSummary.builder("s3.client.bytes")
+                        .baseUnit("bytes")
+                        .tags(tags)
+                        .register(registry)
+                        .record(bytes));
+    }
+
+    private static Tags tags(final SdkRequest request, final ExecutionAttributes executionAttributes) {
+        final var operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        return Tags.of("operation", operation == null ? NONE : operation,
+                "bucket", request.getValueForField("Bucket", String.class).orElse(NONE));
+    }
+
+}
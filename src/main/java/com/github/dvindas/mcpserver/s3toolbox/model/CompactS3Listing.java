@@ -0,0 +1,19 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * Keys of a listing grouped by directory, each directory written once. The key of a name is
+ * {@code prefix + dir + name}. With {@code deltaEncoded}, every name is written as {@code <n>:<rest>}: the first n
+ * characters of the previous name of its group followed by {@code rest}. A directory can show up in more than one
+ * group, since S3 sorts {@code a/b.txt} before {@code a/b/c.txt} and {@code a/c.txt} after it.
+ *
+ * @author dvindas
+ */
+public record CompactS3Listing(String bucketName, String prefix, int count, boolean truncated, boolean deltaEncoded,
+                               List<KeyGroup> groups) {
+
+    public record KeyGroup(String dir, List<String> names) {
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * Outcome of a server-side copy. {@code parts} is 0 when the object was copied with a single CopyObject request.
+ *
+ * @author dvindas
+ */
+public record CopyS3ObjectResponse(String bucketName, String key, String destinationBucketName,
+                                   String destinationKey, String eTag, long size, int parts, long elapsedMillis) {
+}
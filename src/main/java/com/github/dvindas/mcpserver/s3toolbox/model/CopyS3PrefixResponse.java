@@ -0,0 +1,16 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a prefix copy or move. {@code deleted} counts the source objects removed by a move, which only deletes
+ * objects that were copied. {@code sampleKeys} lists the first matched keys of a dry run; {@code errors} holds at most
+ * the first {@code s3-toolbox.batch.max-reported-errors} failures while {@code failed} counts all of them.
+ *
+ * @author dvindas
+ */
+public record CopyS3PrefixResponse(String bucketName, String prefix, String destinationBucketName,
+                                   String destinationPrefix, boolean move, boolean dryRun, long matched, long copied,
+                                   long bytesCopied, long deleted, long failed, List<String> sampleKeys,
+                                   List<S3CopyError> errors, long elapsedMillis) {
+}
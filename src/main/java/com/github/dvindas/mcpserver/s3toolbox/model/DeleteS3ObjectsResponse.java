@@ -0,0 +1,14 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch delete. {@code sampleKeys} lists the first matched keys of a dry run; {@code errors} holds at
+ * most the first {@code s3-toolbox.batch.max-reported-errors} failures while {@code failed} counts all of them.
+ *
+ * @author dvindas
+ */
+public record DeleteS3ObjectsResponse(String bucketName, String prefix, boolean dryRun, long matched, long deleted,
+                                      long failed, int batches, List<String> sampleKeys, List<S3DeleteError> errors,
+                                      long elapsedMillis) {
+}
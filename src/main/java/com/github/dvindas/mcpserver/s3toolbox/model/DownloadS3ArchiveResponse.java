@@ -0,0 +1,11 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * @author dvindas
+ */
+public record DownloadS3ArchiveResponse(String bucketName, String prefix, String format, String path, byte[] content,
+                                        long offset, String nextCursor, long entries, long objectBytes,
+                                        long archiveBytes, List<S3CopyError> errors, long elapsedMillis) {
+}
@@ -0,0 +1,8 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * @author dvindas
+ */
+public record DownloadS3ObjectResponse(String path, long bytes, int parts, int partsResumed, long elapsedMillis,
+                                       String eTag, boolean verified, String verification) {
+}
@@ -0,0 +1,12 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author dvindas
+ */
+public record FindS3ObjectsResponse(String bucketName, String prefix, String pattern, List<String> keys,
+                                    long matched, long matchedBytes, boolean truncated, long scanned,
+                                    long indexedKeys, Instant indexBuiltAt, long elapsedMillis) {
+}
@@ -0,0 +1,11 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * Offsets and {@code totalSize} count decompressed bytes for compressed objects; {@code totalSize} is {@code -1} when
+ * such an object recorded no size and the last chunk was not reached yet.
+ *
+ * @author dvindas
+ */
+public record GetS3ObjectChunkResponse(String fileName, byte[] content, String contentType, String eTag, long offset,
+                                       long totalSize, String nextCursor) {
+}
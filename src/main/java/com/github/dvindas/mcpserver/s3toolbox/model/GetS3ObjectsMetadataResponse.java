@@ -0,0 +1,10 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * @author dvindas
+ */
+public record GetS3ObjectsMetadataResponse(String bucketName, List<S3ObjectMetadataResult> objects, int failed,
+                                           boolean truncated, long elapsedMillis) {
+}
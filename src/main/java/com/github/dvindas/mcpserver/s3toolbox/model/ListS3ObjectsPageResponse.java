@@ -0,0 +1,10 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * @author dvindas
+ */
+public record ListS3ObjectsPageResponse(List<S3ObjectSummary> objects, String nextContinuationToken,
+                                        boolean truncated) {
+}
@@ -18,8 +18,14 @@ public record PutS3ObjectRequest(
         @ToolParam(description = "MIME type of the file (e.g., 'application/pdf', 'image/png')")
         String contentType,
 
-        @ToolParam(description = "The file's binary content, provided as a Base64-encoded string and deserialized into a byte array.")
-        String base64Content
+        @ToolParam(description = "The file's binary content, provided as a Base64-encoded string. It is decoded while being uploaded, and large payloads are sent as a multipart upload.")
+        String base64Content,
+
+        @ToolParam(description = "Optional compression applied while uploading: 'gzip' or 'none' (default). Compressed objects record the codec in their metadata and are decompressed transparently when read, downloaded, archived or queried; ranged reads of them decompress from the start of the object. Worth it for text such as logs, JSON or CSV.", required = false)
+        String compression,
+
+        @ToolParam(description = "Optional checksum S3 computes and validates for the uploaded bytes: 'CRC32C', 'SHA256', 'CRC32', 'SHA1' or 'CRC64NVME'. Omit for the default CRC32.", required = false)
+        String checksumAlgorithm
 ) {
 
 }
\ No newline at end of file
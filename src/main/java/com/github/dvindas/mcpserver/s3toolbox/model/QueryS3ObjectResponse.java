@@ -0,0 +1,15 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * Rows of an object that matched a query_s3_object filter. {@code method} is {@code S3_SELECT} when the SQL expression
+ * ran inside S3 and {@code SCAN} when the object was streamed and matched line by line. {@code header} is the first
+ * line of a scanned CSV object. {@code truncated} is set when the row, response size or scan limit stopped the query
+ * before the end of the object; {@code bytesScanned} is null when S3 Select was stopped early and reported no stats.
+ *
+ * @author dvindas
+ */
+public record QueryS3ObjectResponse(String bucketName, String key, String method, String header, List<String> rows,
+                                    boolean truncated, Long bytesScanned, long bytesReturned, long elapsedMillis) {
+}
@@ -0,0 +1,7 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * @author dvindas
+ */
+public record S3CacheStats(String cache, long entries, long hits, long misses, double hitRate, long evictions) {
+}
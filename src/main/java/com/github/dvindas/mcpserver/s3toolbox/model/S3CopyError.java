@@ -0,0 +1,7 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * @author dvindas
+ */
+public record S3CopyError(String key, String code, String message) {
+}
@@ -0,0 +1,9 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * Metadata of one key of a batch lookup; {@code metadata} is null and {@code error} is set when the lookup failed.
+ *
+ * @author dvindas
+ */
+public record S3ObjectMetadataResult(String key, GetS3ObjectMetadataResponse metadata, String error) {
+}
@@ -0,0 +1,11 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * Reference to an object registered as an MCP resource; its content is read with {@code resources/read} on
+ * {@code uri} instead of being returned inline.
+ *
+ * @author dvindas
+ */
+public record S3ObjectResourceResponse(String uri, String bucketName, String key, String contentType, Long size,
+                                       String eTag) {
+}
@@ -0,0 +1,17 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Instant;
+
+/**
+ * @author dvindas
+ */
+public record S3ObjectSummary(String key, Long size, Instant lastModified, String eTag, String storageClass) {
+
+    public static S3ObjectSummary from(final S3Object s3Object) {
+        return new S3ObjectSummary(s3Object.key(), s3Object.size(), s3Object.lastModified(), s3Object.eTag(),
+                s3Object.storageClassAsString());
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * Totals of a prefix. {@code shards} holds the largest shards only, {@code shardsTruncated} tells whether some were
+ * left out; {@code shardCount} counts them all.
+ *
+ * @author dvindas
+ */
+public record S3PrefixSummaryResponse(String bucketName, String prefix, long objectCount, long totalBytes,
+                                      int shardCount, long elapsedMillis, List<S3PrefixUsage> shards,
+                                      boolean shardsTruncated) {
+}
@@ -0,0 +1,10 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * Usage of one listing shard: every key under {@code prefix}, or only those after {@code startAfter} when the
+ * prefix was too large to be listed in one page.
+ *
+ * @author dvindas
+ */
+public record S3PrefixUsage(String prefix, String startAfter, long objectCount, long totalBytes) {
+}
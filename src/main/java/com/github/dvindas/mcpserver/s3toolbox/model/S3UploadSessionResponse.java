@@ -0,0 +1,10 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.time.Instant;
+
+/**
+ * @author dvindas
+ */
+public record S3UploadSessionResponse(String sessionId, String bucketName, String key, long partSize,
+                                      long bytesReceived, int partsUploaded, Instant expiresAt) {
+}
@@ -0,0 +1,13 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+import java.util.List;
+
+/**
+ * @author dvindas
+ */
+public record SyncS3PrefixResponse(String localPath, String bucketName, String prefix, String direction,
+                                   boolean delete, boolean dryRun, long localFiles, long remoteObjects,
+                                   long unchanged, long changed, long extras, long transferred,
+                                   long bytesTransferred, long deleted, long failed,
+                                   List<String> sampleKeys, List<S3CopyError> errors, long elapsedMillis) {
+}
@@ -0,0 +1,8 @@
+package com.github.dvindas.mcpserver.s3toolbox.model;
+
+/**
+ * @author dvindas
+ */
+public record UploadS3ObjectResponse(String bucketName, String key, String eTag, long bytes, int parts,
+                                     long elapsedMillis) {
+}
@@ -0,0 +1,228 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes archive entries one after the other to a stream, without seeking back. Entries are declared with their size
+ * up front, which tar needs for its header and which both formats check once the entry is closed.
+ *
+ * @author dvindas
+ */
+abstract class ArchiveOutput implements Closeable {
+
+    private String name;
+    private long declaredSize;
+    private long written;
+
+    static ArchiveOutput of(final S3ArchiveService.Format format, final OutputStream output,
+                            final int compressionLevel) {
+        return switch (format) {
+            case ZIP -> new Zip(output, compressionLevel);
+            case TAR_GZ -> new TarGz(output, compressionLevel);
+        };
+    }
+
+    final void putEntry(final String name, final long size, final Instant lastModified) throws IOException {
+        if (this.name != null) {
+            throw new IllegalStateException("Entry '%s' is still open".formatted(this.name));
+        }
+        this.name = name;
+        this.declaredSize = size;
+        this.written = 0;
+        beginEntry(name, size, lastModified == null ? Instant.EPOCH : lastModified);
+    }
+
+    final void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        written += length;
+        if (written > declaredSize) {
+            throw new IOException("Entry '%s' is longer than its %d bytes".formatted(name, declaredSize));
+        }
+        writeEntry(bytes, offset, length);
+    }
+
+    final void closeEntry() throws IOException {
+        if (written != declaredSize) {
+            throw new IOException("Entry '%s' ended after %d of its %d bytes".formatted(name, written, declaredSize));
+        }
+        endEntry(declaredSize);
+        name = null;
+    }
+
+    /**
+     * Writes the end of the archive and closes the underlying stream.
+     */
+    abstract void finish() throws IOException;
+
+    abstract void beginEntry(String name, long size, Instant lastModified) throws IOException;
+
+    abstract void writeEntry(byte[] bytes, int offset, int length) throws IOException;
+
+    abstract void endEntry(long size) throws IOException;
+
+    /**
+     * Deflated entries followed by data descriptors, switching to ZIP64 on its own for large entries and archives.
+     */
+    private static final class Zip extends ArchiveOutput {
+
+        private final ZipOutputStream zip;
+
+        Zip(final OutputStream output, final int compressionLevel) {
+            this.zip = new ZipOutputStream(output, StandardCharsets.UTF_8);
+            this.zip.setLevel(compressionLevel);
+        }
+
+        @Override
+        void beginEntry(final String name, final long size, final Instant lastModified) throws IOException {
+            final var entry = new ZipEntry(name);
+            entry.setLastModifiedTime(FileTime.from(lastModified));
+            zip.putNextEntry(entry);
+        }
+
+        @Override
+        void writeEntry(final byte[] bytes, final int offset, final int length) throws IOException {
+            zip.write(bytes, offset, length);
+        }
+
+        @Override
+        void endEntry(final long size) throws IOException {
+            zip.closeEntry();
+        }
+
+        @Override
+        void finish() throws IOException {
+            zip.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    /**
+     * POSIX ustar entries in a gzip stream. Names longer than the 100 bytes of a ustar header and sizes above its 8 GB
+     * limit are carried by a PAX extended header in front of the entry.
+     */
+    private static final class TarGz extends ArchiveOutput {
+
+        private static final int BLOCK = 512;
+        private static final int NAME_LENGTH = 100;
+        private static final long MAX_OCTAL_SIZE = 077777777777L;
+
+        private final GZIPOutputStream gzip;
+        private final byte[] header = new byte[BLOCK];
+
+        TarGz(final OutputStream output, final int compressionLevel) {
+            try {
+                this.gzip = new GZIPOutputStream(output, 64 * 1024) {
+                    {
+                        def.setLevel(compressionLevel);
+                    }
+                };
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        void beginEntry(final String name, final long size, final Instant lastModified) throws IOException {
+            final var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            final var mtime = lastModified.getEpochSecond();
+            if (nameBytes.length > NAME_LENGTH || size > MAX_OCTAL_SIZE) {
+                final var records = paxRecord("path", name) + paxRecord("size", Long.toString(size));
+                final var paxBytes = records.getBytes(StandardCharsets.UTF_8);
+                writeHeader("PaxHeader".getBytes(StandardCharsets.US_ASCII), paxBytes.length, mtime, (byte) 'x');
+                gzip.write(paxBytes);
+                pad(paxBytes.length);
+            }
+            writeHeader(nameBytes, Math.min(size, MAX_OCTAL_SIZE), mtime, (byte) '0');
+        }
+
+        @Override
+        void writeEntry(final byte[] bytes, final int offset, final int length) throws IOException {
+            gzip.write(bytes, offset, length);
+        }
+
+        @Override
+        void endEntry(final long size) throws IOException {
+            pad(size);
+        }
+
+        @Override
+        void finish() throws IOException {
+            // Two zero blocks mark the end of a tar archive
+            gzip.write(new byte[BLOCK * 2]);
+            gzip.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gzip.close();
+        }
+
+        private void writeHeader(final byte[] name, final long size, final long mtime, final byte type)
+                throws IOException {
+            Arrays.fill(header, (byte) 0);
+            // Readers use the PAX path when present, so a cut name only has to be a valid fallback
+            System.arraycopy(name, 0, header, 0, Math.min(name.length, NAME_LENGTH));
+            octal(0644, 100, 8);
+            octal(0, 108, 8);
+            octal(0, 116, 8);
+            octal(size, 124, 12);
+            octal(Math.max(0, mtime), 136, 12);
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            header[156] = type;
+            System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+            header[263] = '0';
+            header[264] = '0';
+
+            var checksum = 0L;
+            for (final var b : header) {
+                checksum += b & 0xFF;
+            }
+            octal(checksum, 148, 7);
+            header[155] = ' ';
+            gzip.write(header);
+        }
+
+        /**
+         * Zero-padded octal digits followed by a NUL, filling {@code length} bytes at {@code offset}.
+         */
+        private void octal(final long value, final int offset, final int length) {
+            final var digits = Long.toOctalString(value);
+            final var padded = "0".repeat(Math.max(0, length - 1 - digits.length())) + digits;
+            System.arraycopy(padded.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+            header[offset + length - 1] = 0;
+        }
+
+        private void pad(final long size) throws IOException {
+            final var remainder = (int) (size % BLOCK);
+            if (remainder != 0) {
+                gzip.write(new byte[BLOCK - remainder]);
+            }
+        }
+
+        /**
+         * A PAX record is "length key=value\n", where the length counts its own digits.
+         */
+        static String paxRecord(final String key, final String value) {
+            final var body = " " + key + "=" + value + "\n";
+            final var bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+            var length = bodyLength + Integer.toString(bodyLength).length();
+            if (Integer.toString(length).length() != Integer.toString(bodyLength).length()) {
+                length++;
+            }
+            return length + body;
+        }
+    }
+
+}
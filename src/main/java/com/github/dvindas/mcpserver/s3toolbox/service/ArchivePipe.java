@@ -0,0 +1,128 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size ring buffer between the thread writing an archive and the tool calls reading it chunk by chunk. The
+ * writer blocks while the buffer is full, so the archive is produced only as fast as it is read.
+ * {@link java.io.PipedInputStream} is not usable here: it fails once the thread that last read from it has ended,
+ * which is the case after every tool call.
+ *
+ * @author dvindas
+ */
+final class ArchivePipe {
+
+    private final byte[] buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+    private final Condition writable = lock.newCondition();
+
+    private int start;
+    private int count;
+    private boolean finished;
+    private boolean cancelled;
+    private Throwable failure;
+
+    ArchivePipe(final int capacity) {
+        this.buffer = new byte[Math.max(1, capacity)];
+    }
+
+    OutputStream output() {
+        return new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] bytes, int offset, int length) throws IOException {
+                lock.lock();
+                try {
+                    while (length > 0) {
+                        while (count == buffer.length && !cancelled) {
+                            writable.await();
+                        }
+                        if (cancelled) {
+                            throw new IOException("The archive download was cancelled");
+                        }
+                        final var end = (start + count) % buffer.length;
+                        final var copied = Math.min(length, Math.min(buffer.length - count, buffer.length - end));
+                        System.arraycopy(bytes, offset, buffer, end, copied);
+                        count += copied;
+                        offset += copied;
+                        length -= copied;
+                        readable.signalAll();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while writing the archive", e);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Marks the end of the archive, or its failure, for the reader.
+     */
+    void finish(final Throwable failure) {
+        lock.lock();
+        try {
+            this.finished = true;
+            this.failure = failure;
+            readable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the writer fail on its next write, for a reader that gave up.
+     */
+    void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            writable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads until {@code length} bytes are read or the archive ended.
+     *
+     * @return bytes read, fewer than {@code length} only at the end of the archive
+     */
+    int readFully(final byte[] bytes, final int length) throws IOException, InterruptedException {
+        var read = 0;
+        lock.lock();
+        try {
+            while (read < length) {
+                while (count == 0 && !finished) {
+                    readable.await();
+                }
+                if (count == 0) {
+                    if (failure != null) {
+                        throw new IOException("The archive could not be completed", failure);
+                    }
+                    break;
+                }
+                final var copied = Math.min(length - read, Math.min(count, buffer.length - start));
+                System.arraycopy(buffer, start, bytes, read, copied);
+                start = (start + copied) % buffer.length;
+                count -= copied;
+                read += copied;
+                writable.signalAll();
+            }
+            return read;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * Helpers for Base64 tool payloads that decode on the fly instead of materializing the decoded bytes.
+ *
+ * @author dvindas
+ */
+final class Base64Payloads {
+
+    private Base64Payloads() {
+    }
+
+    /**
+     * Number of bytes the payload decodes to, derived from its length and padding. Unpadded payloads are
+     * accepted, as the decoder does; only a length leaving a single trailing character is invalid.
+     */
+    static long decodedLength(final String base64) {
+        final var length = base64.length();
+        if (length == 0) {
+            return 0;
+        }
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException("Base64 content length %d is not a valid encoded length"
+                    .formatted(length));
+        }
+        var padding = 0;
+        if (base64.charAt(length - 1) == '=') {
+            padding++;
+            if (base64.charAt(length - 2) == '=') {
+                padding++;
+            }
+        }
+        return (long) length * 3 / 4 - padding;
+    }
+
+    /**
+     * Opens a stream of the decoded bytes, read straight from the payload string.
+     */
+    static InputStream open(final String base64) {
+        return Base64.getDecoder().wrap(new CharSequenceInputStream(base64));
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Streams the remaining bytes of a buffer, typically a memory-mapped file slice, without staging them on the heap.
+ *
+ * @author dvindas
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] target, final int offset, final int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        final var count = Math.min(length, buffer.remaining());
+        buffer.get(target, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectChunkResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.ListS3ObjectsPageResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CacheStats;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of the {@link S3ActionsService} that talks to S3. Bucket lists, listings and object
+ * metadata are kept for a short, per-operation TTL and evicted by Caffeine's W-TinyLFU policy once the size bounds
+ * are reached. Writes made through this server invalidate the affected entries through the
+ * {@link S3ObjectsChangedEvent} their service publishes; changes made by other S3 clients become visible when the TTL
+ * expires. Every event also bumps a per-bucket generation, and a load that started before the latest generation
+ * is returned to its caller but not kept, so a slow response read before a write cannot repopulate the cache.
+ * <p>
+ * When the {@link S3ObjectContentCache} is enabled, get_s3_object bodies are served through it as well.
+ *
+ * @author dvindas
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "s3-toolbox.cache.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CachingS3ActionsService implements S3ActionsService, MeterBinder {
+
+    private static final String BUCKETS_KEY = "buckets";
+
+    private final S3ActionsService delegate;
+    private final Cache<String, List<String>> buckets;
+    private final Cache<ListingKey, Object> listings;
+    private final Cache<ObjectKey, GetS3ObjectMetadataResponse> metadata;
+    private final Optional<S3ObjectContentCache> contentCache;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CachingS3ActionsService(@Qualifier(S3ActionsService.BACKEND) final S3ActionsService delegate,
+                                   final Optional<S3ObjectContentCache> contentCache,
+                                   final S3ToolboxProperties properties) {
+        final var cache = properties.getCache();
+        this.delegate = delegate;
+        this.contentCache = contentCache;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterWrite(cache.getBucketsTtl())
+                .maximumSize(1)
+                .recordStats()
+                .build();
+        this.listings = Caffeine.newBuilder()
+                .expireAfterWrite(cache.getListingTtl())
+                .maximumWeight(cache.getMaxListingSize().toBytes())
+                .weigher(CachingS3ActionsService::weigh)
+                .recordStats()
+                .build();
+        this.metadata = Caffeine.newBuilder()
+                .expireAfterWrite(cache.getMetadataTtl())
+                .maximumSize(cache.getMaxMetadataEntries())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<String> listBuckets() {
+        return buckets.get(BUCKETS_KEY, ignored -> List.copyOf(delegate.listBuckets()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> listObjects(final String bucketName, final String prefix) {
+        return (List<String>) load(listings, new ListingKey(Listing.KEYS, bucketName, prefix, null, null, null),
+                bucketName, () -> List.copyOf(delegate.listObjects(bucketName, prefix)));
+    }
+
+    @Override
+    public ListS3ObjectsPageResponse listObjectsPage(final String bucketName, final String prefix,
+                                                     final String continuationToken, final Integer pageSize,
+                                                     final Integer maxResults) {
+        return (ListS3ObjectsPageResponse) load(listings,
+                new ListingKey(Listing.PAGE, bucketName, prefix, continuationToken, pageSize, maxResults), bucketName,
+                () -> delegate.listObjectsPage(bucketName, prefix, continuationToken, pageSize, maxResults));
+    }
+
+    /**
+     * Not cached: the stream is consumed lazily and may cover far more objects than fit in memory.
+     */
+    @Override
+    public Stream<S3ObjectSummary> streamObjects(final String bucketName, final String prefix) {
+        return delegate.streamObjects(bucketName, prefix);
+    }
+
+    @Override
+    public GetS3ObjectMetadataResponse getObjectMetadata(final String bucketName, final String keyName) {
+        return load(metadata, new ObjectKey(bucketName, keyName), bucketName,
+                () -> delegate.getObjectMetadata(bucketName, keyName));
+    }
+
+    @Override
+    public PutS3ObjectResponse putObject(final PutS3ObjectRequest putS3ObjectRequest) {
+        return delegate.putObject(putS3ObjectRequest);
+    }
+
+    @Override
+    public GetS3ObjectResponse getObject(final String bucketName, final String key, final Long offset,
+                                         final Long length) {
+        return contentCache
+                .map(content -> content.getObject(bucketName, key, offset, length))
+                .orElseGet(() -> delegate.getObject(bucketName, key, offset, length));
+    }
+
+    @Override
+    public GetS3ObjectChunkResponse getObjectChunk(final String bucketName, final String key, final String cursor,
+                                                   final Integer chunkSize) {
+        return delegate.getObjectChunk(bucketName, key, cursor, chunkSize);
+    }
+
+    @Override
+    public void deleteObject(final String bucketName, final String keyName) {
+        delegate.deleteObject(bucketName, keyName);
+    }
+
+    @EventListener
+    public void onObjectsChanged(final S3ObjectsChangedEvent event) {
+        invalidate(event.bucketName(), event.prefix());
+    }
+
+    /**
+     * Drops the metadata of every key starting with {@code prefix} and every listing that could contain such a key.
+     */
+    void invalidate(final String bucketName, final String prefix) {
+        // Bumped before the removal, so a load that finishes in between still sees it and drops its own entry
+        generation(bucketName).incrementAndGet();
+        metadata.asMap().keySet().removeIf(key -> key.bucketName().equals(bucketName)
+                && key.key().startsWith(prefix));
+        listings.asMap().keySet().removeIf(key -> key.bucketName().equals(bucketName)
+                && overlaps(key.prefix(), prefix));
+        contentCache.ifPresent(content -> content.invalidate(bucketName, prefix));
+        log.debug("Invalidated cached entries of '{}/{}*'", bucketName, prefix);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, buckets, "s3-buckets");
+        CaffeineCacheMetrics.monitor(registry, listings, "s3-listings");
+        CaffeineCacheMetrics.monitor(registry, metadata, "s3-metadata");
+    }
+
+    public List<S3CacheStats> stats() {
+        final var caches = Stream.of(Map.entry("buckets", buckets), Map.entry("listings", listings),
+                        Map.entry("metadata", metadata))
+                .map(entry -> {
+                    final var stats = entry.getValue().stats();
+                    return new S3CacheStats(entry.getKey(), entry.getValue().estimatedSize(), stats.hitCount(),
+                            stats.missCount(), stats.hitRate(), stats.evictionCount());
+                });
+        return Stream.concat(caches, contentCache.map(S3ObjectContentCache::stats).stream()).toList();
+    }
+
+    /**
+     * Loads through Caffeine, so concurrent misses of one key still share a single load, and removes the loaded entry
+     * again if the bucket was invalidated while it was in flight.
+     */
+    private <K, V> V load(final Cache<K, V> cache, final K key, final String bucketName, final Supplier<V> loader) {
+        final var startedAt = new AtomicLong(-1);
+        final var value = cache.get(key, ignored -> {
+            startedAt.set(generation(bucketName).get());
+            return loader.get();
+        });
+        if (startedAt.get() >= 0 && startedAt.get() != generation(bucketName).get()) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private AtomicLong generation(final String bucketName) {
+        return generations.computeIfAbsent(bucketName, ignored -> new AtomicLong());
+    }
+
+    private static boolean overlaps(final String listingPrefix, final String changedPrefix) {
+        final var listed = listingPrefix == null ? "" : listingPrefix;
+        return listed.startsWith(changedPrefix) || changedPrefix.startsWith(listed);
+    }
+
+    /**
+     * Rough heap footprint of a cached listing, dominated by the UTF-16 keys.
+     */
+    private static int weigh(final ListingKey key, final Object value) {
+        final long bytes = switch (value) {
+            case ListS3ObjectsPageResponse page -> page.objects().stream()
+                    .mapToLong(object -> 96L + 2L * object.key().length())
+                    .sum();
+            case List<?> keys -> keys.stream()
+                    .mapToLong(listedKey -> 40L + 2L * listedKey.toString().length())
+                    .sum();
+            default -> 0;
+        };
+        return (int) Math.min(Integer.MAX_VALUE, 64 + bytes);
+    }
+
+    private enum Listing {
+        KEYS, PAGE
+    }
+
+    private record ListingKey(Listing listing, String bucketName, String prefix, String continuationToken,
+                              Integer pageSize, Integer maxResults) {
+    }
+
+    private record ObjectKey(String bucketName, String key) {
+    }
+
+}
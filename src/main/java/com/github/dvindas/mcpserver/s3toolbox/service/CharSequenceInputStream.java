@@ -0,0 +1,44 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.InputStream;
+
+/**
+ * Reads an ASCII character sequence such as a Base64 payload as bytes, without copying it into a byte array first.
+ *
+ * @author dvindas
+ */
+final class CharSequenceInputStream extends InputStream {
+
+    private final CharSequence source;
+    private int position;
+
+    CharSequenceInputStream(final CharSequence source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read() {
+        return position < source.length() ? source.charAt(position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= source.length()) {
+            return -1;
+        }
+        final var count = Math.min(length, source.length() - position);
+        for (var i = 0; i < count; i++) {
+            buffer[offset + i] = (byte) source.charAt(position++);
+        }
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return source.length() - position;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.CompactS3Listing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Encodes a sorted key listing as a {@link CompactS3Listing} in a single pass, so the full keys are never held.
+ * Listings share long prefixes, which the grouping writes once per directory and the delta encoding once per run of
+ * similar names.
+ *
+ * @author dvindas
+ */
+final class CompactKeyEncoder {
+
+    static final int DEFAULT_MAX_KEYS = 5_000;
+    static final int MAX_KEYS = 50_000;
+
+    private CompactKeyEncoder() {
+    }
+
+    static CompactS3Listing encode(final String bucketName, final String prefix, final Iterator<String> keys,
+                                   final boolean deltaEncoded, final int limit) {
+        final var base = prefix == null ? "" : prefix;
+        final var groups = new ArrayList<CompactS3Listing.KeyGroup>();
+        List<String> names = null;
+        String dir = null;
+        var previous = "";
+        var count = 0;
+
+        while (count < limit && keys.hasNext()) {
+            final var key = keys.next().substring(base.length());
+            final var slash = key.lastIndexOf('/');
+            final var keyDir = key.substring(0, slash + 1);
+            final var name = key.substring(slash + 1);
+            if (!keyDir.equals(dir)) {
+                dir = keyDir;
+                names = new ArrayList<>();
+                groups.add(new CompactS3Listing.KeyGroup(dir, names));
+                previous = "";
+            }
+            names.add(deltaEncoded ? delta(previous, name) : name);
+            previous = name;
+            count++;
+        }
+        return new CompactS3Listing(bucketName, base, count, keys.hasNext(), deltaEncoded, groups);
+    }
+
+    /**
+     * Full keys of a compact listing, in listing order.
+     */
+    static List<String> decode(final CompactS3Listing listing) {
+        final var keys = new ArrayList<String>(listing.count());
+        for (final var group : listing.groups()) {
+            var previous = "";
+            for (final var encoded : group.names()) {
+                var name = encoded;
+                if (listing.deltaEncoded()) {
+                    final var colon = encoded.indexOf(':');
+                    name = previous.substring(0, Integer.parseInt(encoded, 0, colon, 10)) + encoded.substring(colon + 1);
+                }
+                keys.add(listing.prefix() + group.dir() + name);
+                previous = name;
+            }
+        }
+        return keys;
+    }
+
+    private static String delta(final String previous, final String name) {
+        final var max = Math.min(previous.length(), name.length());
+        var shared = 0;
+        while (shared < max && previous.charAt(shared) == name.charAt(shared)) {
+            shared++;
+        }
+        // Never split a surrogate pair between the shared part and the rest
+        if (shared > 0 && Character.isHighSurrogate(name.charAt(shared - 1))) {
+            shared--;
+        }
+        return shared + ":" + name.substring(shared);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * @author dvindas
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for the future and rethrows the original exception instead of the {@link CompletionException} wrapper,
+     * so callers keep the same error handling as with a direct blocking call.
+     */
+    static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
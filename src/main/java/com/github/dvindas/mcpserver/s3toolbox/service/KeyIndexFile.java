@@ -0,0 +1,255 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, memory-mapped file of the keys under a prefix in S3 order, with the size of each object. Keys are
+ * front-coded in blocks: the first key of a block is stored in full and every other key as the number of bytes it
+ * shares with the previous key plus the rest, which shrinks a listing of similar keys to a fraction of its size. The
+ * first keys of the blocks are binary searched to start a scan at a prefix without decoding what comes before.
+ * <p>
+ * Layout: the blocks, one {@code int} offset per block, then a 24 byte trailer holding the key count, block count,
+ * block size, version and magic number. Lengths and sizes are unsigned varints.
+ *
+ * @author dvindas
+ */
+final class KeyIndexFile {
+
+    private static final int MAGIC = 0x53334B49;
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final int[] blockOffsets;
+    private final long count;
+
+    private KeyIndexFile(final ByteBuffer buffer, final int[] blockOffsets, final long count) {
+        this.buffer = buffer;
+        this.blockOffsets = blockOffsets;
+        this.count = count;
+    }
+
+    record Entry(String key, long size) {
+    }
+
+    static KeyIndexFile open(final Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed and after the file is replaced
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < TRAILER_SIZE || buffer.getInt(buffer.capacity() - 4) != MAGIC
+                    || buffer.getInt(buffer.capacity() - 8) != VERSION) {
+                throw new IOException("'%s' is not a key index".formatted(file));
+            }
+            final var trailer = buffer.capacity() - TRAILER_SIZE;
+            final var count = buffer.getLong(trailer);
+            final var blockCount = buffer.getInt(trailer + 8);
+            final var blockOffsets = new int[blockCount];
+            buffer.slice(trailer - blockCount * 4, blockCount * 4).asIntBuffer().get(blockOffsets);
+            return new KeyIndexFile(buffer, blockOffsets, count);
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Iterates the entries whose key starts with {@code prefix}, in S3 order.
+     */
+    Iterator<Entry> scan(final String prefix) {
+        final var prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        return new Iterator<>() {
+            private final Cursor cursor = new Cursor(firstBlockFor(prefixBytes));
+            private Entry next = advance();
+
+            private Entry advance() {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    if (cursor.startsWith(prefixBytes)) {
+                        return new Entry(cursor.key(), cursor.size);
+                    }
+                    if (cursor.compareTo(prefixBytes) > 0) {
+                        // Past the range of keys starting with the prefix
+                        return null;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                final var current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Last block whose first key sorts before or at the prefix; keys starting with the prefix cannot be earlier.
+     */
+    private int firstBlockFor(final byte[] prefix) {
+        var low = 0;
+        var high = blockOffsets.length - 1;
+        var found = 0;
+        while (low <= high) {
+            final var middle = (low + high) >>> 1;
+            final var cursor = new Cursor(middle);
+            cursor.next();
+            if (cursor.compareTo(prefix) <= 0) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Decodes entries one after the other into a reused key buffer, so skipping an entry allocates nothing.
+     */
+    private final class Cursor {
+
+        private final ByteBuffer input;
+        private final int end;
+        private byte[] key = new byte[256];
+        private int keyLength;
+        private long size;
+
+        Cursor(final int block) {
+            input = buffer.duplicate();
+            end = buffer.capacity() - TRAILER_SIZE - blockOffsets.length * 4;
+            input.position(blockOffsets.length == 0 ? end : blockOffsets[block]);
+        }
+
+        boolean hasNext() {
+            return input.position() < end;
+        }
+
+        void next() {
+            final var shared = (int) readVarLong(input);
+            final var suffix = (int) readVarLong(input);
+            if (shared + suffix > key.length) {
+                key = Arrays.copyOf(key, Math.max(key.length * 2, shared + suffix));
+            }
+            input.get(key, shared, suffix);
+            keyLength = shared + suffix;
+            size = readVarLong(input);
+        }
+
+        String key() {
+            return new String(key, 0, keyLength, StandardCharsets.UTF_8);
+        }
+
+        boolean startsWith(final byte[] prefix) {
+            return keyLength >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+        }
+
+        int compareTo(final byte[] other) {
+            return Arrays.compareUnsigned(key, 0, keyLength, other, 0, other.length);
+        }
+    }
+
+    /**
+     * Writes an index from entries added in S3 order. Nothing is readable until {@link #close()} wrote the trailer.
+     */
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream output;
+        private final int blockSize;
+        private int[] blockOffsets = new int[64];
+        private int blockCount;
+        private long count;
+        private long position;
+        private byte[] previous = new byte[0];
+
+        Writer(final Path file, final int blockSize) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+            this.blockSize = Math.max(1, blockSize);
+        }
+
+        void add(final String key, final long size) throws IOException {
+            final var bytes = key.getBytes(StandardCharsets.UTF_8);
+            if (count > 0 && Arrays.compareUnsigned(previous, bytes) >= 0) {
+                throw new IllegalStateException("Key '%s' is out of S3 order".formatted(key));
+            }
+            var shared = 0;
+            if (count % blockSize == 0) {
+                if (position > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Key index exceeds 2 GB; index a narrower prefix");
+                }
+                if (blockCount == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+                }
+                blockOffsets[blockCount++] = (int) position;
+            } else {
+                shared = Arrays.mismatch(previous, bytes);
+                shared = shared < 0 ? bytes.length : shared;
+            }
+            writeVarLong(shared);
+            writeVarLong(bytes.length - shared);
+            output.write(bytes, shared, bytes.length - shared);
+            position += bytes.length - shared;
+            writeVarLong(size);
+            previous = bytes;
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (output) {
+                for (var block = 0; block < blockCount; block++) {
+                    output.writeInt(blockOffsets[block]);
+                }
+                output.writeLong(count);
+                output.writeInt(blockCount);
+                output.writeInt(blockSize);
+                output.writeInt(VERSION);
+                output.writeInt(MAGIC);
+            }
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                output.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+                position++;
+            }
+            output.write((int) value);
+            position++;
+        }
+    }
+
+    private static long readVarLong(final ByteBuffer input) {
+        long value = 0;
+        for (var shift = 0; ; shift += 7) {
+            final var b = input.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+}
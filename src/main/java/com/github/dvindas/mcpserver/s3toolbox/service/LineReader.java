@@ -0,0 +1,75 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a UTF-8 stream into lines on {@code \n}, dropping a trailing {@code \r}. Lines are cut to {@code maxLength}
+ * bytes, the rest of a long line is skipped without being buffered, so a single huge line cannot exhaust the heap.
+ * Splitting works on bytes, which is safe for UTF-8 because {@code \n} never occurs inside a multi-byte sequence.
+ *
+ * @author dvindas
+ */
+final class LineReader {
+
+    private final InputStream input;
+    private final int maxLength;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    LineReader(final InputStream input, final int maxLength) {
+        this.input = input;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Next line without its terminator, or null at the end of the stream.
+     */
+    String next() throws IOException {
+        lineLength = 0;
+        var read = false;
+        while (true) {
+            if (position == limit) {
+                limit = Math.max(0, input.read(buffer));
+                position = 0;
+                if (limit == 0) {
+                    return read ? decode() : null;
+                }
+            }
+            read = true;
+            var end = position;
+            while (end < limit && buffer[end] != '\n') {
+                end++;
+            }
+            append(position, end - position);
+            if (end < limit) {
+                position = end + 1;
+                return decode();
+            }
+            position = limit;
+        }
+    }
+
+    private void append(final int offset, final int length) {
+        final var kept = Math.min(length, maxLength - lineLength);
+        if (kept <= 0) {
+            return;
+        }
+        if (lineLength + kept > line.length) {
+            line = Arrays.copyOf(line, Math.min(maxLength, Math.max(line.length * 2, lineLength + kept)));
+        }
+        System.arraycopy(buffer, offset, line, lineLength, kept);
+        lineLength += kept;
+    }
+
+    private String decode() {
+        final var length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.nio.file.Path;
+
+/**
+ * Resolves local paths handed over by tools, keeping them inside {@code s3-toolbox.transfer.local-root} when set.
+ *
+ * @author dvindas
+ */
+final class LocalPaths {
+
+    private LocalPaths() {
+    }
+
+    static Path resolve(final String localPath, final Path localRoot) {
+        if (localPath == null || localPath.isBlank()) {
+            throw new IllegalArgumentException("A local path is required");
+        }
+        if (localRoot == null) {
+            return Path.of(localPath).toAbsolutePath().normalize();
+        }
+        final var root = localRoot.toAbsolutePath().normalize();
+        final var resolved = root.resolve(localPath).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Local path '%s' is outside of the allowed directory '%s'"
+                    .formatted(localPath, root));
+        }
+        return resolved;
+    }
+
+}
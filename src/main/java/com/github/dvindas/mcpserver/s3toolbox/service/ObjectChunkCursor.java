@@ -0,0 +1,35 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position of a chunked read. The ETag pins every following chunk to the object version read first, so a
+ * concurrent overwrite fails the read instead of mixing two versions.
+ *
+ * @author dvindas
+ */
+record ObjectChunkCursor(long offset, String eTag) {
+
+    static final ObjectChunkCursor START = new ObjectChunkCursor(0, null);
+
+    static ObjectChunkCursor decode(final String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            final var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final var separator = decoded.indexOf(':');
+            return new ObjectChunkCursor(Long.parseLong(decoded.substring(0, separator)),
+                    decoded.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor '" + cursor + "'", e);
+        }
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((offset + ":" + eTag).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
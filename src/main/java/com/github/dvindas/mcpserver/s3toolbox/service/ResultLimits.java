@@ -0,0 +1,26 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+/**
+ * Defaults and upper bounds for the number of results a single tool call returns.
+ *
+ * @author dvindas
+ */
+final class ResultLimits {
+
+    static final int DEFAULT_MAX_RESULTS = 1000;
+    static final int MAX_RESULTS_LIMIT = 10_000;
+
+    private ResultLimits() {
+    }
+
+    /**
+     * Returns {@code value} capped at {@code max}, or {@code defaultValue} when it is missing or not positive.
+     */
+    static int clamp(final Integer value, final int defaultValue, final int max) {
+        if (value == null || value <= 0) {
+            return defaultValue;
+        }
+        return Math.min(value, max);
+    }
+
+}
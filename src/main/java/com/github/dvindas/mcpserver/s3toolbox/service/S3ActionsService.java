@@ -1,26 +1,78 @@
 package com.github.dvindas.mcpserver.s3toolbox.service;
 
+import com.github.dvindas.mcpserver.s3toolbox.model.CompactS3Listing;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectChunkResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.ListS3ObjectsPageResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author dvindas
  */
 public interface S3ActionsService {
 
+    /**
+     * Qualifies the implementation that talks to S3, so decorators such as the cache can wrap it.
+     */
+    String BACKEND = "s3ActionsBackend";
+
     List<String> listBuckets();
 
     List<String> listObjects(String bucketName, String prefix);
 
+    /**
+     * Lists a single page of objects, following continuation tokens until {@code maxResults} objects were
+     * collected or the listing is exhausted. The returned token resumes exactly after the last returned key.
+     */
+    ListS3ObjectsPageResponse listObjectsPage(String bucketName, String prefix, String continuationToken,
+                                              Integer pageSize, Integer maxResults);
+
+    /**
+     * Lazily streams every object under the prefix; pages are only requested from S3 as the stream is consumed.
+     */
+    Stream<S3ObjectSummary> streamObjects(String bucketName, String prefix);
+
+    /**
+     * Lists up to {@code maxResults} keys under the prefix grouped by directory and optionally delta-encoded. Pages
+     * are encoded as they arrive, so the full keys are never held.
+     */
+    default CompactS3Listing listObjectsCompact(String bucketName, String prefix, boolean deltaEncoded,
+                                                Integer maxResults) {
+        final var limit = ResultLimits.clamp(maxResults, CompactKeyEncoder.DEFAULT_MAX_KEYS,
+                CompactKeyEncoder.MAX_KEYS);
+        try (var objects = streamObjects(bucketName, prefix)) {
+            return CompactKeyEncoder.encode(bucketName, prefix, objects.map(S3ObjectSummary::key).iterator(),
+                    deltaEncoded, limit);
+        } catch (S3Exception e) {
+            throw new RuntimeException("Failed to list objects from S3", e);
+        }
+    }
+
     GetS3ObjectMetadataResponse getObjectMetadata(String bucketName, String keyName);
 
     PutS3ObjectResponse putObject(PutS3ObjectRequest putS3ObjectRequest);
 
-    GetS3ObjectResponse getObject(String bucketName, String key);
+    default GetS3ObjectResponse getObject(String bucketName, String key) {
+        return getObject(bucketName, key, null, null);
+    }
+
+    /**
+     * Reads the object, or the byte window starting at {@code offset}, rejecting bodies above the inline limit.
+     */
+    GetS3ObjectResponse getObject(String bucketName, String key, Long offset, Long length);
+
+    /**
+     * Reads the next chunk of the object. The returned cursor is passed back to read the following chunk and is
+     * {@code null} once the end of the object was reached.
+     */
+    GetS3ObjectChunkResponse getObjectChunk(String bucketName, String key, String cursor, Integer chunkSize);
 
     void deleteObject(String bucketName, String keyName);
 
@@ -1,32 +1,51 @@
 package com.github.dvindas.mcpserver.s3toolbox.service;
 
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectChunkResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.ListS3ObjectsPageResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.dvindas.mcpserver.s3toolbox.service.ResultLimits.*;
 
 /**
  * @author dvindas
  */
 @Service
+@Qualifier(S3ActionsService.BACKEND)
 @RequiredArgsConstructor
 @Slf4j
 public class S3ActionsServiceImpl implements S3ActionsService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final S3Client s3Client;
+    private final ExecutorService s3IoExecutor;
+    private final S3ToolboxProperties properties;
+    private final S3MultipartUploader multipartUploader;
+    private final S3RequestCoalescer requestCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<String> listBuckets() {
@@ -50,6 +69,11 @@ public class S3ActionsServiceImpl implements S3ActionsService {
 
     @Override
     public List<String> listObjects(final String bucketName, final String prefix) {
+        return requestCoalescer.coalesce(S3RequestCoalescer.LIST_OBJECTS, bucketName, prefix,
+                () -> fetchObjects(bucketName, prefix));
+    }
+
+    private List<String> fetchObjects(final String bucketName, final String prefix) {
         try {
             final var request = ListObjectsV2Request.builder()
                     .bucket(bucketName)
@@ -73,8 +97,73 @@ public class S3ActionsServiceImpl implements S3ActionsService {
         }
     }
 
+    @Override
+    public ListS3ObjectsPageResponse listObjectsPage(final String bucketName, final String prefix,
+                                                     final String continuationToken, final Integer pageSize,
+                                                     final Integer maxResults) {
+        return requestCoalescer.coalesce(S3RequestCoalescer.LIST_OBJECTS_PAGE, bucketName, prefix,
+                () -> fetchObjectsPage(bucketName, prefix, continuationToken, pageSize, maxResults),
+                continuationToken, pageSize, maxResults);
+    }
+
+    private ListS3ObjectsPageResponse fetchObjectsPage(final String bucketName, final String prefix,
+                                                       final String continuationToken, final Integer pageSize,
+                                                       final Integer maxResults) {
+        try {
+            final var limit = clamp(maxResults, DEFAULT_MAX_RESULTS, MAX_RESULTS_LIMIT);
+            final var size = clamp(pageSize, MAX_PAGE_SIZE, MAX_PAGE_SIZE);
+            final var objects = new ArrayList<S3ObjectSummary>(Math.min(limit, size));
+
+            var token = continuationToken == null || continuationToken.isBlank() ? null : continuationToken;
+            var truncated = false;
+            do {
+                // Never ask for more keys than still fit, so the next token resumes right after the last returned key
+                final var request = ListObjectsV2Request.builder()
+                        .bucket(bucketName)
+                        .prefix(prefix)
+                        .continuationToken(token)
+                        .maxKeys(Math.min(size, limit - objects.size()))
+                        .build();
+
+                final var response = s3Client.listObjectsV2(request);
+                response.contents().forEach(s3Object -> objects.add(S3ObjectSummary.from(s3Object)));
+
+                token = response.nextContinuationToken();
+                truncated = Boolean.TRUE.equals(response.isTruncated()) && token != null;
+            } while (truncated && objects.size() < limit);
+
+            return new ListS3ObjectsPageResponse(objects, truncated ? token : null, truncated);
+
+        } catch (S3Exception e) {
+            log.error("S3 error while listing objects page in bucket '{}' with prefix '{}'", bucketName, prefix, e);
+            throw new RuntimeException("Failed to list objects from S3", e);
+        } catch (Exception e) {
+            log.error("Error while listing objects page in bucket '{}' with prefix '{}'", bucketName, prefix, e);
+            throw new RuntimeException("Error while listing objects", e);
+        }
+    }
+
+    @Override
+    public Stream<S3ObjectSummary> streamObjects(final String bucketName, final String prefix) {
+        final var request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .maxKeys(MAX_PAGE_SIZE)
+                .build();
+
+        return s3Client.listObjectsV2Paginator(request)
+                .contents()
+                .stream()
+                .map(S3ObjectSummary::from);
+    }
+
     @Override
     public GetS3ObjectMetadataResponse getObjectMetadata(final String bucketName, final String key) {
+        return requestCoalescer.coalesce(S3RequestCoalescer.GET_OBJECT_METADATA, bucketName, key,
+                () -> fetchObjectMetadata(bucketName, key));
+    }
+
+    private GetS3ObjectMetadataResponse fetchObjectMetadata(final String bucketName, final String key) {
         try {
             final var headFuture = CompletableFuture.supplyAsync(() -> {
                 var headRequest = HeadObjectRequest.builder()
@@ -82,7 +171,14 @@ public class S3ActionsServiceImpl implements S3ActionsService {
                         .key(key)
                         .build();
                 return s3Client.headObject(headRequest);
-            });
+            }, s3IoExecutor);
+
+            if (properties.getMetadata().isHeadOnly()) {
+                final var headResponse = headFuture.join();
+                return new GetS3ObjectMetadataResponse(headResponse.contentType(), headResponse.contentLength(),
+                        headResponse.lastModified(), headResponse.eTag(), S3ObjectReads.storageClassOf(headResponse),
+                        headResponse.metadata());
+            }
 
             final var attrFuture = CompletableFuture.supplyAsync(() -> {
                 var attrRequest = GetObjectAttributesRequest.builder()
@@ -91,7 +187,7 @@ public class S3ActionsServiceImpl implements S3ActionsService {
                         .objectAttributes(ObjectAttributes.STORAGE_CLASS)
                         .build();
                 return s3Client.getObjectAttributes(attrRequest);
-            });
+            }, s3IoExecutor);
 
             return headFuture.thenCombine(attrFuture, (headResponse, attrResponse) ->
                     new GetS3ObjectMetadataResponse(headResponse.contentType(), headResponse.contentLength(),
@@ -111,16 +207,40 @@ public class S3ActionsServiceImpl implements S3ActionsService {
     @Override
     public PutS3ObjectResponse putObject(final PutS3ObjectRequest putS3ObjectRequest) {
         try {
-            final var request = PutObjectRequest.builder()
-                    .bucket(putS3ObjectRequest.bucketName())
-                    .key(putS3ObjectRequest.prefix().concat(putS3ObjectRequest.fileName()))
-                    .contentType(putS3ObjectRequest.contentType())
-                    .build();
+            final var key = objectKey(putS3ObjectRequest);
+            final var checksumAlgorithm = S3ObjectEncoding.checksumAlgorithm(putS3ObjectRequest);
+            final var payload = S3ObjectEncoding.payload(putS3ObjectRequest,
+                    multipartUploader.multipartThreshold());
+            final var size = payload.size();
 
-            final var response = s3Client.putObject(request,
-                    RequestBody.fromBytes(Base64.getDecoder().decode(putS3ObjectRequest.base64Content())));
+            try {
+                if (size > multipartUploader.multipartThreshold()) {
+                    final var result = multipartUploader.upload(CreateMultipartUploadRequest.builder()
+                            .bucket(putS3ObjectRequest.bucketName())
+                            .key(key)
+                            .contentType(putS3ObjectRequest.contentType())
+                            .metadata(payload.metadata())
+                            .checksumAlgorithm(checksumAlgorithm)
+                            .build(), payload.open(), size);
+                    return new PutS3ObjectResponse(result.eTag());
+                }
 
-            return new PutS3ObjectResponse(response.eTag());
+                final var request = PutObjectRequest.builder()
+                        .bucket(putS3ObjectRequest.bucketName())
+                        .key(key)
+                        .contentType(putS3ObjectRequest.contentType())
+                        .metadata(payload.metadata())
+                        .checksumAlgorithm(checksumAlgorithm)
+                        .build();
+
+                // Decoded while the request is written, so the payload is never held twice
+                final var response = s3Client.putObject(request, RequestBody.fromContentProvider(
+                        payload::open, size, putS3ObjectRequest.contentType()));
+                return new PutS3ObjectResponse(response.eTag());
+            } finally {
+                // Also after a failure: the write may have been applied before the error surfaced
+                eventPublisher.publishEvent(new S3ObjectsChangedEvent(putS3ObjectRequest.bucketName(), key));
+            }
 
         } catch (S3Exception e) {
             log.error("S3 error while uploading object to bucket '{}'", putS3ObjectRequest.bucketName(), e);
@@ -131,21 +251,41 @@ public class S3ActionsServiceImpl implements S3ActionsService {
         }
     }
 
+    /**
+     * Concurrent identical reads share one request and one content buffer, which callers must not modify.
+     */
     @Override
-    public GetS3ObjectResponse getObject(final String bucketName, final String key) {
+    public GetS3ObjectResponse getObject(final String bucketName, final String key, final Long offset,
+                                         final Long length) {
+        return requestCoalescer.coalesce(S3RequestCoalescer.GET_OBJECT, bucketName, key,
+                () -> fetchObject(bucketName, key, offset, length), offset, length);
+    }
+
+    private GetS3ObjectResponse fetchObject(final String bucketName, final String key, final Long offset,
+                                            final Long length) {
         try {
+            final var maxInlineBytes = properties.getGet().getMaxInlineSize().toBytes();
+            if (length != null && length > maxInlineBytes) {
+                throw new IllegalArgumentException("length %d is above the inline limit of %d bytes"
+                        .formatted(length, maxInlineBytes));
+            }
+
             final var request = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
+                    .range(S3ObjectReads.range(offset, length))
+                    .checksumMode(ChecksumMode.ENABLED)
                     .build();
 
-            final var responseBytes = s3Client.getObjectAsBytes(request);
-            final var metadata = responseBytes.response();
-
-            final var fileName = key.contains("/") ? key.substring(key.lastIndexOf("/") + 1) : key;
+            final var body = S3ObjectEncoding.open(request, s3Client::getObject);
+            final var content = S3ObjectEncoding.read(body, request, s3Client::getObject, offset, length,
+                    maxInlineBytes, key).content();
 
-            return new GetS3ObjectResponse(fileName, responseBytes.asByteArray(), metadata.contentType());
+            return new GetS3ObjectResponse(S3ObjectReads.fileName(key), content, body.response().contentType());
 
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected read of object '{}/{}': {}", bucketName, key, e.getMessage());
+            throw e;
         } catch (S3Exception e) {
             log.error("S3 error while getting object '{}/{}'", bucketName, key, e);
             throw new RuntimeException("Failed to getting object from S3", e);
@@ -155,6 +295,52 @@ public class S3ActionsServiceImpl implements S3ActionsService {
         }
     }
 
+    @Override
+    public GetS3ObjectChunkResponse getObjectChunk(final String bucketName, final String key, final String cursor,
+                                                   final Integer chunkSize) {
+        try {
+            final var position = ObjectChunkCursor.decode(cursor);
+            final var get = properties.getGet();
+            final var size = clamp(chunkSize, Math.toIntExact(get.getDefaultChunkSize().toBytes()),
+                    Math.toIntExact(get.getMaxInlineSize().toBytes()));
+
+            final var request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range(S3ObjectReads.range(position.offset(), (long) size))
+                    .ifMatch(position.eTag())
+                    .build();
+
+            final ResponseInputStream<GetObjectResponse> body;
+            try {
+                body = S3ObjectEncoding.open(request, s3Client::getObject);
+            } catch (S3Exception e) {
+                if (e.statusCode() == 416 && position.offset() == 0) {
+                    // Ranged reads of an empty object are not satisfiable, there is simply nothing to return
+                    final var head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+                    return new GetS3ObjectChunkResponse(S3ObjectReads.fileName(key), new byte[0],
+                            head.contentType(), head.eTag(), 0, 0, null);
+                }
+                throw e;
+            }
+
+            final var window = S3ObjectEncoding.read(body, request, s3Client::getObject, position.offset(),
+                    (long) size, size, key);
+            return toChunk(key, body.response(), position, window);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected chunked read of object '{}/{}': {}", bucketName, key, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while getting chunk of object '{}/{}'", bucketName, key, e);
+            throw new RuntimeException(e.statusCode() == 412
+                    ? "Object changed since the first chunk was read, restart without a cursor"
+                    : "Failed to getting object chunk from S3", e);
+        } catch (Exception e) {
+            log.error("Error while getting chunk of object '{}/{}'", bucketName, key, e);
+            throw new RuntimeException("Error while getting object chunk", e);
+        }
+    }
 
     @Override
     public void deleteObject(final String bucketName, final String key) {
@@ -163,7 +349,12 @@ public class S3ActionsServiceImpl implements S3ActionsService {
                     .bucket(bucketName)
                     .key(key)
                     .build();
-            s3Client.deleteObject(request);
+            try {
+                s3Client.deleteObject(request);
+            } finally {
+                // Also after a failure: the delete may have been applied before the error surfaced
+                eventPublisher.publishEvent(new S3ObjectsChangedEvent(bucketName, key));
+            }
 
         } catch (S3Exception e) {
             log.error("S3 error while deleting object '{}/{}'", bucketName, key, e);
@@ -174,4 +365,22 @@ public class S3ActionsServiceImpl implements S3ActionsService {
         }
     }
 
+    private static String objectKey(final PutS3ObjectRequest putS3ObjectRequest) {
+        final var prefix = putS3ObjectRequest.prefix() == null ? "" : putS3ObjectRequest.prefix();
+        return prefix.concat(putS3ObjectRequest.fileName());
+    }
+
+    private static GetS3ObjectChunkResponse toChunk(final String key, final GetObjectResponse response,
+                                                    final ObjectChunkCursor position,
+                                                    final S3ObjectEncoding.Window window) {
+        final var content = window.content();
+        final var totalSize = window.totalSize();
+        final var nextOffset = position.offset() + content.length;
+        final var nextCursor = totalSize < 0 || nextOffset < totalSize
+                ? new ObjectChunkCursor(nextOffset, response.eTag()).encode()
+                : null;
+        return new GetS3ObjectChunkResponse(S3ObjectReads.fileName(key), content, response.contentType(),
+                response.eTag(), position.offset(), totalSize, nextCursor);
+    }
+
 }
@@ -0,0 +1,59 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ArchiveResponse;
+
+import java.util.Locale;
+
+/**
+ * Packs the objects under a prefix into a single archive, streamed from S3 without staging the objects on disk or
+ * holding them on the heap.
+ *
+ * @author dvindas
+ */
+public interface S3ArchiveService {
+
+    enum Format {
+        ZIP("zip"),
+        TAR_GZ("tar.gz");
+
+        private final String extension;
+
+        Format(final String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * @return the format named by its extension, zip when none is given
+         */
+        public static Format of(final String format) {
+            if (format == null || format.isBlank()) {
+                return ZIP;
+            }
+            return switch (format.trim().toLowerCase(Locale.ROOT)) {
+                case "zip" -> ZIP;
+                case "tar.gz", "tgz", "tar_gz" -> TAR_GZ;
+                default -> throw new IllegalArgumentException("Unknown archive format '%s', expected 'zip' or 'tar.gz'"
+                        .formatted(format));
+            };
+        }
+    }
+
+    /**
+     * Writes the archive to a local file. Objects are archived in key order while the next ones are fetched; an
+     * object that cannot be read is skipped and reported.
+     */
+    DownloadS3ArchiveResponse archiveToFile(String bucketName, String prefix, Format format, String localPath,
+                                            boolean overwrite, S3CopyService.ProgressListener progress);
+
+    /**
+     * Returns the next chunk of an archive. Without a cursor a new archive of the prefix is started; otherwise the
+     * chunk at the cursor of the previous response is returned. Asking again for the previous cursor returns the same
+     * chunk, so a call whose response was lost can be retried; the last chunk ends the archive and cannot.
+     */
+    DownloadS3ArchiveResponse readChunk(String bucketName, String prefix, Format format, String cursor);
+
+}
@@ -0,0 +1,473 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ArchiveResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CopyError;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the objects of a prefix into an archive in key order. The next {@code prefetch-objects} objects are fetched
+ * concurrently while the current one is compressed, each up to {@code prefetch-size} bytes; the rest of a larger
+ * object is read with a ranged GET when its turn comes. Every GET is pinned to the listed ETag, so an object replaced
+ * in the meantime is skipped instead of producing an entry of the wrong size.
+ * <p>
+ * Chunked archives are written by a background task into a pipe holding one chunk, so the archive is only produced as
+ * fast as the client reads it. Idle ones are cancelled on the next call to the service. Each open one holds a permit
+ * of a semaphore sized to {@code s3-toolbox.archive.max-sessions}, so concurrent starts cannot exceed the limit.
+ *
+ * @author dvindas
+ */
+@Service
+@Slf4j
+public class S3ArchiveServiceImpl implements S3ArchiveService {
+
+    private final Map<String, ArchiveStream> streams = new ConcurrentHashMap<>();
+
+    private final S3Client s3Client;
+    private final ExecutorService s3IoExecutor;
+    private final S3ShardedListingEngine s3ShardedListingEngine;
+    private final S3ToolboxProperties properties;
+    private final Semaphore slots;
+
+    public S3ArchiveServiceImpl(final S3Client s3Client, final ExecutorService s3IoExecutor,
+                                final S3ShardedListingEngine s3ShardedListingEngine,
+                                final S3ToolboxProperties properties) {
+        this.s3Client = s3Client;
+        this.s3IoExecutor = s3IoExecutor;
+        this.s3ShardedListingEngine = s3ShardedListingEngine;
+        this.properties = properties;
+        this.slots = new Semaphore(properties.getArchive().getMaxSessions());
+    }
+
+    @Override
+    public DownloadS3ArchiveResponse archiveToFile(final String bucketName, final String prefix, final Format format,
+                                                   final String localPath, final boolean overwrite,
+                                                   final S3CopyService.ProgressListener progress) {
+        if (format == null) {
+            throw new IllegalArgumentException("format is required, either 'zip' or 'tar.gz'");
+        }
+        final var keyPrefix = prefix == null ? "" : prefix;
+        final var target = LocalPaths.resolve(localPath, properties.getTransfer().getLocalRoot());
+        if (Files.exists(target) && !overwrite) {
+            throw new IllegalArgumentException("Local file '%s' already exists, pass overwrite=true to replace it"
+                    .formatted(target));
+        }
+        final var partial = target.resolveSibling(target.getFileName() + ".part");
+
+        try {
+            final var startedAt = System.nanoTime();
+            final var run = new ArchiveRun(bucketName, keyPrefix, format,
+                    progress == null ? S3CopyService.ProgressListener.NONE : progress);
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (var output = new BufferedOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+                run.write(output);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            final var archiveBytes = Files.size(target);
+            log.info("Archived {} objects ({} bytes) of '{}/{}' into '{}' ({} bytes) in {} ms", run.entries.get(),
+                    run.objectBytes.get(), bucketName, keyPrefix, target, archiveBytes, elapsedMillis);
+            return new DownloadS3ArchiveResponse(bucketName, keyPrefix, format.extension(), target.toString(), null,
+                    0, null, run.entries.get(), run.objectBytes.get(), archiveBytes, run.errors(), elapsedMillis);
+
+        } catch (S3Exception e) {
+            log.error("S3 error while archiving prefix '{}' of bucket '{}'", keyPrefix, bucketName, e);
+            throw new RuntimeException("Failed to archive objects from S3", e);
+        } catch (Exception e) {
+            log.error("Error while archiving prefix '{}' of bucket '{}'", keyPrefix, bucketName, e);
+            throw new RuntimeException("Error while archiving objects", e);
+        } finally {
+            deleteQuietly(partial);
+        }
+    }
+
+    @Override
+    public DownloadS3ArchiveResponse readChunk(final String bucketName, final String prefix, final Format format,
+                                               final String cursor) {
+        try {
+            expireIdleStreams();
+            final ArchiveStream stream;
+            final long offset;
+            if (cursor == null || cursor.isBlank()) {
+                if (format == null) {
+                    throw new IllegalArgumentException("format is required, either 'zip' or 'tar.gz'");
+                }
+                stream = start(bucketName, prefix == null ? "" : prefix, format);
+                offset = 0;
+            } else {
+                final var separator = cursor.lastIndexOf(':');
+                stream = separator < 0 ? null : streams.get(cursor.substring(0, separator));
+                if (stream == null) {
+                    throw new IllegalArgumentException("Archive cursor '%s' does not exist or has expired"
+                            .formatted(cursor));
+                }
+                offset = parseOffset(cursor.substring(separator + 1));
+            }
+            synchronized (stream) {
+                return stream.read(offset);
+            }
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn("Rejected archive chunk of prefix '{}' of bucket '{}': {}", prefix, bucketName, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while archiving prefix '{}' of bucket '{}'", prefix, bucketName, e);
+            throw new RuntimeException("Failed to archive objects from S3", e);
+        } catch (Exception e) {
+            log.error("Error while archiving prefix '{}' of bucket '{}'", prefix, bucketName, e);
+            throw new RuntimeException("Error while archiving objects", e);
+        }
+    }
+
+    /**
+     * Cancels every chunked archive that has not been read for longer than {@code s3-toolbox.archive.idle-timeout}.
+     */
+    void expireIdleStreams() {
+        final var idleNanos = properties.getArchive().getIdleTimeout().toNanos();
+        final var now = System.nanoTime();
+        for (final var stream : streams.values()) {
+            if (now - stream.lastActivity > idleNanos) {
+                log.warn("Archive of '{}/{}' expired after {} bytes", stream.run.bucketName, stream.run.prefix,
+                        stream.offset);
+                stream.close();
+            }
+        }
+    }
+
+    int openStreams() {
+        return streams.size();
+    }
+
+    @PreDestroy
+    void cancelOpenStreams() {
+        streams.values().forEach(ArchiveStream::close);
+    }
+
+    private ArchiveStream start(final String bucketName, final String prefix, final Format format) {
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("%d archive downloads are already open, read one to the end first"
+                    .formatted(properties.getArchive().getMaxSessions()));
+        }
+        final ArchiveStream stream;
+        try {
+            final var chunkSize = Math.toIntExact(properties.getArchive().getChunkSize().toBytes());
+            stream = new ArchiveStream(UUID.randomUUID().toString(),
+                    new ArchiveRun(bucketName, prefix, format, S3CopyService.ProgressListener.NONE),
+                    new ArchivePipe(chunkSize), chunkSize);
+            streams.put(stream.id, stream);
+        } catch (RuntimeException | Error e) {
+            slots.release();
+            throw e;
+        }
+        CompletableFuture.runAsync(() -> {
+            try (var output = new BufferedOutputStream(stream.pipe.output(), 64 * 1024)) {
+                stream.run.write(output);
+                stream.pipe.finish(null);
+            } catch (Exception e) {
+                log.debug("Archive of '{}/{}' stopped: {}", bucketName, prefix, e.getMessage());
+                stream.pipe.finish(e);
+            }
+        }, s3IoExecutor);
+        log.info("Began archive '{}' of '{}/{}' as {}", stream.id, bucketName, prefix, format.extension());
+        return stream;
+    }
+
+    private static long parseOffset(final String offset) {
+        try {
+            return Long.parseLong(offset);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid archive cursor offset '%s'".formatted(offset));
+        }
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete partial archive '{}'", file, e);
+        }
+    }
+
+    /**
+     * Entry name of a key: the key below the last '/' of the prefix, so the archive starts at the directory the prefix
+     * points into.
+     */
+    static String entryName(final String prefix, final String key) {
+        return key.substring(prefix.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * A chunked archive between two calls, guarded by its own monitor.
+     */
+    private final class ArchiveStream {
+
+        private final String id;
+        private final ArchiveRun run;
+        private final ArchivePipe pipe;
+        private final int chunkSize;
+        private final long startedAt = System.nanoTime();
+
+        private long offset;
+        private long lastOffset = -1;
+        private byte[] lastChunk;
+        private volatile long lastActivity = startedAt;
+
+        ArchiveStream(final String id, final ArchiveRun run, final ArchivePipe pipe, final int chunkSize) {
+            this.id = id;
+            this.run = run;
+            this.pipe = pipe;
+            this.chunkSize = chunkSize;
+        }
+
+        DownloadS3ArchiveResponse read(final long requested) throws IOException, InterruptedException {
+            lastActivity = System.nanoTime();
+            if (requested == offset) {
+                final var chunk = new byte[chunkSize];
+                final int read;
+                try {
+                    read = pipe.readFully(chunk, chunkSize);
+                } catch (IOException | InterruptedException e) {
+                    close();
+                    throw e;
+                }
+                lastChunk = read == chunkSize ? chunk : Arrays.copyOf(chunk, read);
+                lastOffset = offset;
+                offset += read;
+            } else if (requested != lastOffset) {
+                throw new IllegalArgumentException("Cursor offset %d does not match the %d archive bytes returned so far"
+                        .formatted(requested, offset));
+            }
+
+            final var done = lastChunk.length < chunkSize;
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            if (done && unregister()) {
+                log.info("Archived {} objects ({} bytes) of '{}/{}' into {} chunked bytes in {} ms",
+                        run.entries.get(), run.objectBytes.get(), run.bucketName, run.prefix, offset, elapsedMillis);
+            }
+            return new DownloadS3ArchiveResponse(run.bucketName, run.prefix, run.format.extension(), null, lastChunk,
+                    lastOffset, done ? null : id + ":" + offset, run.entries.get(), run.objectBytes.get(), offset,
+                    run.errors(), elapsedMillis);
+        }
+
+        void close() {
+            unregister();
+            pipe.cancel();
+        }
+
+        /**
+         * Removes the stream and returns its slot, exactly once.
+         */
+        private boolean unregister() {
+            if (streams.remove(id) == null) {
+                return false;
+            }
+            slots.release();
+            return true;
+        }
+    }
+
+    /**
+     * Writes one archive and keeps its statistics, which a chunked reader picks up while it is still written.
+     */
+    private final class ArchiveRun {
+
+        private final String bucketName;
+        private final String prefix;
+        private final Format format;
+        private final S3CopyService.ProgressListener progress;
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong objectBytes = new AtomicLong();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<S3CopyError> errors = new ArrayList<>();
+        private long reportedAt = System.nanoTime();
+
+        ArchiveRun(final String bucketName, final String prefix, final Format format,
+                   final S3CopyService.ProgressListener progress) {
+            this.bucketName = bucketName;
+            this.prefix = prefix;
+            this.format = format;
+            this.progress = progress;
+        }
+
+        void write(final OutputStream output) throws IOException {
+            final var config = properties.getArchive();
+            final var prefetchObjects = Math.max(1, config.getPrefetchObjects());
+            final var prefetchSize = Math.max(1, Math.toIntExact(config.getPrefetchSize().toBytes()));
+            final var window = new ArrayDeque<Prefetch>();
+
+            try (var objects = s3ShardedListingEngine.streamSorted(bucketName, prefix);
+                 var archive = ArchiveOutput.of(format, output, config.getCompressionLevel())) {
+                // Zero-byte keys ending in '/' are folder placeholders created by the console, not files
+                final var pending = objects
+                        .filter(object -> !object.key().endsWith("/") || object.size() == null || object.size() > 0)
+                        .iterator();
+                while (true) {
+                    while (window.size() < prefetchObjects && pending.hasNext()) {
+                        final var object = pending.next();
+                        window.add(new Prefetch(object, CompletableFuture.supplyAsync(
+                                () -> fetchHead(object, prefetchSize), s3IoExecutor)));
+                    }
+                    final var next = window.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    final Head head;
+                    try {
+                        head = Futures.join(next.head());
+                    } catch (S3Exception e) {
+                        fail(next.object().key(), e.awsErrorDetails() == null ? null
+                                : e.awsErrorDetails().errorCode(), e.getMessage());
+                        continue;
+                    } catch (IllegalArgumentException e) {
+                        fail(next.object().key(), null, e.getMessage());
+                        continue;
+                    }
+                    append(archive, next.object(), head);
+                    if (System.nanoTime() - reportedAt >= config.getProgressInterval().toNanos()) {
+                        report();
+                    }
+                }
+                archive.finish();
+            } finally {
+                window.forEach(prefetch -> prefetch.head().cancel(true));
+            }
+        }
+
+        private Head fetchHead(final S3ObjectSummary object, final int prefetchSize) {
+            final var size = object.size() == null ? 0 : object.size();
+            if (size == 0) {
+                return new Head(new byte[0], Map.of(), false);
+            }
+            final var length = (int) Math.min(size, prefetchSize);
+            final var request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(object.key())
+                    .ifMatch(object.eTag());
+            if (length < size) {
+                request.range("bytes=0-" + (length - 1));
+            }
+            try (var body = s3Client.getObject(request.build())) {
+                final var metadata = body.response().metadata();
+                final var compressed = S3ObjectEncoding.decodes(metadata, object.key());
+                final var head = body.readNBytes(length);
+                if (head.length != length) {
+                    throw new IOException("'%s' ended after %d of %d bytes".formatted(object.key(), head.length,
+                            length));
+                }
+                return new Head(head, metadata, compressed);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes the object as one entry. Objects compressed by put_s3_object are decompressed into it, unless they
+         * recorded no uncompressed size: an entry's size is declared up front, so those keep their gzip bytes and get
+         * a {@code .gz} suffix instead.
+         */
+        private void append(final ArchiveOutput archive, final S3ObjectSummary object, final Head head)
+                throws IOException {
+            final var size = object.size() == null ? 0 : object.size();
+            final var name = entryName(prefix, object.key());
+            final var contentSize = head.compressed() ? S3ObjectEncoding.contentSize(head.metadata()) : null;
+            final var buffer = new byte[Math.toIntExact(properties.getTransfer().getBufferSize().toBytes())];
+            try (var stored = stored(object, head.bytes(), size)) {
+                final InputStream content;
+                if (contentSize != null) {
+                    archive.putEntry(name, contentSize, object.lastModified());
+                    content = S3ObjectEncoding.decode(stored, head.metadata(), object.key());
+                } else {
+                    archive.putEntry(head.compressed() ? name + ".gz" : name, size, object.lastModified());
+                    content = stored;
+                }
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    archive.write(buffer, 0, read);
+                }
+            }
+            archive.closeEntry();
+            entries.incrementAndGet();
+            objectBytes.addAndGet(contentSize != null ? contentSize : size);
+        }
+
+        /**
+         * Stored bytes of the object: the prefetched head, followed by the rest of the object when there is more.
+         */
+        private InputStream stored(final S3ObjectSummary object, final byte[] head, final long size) {
+            final var prefetched = new ByteArrayInputStream(head);
+            if (head.length >= size) {
+                return prefetched;
+            }
+            final var request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(object.key())
+                    .range("bytes=" + head.length + "-")
+                    .ifMatch(object.eTag())
+                    .build();
+            return new SequenceInputStream(prefetched, s3Client.getObject(request));
+        }
+
+        void fail(final String key, final String code, final String message) {
+            log.warn("Skipped '{}/{}' in archive: {}", bucketName, key, message);
+            if (failed.incrementAndGet() <= properties.getBatch().getMaxReportedErrors()) {
+                synchronized (errors) {
+                    errors.add(new S3CopyError(key, code, message));
+                }
+            }
+        }
+
+        List<S3CopyError> errors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+
+        private void report() {
+            reportedAt = System.nanoTime();
+            progress.progress("Archived %d objects (%d bytes) of '%s/%s', %d skipped".formatted(entries.get(),
+                    objectBytes.get(), bucketName, prefix, failed.get()));
+        }
+    }
+
+    private record Prefetch(S3ObjectSummary object, CompletableFuture<Head> head) {
+    }
+
+    /**
+     * First bytes of an object as stored, and whether they have to be decompressed.
+     */
+    private record Head(byte[] bytes, Map<String, String> metadata, boolean compressed) {
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.DeleteS3ObjectsResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectsMetadataResponse;
+
+import java.util.List;
+
+/**
+ * Operations applied to many objects at once, batched into as few S3 requests as the API allows.
+ *
+ * @author dvindas
+ */
+public interface S3BatchService {
+
+    /**
+     * Deletes the given keys with DeleteObjects requests of up to 1000 keys each.
+     */
+    DeleteS3ObjectsResponse deleteObjects(String bucketName, List<String> keys, boolean dryRun);
+
+    /**
+     * Deletes every object under the prefix. Batches are deleted while the rest of the prefix is still being listed.
+     */
+    DeleteS3ObjectsResponse deletePrefix(String bucketName, String prefix, boolean dryRun);
+
+    /**
+     * Fetches the metadata of the given keys, or of the objects under the prefix when no keys are given, with
+     * concurrent HEAD requests. A failed key is reported in its result without failing the others. With
+     * {@code listingOnly}, objects under the prefix are described from the listing alone, without any HEAD request.
+     */
+    GetS3ObjectsMetadataResponse getObjectsMetadata(String bucketName, List<String> keys, String prefix,
+                                                    Integer maxResults, boolean listingOnly);
+
+}
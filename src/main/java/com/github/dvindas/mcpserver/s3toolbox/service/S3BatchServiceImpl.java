@@ -0,0 +1,281 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.DeleteS3ObjectsResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectsMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3DeleteError;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectMetadataResult;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.github.dvindas.mcpserver.s3toolbox.service.ResultLimits.*;
+
+/**
+ * @author dvindas
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3BatchServiceImpl implements S3BatchService {
+
+    static final int MAX_KEYS_PER_DELETE = 1000;
+    static final int DRY_RUN_SAMPLE_SIZE = 100;
+
+    private final S3Client s3Client;
+    private final ExecutorService s3IoExecutor;
+    private final S3ActionsService s3ActionsService;
+    private final S3ToolboxProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public DeleteS3ObjectsResponse deleteObjects(final String bucketName, final List<String> keys,
+                                                 final boolean dryRun) {
+        try {
+            final var distinctKeys = keys == null ? List.<String>of()
+                    : keys.stream().filter(key -> key != null && !key.isEmpty()).distinct().toList();
+            try {
+                return delete(bucketName, null, distinctKeys.stream(), dryRun);
+            } finally {
+                if (!dryRun && !distinctKeys.isEmpty()) {
+                    eventPublisher.publishEvent(S3ObjectsChangedEvent.ofKeys(bucketName, distinctKeys));
+                }
+            }
+
+        } catch (S3Exception e) {
+            log.error("S3 error while deleting objects from bucket '{}'", bucketName, e);
+            throw new RuntimeException("Failed to delete objects from S3", e);
+        } catch (Exception e) {
+            log.error("Error while deleting objects from bucket '{}'", bucketName, e);
+            throw new RuntimeException("Error while deleting objects", e);
+        }
+    }
+
+    @Override
+    public DeleteS3ObjectsResponse deletePrefix(final String bucketName, final String prefix, final boolean dryRun) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("prefix must not be empty; deleting a whole bucket is not supported");
+        }
+        // Deletes need no particular order, so batches go out while the following pages are still being listed
+        try (var keys = s3ActionsService.streamObjects(bucketName, prefix).map(S3ObjectSummary::key)) {
+            try {
+                return delete(bucketName, prefix, keys, dryRun);
+            } finally {
+                if (!dryRun) {
+                    eventPublisher.publishEvent(new S3ObjectsChangedEvent(bucketName, prefix));
+                }
+            }
+
+        } catch (S3Exception e) {
+            log.error("S3 error while deleting prefix '{}' from bucket '{}'", prefix, bucketName, e);
+            throw new RuntimeException("Failed to delete objects from S3", e);
+        } catch (Exception e) {
+            log.error("Error while deleting prefix '{}' from bucket '{}'", prefix, bucketName, e);
+            throw new RuntimeException("Error while deleting objects", e);
+        }
+    }
+
+    @Override
+    public GetS3ObjectsMetadataResponse getObjectsMetadata(final String bucketName, final List<String> keys,
+                                                           final String prefix, final Integer maxResults,
+                                                           final boolean listingOnly) {
+        final var startedAt = System.nanoTime();
+        try {
+            final var limit = clamp(maxResults, DEFAULT_MAX_RESULTS, MAX_RESULTS_LIMIT);
+            final var permits = new Semaphore(properties.getMetadata().getMaxConcurrency());
+            final var futures = new ArrayList<CompletableFuture<S3ObjectMetadataResult>>();
+            final boolean truncated;
+
+            if (keys != null && !keys.isEmpty()) {
+                final var distinctKeys = keys.stream().filter(key -> key != null && !key.isEmpty()).distinct()
+                        .toList();
+                for (final var key : distinctKeys.subList(0, Math.min(limit, distinctKeys.size()))) {
+                    futures.add(headAsync(bucketName, key, null, permits));
+                }
+                truncated = distinctKeys.size() > limit;
+            } else {
+                // HEADs start while later listing pages are still being fetched
+                try (var objects = s3ActionsService.streamObjects(bucketName, prefix)) {
+                    final var iterator = objects.iterator();
+                    while (futures.size() < limit && iterator.hasNext()) {
+                        final var listed = iterator.next();
+                        futures.add(listingOnly
+                                ? CompletableFuture.completedFuture(fromListing(listed))
+                                : headAsync(bucketName, listed.key(), listed, permits));
+                    }
+                    truncated = iterator.hasNext();
+                }
+            }
+
+            final var results = futures.stream().map(CompletableFuture::join).toList();
+            final var failed = (int) results.stream().filter(result -> result.error() != null).count();
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Fetched metadata of {} objects in bucket '{}' ({} failed) in {} ms", results.size(), bucketName,
+                    failed, elapsedMillis);
+
+            return new GetS3ObjectsMetadataResponse(bucketName, results, failed, truncated, elapsedMillis);
+
+        } catch (S3Exception e) {
+            log.error("S3 error while getting metadata of objects in bucket '{}'", bucketName, e);
+            throw new RuntimeException("Failed to get object metadata from S3", e);
+        } catch (Exception e) {
+            log.error("Error while getting metadata of objects in bucket '{}'", bucketName, e);
+            throw new RuntimeException("Error while getting object metadata", e);
+        }
+    }
+
+    /**
+     * HEAD alone is enough: it returns the storage class for every class except STANDARD, and the listing already
+     * carries it when the key came from one, so the GetObjectAttributes round trip of a single lookup is skipped.
+     */
+    private CompletableFuture<S3ObjectMetadataResult> headAsync(final String bucketName, final String key,
+                                                                final S3ObjectSummary listed,
+                                                                final Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                final var head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+                final var storageClass = listed != null && listed.storageClass() != null
+                        ? listed.storageClass()
+                        : S3ObjectReads.storageClassOf(head);
+                return new S3ObjectMetadataResult(key, new GetS3ObjectMetadataResponse(head.contentType(),
+                        head.contentLength(), head.lastModified(), head.eTag(), storageClass, head.metadata()), null);
+            } catch (SdkException e) {
+                log.warn("Failed to get metadata of object '{}/{}': {}", bucketName, key, e.getMessage());
+                return new S3ObjectMetadataResult(key, null, errorOf(e));
+            } finally {
+                permits.release();
+            }
+        }, s3IoExecutor);
+    }
+
+    private static S3ObjectMetadataResult fromListing(final S3ObjectSummary listed) {
+        return new S3ObjectMetadataResult(listed.key(), new GetS3ObjectMetadataResponse(null, listed.size(),
+                listed.lastModified(), listed.eTag(), listed.storageClass(), null), null);
+    }
+
+    private static String errorOf(final SdkException e) {
+        if (e instanceof S3Exception s3Exception) {
+            // HEAD responses carry no error body, so the status code is often all there is
+            final var details = s3Exception.awsErrorDetails();
+            final var code = details == null ? null : details.errorCode();
+            return code != null ? code : s3Exception.statusCode() == 404 ? "NoSuchKey"
+                    : "HTTP " + s3Exception.statusCode();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Cuts the keys into batches and deletes each one on the I/O executor as soon as it is full, so the source keeps
+     * producing keys while earlier batches are deleted. Waiting for a permit before submitting a batch bounds both
+     * the requests in flight and the keys buffered ahead of them.
+     */
+    private DeleteS3ObjectsResponse delete(final String bucketName, final String prefix, final Stream<String> keys,
+                                           final boolean dryRun) throws InterruptedException {
+        final var startedAt = System.nanoTime();
+        final var batch = properties.getBatch();
+        final var permits = new Semaphore(batch.getMaxConcurrency());
+        final var report = new DeleteReport(batch.getMaxReportedErrors());
+        final var futures = new ArrayList<CompletableFuture<Void>>();
+        final var sampleKeys = new ArrayList<String>();
+        var matched = 0L;
+
+        final var iterator = keys.iterator();
+        var pending = new ArrayList<ObjectIdentifier>(MAX_KEYS_PER_DELETE);
+        while (iterator.hasNext()) {
+            final var key = iterator.next();
+            matched++;
+            if (dryRun) {
+                if (sampleKeys.size() < DRY_RUN_SAMPLE_SIZE) {
+                    sampleKeys.add(key);
+                }
+                continue;
+            }
+            pending.add(ObjectIdentifier.builder().key(key).build());
+            if (pending.size() == MAX_KEYS_PER_DELETE || !iterator.hasNext()) {
+                final var objects = pending;
+                pending = new ArrayList<>(MAX_KEYS_PER_DELETE);
+                permits.acquire();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        deleteBatch(bucketName, objects, report);
+                    } finally {
+                        permits.release();
+                    }
+                }, s3IoExecutor));
+            }
+        }
+
+        Futures.join(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)));
+
+        final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        log.info("{} '{}' in bucket '{}': {} matched, {} deleted, {} failed in {} batches in {} ms",
+                dryRun ? "Dry-run delete of" : "Deleted", prefix == null ? "key list" : prefix, bucketName, matched,
+                report.deleted.get(), report.failed.get(), futures.size(), elapsedMillis);
+
+        return new DeleteS3ObjectsResponse(bucketName, prefix, dryRun, matched, report.deleted.get(),
+                report.failed.get(), futures.size(), sampleKeys, report.errors(), elapsedMillis);
+    }
+
+    private void deleteBatch(final String bucketName, final List<ObjectIdentifier> objects,
+                             final DeleteReport report) {
+        try {
+            // Quiet mode only returns the keys that failed, which keeps responses small for large batches
+            final var response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build());
+            response.errors().forEach(error -> report.fail(error.key(), error.code(), error.message()));
+            report.deleted.addAndGet(objects.size() - response.errors().size());
+
+        } catch (SdkException e) {
+            // A rejected or unsent request fails every key of the batch; the other batches still run
+            log.error("Error while deleting a batch of {} keys from bucket '{}'", objects.size(), bucketName, e);
+            final var code = e instanceof S3Exception s3Exception && s3Exception.awsErrorDetails() != null
+                    ? s3Exception.awsErrorDetails().errorCode()
+                    : e.getClass().getSimpleName();
+            objects.forEach(object -> report.fail(object.key(), code, e.getMessage()));
+        }
+    }
+
+    private static final class DeleteReport {
+
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<S3DeleteError> errors = Collections.synchronizedList(new ArrayList<>());
+        private final int maxReportedErrors;
+
+        DeleteReport(final int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void fail(final String key, final String code, final String message) {
+            if (failed.incrementAndGet() <= maxReportedErrors) {
+                errors.add(new S3DeleteError(key, code, message));
+            }
+        }
+
+        List<S3DeleteError> errors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+    }
+
+}
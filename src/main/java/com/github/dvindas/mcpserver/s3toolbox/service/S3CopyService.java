@@ -0,0 +1,41 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.CopyS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.CopyS3PrefixResponse;
+
+/**
+ * Server-side copies: S3 copies the bytes itself, so no object content passes through this server.
+ *
+ * @author dvindas
+ */
+public interface S3CopyService {
+
+    /**
+     * Receives progress messages of a long-running copy.
+     */
+    @FunctionalInterface
+    interface ProgressListener {
+
+        ProgressListener NONE = message -> {
+        };
+
+        void progress(String message);
+    }
+
+    /**
+     * Copies one object with CopyObject, or with parallel UploadPartCopy requests when it is above
+     * {@code s3-toolbox.copy.multipart-threshold}. The destination bucket defaults to the source bucket.
+     */
+    CopyS3ObjectResponse copyObject(String bucketName, String key, String destinationBucketName,
+                                    String destinationKey);
+
+    /**
+     * Copies every object under the prefix, replacing the prefix with {@code destinationPrefix}. Objects are copied
+     * while the rest of the prefix is still being listed. With {@code move}, each copied source object is deleted
+     * afterwards; objects that failed to copy are kept.
+     */
+    CopyS3PrefixResponse copyPrefix(String bucketName, String prefix, String destinationBucketName,
+                                    String destinationPrefix, boolean move, boolean dryRun,
+                                    ProgressListener progress);
+
+}
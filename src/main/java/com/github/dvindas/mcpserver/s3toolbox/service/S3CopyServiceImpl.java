@@ -0,0 +1,386 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.CopyS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.CopyS3PrefixResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CopyError;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.dvindas.mcpserver.s3toolbox.service.S3BatchServiceImpl.DRY_RUN_SAMPLE_SIZE;
+import static com.github.dvindas.mcpserver.s3toolbox.service.S3BatchServiceImpl.MAX_KEYS_PER_DELETE;
+
+/**
+ * @author dvindas
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3CopyServiceImpl implements S3CopyService {
+
+    /**
+     * Largest object a single CopyObject request accepts.
+     */
+    static final long MAX_COPY_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final ExecutorService s3IoExecutor;
+    private final S3MultipartUploader s3MultipartUploader;
+    private final S3ShardedListingEngine s3ShardedListingEngine;
+    private final S3BatchService s3BatchService;
+    private final S3ToolboxProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public CopyS3ObjectResponse copyObject(final String bucketName, final String key,
+                                           final String destinationBucketName, final String destinationKey) {
+        if (destinationKey == null || destinationKey.isEmpty()) {
+            throw new IllegalArgumentException("destinationKey must not be empty");
+        }
+        final var targetBucket = destinationBucketName == null || destinationBucketName.isBlank()
+                ? bucketName : destinationBucketName;
+        if (targetBucket.equals(bucketName) && destinationKey.equals(key)) {
+            throw new IllegalArgumentException("Source and destination are the same object");
+        }
+
+        final var startedAt = System.nanoTime();
+        try {
+            final var head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+            final var copied = copy(bucketName, key, head.contentLength(), head.eTag(), head, targetBucket,
+                    destinationKey);
+            eventPublisher.publishEvent(S3ObjectsChangedEvent.ofKeys(targetBucket, List.of(destinationKey)));
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Copied '{}/{}' to '{}/{}' ({} bytes, {} parts) in {} ms", bucketName, key, targetBucket,
+                    destinationKey, head.contentLength(), copied.parts(), elapsedMillis);
+
+            return new CopyS3ObjectResponse(bucketName, key, targetBucket, destinationKey, copied.eTag(),
+                    head.contentLength(), copied.parts(), elapsedMillis);
+
+        } catch (S3Exception e) {
+            log.error("S3 error while copying '{}/{}' to '{}/{}'", bucketName, key, targetBucket, destinationKey, e);
+            throw new RuntimeException("Failed to copy object in S3", e);
+        } catch (Exception e) {
+            log.error("Error while copying '{}/{}' to '{}/{}'", bucketName, key, targetBucket, destinationKey, e);
+            throw new RuntimeException("Error while copying object", e);
+        }
+    }
+
+    @Override
+    public CopyS3PrefixResponse copyPrefix(final String bucketName, final String prefix,
+                                           final String destinationBucketName, final String destinationPrefix,
+                                           final boolean move, final boolean dryRun,
+                                           final ProgressListener progress) {
+        final var sourcePrefix = prefix == null ? "" : prefix;
+        final var targetBucket = destinationBucketName == null || destinationBucketName.isBlank()
+                ? bucketName : destinationBucketName;
+        final var targetPrefix = destinationPrefix == null ? "" : destinationPrefix;
+        if (move && sourcePrefix.isEmpty()) {
+            throw new IllegalArgumentException("prefix must not be empty; moving a whole bucket is not supported");
+        }
+        if (targetBucket.equals(bucketName) && targetPrefix.startsWith(sourcePrefix)) {
+            // The listing would pick up the copies it is producing
+            throw new IllegalArgumentException("destinationPrefix must not be inside prefix within the same bucket");
+        }
+
+        try {
+            try {
+                return copyAll(bucketName, sourcePrefix, targetBucket, targetPrefix, move, dryRun,
+                        progress == null ? ProgressListener.NONE : progress);
+            } finally {
+                if (!dryRun) {
+                    eventPublisher.publishEvent(new S3ObjectsChangedEvent(targetBucket, targetPrefix));
+                }
+            }
+
+        } catch (S3Exception e) {
+            log.error("S3 error while copying prefix '{}' of bucket '{}'", sourcePrefix, bucketName, e);
+            throw new RuntimeException("Failed to copy objects in S3", e);
+        } catch (Exception e) {
+            log.error("Error while copying prefix '{}' of bucket '{}'", sourcePrefix, bucketName, e);
+            throw new RuntimeException("Error while copying objects", e);
+        }
+    }
+
+    /**
+     * Copies each listed object on the I/O executor as soon as it is listed. Waiting for a permit before submitting a
+     * copy bounds the copies in flight, and waiting for all permits at the end waits for the last ones without keeping
+     * a future per object. Both waits wake up every progress interval to report how far the copy got.
+     */
+    private CopyS3PrefixResponse copyAll(final String bucketName, final String prefix, final String targetBucket,
+                                         final String targetPrefix, final boolean move, final boolean dryRun,
+                                         final ProgressListener progress) throws InterruptedException {
+        final var startedAt = System.nanoTime();
+        final var copy = properties.getCopy();
+        final var maxConcurrency = copy.getMaxConcurrency();
+        final var intervalNanos = copy.getProgressInterval().toNanos();
+        final var permits = new Semaphore(maxConcurrency);
+        final var report = new CopyReport(properties.getBatch().getMaxReportedErrors());
+        final var copiedKeys = new LinkedBlockingQueue<String>();
+        final var sampleKeys = new ArrayList<String>();
+        final var verb = move ? "Moved" : "Copied";
+        var matched = 0L;
+        var reportedAt = System.nanoTime();
+
+        try (var objects = s3ShardedListingEngine.streamSorted(bucketName, prefix)) {
+            final var iterator = objects.iterator();
+            while (iterator.hasNext()) {
+                final var object = iterator.next();
+                matched++;
+                if (dryRun) {
+                    if (sampleKeys.size() < DRY_RUN_SAMPLE_SIZE) {
+                        sampleKeys.add(object.key());
+                    }
+                    continue;
+                }
+
+                while (!permits.tryAcquire(intervalNanos, TimeUnit.NANOSECONDS)) {
+                    report(progress, report.progress(matched, false));
+                    reportedAt = System.nanoTime();
+                }
+                final var destinationKey = targetPrefix + object.key().substring(prefix.length());
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        if (copyListed(bucketName, object, targetBucket, destinationKey, report) && move) {
+                            copiedKeys.add(object.key());
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                }, s3IoExecutor);
+
+                if (move && copiedKeys.size() >= MAX_KEYS_PER_DELETE) {
+                    deleteCopied(bucketName, copiedKeys, report, false);
+                }
+                if (System.nanoTime() - reportedAt >= intervalNanos) {
+                    report(progress, report.progress(matched, false));
+                    reportedAt = System.nanoTime();
+                }
+            }
+
+            while (!permits.tryAcquire(maxConcurrency, intervalNanos, TimeUnit.NANOSECONDS)) {
+                report(progress, report.progress(matched, true));
+            }
+            permits.release(maxConcurrency);
+            if (move) {
+                deleteCopied(bucketName, copiedKeys, report, true);
+            }
+        }
+
+        final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        if (!dryRun) {
+            report(progress, report.progress(matched, true));
+        }
+        log.info("{} '{}' of bucket '{}' to '{}/{}': {} matched, {} copied ({} bytes), {} deleted, {} failed in {} ms",
+                dryRun ? "Dry-run copy of" : verb, prefix, bucketName, targetBucket, targetPrefix, matched,
+                report.copied.get(), report.bytesCopied.get(), report.deleted.get(), report.failed.get(),
+                elapsedMillis);
+
+        return new CopyS3PrefixResponse(bucketName, prefix, targetBucket, targetPrefix, move, dryRun, matched,
+                report.copied.get(), report.bytesCopied.get(), report.deleted.get(), report.failed.get(), sampleKeys,
+                report.errors(), elapsedMillis);
+    }
+
+    /**
+     * A failed object is reported and the other copies go on.
+     *
+     * @return whether the object was copied
+     */
+    private boolean copyListed(final String bucketName, final S3ObjectSummary object, final String targetBucket,
+                            final String destinationKey, final CopyReport report) {
+        try {
+            copy(bucketName, object.key(), object.size(), object.eTag(), null, targetBucket, destinationKey);
+            report.copied.incrementAndGet();
+            report.bytesCopied.addAndGet(object.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to copy '{}/{}' to '{}/{}': {}", bucketName, object.key(), targetBucket, destinationKey,
+                    e.getMessage());
+            final var code = e instanceof S3Exception s3Exception && s3Exception.awsErrorDetails() != null
+                    ? s3Exception.awsErrorDetails().errorCode() : null;
+            report.fail(object.key(), code, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the copied source objects in DeleteObjects batches of up to 1000 keys; with {@code all}, the last
+     * partial batch too.
+     */
+    private void deleteCopied(final String bucketName, final BlockingQueue<String> copiedKeys,
+                              final CopyReport report, final boolean all) {
+        while (copiedKeys.size() >= MAX_KEYS_PER_DELETE || all && !copiedKeys.isEmpty()) {
+            final var keys = new ArrayList<String>(MAX_KEYS_PER_DELETE);
+            copiedKeys.drainTo(keys, MAX_KEYS_PER_DELETE);
+            final var response = s3BatchService.deleteObjects(bucketName, keys, false);
+            report.deleted.addAndGet(response.deleted());
+            response.errors().forEach(error -> report.fail(error.key(), error.code(),
+                    "Copied but not deleted: " + error.message()));
+            // Failures beyond the reported errors of the batch are only counted
+            report.failed.addAndGet(response.failed() - response.errors().size());
+        }
+    }
+
+    private static void report(final ProgressListener progress, final String message) {
+        try {
+            progress.progress(message);
+        } catch (RuntimeException e) {
+            // A client that went away must not fail the copy
+            log.debug("Failed to report copy progress: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param head HEAD response of the source, fetched here when a multipart copy needs its metadata
+     */
+    private Copied copy(final String bucketName, final String key, final long size, final String eTag,
+                        final HeadObjectResponse head, final String targetBucket, final String destinationKey) {
+        if (size <= multipartThreshold()) {
+            final var response = s3Client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucketName)
+                    .sourceKey(key)
+                    .destinationBucket(targetBucket)
+                    .destinationKey(destinationKey)
+                    .build());
+            return new Copied(response.copyObjectResult().eTag(), 0);
+        }
+        return copyParts(bucketName, key, size, eTag, head != null ? head
+                : s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build()),
+                targetBucket, destinationKey);
+    }
+
+    /**
+     * Copies the object as a multipart upload whose parts are ranges of the source, copied concurrently by S3. Every
+     * part is conditional on the source ETag, so an object replaced during the copy fails it instead of mixing two
+     * versions. The upload is aborted when any part fails.
+     */
+    private Copied copyParts(final String bucketName, final String key, final long size, final String eTag,
+                             final HeadObjectResponse head, final String targetBucket,
+                             final String destinationKey) {
+        // Unlike CopyObject, a multipart upload does not inherit the source's headers and metadata
+        final var uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(targetBucket)
+                .key(destinationKey)
+                .contentType(head.contentType())
+                .contentEncoding(head.contentEncoding())
+                .contentDisposition(head.contentDisposition())
+                .contentLanguage(head.contentLanguage())
+                .cacheControl(head.cacheControl())
+                .metadata(head.metadata())
+                .build()).uploadId();
+
+        try {
+            final var partSize = partSizeFor(size);
+            final var permits = new Semaphore(properties.getTransfer().getMaxConcurrency());
+            final var futures = new ArrayList<CompletableFuture<CompletedPart>>();
+
+            var partNumber = 1;
+            for (var offset = 0L; offset < size; offset += partSize, partNumber++) {
+                permits.acquire();
+                if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    permits.release();
+                    break;
+                }
+                final var number = partNumber;
+                final var range = "bytes=%d-%d".formatted(offset, Math.min(size, offset + partSize) - 1);
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        final var response = s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                                .sourceBucket(bucketName)
+                                .sourceKey(key)
+                                .copySourceIfMatch(eTag)
+                                .copySourceRange(range)
+                                .destinationBucket(targetBucket)
+                                .destinationKey(destinationKey)
+                                .uploadId(uploadId)
+                                .partNumber(number)
+                                .build());
+                        return CompletedPart.builder()
+                                .partNumber(number)
+                                .eTag(response.copyPartResult().eTag())
+                                .build();
+                    } finally {
+                        permits.release();
+                    }
+                }, s3IoExecutor));
+            }
+
+            final var completedParts = Futures.join(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> futures.stream()
+                            .map(CompletableFuture::join)
+                            .sorted(Comparator.comparing(CompletedPart::partNumber))
+                            .toList()));
+            final var result = s3MultipartUploader.complete(targetBucket, destinationKey, uploadId, completedParts);
+            return new Copied(result.eTag(), result.parts());
+
+        } catch (Exception e) {
+            s3MultipartUploader.abort(targetBucket, destinationKey, uploadId);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Multipart copy of '%s/%s' failed".formatted(bucketName, key), e);
+        }
+    }
+
+    long multipartThreshold() {
+        return Math.min(MAX_COPY_OBJECT_SIZE, Math.max(S3MultipartUploader.MIN_PART_SIZE,
+                properties.getCopy().getMultipartThreshold().toBytes()));
+    }
+
+    long partSizeFor(final long size) {
+        final var configured = Math.max(S3MultipartUploader.MIN_PART_SIZE, properties.getCopy().getPartSize().toBytes());
+        return Math.max(configured, (size + S3MultipartUploader.MAX_PARTS - 1) / S3MultipartUploader.MAX_PARTS);
+    }
+
+    private record Copied(String eTag, int parts) {
+    }
+
+    private static final class CopyReport {
+
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong bytesCopied = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<S3CopyError> errors = Collections.synchronizedList(new ArrayList<>());
+        private final int maxReportedErrors;
+
+        CopyReport(final int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void fail(final String key, final String code, final String message) {
+            if (failed.incrementAndGet() <= maxReportedErrors) {
+                errors.add(new S3CopyError(key, code, message));
+            }
+        }
+
+        List<S3CopyError> errors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+
+        String progress(final long matched, final boolean listed) {
+            return "Copied %,d of %,d%s objects (%,d bytes), %,d failed".formatted(copied.get(), matched,
+                    listed ? "" : " listed so far", bytesCopied.get(), failed.get());
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.FindS3ObjectsResponse;
+
+/**
+ * Answers glob and regex queries over the keys of a bucket from a local index instead of listing S3 every time.
+ *
+ * @author dvindas
+ */
+public interface S3KeyIndexService {
+
+    /**
+     * Returns up to {@code maxResults} keys under the prefix matching the pattern, and how many matched in total. A
+     * glob must match the whole key; {@code *} and {@code ?} stay within one path segment, {@code **} spans
+     * segments. A regex matches anywhere in the key unless anchored. The index of the prefix is built on first use,
+     * or reused from an enclosing prefix, and kept current as described on the implementation.
+     */
+    FindS3ObjectsResponse find(String bucketName, String prefix, String pattern, boolean regex, Integer maxResults,
+                               boolean refresh);
+
+}
@@ -0,0 +1,507 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.FindS3ObjectsResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static com.github.dvindas.mcpserver.s3toolbox.service.ResultLimits.DEFAULT_MAX_RESULTS;
+import static com.github.dvindas.mcpserver.s3toolbox.service.ResultLimits.MAX_RESULTS_LIMIT;
+import static com.github.dvindas.mcpserver.s3toolbox.service.ResultLimits.clamp;
+
+/**
+ * Keeps a {@link KeyIndexFile} per bucket and prefix, built from the sharded sorted listing. Writes made through
+ * this server mark the prefixes they touched, and the next query relists only those and merges them into a new
+ * index file; an index older than {@code s3-toolbox.index.max-age} is rebuilt from scratch. Queries seek to the
+ * literal start of the pattern, so a pattern like {@code logs/2025-05-*.gz} only decodes the keys under
+ * {@code logs/2025-05-}.
+ * <p>
+ * After every query, expired indexes and, beyond {@code s3-toolbox.index.max-size}, the least recently queried ones
+ * are dropped and their files deleted. A query holding an index that was dropped meanwhile simply looks it up again.
+ *
+ * @author dvindas
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3KeyIndexServiceImpl implements S3KeyIndexService {
+
+    private final S3ShardedListingEngine s3ShardedListingEngine;
+    private final S3ToolboxProperties properties;
+    private final Map<String, KeyIndex> indexes = new ConcurrentHashMap<>();
+
+    @Override
+    public FindS3ObjectsResponse find(final String bucketName, final String prefix, final String pattern,
+                                      final boolean regex, final Integer maxResults, final boolean refresh) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("pattern is required");
+        }
+        final var scope = prefix == null ? "" : prefix;
+        final var matcher = Pattern.compile(regex ? pattern : globToRegex(pattern)).matcher("");
+        final var limit = clamp(maxResults, DEFAULT_MAX_RESULTS, MAX_RESULTS_LIMIT);
+
+        final var startedAt = System.nanoTime();
+        try {
+            KeyIndex index;
+            KeyIndexFile file;
+            do {
+                index = indexFor(bucketName, scope, refresh);
+                file = index.current(refresh);
+            } while (file == null);
+            evict(index);
+            final var scan = scanPrefix(scope, regex ? regexLiteralPrefix(pattern) : globLiteralPrefix(pattern));
+
+            final var keys = new ArrayList<String>();
+            var matched = 0L;
+            var matchedBytes = 0L;
+            var scanned = 0L;
+            if (scan != null) {
+                for (final var entries = file.scan(scan); entries.hasNext(); ) {
+                    final var entry = entries.next();
+                    scanned++;
+                    matcher.reset(entry.key());
+                    if (!(regex ? matcher.find() : matcher.matches())) {
+                        continue;
+                    }
+                    matched++;
+                    matchedBytes += entry.size();
+                    if (keys.size() < limit) {
+                        keys.add(entry.key());
+                    }
+                }
+            }
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Found {} keys matching '{}' under '{}/{}', scanning {} of {} indexed keys in {} ms", matched,
+                    pattern, bucketName, scope, scanned, file.count(), elapsedMillis);
+
+            return new FindS3ObjectsResponse(bucketName, scope, pattern, keys, matched, matchedBytes,
+                    matched > keys.size(), scanned, file.count(), index.builtAt, elapsedMillis);
+
+        } catch (S3Exception e) {
+            log.error("S3 error while indexing '{}/{}'", bucketName, scope, e);
+            throw new RuntimeException("Failed to list objects from S3", e);
+        } catch (Exception e) {
+            log.error("Error while searching '{}/{}' for '{}'", bucketName, scope, pattern, e);
+            throw new RuntimeException("Error while searching objects", e);
+        }
+    }
+
+    @EventListener
+    public void onObjectsChanged(final S3ObjectsChangedEvent event) {
+        for (final var index : indexes.values()) {
+            if (!index.bucketName.equals(event.bucketName())) {
+                continue;
+            }
+            if (event.prefix().startsWith(index.prefix)) {
+                index.dirty.add(event.prefix());
+            } else if (index.prefix.startsWith(event.prefix())) {
+                index.dirty.add(index.prefix);
+            }
+        }
+    }
+
+    /**
+     * The index of the closest enclosing prefix that is still fresh, or the one of the prefix itself.
+     */
+    private KeyIndex indexFor(final String bucketName, final String prefix, final boolean refresh) {
+        if (!refresh) {
+            final var enclosing = indexes.values().stream()
+                    .filter(index -> index.bucketName.equals(bucketName) && prefix.startsWith(index.prefix)
+                            && index.file != null && !index.expired())
+                    .max(Comparator.comparingInt(index -> index.prefix.length()));
+            if (enclosing.isPresent()) {
+                enclosing.get().lastUsed = System.nanoTime();
+                return enclosing.get();
+            }
+        }
+        final var index = indexes.computeIfAbsent(idOf(bucketName, prefix), id -> new KeyIndex(bucketName, prefix));
+        index.lastUsed = System.nanoTime();
+        return index;
+    }
+
+    /**
+     * Drops expired indexes, then the least recently queried ones until the files fit into the maximum size. The
+     * index just queried is kept even if it alone is larger.
+     */
+    private void evict(final KeyIndex queried) {
+        final var maxSize = properties.getIndex().getMaxSize().toBytes();
+        var total = indexes.values().stream().mapToLong(index -> index.size).sum();
+        final var candidates = indexes.values().stream()
+                .filter(index -> index != queried && index.file != null)
+                .sorted(Comparator.comparingLong(index -> index.lastUsed))
+                .toList();
+        for (final var index : candidates) {
+            if (index.expired() || total > maxSize) {
+                total -= index.discard();
+            }
+        }
+    }
+
+    int openIndexes() {
+        return indexes.size();
+    }
+
+    /**
+     * Where to start scanning: the literal start of the pattern when it lies inside the prefix, the prefix when it
+     * is longer, or {@code null} when no key under the prefix can match.
+     */
+    static String scanPrefix(final String prefix, final String literal) {
+        if (literal.startsWith(prefix)) {
+            return literal;
+        }
+        return prefix.startsWith(literal) ? prefix : null;
+    }
+
+    /**
+     * Translates a glob into an anchored regex: {@code *} and {@code ?} match within a path segment, {@code **}
+     * across segments, {@code **}{@code /} also matches no directory at all, {@code [...]} and {@code [!...]} are
+     * character classes and {@code {a,b}} alternatives. A backslash escapes the next character.
+     */
+    static String globToRegex(final String glob) {
+        final var regex = new StringBuilder(glob.length() + 16);
+        var braces = 0;
+        for (var i = 0; i < glob.length(); i++) {
+            final var c = glob.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                case '[' -> {
+                    final var close = glob.indexOf(']', i + 2);
+                    if (close < 0) {
+                        regex.append("\\[");
+                        continue;
+                    }
+                    var body = glob.substring(i + 1, close).replace("\\", "\\\\").replace("[", "\\[");
+                    body = body.startsWith("!") ? "^" + body.substring(1)
+                            : body.startsWith("^") ? "\\" + body : body;
+                    regex.append('[').append(body).append(']');
+                    i = close;
+                }
+                case '{' -> {
+                    braces++;
+                    regex.append("(?:");
+                }
+                case '}' -> {
+                    if (braces > 0) {
+                        braces--;
+                        regex.append(')');
+                    } else {
+                        regex.append("\\}");
+                    }
+                }
+                case ',' -> regex.append(braces > 0 ? "|" : ",");
+                case '\\' -> {
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                }
+                default -> {
+                    if ("\\.^$|()+[]{}".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                }
+            }
+        }
+        return regex.toString();
+    }
+
+    static String globLiteralPrefix(final String glob) {
+        var end = 0;
+        while (end < glob.length() && "*?[{\\".indexOf(glob.charAt(end)) < 0) {
+            end++;
+        }
+        return glob.substring(0, end);
+    }
+
+    /**
+     * Literal start of a regex anchored with {@code ^}, conservatively empty when the regex has alternatives.
+     */
+    static String regexLiteralPrefix(final String regex) {
+        if (!regex.startsWith("^") || regex.indexOf('|') >= 0) {
+            return "";
+        }
+        var end = 1;
+        while (end < regex.length() && isLiteral(regex.charAt(end))) {
+            end++;
+        }
+        // A quantifier applies to the last literal character, which then may not be there
+        if (end < regex.length() && "?*{".indexOf(regex.charAt(end)) >= 0) {
+            end--;
+        }
+        return end <= 1 ? "" : regex.substring(1, end);
+    }
+
+    private static boolean isLiteral(final char c) {
+        return Character.isLetterOrDigit(c) || c == '/' || c == '_' || c == '-' || c == '=' || c == ' ';
+    }
+
+    private final class KeyIndex {
+
+        private final String bucketName;
+        private final String prefix;
+        private final Path path;
+        private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+        private volatile KeyIndexFile file;
+        private volatile Instant builtAt;
+        private volatile long size;
+        private volatile long lastUsed = System.nanoTime();
+        private boolean discarded;
+
+        KeyIndex(final String bucketName, final String prefix) {
+            this.bucketName = bucketName;
+            this.prefix = prefix;
+            this.path = properties.getIndex().getDirectory().resolve(fileNameOf(bucketName, prefix));
+        }
+
+        boolean expired() {
+            final var at = builtAt;
+            return at == null || at.plus(properties.getIndex().getMaxAge()).isBefore(Instant.now());
+        }
+
+        /**
+         * The up-to-date index file, or {@code null} once this index was discarded.
+         */
+        synchronized KeyIndexFile current(final boolean rebuild) throws IOException {
+            if (discarded) {
+                return null;
+            }
+            if (file == null && !rebuild) {
+                load();
+            }
+            if (rebuild || file == null || expired()) {
+                try {
+                    build();
+                } catch (IOException | RuntimeException e) {
+                    if (file == null) {
+                        // Nothing to keep, so a failed first build does not leave an entry behind
+                        discarded = true;
+                        indexes.remove(idOf(bucketName, prefix), this);
+                    }
+                    throw e;
+                }
+            } else if (!dirty.isEmpty()) {
+                refreshDirty();
+            }
+            return file;
+        }
+
+        /**
+         * Deletes the file before leaving the map, so a new index of the same prefix never loses its file to this
+         * one. Readers that still scan the old file keep its mapping. Returns the bytes freed.
+         */
+        synchronized long discard() {
+            if (discarded) {
+                return 0;
+            }
+            discarded = true;
+            final var freed = size;
+            file = null;
+            size = 0;
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not delete key index '{}': {}", path, e.getMessage());
+            }
+            indexes.remove(idOf(bucketName, prefix), this);
+            log.debug("Dropped the '{}/{}' key index ({} bytes)", bucketName, prefix, freed);
+            return freed;
+        }
+
+        /**
+         * Reuses an index file a previous run left behind while it is younger than the maximum age.
+         */
+        private void load() {
+            try {
+                if (Files.isRegularFile(path)) {
+                    final var modified = Files.getLastModifiedTime(path).toInstant();
+                    if (modified.plus(properties.getIndex().getMaxAge()).isAfter(Instant.now())) {
+                        file = KeyIndexFile.open(path);
+                        builtAt = modified;
+                        size = Files.size(path);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable key index '{}': {}", path, e.getMessage());
+            }
+        }
+
+        private void build() throws IOException {
+            final var startedAt = Instant.now();
+            // Changes arriving while listing are marked again and merged by the next query
+            dirty.clear();
+            install(startedAt, writer -> append(writer, prefix));
+            log.info("Indexed {} keys of '{}/{}' in {} ms", file.count(), bucketName, prefix,
+                    Instant.now().toEpochMilli() - startedAt.toEpochMilli());
+        }
+
+        /**
+         * Rewrites the index with fresh listings of the dirty prefixes in place of their old entries. The dirty
+         * prefixes are disjoint and sorted, and the keys starting with a prefix are contiguous in S3 order, so one
+         * pass over the old index merges them.
+         */
+        private void refreshDirty() throws IOException {
+            final var snapshot = new ArrayList<>(dirty);
+            dirty.removeAll(snapshot);
+            final var prefixes = disjoint(snapshot);
+            if (prefixes.contains(prefix)) {
+                build();
+                return;
+            }
+            final var old = file;
+            try {
+                install(builtAt, writer -> {
+                    final var entries = new PeekingIterator<>(old.scan(prefix));
+                    for (final var dirtyPrefix : prefixes) {
+                        while (entries.hasNext() && S3ShardedListingEngine.S3_KEY_ORDER.compare(
+                                entries.peek().key(), dirtyPrefix) < 0) {
+                            final var entry = entries.next();
+                            writer.add(entry.key(), entry.size());
+                        }
+                        while (entries.hasNext() && entries.peek().key().startsWith(dirtyPrefix)) {
+                            entries.next();
+                        }
+                        append(writer, dirtyPrefix);
+                    }
+                    while (entries.hasNext()) {
+                        final var entry = entries.next();
+                        writer.add(entry.key(), entry.size());
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                dirty.addAll(snapshot);
+                throw e;
+            }
+            log.debug("Relisted {} changed prefixes of the '{}/{}' key index", prefixes.size(), bucketName, prefix);
+        }
+
+        private void append(final KeyIndexFile.Writer writer, final String listPrefix) throws IOException {
+            try (var objects = s3ShardedListingEngine.streamSorted(bucketName, listPrefix)) {
+                for (final var iterator = objects.iterator(); iterator.hasNext(); ) {
+                    final var object = iterator.next();
+                    writer.add(object.key(), object.size() == null ? 0 : object.size());
+                }
+            }
+        }
+
+        /**
+         * Writes a new index file next to the current one and swaps it in; readers of the old file keep its mapping.
+         */
+        private void install(final Instant at, final IndexContent content) throws IOException {
+            Files.createDirectories(path.getParent());
+            final var temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                try (var writer = new KeyIndexFile.Writer(temporary, properties.getIndex().getBlockSize())) {
+                    content.write(writer);
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                file = KeyIndexFile.open(path);
+                builtAt = at;
+                size = Files.size(path);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private static String idOf(final String bucketName, final String prefix) {
+        return bucketName + "\n" + prefix;
+    }
+
+    /**
+     * Stable across restarts, so a fresh index file of a previous run is found again.
+     */
+    static String fileNameOf(final String bucketName, final String prefix) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256")
+                    .digest((bucketName + "\n" + prefix).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + ".idx";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sorts the prefixes in S3 order and drops every prefix that starts with another one of them.
+     */
+    static List<String> disjoint(final List<String> prefixes) {
+        final var sorted = new ArrayList<>(prefixes);
+        sorted.sort(S3ShardedListingEngine.S3_KEY_ORDER);
+        final var result = new ArrayList<String>();
+        for (final var prefix : sorted) {
+            if (result.isEmpty() || !prefix.startsWith(result.getLast())) {
+                result.add(prefix);
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface IndexContent {
+        void write(KeyIndexFile.Writer writer) throws IOException;
+    }
+
+    private static final class PeekingIterator<T> implements Iterator<T> {
+
+        private final Iterator<T> delegate;
+        private T peeked;
+
+        PeekingIterator(final Iterator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        T peek() {
+            if (peeked == null) {
+                peeked = delegate.next();
+            }
+            return peeked;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return peeked != null || delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            final var next = peek();
+            peeked = null;
+            return next;
+        }
+    }
+
+}
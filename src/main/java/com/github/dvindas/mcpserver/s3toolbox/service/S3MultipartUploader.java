@@ -0,0 +1,211 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads content as a multipart upload, sending parts concurrently while the next part is being read. At most
+ * {@code s3-toolbox.transfer.max-concurrency} parts are read ahead, which bounds the memory an upload can hold. The
+ * upload is aborted when any part fails, so no orphaned parts keep accruing storage.
+ *
+ * @author dvindas
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class S3MultipartUploader {
+
+    /**
+     * Smallest part S3 accepts, except for the last one.
+     */
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    static final int MAX_PARTS = 10_000;
+
+    static final String OCTET_STREAM = "application/octet-stream";
+
+    private final S3Client s3Client;
+    private final ExecutorService s3IoExecutor;
+    private final S3ToolboxProperties properties;
+
+    /**
+     * Supplies the parts of an upload in order.
+     */
+    @FunctionalInterface
+    public interface PartSource {
+
+        /**
+         * @return the body of the given part, or {@code null} when there are no more parts
+         */
+        RequestBody next(int partNumber) throws IOException;
+    }
+
+    /**
+     * Part size for an upload of the given total size, raised when needed to stay within the 10,000 part limit.
+     */
+    public long partSizeFor(final long totalSize) {
+        final var configured = Math.max(MIN_PART_SIZE, properties.getTransfer().getPartSize().toBytes());
+        return Math.max(configured, (totalSize + MAX_PARTS - 1) / MAX_PARTS);
+    }
+
+    public long multipartThreshold() {
+        return Math.max(MIN_PART_SIZE, properties.getTransfer().getMultipartThreshold().toBytes());
+    }
+
+    /**
+     * Uploads a stream of known size, reading one part at a time so only the parts in flight are held in memory.
+     */
+    public Result upload(final CreateMultipartUploadRequest createRequest, final InputStream content,
+                         final long size) {
+        final var partSize = (int) partSizeFor(size);
+        return upload(createRequest, partNumber -> {
+            final var part = content.readNBytes(partSize);
+            return part.length == 0 ? null
+                    : RequestBody.fromContentProvider(() -> new ByteArrayInputStream(part), part.length, OCTET_STREAM);
+        });
+    }
+
+    public Result upload(final CreateMultipartUploadRequest createRequest, final PartSource parts) {
+        final var bucketName = createRequest.bucket();
+        final var key = createRequest.key();
+        final var checksumAlgorithm = checksumAlgorithmOf(createRequest);
+        final var uploadId = create(createRequest);
+
+        try {
+            final var permits = new Semaphore(properties.getTransfer().getMaxConcurrency());
+            final var futures = new ArrayList<CompletableFuture<CompletedPart>>();
+
+            for (var partNumber = 1; ; partNumber++) {
+                permits.acquire();
+                if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    permits.release();
+                    break;
+                }
+                final RequestBody body;
+                try {
+                    body = parts.next(partNumber);
+                } catch (IOException | RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+                if (body == null) {
+                    permits.release();
+                    break;
+                }
+
+                final var number = partNumber;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return uploadPart(bucketName, key, uploadId, number, body, checksumAlgorithm);
+                    } finally {
+                        permits.release();
+                    }
+                }, s3IoExecutor));
+            }
+
+            final var completedParts = Futures.join(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> futures.stream()
+                            .map(CompletableFuture::join)
+                            .sorted(Comparator.comparing(CompletedPart::partNumber))
+                            .toList()));
+
+            return complete(bucketName, key, uploadId, completedParts);
+
+        } catch (Exception e) {
+            abort(bucketName, key, uploadId);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Multipart upload of '%s/%s' failed".formatted(bucketName, key), e);
+        }
+    }
+
+    /**
+     * Starts the upload with the checksum algorithm of the request, CRC32 when it has none.
+     */
+    String create(final CreateMultipartUploadRequest createRequest) {
+        return s3Client.createMultipartUpload(createRequest.toBuilder()
+                .checksumAlgorithm(checksumAlgorithmOf(createRequest))
+                .build()).uploadId();
+    }
+
+    Result complete(final String bucketName, final String key, final String uploadId,
+                    final List<CompletedPart> completedParts) {
+        final var response = s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                .build());
+        return new Result(response.eTag(), completedParts.size());
+    }
+
+    CompletedPart uploadPart(final String bucketName, final String key, final String uploadId, final int partNumber,
+                             final RequestBody body) {
+        return uploadPart(bucketName, key, uploadId, partNumber, body, ChecksumAlgorithm.CRC32);
+    }
+
+    /**
+     * Uploads a part with the checksum algorithm its upload was created with, which S3 requires for every part.
+     */
+    CompletedPart uploadPart(final String bucketName, final String key, final String uploadId, final int partNumber,
+                             final RequestBody body, final ChecksumAlgorithm checksumAlgorithm) {
+        final var response = s3Client.uploadPart(UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .checksumAlgorithm(checksumAlgorithm)
+                .build(), body);
+
+        final var part = CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag());
+        switch (checksumAlgorithm) {
+            case CRC32_C -> part.checksumCRC32C(response.checksumCRC32C());
+            case SHA1 -> part.checksumSHA1(response.checksumSHA1());
+            case SHA256 -> part.checksumSHA256(response.checksumSHA256());
+            case CRC64_NVME -> part.checksumCRC64NVME(response.checksumCRC64NVME());
+            default -> part.checksumCRC32(response.checksumCRC32());
+        }
+        return part.build();
+    }
+
+    private static ChecksumAlgorithm checksumAlgorithmOf(final CreateMultipartUploadRequest createRequest) {
+        final var checksumAlgorithm = createRequest.checksumAlgorithm();
+        return checksumAlgorithm == null || checksumAlgorithm == ChecksumAlgorithm.UNKNOWN_TO_SDK_VERSION
+                ? ChecksumAlgorithm.CRC32 : checksumAlgorithm;
+    }
+
+    void abort(final String bucketName, final String key, final String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            log.warn("Aborted multipart upload '{}' of '{}/{}'", uploadId, bucketName, key);
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload '{}' of '{}/{}'", uploadId, bucketName, key, e);
+        }
+    }
+
+    public record Result(String eTag, int parts) {
+    }
+
+}
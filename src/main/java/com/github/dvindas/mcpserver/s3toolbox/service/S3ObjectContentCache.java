@@ -0,0 +1,355 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk cache of object bodies read by get_s3_object, keyed by bucket, key and ETag. A cached object is revalidated
+ * with {@code If-None-Match} on every read, so a hit costs a 304 round trip instead of a transfer and a changed object
+ * is never served stale. Hits are read from a memory-mapped view of the cached file. Identical reads in flight share
+ * one download or revalidation through the {@link S3RequestCoalescer}, as they do without the cache.
+ * <p>
+ * Only whole-object reads populate the cache; ranged reads are served from it once the object is cached. The index
+ * lives in memory, so each process caches into its own {@code process-<pid>} subdirectory of the configured directory
+ * and deletes it at shutdown. Several stdio servers can share the directory this way; at startup, the subdirectories
+ * of processes that are no longer running and any loose files are swept.
+ *
+ * @author dvindas
+ */
+@Component
+@ConditionalOnProperty(name = "s3-toolbox.content-cache.enabled", havingValue = "true")
+@Slf4j
+public class S3ObjectContentCache implements MeterBinder {
+
+    private static final String FILE_SUFFIX = ".s3cache";
+    private static final String CACHE_NAME = "s3-content";
+    private static final String PROCESS_DIRECTORY_PREFIX = "process-";
+
+    private final S3Client s3Client;
+    private final S3RequestCoalescer requestCoalescer;
+    private final S3ToolboxProperties properties;
+    private final Path directory;
+    private final long maxSize;
+
+    /**
+     * Access-ordered, so iteration starts at the least recently read entry. Guarded by {@code this}.
+     */
+    private final Map<ObjectKey, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public S3ObjectContentCache(final S3Client s3Client, final S3RequestCoalescer requestCoalescer,
+                                final S3ToolboxProperties properties) throws IOException {
+        this.s3Client = s3Client;
+        this.requestCoalescer = requestCoalescer;
+        this.properties = properties;
+        final var root = Files.createDirectories(properties.getContentCache().getDirectory());
+        sweep(root);
+        this.directory = Files.createDirectories(root.resolve(PROCESS_DIRECTORY_PREFIX
+                + ProcessHandle.current().pid()));
+        this.maxSize = properties.getContentCache().getMaxSize().toBytes();
+    }
+
+    public GetS3ObjectResponse getObject(final String bucketName, final String key, final Long offset,
+                                         final Long length) {
+        return requestCoalescer.coalesce(S3RequestCoalescer.GET_OBJECT, bucketName, key,
+                () -> fetchObject(bucketName, key, offset, length), offset, length);
+    }
+
+    private GetS3ObjectResponse fetchObject(final String bucketName, final String key, final Long offset,
+                                            final Long length) {
+        try {
+            final var maxInlineBytes = properties.getGet().getMaxInlineSize().toBytes();
+            if (length != null && length > maxInlineBytes) {
+                throw new IllegalArgumentException("length %d is above the inline limit of %d bytes"
+                        .formatted(length, maxInlineBytes));
+            }
+
+            final var objectKey = new ObjectKey(bucketName, key);
+            final var range = S3ObjectReads.range(offset, length);
+            final var cached = get(objectKey);
+
+            final var request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range(range)
+                    .ifNoneMatch(cached == null ? null : cached.eTag())
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build();
+            final ResponseInputStream<GetObjectResponse> body;
+            try {
+                body = S3ObjectEncoding.open(request, s3Client::getObject);
+            } catch (S3Exception e) {
+                if (cached != null && e.statusCode() == 304) {
+                    final var content = read(cached, offset, length, maxInlineBytes, key);
+                    if (content != null) {
+                        recordHit();
+                        return new GetS3ObjectResponse(S3ObjectReads.fileName(key), content, cached.contentType());
+                    }
+                    // Evicted between the lookup and the read
+                    remove(objectKey, cached);
+                    return fetchObject(bucketName, key, offset, length);
+                }
+                if (cached != null && e.statusCode() == 404) {
+                    remove(objectKey, cached);
+                }
+                throw e;
+            }
+
+            recordMiss();
+            final var content = S3ObjectEncoding.read(body, request, s3Client::getObject, offset, length,
+                    maxInlineBytes, key).content();
+            final var response = body.response();
+            if (range == null) {
+                put(objectKey, response.eTag(), response.contentType(), content);
+            } else if (cached != null) {
+                remove(objectKey, cached);
+            }
+            return new GetS3ObjectResponse(S3ObjectReads.fileName(key), content, response.contentType());
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected read of object '{}/{}': {}", bucketName, key, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while getting object '{}/{}'", bucketName, key, e);
+            throw new RuntimeException("Failed to getting object from S3", e);
+        } catch (Exception e) {
+            log.error("Error while getting object '{}/{}'", bucketName, key, e);
+            throw new RuntimeException("Error while getting object", e);
+        }
+    }
+
+    /**
+     * Drops every cached object whose key starts with {@code prefix}.
+     */
+    public synchronized void invalidate(final String bucketName, final String prefix) {
+        final var iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final var entry = iterator.next();
+            if (entry.getKey().bucketName().equals(bucketName) && entry.getKey().key().startsWith(prefix)) {
+                iterator.remove();
+                release(entry.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        entries.clear();
+        size = 0;
+        deleteTree(directory);
+    }
+
+    /**
+     * Follows the naming of Micrometer's cache binders, so the content cache sits next to the in-memory ones.
+     */
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", this, cache -> cache.stats().hits())
+                .tags("cache", CACHE_NAME, "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, cache -> cache.stats().misses())
+                .tags("cache", CACHE_NAME, "result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, cache -> cache.stats().evictions())
+                .tag("cache", CACHE_NAME).register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.stats().entries())
+                .tag("cache", CACHE_NAME).register(registry);
+        Gauge.builder("cache.disk.size", this, S3ObjectContentCache::size)
+                .tag("cache", CACHE_NAME).baseUnit("bytes").register(registry);
+    }
+
+    public synchronized S3CacheStats stats() {
+        final var requests = hits + misses;
+        return new S3CacheStats("content", entries.size(), hits, misses,
+                requests == 0 ? 1.0 : (double) hits / requests, evictions);
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private synchronized CachedObject get(final ObjectKey objectKey) {
+        return entries.get(objectKey);
+    }
+
+    /**
+     * Writes the body next to its final name and moves it in place, so a reader never maps a partial file.
+     */
+    private void put(final ObjectKey objectKey, final String eTag, final String contentType, final byte[] content)
+            throws IOException {
+        if (eTag == null || content.length > maxSize) {
+            return;
+        }
+        final var file = directory.resolve(fileName(objectKey, eTag));
+        final var temporary = Files.createTempFile(directory, "download-", ".tmp");
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        synchronized (this) {
+            final var previous = entries.put(objectKey, new CachedObject(eTag, contentType, file, content.length));
+            size += content.length;
+            if (previous != null) {
+                size -= previous.size();
+                if (!previous.file().equals(file)) {
+                    delete(previous.file());
+                }
+            }
+            final var iterator = entries.values().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                final var eldest = iterator.next();
+                iterator.remove();
+                release(eldest);
+                evictions++;
+            }
+        }
+    }
+
+    private synchronized void remove(final ObjectKey objectKey, final CachedObject cached) {
+        if (entries.remove(objectKey, cached)) {
+            release(cached);
+        }
+    }
+
+    private synchronized void recordHit() {
+        hits++;
+    }
+
+    private synchronized void recordMiss() {
+        misses++;
+    }
+
+    private void release(final CachedObject cached) {
+        size -= cached.size();
+        delete(cached.file());
+    }
+
+    /**
+     * Copies the requested window out of a read-only mapping of the cached file, or returns {@code null} when the
+     * file is gone.
+     */
+    private static byte[] read(final CachedObject cached, final Long offset, final Long length,
+                               final long maxInlineBytes, final String key) throws IOException {
+        final var start = offset == null ? 0 : offset;
+        if (start > 0 && start >= cached.size()) {
+            throw new IllegalArgumentException("offset %d is beyond the end of the %d byte object"
+                    .formatted(start, cached.size()));
+        }
+        final var end = length == null ? cached.size() : Math.min(cached.size(), start + length);
+        if (end - start > maxInlineBytes) {
+            throw new IllegalArgumentException(("Object '%s' returns %d bytes, above the inline limit of %d bytes. "
+                    + "Request a smaller byte range with offset/length or use get_s3_object_chunk.")
+                    .formatted(key, end - start, maxInlineBytes));
+        }
+        try (var channel = FileChannel.open(cached.file(), StandardOpenOption.READ)) {
+            final var content = new byte[Math.toIntExact(end - start)];
+            channel.map(FileChannel.MapMode.READ_ONLY, start, content.length).get(content);
+            return content;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes what other runs left in {@code root}: the directories of processes that are gone, including one that had
+     * the current pid before, and cached or partially downloaded files from before caches were kept per process.
+     */
+    private static void sweep(final Path root) throws IOException {
+        final var currentPid = ProcessHandle.current().pid();
+        try (var paths = Files.list(root)) {
+            for (final var path : paths.toList()) {
+                final var name = path.getFileName().toString();
+                if (Files.isDirectory(path) && name.startsWith(PROCESS_DIRECTORY_PREFIX)) {
+                    final var pid = pidOf(name);
+                    if (pid != null && (pid == currentPid || ProcessHandle.of(pid).isEmpty())) {
+                        deleteTree(path);
+                    }
+                } else if (name.endsWith(FILE_SUFFIX) || (name.startsWith("download-") && name.endsWith(".tmp"))) {
+                    delete(path);
+                }
+            }
+        }
+    }
+
+    private static Long pidOf(final String directoryName) {
+        try {
+            return Long.parseLong(directoryName.substring(PROCESS_DIRECTORY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void deleteTree(final Path root) {
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(S3ObjectContentCache::delete);
+        } catch (NoSuchFileException e) {
+            // Already gone
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not delete cache directory '{}': {}", root, e.getMessage());
+        }
+    }
+
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached file '{}': {}", file, e.getMessage());
+        }
+    }
+
+    private static String fileName(final ObjectKey objectKey, final String eTag) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(objectKey.bucketName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectKey.key().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(eTag.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest()) + FILE_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ObjectKey(String bucketName, String key) {
+    }
+
+    private record CachedObject(String eTag, String contentType, Path file, long size) {
+    }
+
+}
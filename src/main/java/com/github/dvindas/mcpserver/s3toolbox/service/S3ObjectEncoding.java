@@ -0,0 +1,421 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in compression of {@code put_s3_object} payloads and its transparent reversal wherever objects are read. The
+ * codec, the uncompressed size and a CRC32C of the uncompressed bytes are kept in user metadata, so any reader can
+ * tell a compressed object apart and the decompressed content is verified end to end, on top of the checksum S3
+ * validates for the stored bytes.
+ *
+ * @author dvindas
+ */
+final class S3ObjectEncoding {
+
+    static final String ENCODING_METADATA = "s3-toolbox-encoding";
+    static final String SIZE_METADATA = "s3-toolbox-size";
+    static final String CRC32C_METADATA = "s3-toolbox-crc32c";
+
+    static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private S3ObjectEncoding() {
+    }
+
+    /**
+     * Content to upload for a put request: the Base64 payload decoded on the fly, its compressed form, or a stream
+     * compressing it as it is read. The length of the latter is only known at its end, so {@code size} is then the
+     * uncompressed size, which is always above the multipart threshold.
+     */
+    record Payload(String base64Content, byte[] encoded, boolean compressing, long size,
+                   Map<String, String> metadata) {
+
+        InputStream open() {
+            if (encoded != null) {
+                return new ByteArrayInputStream(encoded);
+            }
+            return compressing ? new CompressingInputStream(Base64Payloads.open(base64Content))
+                    : Base64Payloads.open(base64Content);
+        }
+    }
+
+    static Payload payload(final PutS3ObjectRequest request, final long multipartThreshold) throws IOException {
+        final var base64Content = request.base64Content();
+        final var compression = request.compression() == null ? "none"
+                : request.compression().trim().toLowerCase(Locale.ROOT);
+        return switch (compression) {
+            case "", "none" -> new Payload(base64Content, null, false, Base64Payloads.decodedLength(base64Content),
+                    Map.of());
+            case GZIP -> compress(base64Content, multipartThreshold);
+            default -> throw new IllegalArgumentException(
+                    "Unsupported compression '%s', use 'gzip' or 'none'".formatted(request.compression()));
+        };
+    }
+
+    /**
+     * Checksum S3 computes and validates for the uploaded bytes, {@code null} for the SDK default.
+     */
+    static ChecksumAlgorithm checksumAlgorithm(final PutS3ObjectRequest request) {
+        if (request.checksumAlgorithm() == null || request.checksumAlgorithm().isBlank()) {
+            return null;
+        }
+        final var name = request.checksumAlgorithm().trim().toUpperCase(Locale.ROOT).replace("-", "");
+        final var algorithm = ChecksumAlgorithm.fromValue(name);
+        if (algorithm == ChecksumAlgorithm.UNKNOWN_TO_SDK_VERSION) {
+            throw new IllegalArgumentException("Unsupported checksum algorithm '%s', use one of %s"
+                    .formatted(request.checksumAlgorithm(), ChecksumAlgorithm.knownValues()));
+        }
+        return algorithm;
+    }
+
+    /**
+     * Payloads up to the multipart threshold are compressed up front, so they go out in a single PUT of known length.
+     * Larger ones are only decoded once to compute the checksum, which has to be in the metadata before the upload
+     * starts, and then compressed again while the multipart uploader reads its parts: only the parts in flight are
+     * held, never the whole compressed payload.
+     */
+    private static Payload compress(final String base64Content, final long multipartThreshold) throws IOException {
+        final var crc = new CRC32C();
+        final var size = Base64Payloads.decodedLength(base64Content);
+        if (size <= multipartThreshold) {
+            final byte[] encoded;
+            try (var content = new CompressingInputStream(
+                    new CheckedInputStream(Base64Payloads.open(base64Content), crc))) {
+                encoded = content.readAllBytes();
+            }
+            return new Payload(base64Content, encoded, false, encoded.length, metadata(size, crc));
+        }
+        try (var raw = new CheckedInputStream(Base64Payloads.open(base64Content), crc)) {
+            raw.transferTo(OutputStream.nullOutputStream());
+        }
+        return new Payload(base64Content, null, true, size, metadata(size, crc));
+    }
+
+    private static Map<String, String> metadata(final long size, final CRC32C crc) {
+        return Map.of(
+                ENCODING_METADATA, GZIP,
+                SIZE_METADATA, Long.toString(size),
+                CRC32C_METADATA, crc32c(crc));
+    }
+
+    /**
+     * Sends {@code request}. A range past the end of the stored bytes of a compressed object can still be within its
+     * content, so when a ranged read is rejected as unsatisfiable, the first stored byte is requested to tell whether
+     * the object is compressed. That response is returned if it is, and {@link #read} then reads the object whole.
+     */
+    static ResponseInputStream<GetObjectResponse> open(final GetObjectRequest request, final GetObject getObject) {
+        try {
+            return getObject.apply(request);
+        } catch (S3Exception e) {
+            if (e.statusCode() != 416 || request.range() == null) {
+                throw e;
+            }
+            final ResponseInputStream<GetObjectResponse> probe;
+            try {
+                probe = getObject.apply(request.toBuilder().range("bytes=0-0").build());
+            } catch (S3Exception probeError) {
+                // An empty object satisfies no range at all
+                e.addSuppressed(probeError);
+                throw e;
+            }
+            if (encoding(probe.response().metadata()) == null) {
+                probe.abort();
+                throw e;
+            }
+            return probe;
+        }
+    }
+
+    /**
+     * Requested window of an object, and the size of its whole content or {@code -1} when it is not known yet.
+     */
+    record Window(byte[] content, long totalSize) {
+    }
+
+    /**
+     * Reads the requested window of an object opened with {@code request}, like {@link S3ObjectReads#readBounded}.
+     * Objects compressed by {@link #payload} are decompressed from their start up to the end of the window, so a
+     * ranged read of a compressed object downloads and inflates everything before the window as well, and is sent
+     * again without its range first. The content is checked against the recorded size and CRC32C whenever the window
+     * reaches its end.
+     */
+    static Window read(final ResponseInputStream<GetObjectResponse> body, final GetObjectRequest request,
+                       final GetObject getObject, final Long offset, final Long length, final long maxBytes,
+                       final String key) throws IOException {
+        final boolean compressed;
+        try {
+            compressed = decodes(body.response().metadata(), key);
+        } catch (IllegalArgumentException e) {
+            body.abort();
+            throw e;
+        }
+        if (!compressed) {
+            return new Window(S3ObjectReads.readBounded(body, maxBytes, key), S3ObjectReads.totalSize(body.response()));
+        }
+        if (body.response().contentRange() == null) {
+            return decompress(body, offset, length, maxBytes, key);
+        }
+        // The range was applied to the compressed bytes, which says nothing about the content
+        body.abort();
+        return decompress(getObject.apply(request.toBuilder().range(null).build()), offset, length, maxBytes, key);
+    }
+
+    /**
+     * Sends a GetObject request through the blocking or the async client.
+     */
+    @FunctionalInterface
+    interface GetObject {
+
+        ResponseInputStream<GetObjectResponse> apply(GetObjectRequest request);
+    }
+
+    /**
+     * Whether an object with the given user metadata has to be decompressed by {@link #decode}.
+     *
+     * @throws IllegalArgumentException when it was compressed with a codec this server does not read
+     */
+    static boolean decodes(final Map<String, String> metadata, final String key) {
+        final var encoding = encoding(metadata);
+        if (encoding != null && !GZIP.equals(encoding)) {
+            throw new IllegalArgumentException("Object '%s' uses the unsupported encoding '%s'"
+                    .formatted(key, encoding));
+        }
+        return encoding != null;
+    }
+
+    /**
+     * Size of the decompressed content recorded in the user metadata, or {@code null} when there is none.
+     */
+    static Long contentSize(final Map<String, String> metadata) {
+        final var size = metadata.get(SIZE_METADATA);
+        try {
+            return size == null ? null : Long.parseLong(size.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decompresses the stored bytes of an object. Reaching the end of the returned stream reads what is left of
+     * {@code stored} and fails when the content does not match the recorded size or CRC32C; objects compressed by
+     * other writers may lack either, and are then only checked for what they have.
+     */
+    static InputStream decode(final InputStream stored, final Map<String, String> metadata, final String key)
+            throws IOException {
+        return new DecodedInputStream(stored, new CRC32C(), contentSize(metadata), metadata.get(CRC32C_METADATA),
+                key);
+    }
+
+    private static String encoding(final Map<String, String> metadata) {
+        return metadata.get(ENCODING_METADATA);
+    }
+
+    private static Window decompress(final ResponseInputStream<GetObjectResponse> body, final Long offset,
+                                     final Long length, final long maxBytes, final String key) throws IOException {
+        try (body) {
+            final var metadata = body.response().metadata();
+            final var size = contentSize(metadata);
+            final var start = offset == null ? 0 : offset;
+            final long limit;
+            if (size != null) {
+                if (start > 0 && start >= size) {
+                    body.abort();
+                    throw new IllegalArgumentException("offset %d is beyond the end of the %d byte object"
+                            .formatted(start, size));
+                }
+                final var end = length == null ? size : Math.min(size, start + length);
+                if (end - start > maxBytes) {
+                    body.abort();
+                    throw new IllegalArgumentException(("Object '%s' decompresses to %d bytes, above the inline "
+                            + "limit of %d bytes. Request a smaller byte range with offset/length.")
+                            .formatted(key, end - start, maxBytes));
+                }
+                limit = end - start;
+            } else {
+                // Without a recorded size, the limit is only known to be exceeded once one more byte is read
+                limit = length == null ? maxBytes + 1 : Math.min(length, maxBytes + 1);
+            }
+
+            final var content = decode(body, metadata, key);
+            try {
+                content.skipNBytes(start);
+            } catch (EOFException e) {
+                body.abort();
+                throw new IllegalArgumentException("offset %d is beyond the end of the object".formatted(start));
+            }
+            final var window = content.readNBytes(Math.toIntExact(limit));
+            if (window.length > maxBytes) {
+                body.abort();
+                throw new IllegalArgumentException(("Object '%s' decompresses to more than the inline limit of %d "
+                        + "bytes. Request a smaller byte range with offset/length.").formatted(key, maxBytes));
+            }
+            if (content.read() == -1) {
+                return new Window(window, start + window.length);
+            }
+            // Stops decompressing here, the checksum only covers whole objects
+            body.abort();
+            return new Window(window, size == null ? -1 : size);
+        }
+    }
+
+    /**
+     * Counts the decompressed bytes as they are read and checks them once the end is reached.
+     */
+    private static final class DecodedInputStream extends FilterInputStream {
+
+        private final InputStream stored;
+        private final CRC32C crc;
+        private final Long size;
+        private final String expectedCrc32c;
+        private final String key;
+        private long count;
+        private boolean ended;
+
+        private DecodedInputStream(final InputStream stored, final CRC32C crc, final Long size,
+                                   final String expectedCrc32c, final String key) throws IOException {
+            super(new CheckedInputStream(new GZIPInputStream(stored, BUFFER_SIZE), crc));
+            this.stored = stored;
+            this.crc = crc;
+            this.size = size;
+            this.expectedCrc32c = expectedCrc32c;
+            this.key = key;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var value = super.read();
+            advance(value == -1 ? -1 : 1);
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final var read = super.read(buffer, offset, length);
+            advance(read);
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final var skipped = super.skip(n);
+            advance(skipped);
+            return skipped;
+        }
+
+        private void advance(final long read) throws IOException {
+            if (read >= 0) {
+                count += read;
+                if (size != null && count > size) {
+                    throw new IOException("Object '%s' decompresses to more than its recorded %d bytes"
+                            .formatted(key, size));
+                }
+                return;
+            }
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (size != null && count != size) {
+                throw new IOException("Object '%s' decompresses to %d bytes instead of its recorded %d"
+                        .formatted(key, count, size));
+            }
+            // Reads the remaining trailer bytes, if any, so the SDK validates the checksum of the stored object
+            stored.transferTo(OutputStream.nullOutputStream());
+            if (expectedCrc32c != null && !expectedCrc32c.equals(crc32c(crc))) {
+                throw new IOException("Object '%s' failed its CRC32C check after decompression".formatted(key));
+            }
+        }
+    }
+
+    /**
+     * Gzips {@code raw} as it is read, holding no more than the compressed output of one input buffer.
+     */
+    private static final class CompressingInputStream extends InputStream {
+
+        private final InputStream raw;
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(BUFFER_SIZE);
+        private final GZIPOutputStream gzip;
+        private final byte[] input = new byte[BUFFER_SIZE];
+        private byte[] output = new byte[0];
+        private int position;
+        private boolean finished;
+
+        private CompressingInputStream(final InputStream raw) {
+            this.raw = raw;
+            try {
+                this.gzip = new GZIPOutputStream(compressed, BUFFER_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == output.length) {
+                if (finished) {
+                    return -1;
+                }
+                final var read = raw.read(input);
+                if (read == -1) {
+                    gzip.finish();
+                    finished = true;
+                } else {
+                    gzip.write(input, 0, read);
+                }
+                output = compressed.toByteArray();
+                compressed.reset();
+                position = 0;
+            }
+            final var count = Math.min(length, output.length - position);
+            System.arraycopy(output, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            raw.close();
+        }
+    }
+
+    /**
+     * Base64 of the big-endian checksum value, the format S3 uses for its checksum headers.
+     */
+    private static String crc32c(final CRC32C crc) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue())
+                .array());
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.StorageClass;
+
+import java.io.IOException;
+
+/**
+ * Helpers shared by the services that read objects into bounded buffers.
+ *
+ * @author dvindas
+ */
+final class S3ObjectReads {
+
+    private S3ObjectReads() {
+    }
+
+    /**
+     * HeadObject only returns the {@code x-amz-storage-class} header for non-STANDARD objects.
+     */
+    static String storageClassOf(final HeadObjectResponse headResponse) {
+        final var storageClass = headResponse.storageClassAsString();
+        return storageClass == null ? StorageClass.STANDARD.toString() : storageClass;
+    }
+
+    static String fileName(final String key) {
+        return key.contains("/") ? key.substring(key.lastIndexOf("/") + 1) : key;
+    }
+
+    /**
+     * Builds the HTTP range header for the requested window, or {@code null} to read the whole object.
+     */
+    static String range(final Long offset, final Long length) {
+        if (offset != null && offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (length != null && length <= 0) {
+            throw new IllegalArgumentException("length must be positive");
+        }
+        if (length != null) {
+            final var start = offset == null ? 0 : offset;
+            return "bytes=" + start + "-" + (start + length - 1);
+        }
+        return offset == null || offset == 0 ? null : "bytes=" + offset + "-";
+    }
+
+    /**
+     * Total object size, taken from {@code Content-Range} for ranged reads.
+     */
+    static long totalSize(final GetObjectResponse response) {
+        final var contentRange = response.contentRange();
+        if (contentRange != null && contentRange.contains("/") && !contentRange.endsWith("/*")) {
+            return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+        }
+        return response.contentLength() == null ? 0 : response.contentLength();
+    }
+
+    /**
+     * Reads the body into an exactly sized buffer. The length is checked against the inline limit before reading,
+     * and oversized bodies are aborted so the connection does not download bytes that would be discarded.
+     */
+    static byte[] readBounded(final ResponseInputStream<GetObjectResponse> body, final long maxBytes,
+                              final String key) throws IOException {
+        try (body) {
+            final var contentLength = body.response().contentLength();
+            if (contentLength != null && contentLength > maxBytes) {
+                body.abort();
+                throw new IllegalArgumentException(("Object '%s' returns %d bytes, above the inline limit of %d bytes. "
+                        + "Request a smaller byte range with offset/length or use get_s3_object_chunk.")
+                        .formatted(key, contentLength, maxBytes));
+            }
+            if (contentLength != null) {
+                final var content = body.readNBytes(Math.toIntExact(contentLength));
+                // Reaching the end of the stream is what makes the SDK validate a response checksum
+                body.read();
+                return content;
+            }
+            final var content = body.readNBytes(Math.toIntExact(maxBytes) + 1);
+            if (content.length > maxBytes) {
+                body.abort();
+                throw new IllegalArgumentException("Object '%s' is above the inline limit of %d bytes"
+                        .formatted(key, maxBytes));
+            }
+            return content;
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import java.util.Collection;
+
+/**
+ * Published after objects were written or deleted outside of {@link S3ActionsService}, so cached lookups of the
+ * affected keys are dropped. Every key starting with {@code prefix} is considered changed.
+ *
+ * @author dvindas
+ */
+public record S3ObjectsChangedEvent(String bucketName, String prefix) {
+
+    /**
+     * Describes a set of keys by their longest common prefix, which may invalidate more than strictly needed.
+     */
+    public static S3ObjectsChangedEvent ofKeys(final String bucketName, final Collection<String> keys) {
+        String prefix = null;
+        for (final var key : keys) {
+            if (prefix == null) {
+                prefix = key;
+                continue;
+            }
+            var length = 0;
+            while (length < Math.min(prefix.length(), key.length()) && prefix.charAt(length) == key.charAt(length)) {
+                length++;
+            }
+            prefix = prefix.substring(0, length);
+        }
+        return new S3ObjectsChangedEvent(bucketName, prefix == null ? "" : prefix);
+    }
+
+}
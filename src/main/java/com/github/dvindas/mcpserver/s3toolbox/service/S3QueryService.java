@@ -0,0 +1,21 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.QueryS3ObjectResponse;
+
+/**
+ * Filters the content of an object where it is read, so only the matching rows reach the caller.
+ *
+ * @author dvindas
+ */
+public interface S3QueryService {
+
+    /**
+     * Returns up to {@code maxResults} rows of the object that match the filter. An SQL {@code expression} runs inside
+     * S3 with SelectObjectContent. When only a {@code pattern} is given, or S3 Select is not available for the bucket,
+     * the object is streamed instead, gunzipped on the fly when compressed, and each line is matched against the
+     * regular expression. {@code format} (CSV, JSON, PARQUET or TEXT) is detected from the key when omitted.
+     */
+    QueryS3ObjectResponse queryObject(String bucketName, String key, String expression, String pattern, String format,
+                                      Integer maxResults);
+
+}
@@ -0,0 +1,405 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.QueryS3ObjectResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static com.github.dvindas.mcpserver.s3toolbox.service.ResultLimits.clamp;
+
+/**
+ * @author dvindas
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3QueryServiceImpl implements S3QueryService {
+
+    static final int DEFAULT_MAX_ROWS = 100;
+    static final int MAX_ROWS = 1000;
+    static final String S3_SELECT = "S3_SELECT";
+    static final String SCAN = "SCAN";
+
+    /**
+     * Answers of endpoints without S3 Select: S3-compatible stores, and AWS accounts it is no longer offered to.
+     */
+    private static final Set<String> SELECT_UNAVAILABLE_CODES = Set.of("NotImplemented", "MethodNotAllowed",
+            "UnsupportedOperation");
+
+    private final S3Client s3Client;
+    private final ObjectProvider<S3AsyncClient> s3AsyncClient;
+    private final S3ToolboxProperties properties;
+
+    @Override
+    public QueryS3ObjectResponse queryObject(final String bucketName, final String key, final String expression,
+                                             final String pattern, final String format, final Integer maxResults) {
+        final var startedAt = System.nanoTime();
+        try {
+            final var hasExpression = expression != null && !expression.isBlank();
+            final var regex = pattern == null || pattern.isEmpty() ? null : Pattern.compile(pattern);
+            if (!hasExpression && regex == null) {
+                throw new IllegalArgumentException("Pass an SQL expression, a pattern, or both");
+            }
+            final var objectFormat = ObjectFormat.of(key, format);
+            final var rows = new Rows(clamp(maxResults, DEFAULT_MAX_ROWS, MAX_ROWS),
+                    properties.getQuery().getMaxResponseSize().toBytes());
+
+            if (hasExpression) {
+                try {
+                    final var bytesScanned = select(bucketName, key, expression, objectFormat, rows);
+                    return response(bucketName, key, S3_SELECT, null, rows, bytesScanned, startedAt);
+                } catch (S3Exception e) {
+                    if (regex == null || !selectUnavailable(e)) {
+                        throw e;
+                    }
+                    log.info("S3 Select is not available for '{}/{}' ({}), scanning the object instead", bucketName,
+                            key, e.awsErrorDetails() == null ? e.statusCode() : e.awsErrorDetails().errorCode());
+                }
+            }
+            return scan(bucketName, key, regex, objectFormat, rows, startedAt);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected query of object '{}/{}': {}", bucketName, key, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while querying object '{}/{}'", bucketName, key, e);
+            throw new RuntimeException(selectUnavailable(e)
+                    ? "S3 Select is not available for this bucket, pass a pattern to scan the object instead"
+                    : "Failed to query object in S3", e);
+        } catch (Exception e) {
+            log.error("Error while querying object '{}/{}'", bucketName, key, e);
+            throw new RuntimeException("Error while querying object", e);
+        }
+    }
+
+    /**
+     * Runs the expression with SelectObjectContent, returning records as JSON lines. Records arrive in chunks that do
+     * not respect record boundaries, so they are split on newlines here. The event stream is cancelled once the rows
+     * are complete, which stops S3 from scanning further.
+     *
+     * @return bytes S3 scanned, or null when the stream was cancelled before its stats arrived
+     */
+    private Long select(final String bucketName, final String key, final String expression,
+                        final ObjectFormat objectFormat, final Rows rows) {
+        if (objectFormat.type() == FormatType.TEXT) {
+            throw new IllegalArgumentException(("S3 Select supports CSV, JSON and Parquet objects; pass format or "
+                    + "use a pattern for '%s'").formatted(key));
+        }
+        var input = objectFormat;
+        if (objectFormat.compression() == CompressionType.NONE && objectFormat.type() != FormatType.PARQUET) {
+            // Objects compressed by put_s3_object keep their key, so only their metadata says they are gzipped
+            final var head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+            if (S3ObjectEncoding.decodes(head.metadata(), key)) {
+                input = new ObjectFormat(objectFormat.type(), objectFormat.fieldDelimiter(), CompressionType.GZIP);
+            }
+        }
+        final var request = SelectObjectContentRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .expression(expression)
+                .expressionType(ExpressionType.SQL)
+                .inputSerialization(input.inputSerialization())
+                .outputSerialization(OutputSerialization.builder()
+                        .json(JSONOutput.builder().recordDelimiter("\n").build())
+                        .build())
+                .build();
+
+        final var subscriber = new SelectRecordsSubscriber(rows,
+                Math.toIntExact(properties.getQuery().getMaxLineLength().toBytes()));
+        s3AsyncClient.getObject()
+                .selectObjectContent(request, SelectObjectContentResponseHandler.builder()
+                        .subscriber(() -> subscriber)
+                        .build())
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        subscriber.done.completeExceptionally(error);
+                    }
+                });
+        return Futures.join(subscriber.done);
+    }
+
+    /**
+     * Streams the object and matches each line. The GET is aborted as soon as a limit is reached, so the rest of the
+     * object is not downloaded.
+     */
+    private QueryS3ObjectResponse scan(final String bucketName, final String key, final Pattern regex,
+                                       final ObjectFormat objectFormat, final Rows rows, final long startedAt)
+            throws IOException {
+        if (objectFormat.type() == FormatType.PARQUET || objectFormat.compression() == CompressionType.BZIP2) {
+            throw new IllegalArgumentException("'%s' can only be queried with an SQL expression".formatted(key));
+        }
+        final var query = properties.getQuery();
+        final var maxScanSize = query.getMaxScanSize().toBytes();
+
+        final var object = s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+        final var counted = new CountingInputStream(object);
+        try (object) {
+            String header = null;
+            var finished = false;
+            try {
+                final var lines = new LineReader(decompressed(counted),
+                        Math.toIntExact(query.getMaxLineLength().toBytes()));
+                header = objectFormat.type() == FormatType.CSV ? lines.next() : null;
+                for (var line = lines.next(); line != null; line = lines.next()) {
+                    if (regex.matcher(line).find() && !rows.add(line)) {
+                        break;
+                    }
+                    if (counted.count >= maxScanSize) {
+                        rows.truncated = true;
+                        break;
+                    }
+                }
+                finished = !rows.truncated;
+            } finally {
+                if (!finished) {
+                    // Closing would otherwise read the remaining body to reuse the connection
+                    object.abort();
+                }
+            }
+            return response(bucketName, key, SCAN, header, rows, counted.count, startedAt);
+        }
+    }
+
+    /**
+     * Gunzips the stream when it starts with the gzip magic number, whatever the key or Content-Encoding say.
+     */
+    private static InputStream decompressed(final InputStream input) throws IOException {
+        final var pushback = new PushbackInputStream(input, 2);
+        final var magic = pushback.readNBytes(2);
+        pushback.unread(magic);
+        final var gzip = magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+        return gzip ? new GZIPInputStream(pushback, 64 * 1024) : pushback;
+    }
+
+    static boolean selectUnavailable(final S3Exception e) {
+        return e.statusCode() == 501 || e.statusCode() == 405
+                || e.awsErrorDetails() != null && SELECT_UNAVAILABLE_CODES.contains(e.awsErrorDetails().errorCode());
+    }
+
+    private static QueryS3ObjectResponse response(final String bucketName, final String key, final String method,
+                                                  final String header, final Rows rows, final Long bytesScanned,
+                                                  final long startedAt) {
+        final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        log.info("Queried '{}/{}' with {}: {} rows ({} bytes){} in {} ms", bucketName, key, method, rows.rows.size(),
+                rows.bytes, rows.truncated ? ", truncated" : "", elapsedMillis);
+        return new QueryS3ObjectResponse(bucketName, key, method, header, List.copyOf(rows.rows), rows.truncated,
+                bytesScanned, rows.bytes, elapsedMillis);
+    }
+
+    enum FormatType {
+        CSV, JSON, PARQUET, TEXT
+    }
+
+    /**
+     * Format and compression of an object, from the {@code format} argument or else from the key's extensions, e.g.
+     * {@code logs/app.jsonl.gz} is gzip-compressed JSON.
+     */
+    record ObjectFormat(FormatType type, String fieldDelimiter, CompressionType compression) {
+
+        static ObjectFormat of(final String key, final String format) {
+            var name = key.toLowerCase(Locale.ROOT);
+            var compression = CompressionType.NONE;
+            if (name.endsWith(".gz")) {
+                compression = CompressionType.GZIP;
+                name = name.substring(0, name.length() - ".gz".length());
+            } else if (name.endsWith(".bz2")) {
+                compression = CompressionType.BZIP2;
+                name = name.substring(0, name.length() - ".bz2".length());
+            }
+
+            if (format != null && !format.isBlank()) {
+                try {
+                    return new ObjectFormat(FormatType.valueOf(format.trim().toUpperCase(Locale.ROOT)),
+                            name.endsWith(".tsv") ? "\t" : ",", compression);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "Unknown format '%s', expected CSV, JSON, PARQUET or TEXT".formatted(format));
+                }
+            }
+            if (name.endsWith(".csv")) {
+                return new ObjectFormat(FormatType.CSV, ",", compression);
+            }
+            if (name.endsWith(".tsv")) {
+                return new ObjectFormat(FormatType.CSV, "\t", compression);
+            }
+            if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return new ObjectFormat(FormatType.JSON, ",", compression);
+            }
+            if (name.endsWith(".parquet")) {
+                return new ObjectFormat(FormatType.PARQUET, ",", CompressionType.NONE);
+            }
+            return new ObjectFormat(FormatType.TEXT, ",", compression);
+        }
+
+        InputSerialization inputSerialization() {
+            final var input = InputSerialization.builder();
+            switch (type) {
+                case CSV -> input.csv(CSVInput.builder()
+                        .fileHeaderInfo(FileHeaderInfo.USE)
+                        .fieldDelimiter(fieldDelimiter)
+                        .build());
+                case JSON -> input.json(JSONInput.builder().type(JSONType.LINES).build());
+                case PARQUET -> input.parquet(ParquetInput.builder().build());
+                case TEXT -> throw new IllegalStateException("S3 Select does not read plain text");
+            }
+            return input.compressionType(compression).build();
+        }
+    }
+
+    /**
+     * Rows collected so far; refuses rows once {@code maxRows} or {@code maxBytes} is reached and marks the result
+     * as truncated.
+     */
+    static final class Rows {
+
+        private final int maxRows;
+        private final long maxBytes;
+        private final List<String> rows = new ArrayList<>();
+        private long bytes;
+        private boolean truncated;
+
+        Rows(final int maxRows, final long maxBytes) {
+            this.maxRows = maxRows;
+            this.maxBytes = maxBytes;
+        }
+
+        boolean add(final String row) {
+            final var size = row.getBytes(StandardCharsets.UTF_8).length;
+            if (rows.size() >= maxRows || bytes + size > maxBytes) {
+                truncated = true;
+                return false;
+            }
+            rows.add(row);
+            bytes += size;
+            return true;
+        }
+    }
+
+    /**
+     * Collects the records of a SelectObjectContent event stream into {@link Rows} and completes {@code done} with
+     * the scanned byte count when the stream ends or the rows are full.
+     */
+    private static final class SelectRecordsSubscriber implements Subscriber<SelectObjectContentEventStream> {
+
+        private final Rows rows;
+        private final int maxLineLength;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+        private Subscription subscription;
+        private Long bytesScanned;
+
+        private SelectRecordsSubscriber(final Rows rows, final int maxLineLength) {
+            this.rows = rows;
+            this.maxLineLength = maxLineLength;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(final SelectObjectContentEventStream event) {
+            if (event instanceof RecordsEvent records && records.payload() != null && !collect(records.payload()
+                    .asByteArrayUnsafe())) {
+                subscription.cancel();
+                done.complete(bytesScanned);
+                return;
+            }
+            if (event instanceof StatsEvent stats && stats.details() != null) {
+                bytesScanned = stats.details().bytesScanned();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            done.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            if (pending.size() > 0) {
+                rows.add(pending.toString(StandardCharsets.UTF_8));
+            }
+            done.complete(bytesScanned);
+        }
+
+        /**
+         * @return false once the rows are full
+         */
+        private boolean collect(final byte[] payload) {
+            var start = 0;
+            for (var i = 0; i < payload.length; i++) {
+                if (payload[i] == '\n') {
+                    append(payload, start, i - start);
+                    final var row = pending.toString(StandardCharsets.UTF_8);
+                    pending.reset();
+                    if (!rows.add(row)) {
+                        return false;
+                    }
+                    start = i + 1;
+                }
+            }
+            append(payload, start, payload.length - start);
+            return true;
+        }
+
+        private void append(final byte[] payload, final int offset, final int length) {
+            pending.write(payload, offset, Math.max(0, Math.min(length, maxLineLength - pending.size())));
+        }
+    }
+
+    /**
+     * Counts the bytes read from the object, before decompression.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(final InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final var read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+}
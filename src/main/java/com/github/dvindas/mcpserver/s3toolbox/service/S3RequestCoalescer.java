@@ -0,0 +1,127 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical read calls: while a call for an operation and its arguments is in flight,
+ * the same call from another tool call or session waits for it and gets the same result, or the same exception,
+ * instead of sending its own S3 request and buffering its own copy of the payload. Nothing is kept once the call
+ * completed; repeated reads over time are the cache's job.
+ * <p>
+ * Writes made through this server detach the in-flight calls they may affect, so a read that starts after a write
+ * never joins a request that started before it.
+ *
+ * @author dvindas
+ */
+@Component
+@Slf4j
+public class S3RequestCoalescer implements MeterBinder {
+
+    static final String GET_OBJECT = "getObject";
+    static final String GET_OBJECT_METADATA = "getObjectMetadata";
+    static final String LIST_OBJECTS = "listObjects";
+    static final String LIST_OBJECTS_PAGE = "listObjectsPage";
+
+    private final Map<Call, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counts> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code call}, or joins the identical one already in flight.
+     *
+     * @param path      key or prefix the call reads, used to detach it when that part of the bucket is written
+     * @param arguments remaining arguments that make two calls identical
+     */
+    @SuppressWarnings("unchecked")
+    <T> T coalesce(final String operation, final String bucketName, final String path, final Supplier<T> call,
+                   final Object... arguments) {
+        final var key = new Call(operation, bucketName, path == null ? "" : path, Arrays.asList(arguments));
+        final var counts = this.counts.computeIfAbsent(operation, ignored -> new Counts());
+        final var flight = new CompletableFuture<Object>();
+        final var existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            counts.coalesced.increment();
+            log.debug("Joined in-flight {} of '{}/{}'", operation, bucketName, path);
+            return (T) Futures.join(existing);
+        }
+
+        counts.executed.increment();
+        try {
+            final var result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    @EventListener
+    public void onObjectsChanged(final S3ObjectsChangedEvent event) {
+        inFlight.keySet().removeIf(call -> call.bucketName().equals(event.bucketName())
+                && (call.path().startsWith(event.prefix()) || event.prefix().startsWith(call.path())));
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Per operation: calls that joined another one as hits, calls that went to S3 as misses.
+     */
+    public List<S3CacheStats> stats() {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> {
+                    final var coalesced = entry.getValue().coalesced.sum();
+                    final var executed = entry.getValue().executed.sum();
+                    final var total = coalesced + executed;
+                    final var active = inFlight.keySet().stream()
+                            .filter(call -> call.operation().equals(entry.getKey()))
+                            .count();
+                    return new S3CacheStats("coalesced-" + entry.getKey(), active, coalesced, executed,
+                            total == 0 ? 0 : (double) coalesced / total, 0);
+                })
+                .toList();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final var operation : List.of(GET_OBJECT, GET_OBJECT_METADATA, LIST_OBJECTS, LIST_OBJECTS_PAGE)) {
+            final var operationCounts = counts.computeIfAbsent(operation, ignored -> new Counts());
+            FunctionCounter.builder("s3.requests.coalesced", operationCounts.coalesced, LongAdder::sum)
+                    .description("Calls that joined an identical in-flight S3 request instead of sending their own")
+                    .tag("operation", operation)
+                    .register(registry);
+            FunctionCounter.builder("s3.requests.single.flight", operationCounts.executed, LongAdder::sum)
+                    .description("Calls that sent their S3 request, possibly on behalf of coalesced ones")
+                    .tag("operation", operation)
+                    .register(registry);
+        }
+    }
+
+    private record Call(String operation, String bucketName, String path, List<Object> arguments) {
+    }
+
+    private static final class Counts {
+
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder executed = new LongAdder();
+    }
+
+}
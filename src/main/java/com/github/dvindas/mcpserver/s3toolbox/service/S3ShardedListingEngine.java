@@ -0,0 +1,467 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3PrefixSummaryResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3PrefixUsage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lists very large prefixes by splitting the keyspace on its common prefixes and listing the resulting shards
+ * concurrently on the shared I/O executor. Every S3 request acquires a permit first, so a single listing never has
+ * more than {@code s3-toolbox.listing.max-concurrency} requests in flight.
+ * <p>
+ * Shards are listed one page at a time. When a page is truncated, the rest of its key range is split at a key
+ * between the last listed key and the end of the range, and both halves are listed concurrently with
+ * {@code StartAfter}, so flat keyspaces without common prefixes are listed in parallel too. No listing holds more
+ * than a page per request in flight.
+ *
+ * @author dvindas
+ */
+@Component
+@Slf4j
+public class S3ShardedListingEngine {
+
+    /**
+     * S3 returns keys in UTF-8 binary order, which differs from {@link String#compareTo} for supplementary characters.
+     */
+    static final Comparator<String> S3_KEY_ORDER = (left, right) -> Arrays.compareUnsigned(
+            left.getBytes(StandardCharsets.UTF_8), right.getBytes(StandardCharsets.UTF_8));
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Sorts after every key below a common prefix, so listing after it skips the whole common prefix.
+     */
+    private static final String AFTER_COMMON_PREFIX = new String(Character.toChars(Character.MAX_CODE_POINT));
+
+    /**
+     * Split keys are computed over printable ASCII, as numbers of {@link #SPLIT_DIGITS} base-96 digits where 0 marks
+     * the end of the key.
+     */
+    private static final int SPLIT_BASE = 96;
+    private static final int SPLIT_DIGITS = 8;
+    private static final char FIRST_SPLIT_CHAR = ' ';
+    private static final char LAST_SPLIT_CHAR = '~';
+
+    private final S3Client s3Client;
+    private final S3ToolboxProperties.Listing properties;
+    private final ExecutorService executor;
+
+    public S3ShardedListingEngine(final S3Client s3Client, final ExecutorService s3IoExecutor,
+                                  final S3ToolboxProperties properties) {
+        this.s3Client = s3Client;
+        this.executor = s3IoExecutor;
+        this.properties = properties.getListing();
+    }
+
+    /**
+     * Counts the objects and bytes under the prefix, listing every shard concurrently. Only the
+     * {@code s3-toolbox.listing.max-reported-shards} largest shards are returned.
+     */
+    public S3PrefixSummaryResponse summarize(final String bucketName, final String prefix) {
+        final var startedAt = System.nanoTime();
+        try {
+            final var permits = new Semaphore(properties.getMaxConcurrency());
+            final var loose = new long[2];
+            final var plan = plan(bucketName, normalize(prefix), permits, object -> {
+                loose[0]++;
+                loose[1] += sizeOf(object);
+            });
+
+            final var shardFutures = plan.shards().stream()
+                    .map(shard -> usageOf(bucketName, shard, permits).thenApply(totals -> new S3PrefixUsage(
+                            shard.prefix(), shard.startAfter(), totals[0], totals[1])))
+                    .toList();
+
+            final var shards = shardFutures.stream().map(Futures::join).toList();
+
+            var objectCount = loose[0];
+            var totalBytes = loose[1];
+            for (final var shard : shards) {
+                objectCount += shard.objectCount();
+                totalBytes += shard.totalBytes();
+            }
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Summarized '{}/{}' in {} ms: {} objects, {} bytes, {} shards", bucketName, prefix,
+                    elapsedMillis, objectCount, totalBytes, shards.size());
+
+            final var reported = shards.stream()
+                    .sorted(Comparator.comparingLong(S3PrefixUsage::totalBytes).reversed())
+                    .limit(properties.getMaxReportedShards())
+                    .toList();
+            return new S3PrefixSummaryResponse(bucketName, prefix, objectCount, totalBytes, shards.size(),
+                    elapsedMillis, reported, reported.size() < shards.size());
+
+        } catch (S3Exception e) {
+            log.error("S3 error while summarizing prefix '{}' in bucket '{}'", prefix, bucketName, e);
+            throw new RuntimeException("Failed to summarize prefix from S3", e);
+        } catch (Exception e) {
+            log.error("Error while summarizing prefix '{}' in bucket '{}'", prefix, bucketName, e);
+            throw new RuntimeException("Error while summarizing prefix", e);
+        }
+    }
+
+    /**
+     * Streams every object under the prefix in the same order S3 would list them. Pages are listed concurrently
+     * ahead of the consumer, but only a bounded window of pages is buffered at any time.
+     */
+    public Stream<S3ObjectSummary> streamSorted(final String bucketName, final String prefix) {
+        final var permits = new Semaphore(properties.getMaxConcurrency());
+        final var looseObjects = new ArrayList<S3ObjectSummary>();
+        final var plan = plan(bucketName, normalize(prefix), permits, looseObjects::add);
+        looseObjects.sort(Comparator.comparing(S3ObjectSummary::key, S3_KEY_ORDER));
+        final var iterator = new SortedMergeIterator(bucketName, plan, looseObjects, permits,
+                Math.max(1, properties.getMaxConcurrency() * 2));
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::cancel);
+    }
+
+    /**
+     * Expands the prefix breadth-first on its common prefixes until there are enough shards to keep every permit
+     * busy. Only the first page of each level is listed: its objects go to {@code looseObjects}, so nothing is
+     * listed twice, and the rest of a truncated level becomes a shard of its own starting after that page.
+     */
+    ShardPlan plan(final String bucketName, final String prefix, final Semaphore permits,
+                   final Consumer<S3ObjectSummary> looseObjects) {
+        final var shards = new ArrayList<Shard>();
+        var frontier = List.of(prefix);
+        var depth = 0;
+
+        while (depth < properties.getMaxShardDepth() && !frontier.isEmpty()
+                && shards.size() + frontier.size() < properties.getTargetShards()) {
+
+            final var levelFutures = frontier.stream()
+                    .map(levelPrefix -> CompletableFuture.supplyAsync(
+                            () -> listLevel(bucketName, levelPrefix, permits), executor))
+                    .toList();
+
+            final var next = new ArrayList<String>();
+            for (final var levelFuture : levelFutures) {
+                final var level = Futures.join(levelFuture);
+                level.objects().forEach(looseObjects);
+                next.addAll(level.prefixes());
+                if (level.remainder() != null) {
+                    shards.add(level.remainder());
+                }
+            }
+            frontier = next;
+            depth++;
+        }
+
+        frontier.forEach(shardPrefix -> shards.add(new Shard(shardPrefix, null, null)));
+        shards.sort(Comparator.comparing(Shard::lowerBound, S3_KEY_ORDER));
+        return new ShardPlan(shards);
+    }
+
+    private Level listLevel(final String bucketName, final String prefix, final Semaphore permits) {
+        final var response = list(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .delimiter(properties.getDelimiter())
+                .maxKeys(MAX_PAGE_SIZE)
+                .build(), permits);
+
+        final var objects = response.contents().stream().map(S3ObjectSummary::from).toList();
+        final var prefixes = response.commonPrefixes().stream().map(CommonPrefix::prefix).toList();
+        if (!Boolean.TRUE.equals(response.isTruncated())) {
+            return new Level(objects, prefixes, null);
+        }
+
+        // The page ends with whichever of its last key and last common prefix sorts last
+        final var lastKey = objects.isEmpty() ? null : objects.getLast().key();
+        final var lastPrefix = prefixes.isEmpty() ? null : prefixes.getLast();
+        final var startAfter = lastPrefix != null && (lastKey == null || S3_KEY_ORDER.compare(lastPrefix, lastKey) > 0)
+                ? lastPrefix + AFTER_COMMON_PREFIX
+                : lastKey;
+        return new Level(objects, prefixes, new Shard(prefix, startAfter, null));
+    }
+
+    /**
+     * Lists one page of the shard and the rest of a truncated shard as two halves, summing what every page holds.
+     */
+    private CompletableFuture<long[]> usageOf(final String bucketName, final Shard shard, final Semaphore permits) {
+        return CompletableFuture.supplyAsync(() -> listPage(bucketName, shard, permits), executor)
+                .thenCompose(page -> {
+                    final var children = rest(shard, page).stream()
+                            .map(child -> usageOf(bucketName, child, permits))
+                            .toList();
+                    return CompletableFuture.allOf(children.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+                        final var totals = new long[]{page.objects().size(),
+                                page.objects().stream().mapToLong(S3ShardedListingEngine::sizeOf).sum()};
+                        for (final var child : children) {
+                            totals[0] += child.join()[0];
+                            totals[1] += child.join()[1];
+                        }
+                        return totals;
+                    });
+                });
+    }
+
+    /**
+     * Lists the first page of the shard without a delimiter, dropping keys past its last key.
+     */
+    private Page listPage(final String bucketName, final Shard shard, final Semaphore permits) {
+        final var response = list(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(shard.prefix())
+                .startAfter(shard.startAfter())
+                .maxKeys(MAX_PAGE_SIZE)
+                .build(), permits);
+
+        final var objects = new ArrayList<S3ObjectSummary>(response.contents().size());
+        for (final var s3Object : response.contents()) {
+            if (shard.lastKey() != null && S3_KEY_ORDER.compare(s3Object.key(), shard.lastKey()) > 0) {
+                return new Page(objects, false);
+            }
+            objects.add(S3ObjectSummary.from(s3Object));
+        }
+        return new Page(objects, Boolean.TRUE.equals(response.isTruncated()) && !objects.isEmpty());
+    }
+
+    /**
+     * What is left of the shard after the page, in key order: two halves when a split key fits between the last
+     * listed key and the end of the shard, the remaining range otherwise.
+     */
+    private static List<Shard> rest(final Shard shard, final Page page) {
+        if (!page.truncated()) {
+            return List.of();
+        }
+        final var after = page.objects().getLast().key();
+        final var splitKey = splitKey(shard.prefix(), after, shard.lastKey());
+        if (splitKey == null) {
+            return List.of(new Shard(shard.prefix(), after, shard.lastKey()));
+        }
+        return List.of(new Shard(shard.prefix(), after, splitKey),
+                new Shard(shard.prefix(), splitKey, shard.lastKey()));
+    }
+
+    /**
+     * A key between {@code after} and {@code lastKey}, or the end of the prefix when {@code lastKey} is
+     * {@code null}, or {@code null} when none fits. Characters outside printable ASCII are clamped, which can only
+     * make the halves less even.
+     */
+    static String splitKey(final String prefix, final String after, final String lastKey) {
+        var common = lastKey == null ? prefix.length() : commonPrefixLength(after, lastKey);
+        if (common > 0 && Character.isHighSurrogate(after.charAt(common - 1))) {
+            common--;
+        }
+        final var low = splitDigits(after, common);
+        final var high = lastKey == null ? highestSplitValue() : splitDigits(lastKey, common);
+        final var middle = low + (high - low) / 2;
+        if (middle <= low) {
+            return null;
+        }
+
+        final var key = new StringBuilder(after.substring(0, common));
+        var divisor = highestSplitValue() / SPLIT_BASE;
+        for (var i = 0; i < SPLIT_DIGITS; i++, divisor /= SPLIT_BASE) {
+            final var digit = (int) (middle / divisor % SPLIT_BASE);
+            if (digit == 0) {
+                break;
+            }
+            key.append((char) (FIRST_SPLIT_CHAR + digit - 1));
+        }
+        final var splitKey = key.toString();
+        return S3_KEY_ORDER.compare(after, splitKey) < 0
+                && (lastKey == null || S3_KEY_ORDER.compare(splitKey, lastKey) < 0) ? splitKey : null;
+    }
+
+    private static long splitDigits(final String key, final int from) {
+        var value = 0L;
+        for (var i = from; i < from + SPLIT_DIGITS; i++) {
+            final var digit = i < key.length()
+                    ? Math.clamp(key.charAt(i), FIRST_SPLIT_CHAR, LAST_SPLIT_CHAR) - FIRST_SPLIT_CHAR + 1
+                    : 0;
+            value = value * SPLIT_BASE + digit;
+        }
+        return value;
+    }
+
+    private static long highestSplitValue() {
+        var value = 1L;
+        for (var i = 0; i < SPLIT_DIGITS; i++) {
+            value *= SPLIT_BASE;
+        }
+        return value;
+    }
+
+    private static int commonPrefixLength(final String left, final String right) {
+        var length = 0;
+        while (length < left.length() && length < right.length() && left.charAt(length) == right.charAt(length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private ListObjectsV2Response list(final ListObjectsV2Request request, final Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            return s3Client.listObjectsV2(request);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static long sizeOf(final S3ObjectSummary summary) {
+        return summary.size() == null ? 0 : summary.size();
+    }
+
+    private static String normalize(final String prefix) {
+        return prefix == null ? "" : prefix;
+    }
+
+    record ShardPlan(List<Shard> shards) {
+    }
+
+    /**
+     * Keys under {@code prefix} after {@code startAfter} up to and including {@code lastKey}, either bound being
+     * open when {@code null}.
+     */
+    record Shard(String prefix, String startAfter, String lastKey) {
+
+        String lowerBound() {
+            return startAfter == null ? prefix : startAfter;
+        }
+
+        /**
+         * Whether a key outside every shard sorts before this one.
+         */
+        boolean isAfter(final String key) {
+            return startAfter == null
+                    ? S3_KEY_ORDER.compare(key, prefix) < 0
+                    : S3_KEY_ORDER.compare(key, startAfter) <= 0;
+        }
+    }
+
+    private record Level(List<S3ObjectSummary> objects, List<String> prefixes, Shard remainder) {
+    }
+
+    private record Page(List<S3ObjectSummary> objects, boolean truncated) {
+    }
+
+    /**
+     * Emits loose objects and shard pages in key order. A loose key never falls inside a shard, so comparing it
+     * against the lower bound of the next shard decides whether it sorts before the whole shard. The pages of the
+     * first shards in key order are listed ahead, at most {@code window} at a time.
+     */
+    private class SortedMergeIterator implements Iterator<S3ObjectSummary> {
+
+        private final String bucketName;
+        private final Semaphore permits;
+        private final int window;
+        private final Iterator<S3ObjectSummary> looseObjects;
+        private final Deque<PendingShard> pending = new ArrayDeque<>();
+
+        private int inFlight;
+        private S3ObjectSummary nextLoose;
+        private Iterator<S3ObjectSummary> current = Collections.emptyIterator();
+
+        SortedMergeIterator(final String bucketName, final ShardPlan plan, final List<S3ObjectSummary> looseObjects,
+                            final Semaphore permits, final int window) {
+            this.bucketName = bucketName;
+            this.permits = permits;
+            this.window = window;
+            this.looseObjects = looseObjects.iterator();
+            this.nextLoose = this.looseObjects.hasNext() ? this.looseObjects.next() : null;
+            plan.shards().forEach(shard -> pending.addLast(new PendingShard(shard)));
+            fill();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                final var nextShard = pending.peekFirst();
+                if (nextShard == null) {
+                    return nextLoose != null;
+                }
+                if (nextLoose != null && nextShard.shard.isAfter(nextLoose.key())) {
+                    return true;
+                }
+                pending.removeFirst();
+                if (nextShard.page == null) {
+                    start(nextShard);
+                }
+                inFlight--;
+                final var page = Futures.join(nextShard.page);
+                current = page.objects().iterator();
+                rest(nextShard.shard, page).reversed().forEach(shard -> pending.addFirst(new PendingShard(shard)));
+                fill();
+            }
+            return true;
+        }
+
+        @Override
+        public S3ObjectSummary next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (current.hasNext()) {
+                return current.next();
+            }
+            final var loose = nextLoose;
+            nextLoose = looseObjects.hasNext() ? looseObjects.next() : null;
+            return loose;
+        }
+
+        void cancel() {
+            pending.stream().filter(shard -> shard.page != null).forEach(shard -> shard.page.cancel(true));
+            pending.clear();
+        }
+
+        private void fill() {
+            for (final var shard : pending) {
+                if (inFlight >= window) {
+                    return;
+                }
+                if (shard.page == null) {
+                    start(shard);
+                }
+            }
+        }
+
+        private void start(final PendingShard shard) {
+            shard.page = CompletableFuture.supplyAsync(() -> listPage(bucketName, shard.shard, permits), executor);
+            inFlight++;
+        }
+    }
+
+    private static final class PendingShard {
+
+        private final Shard shard;
+        private CompletableFuture<Page> page;
+
+        private PendingShard(final Shard shard) {
+            this.shard = shard;
+        }
+    }
+
+}
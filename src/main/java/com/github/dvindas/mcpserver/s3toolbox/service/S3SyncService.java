@@ -0,0 +1,46 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.SyncS3PrefixResponse;
+
+import java.util.Locale;
+
+/**
+ * Mirrors a local directory and an S3 prefix onto each other, transferring only what differs.
+ *
+ * @author dvindas
+ */
+public interface S3SyncService {
+
+    enum Direction {
+        /**
+         * The local directory is the source, the prefix is made to match it.
+         */
+        UPLOAD,
+        /**
+         * The prefix is the source, the local directory is made to match it.
+         */
+        DOWNLOAD;
+
+        public static Direction of(final String direction) {
+            if (direction == null || direction.isBlank()) {
+                throw new IllegalArgumentException("direction is required, either 'upload' or 'download'");
+            }
+            try {
+                return valueOf(direction.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown direction '%s', expected 'upload' or 'download'"
+                        .formatted(direction));
+            }
+        }
+    }
+
+    /**
+     * Walks the local directory while the prefix is listed, then transfers every file that is missing or changed on
+     * the target side. A file counts as changed when its size differs, or when the source side is newer and the
+     * content does not match a plain MD5 ETag. Transfers start while the prefix is still being listed. With
+     * {@code delete}, target files or objects that do not exist on the source side are deleted.
+     */
+    SyncS3PrefixResponse sync(String localPath, String bucketName, String prefix, Direction direction,
+                              boolean delete, boolean dryRun, S3CopyService.ProgressListener progress);
+
+}
@@ -0,0 +1,406 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CopyError;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import com.github.dvindas.mcpserver.s3toolbox.model.SyncS3PrefixResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.checksums.DefaultChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.dvindas.mcpserver.s3toolbox.service.S3BatchServiceImpl.DRY_RUN_SAMPLE_SIZE;
+import static com.github.dvindas.mcpserver.s3toolbox.service.S3BatchServiceImpl.MAX_KEYS_PER_DELETE;
+
+/**
+ * @author dvindas
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3SyncServiceImpl implements S3SyncService {
+
+    private final ExecutorService s3IoExecutor;
+    private final S3ShardedListingEngine s3ShardedListingEngine;
+    private final S3TransferService s3TransferService;
+    private final S3BatchService s3BatchService;
+    private final S3ToolboxProperties properties;
+
+    @Override
+    public SyncS3PrefixResponse sync(final String localPath, final String bucketName, final String prefix,
+                                     final Direction direction, final boolean delete, final boolean dryRun,
+                                     final S3CopyService.ProgressListener progress) {
+        if (direction == null) {
+            throw new IllegalArgumentException("direction is required");
+        }
+        // The prefix stands for a directory, so 'artifacts/app' must not also match 'artifacts/app-old/...'
+        final var keyPrefix = prefix == null ? ""
+                : prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        final var root = LocalPaths.resolve(localPath, properties.getTransfer().getLocalRoot());
+        final var usable = direction == Direction.UPLOAD ? Files.isDirectory(root)
+                : !Files.exists(root) || Files.isDirectory(root);
+        if (!usable) {
+            throw new IllegalArgumentException("Local path '%s' is not a directory".formatted(root));
+        }
+        if (delete && direction == Direction.UPLOAD && keyPrefix.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "prefix must not be empty; deleting across a whole bucket is not supported");
+        }
+
+        try {
+            return syncAll(root, bucketName, keyPrefix, direction, delete, dryRun,
+                    progress == null ? S3CopyService.ProgressListener.NONE : progress);
+
+        } catch (S3Exception e) {
+            log.error("S3 error while syncing '{}' with prefix '{}' of bucket '{}'", root, keyPrefix, bucketName, e);
+            throw new RuntimeException("Failed to sync objects with S3", e);
+        } catch (Exception e) {
+            log.error("Error while syncing '{}' with prefix '{}' of bucket '{}'", root, keyPrefix, bucketName, e);
+            throw new RuntimeException("Error while syncing objects", e);
+        }
+    }
+
+    /**
+     * Merges the local files into the listing as it streams in: each object either has a local counterpart to
+     * compare with or exists only in S3. Transfers start right away, so they overlap with the rest of the listing.
+     * The local files left once the listing is done exist only locally.
+     */
+    private SyncS3PrefixResponse syncAll(final Path root, final String bucketName, final String prefix,
+                                         final Direction direction, final boolean delete, final boolean dryRun,
+                                         final S3CopyService.ProgressListener progress) throws Exception {
+        final var startedAt = System.nanoTime();
+        final var run = new SyncRun(dryRun, progress);
+        final var remoteExtras = new ArrayList<String>();
+        final var localExtras = new ArrayList<LocalFile>();
+        var remoteObjects = 0L;
+
+        final var localWalk = CompletableFuture.supplyAsync(() -> walk(root), s3IoExecutor);
+        final Map<String, LocalFile> localFiles;
+        final long localCount;
+        try (var objects = s3ShardedListingEngine.streamSorted(bucketName, prefix)) {
+            localFiles = Futures.join(localWalk);
+            localCount = localFiles.size();
+            final var iterator = objects.iterator();
+            while (iterator.hasNext()) {
+                final var object = iterator.next();
+                if (object.key().endsWith("/")) {
+                    // Folder markers have no local counterpart
+                    continue;
+                }
+                remoteObjects++;
+                final var relative = object.key().substring(prefix.length());
+                final var local = localFiles.remove(relative);
+                if (local == null && direction == Direction.UPLOAD) {
+                    remoteExtras.add(object.key());
+                    continue;
+                }
+                final var change = local == null ? Change.CHANGED : compare(direction, local, object);
+                if (change == Change.UNCHANGED) {
+                    run.unchanged.incrementAndGet();
+                    continue;
+                }
+                run.submit(object.key(), direction == Direction.UPLOAD ? local.size() : object.size(),
+                        change == Change.CHECK_CONTENT ? () -> sameContent(direction, local, object, dryRun) : null,
+                        direction == Direction.UPLOAD
+                                ? () -> s3TransferService.uploadFromFile(bucketName, object.key(),
+                                local.path().toString(), null)
+                                : () -> download(bucketName, object, root, relative));
+            }
+        }
+
+        for (final var entry : localFiles.entrySet()) {
+            final var local = entry.getValue();
+            if (direction == Direction.DOWNLOAD) {
+                localExtras.add(local);
+                continue;
+            }
+            final var key = prefix + entry.getKey();
+            run.submit(key, local.size(), null,
+                    () -> s3TransferService.uploadFromFile(bucketName, key, local.path().toString(), null));
+        }
+        run.await();
+
+        final var extras = remoteExtras.size() + localExtras.size();
+        if (delete) {
+            if (dryRun) {
+                remoteExtras.stream().limit(DRY_RUN_SAMPLE_SIZE).forEach(run::sample);
+                localExtras.stream().limit(DRY_RUN_SAMPLE_SIZE).forEach(local -> run.sample(local.path().toString()));
+            } else {
+                deleteRemote(bucketName, remoteExtras, run);
+                deleteLocal(localExtras, run);
+            }
+        }
+
+        final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        if (!dryRun) {
+            run.report(true);
+        }
+        log.info("{} '{}' {} '{}/{}': {} changed, {} unchanged, {} transferred ({} bytes), {} extra, {} deleted, "
+                        + "{} failed in {} ms", dryRun ? "Dry-run sync of" : "Synced", root,
+                direction == Direction.UPLOAD ? "to" : "from", bucketName, prefix, run.changed.get(),
+                run.unchanged.get(), run.transferred.get(), run.bytesTransferred.get(), extras, run.deleted.get(),
+                run.failed.get(), elapsedMillis);
+
+        return new SyncS3PrefixResponse(root.toString(), bucketName, prefix, direction.name(), delete, dryRun,
+                localCount, remoteObjects, run.unchanged.get(), run.changed.get(), extras, run.transferred.get(),
+                run.bytesTransferred.get(), run.deleted.get(), run.failed.get(), run.sampleKeys(), run.errors(),
+                elapsedMillis);
+    }
+
+    private void download(final String bucketName, final S3ObjectSummary object, final Path root,
+                          final String relative) throws IOException {
+        final var target = root.resolve(relative).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IllegalArgumentException("Key resolves outside of the local directory");
+        }
+        // Mirrors keep the stored bytes, so the next sync still compares them with the object's size and ETag
+        s3TransferService.downloadToFile(bucketName, object.key(), target.toString(), true, false);
+        // Matching the object's timestamp makes the next sync skip the file without reading it
+        Files.setLastModifiedTime(target, FileTime.from(object.lastModified()));
+    }
+
+    /**
+     * Reads the local file for an object whose size matches but whose timestamp says it may have changed. A
+     * downloaded file that turns out to be equal gets the object's timestamp, so it is not read again next time;
+     * a dry run leaves the local tree untouched.
+     */
+    private static boolean sameContent(final Direction direction, final LocalFile local,
+                                       final S3ObjectSummary object, final boolean dryRun) throws IOException {
+        final var md5 = HexFormat.of().formatHex(S3TransferServiceImpl.checksum(local.path(),
+                DefaultChecksumAlgorithm.MD5));
+        if (!md5.equalsIgnoreCase(object.eTag().replace("\"", ""))) {
+            return false;
+        }
+        if (direction == Direction.DOWNLOAD && !dryRun) {
+            Files.setLastModifiedTime(local.path(), FileTime.from(object.lastModified()));
+        }
+        return true;
+    }
+
+    private void deleteRemote(final String bucketName, final List<String> keys, final SyncRun run) {
+        for (var from = 0; from < keys.size(); from += MAX_KEYS_PER_DELETE) {
+            final var response = s3BatchService.deleteObjects(bucketName,
+                    keys.subList(from, Math.min(keys.size(), from + MAX_KEYS_PER_DELETE)), false);
+            run.deleted.addAndGet(response.deleted());
+            response.errors().forEach(error -> run.fail(error.key(), error.code(), error.message()));
+            // Failures beyond the reported errors of the batch are only counted
+            run.failed.addAndGet(response.failed() - response.errors().size());
+        }
+    }
+
+    private static void deleteLocal(final List<LocalFile> files, final SyncRun run) {
+        for (final var file : files) {
+            try {
+                Files.deleteIfExists(file.path());
+                run.deleted.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("Failed to delete local file '{}': {}", file.path(), e.getMessage());
+                run.fail(file.path().toString(), null, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Size decides first; for equal sizes a newer source side means the content may have changed. When the ETag is
+     * a plain MD5 that is checked against the file before transferring, otherwise the file is transferred.
+     */
+    static Change compare(final Direction direction, final LocalFile local, final S3ObjectSummary object) {
+        if (object.size() == null || local.size() != object.size()) {
+            return Change.CHANGED;
+        }
+        final var newer = direction == Direction.UPLOAD
+                ? local.modified().isAfter(object.lastModified())
+                : object.lastModified().isAfter(local.modified());
+        if (!newer) {
+            return Change.UNCHANGED;
+        }
+        final var eTag = object.eTag() == null ? "" : object.eTag().replace("\"", "");
+        return eTag.length() == 32 && !eTag.contains("-") ? Change.CHECK_CONTENT : Change.CHANGED;
+    }
+
+    /**
+     * Regular files under the root by their '/'-separated path relative to it, skipping partial downloads.
+     */
+    static Map<String, LocalFile> walk(final Path root) {
+        final var files = new HashMap<String, LocalFile>();
+        if (!Files.isDirectory(root)) {
+            return files;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                    final var name = file.getFileName().toString();
+                    if (attributes.isRegularFile() && !name.endsWith(S3TransferServiceImpl.PART_SUFFIX)
+                            && !name.endsWith(S3TransferServiceImpl.STATE_SUFFIX)
+                            && !name.endsWith(S3TransferServiceImpl.DECODED_SUFFIX)) {
+                        files.put(root.relativize(file).toString().replace(File.separatorChar, '/'),
+                                new LocalFile(file, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to walk local directory '%s'".formatted(root), e);
+        }
+        return files;
+    }
+
+    enum Change {
+        UNCHANGED, CHANGED, CHECK_CONTENT
+    }
+
+    record LocalFile(Path path, long size, Instant modified) {
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        boolean sameContent() throws Exception;
+    }
+
+    /**
+     * Runs the content check and transfer of each file on the I/O executor. Waiting for a permit before submitting
+     * bounds the transfers in flight, and waiting for all permits at the end waits for the last ones. Both waits wake
+     * up every progress interval to report how far the sync got.
+     */
+    private final class SyncRun {
+
+        private final AtomicLong unchanged = new AtomicLong();
+        private final AtomicLong changed = new AtomicLong();
+        private final AtomicLong transferred = new AtomicLong();
+        private final AtomicLong bytesTransferred = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<S3CopyError> errors = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> sampleKeys = Collections.synchronizedList(new ArrayList<>());
+        private final boolean dryRun;
+        private final S3CopyService.ProgressListener progress;
+        private final int maxConcurrency = properties.getSync().getMaxConcurrency();
+        private final long intervalNanos = properties.getSync().getProgressInterval().toNanos();
+        private final Semaphore permits = new Semaphore(maxConcurrency);
+        private long reportedAt = System.nanoTime();
+
+        SyncRun(final boolean dryRun, final S3CopyService.ProgressListener progress) {
+            this.dryRun = dryRun;
+            this.progress = progress;
+        }
+
+        void submit(final String key, final long size, final Check check, final Step transfer)
+                throws InterruptedException {
+            while (!permits.tryAcquire(intervalNanos, TimeUnit.NANOSECONDS)) {
+                report(false);
+            }
+            CompletableFuture.runAsync(() -> {
+                try {
+                    if (check != null && check.sameContent()) {
+                        unchanged.incrementAndGet();
+                        return;
+                    }
+                    changed.incrementAndGet();
+                    if (dryRun) {
+                        sample(key);
+                        return;
+                    }
+                    transfer.run();
+                    transferred.incrementAndGet();
+                    bytesTransferred.addAndGet(size);
+                } catch (Exception e) {
+                    log.warn("Failed to sync '{}': {}", key, e.getMessage());
+                    fail(key, errorCodeOf(e), e.getMessage());
+                } finally {
+                    permits.release();
+                }
+            }, s3IoExecutor);
+
+            if (System.nanoTime() - reportedAt >= intervalNanos) {
+                report(false);
+            }
+        }
+
+        void await() throws InterruptedException {
+            while (!permits.tryAcquire(maxConcurrency, intervalNanos, TimeUnit.NANOSECONDS)) {
+                report(false);
+            }
+            permits.release(maxConcurrency);
+        }
+
+        void sample(final String key) {
+            synchronized (sampleKeys) {
+                if (sampleKeys.size() < DRY_RUN_SAMPLE_SIZE) {
+                    sampleKeys.add(key);
+                }
+            }
+        }
+
+        void fail(final String key, final String code, final String message) {
+            if (failed.incrementAndGet() <= properties.getBatch().getMaxReportedErrors()) {
+                errors.add(new S3CopyError(key, code, message));
+            }
+        }
+
+        List<S3CopyError> errors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+
+        List<String> sampleKeys() {
+            synchronized (sampleKeys) {
+                return List.copyOf(sampleKeys);
+            }
+        }
+
+        void report(final boolean done) {
+            reportedAt = System.nanoTime();
+            if (dryRun) {
+                return;
+            }
+            try {
+                progress.progress("Transferred %,d of %,d changed files%s (%,d bytes), %,d unchanged, %,d failed"
+                        .formatted(transferred.get(), changed.get(), done ? "" : " found so far",
+                                bytesTransferred.get(), unchanged.get(), failed.get()));
+            } catch (RuntimeException e) {
+                // A client that went away must not fail the sync
+                log.debug("Failed to report sync progress: {}", e.getMessage());
+            }
+        }
+
+        private static String errorCodeOf(final Throwable error) {
+            for (var cause = error; cause != null; cause = cause.getCause()) {
+                if (cause instanceof S3Exception s3Exception && s3Exception.awsErrorDetails() != null) {
+                    return s3Exception.awsErrorDetails().errorCode();
+                }
+            }
+            return null;
+        }
+    }
+
+}
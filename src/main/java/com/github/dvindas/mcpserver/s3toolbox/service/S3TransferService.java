@@ -0,0 +1,27 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.UploadS3ObjectResponse;
+
+/**
+ * Moves object content between S3 and the local file system without routing it through tool results.
+ *
+ * @author dvindas
+ */
+public interface S3TransferService {
+
+    /**
+     * Downloads the object with concurrent ranged GETs written straight into a preallocated file. An interrupted
+     * download of the same object version resumes with the parts that are still missing. With {@code decompress},
+     * an object stored compressed by put_s3_object is written as its decompressed content.
+     */
+    DownloadS3ObjectResponse downloadToFile(String bucketName, String key, String localPath, boolean overwrite,
+                                            boolean decompress);
+
+    /**
+     * Uploads a local file. Files above the multipart threshold are memory-mapped and sent as concurrent parts, so
+     * their content is never copied onto the heap.
+     */
+    UploadS3ObjectResponse uploadFromFile(String bucketName, String key, String localPath, String contentType);
+
+}
@@ -0,0 +1,389 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.UploadS3ObjectResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.checksums.DefaultChecksumAlgorithm;
+import software.amazon.awssdk.checksums.SdkChecksum;
+import software.amazon.awssdk.checksums.spi.ChecksumAlgorithm;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @author dvindas
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3TransferServiceImpl implements S3TransferService {
+
+    static final String PART_SUFFIX = ".s3part";
+    static final String STATE_SUFFIX = ".s3part.state";
+    static final String DECODED_SUFFIX = ".s3part.decoded";
+
+    private final S3Client s3Client;
+    private final ExecutorService s3IoExecutor;
+    private final S3ToolboxProperties properties;
+    private final S3MultipartUploader multipartUploader;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public DownloadS3ObjectResponse downloadToFile(final String bucketName, final String key, final String localPath,
+                                                   final boolean overwrite, final boolean decompress) {
+        final var startedAt = System.nanoTime();
+        try {
+            final var transfer = properties.getTransfer();
+            final var target = LocalPaths.resolve(localPath, transfer.getLocalRoot());
+            if (Files.exists(target) && !overwrite) {
+                throw new IllegalArgumentException("Local file '%s' already exists, pass overwrite=true to replace it"
+                        .formatted(target));
+            }
+
+            final var head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+            final long size = head.contentLength() == null ? 0 : head.contentLength();
+            final var decoded = decompress && S3ObjectEncoding.decodes(head.metadata(), key);
+            final var partSize = transfer.getPartSize().toBytes();
+            final var partCount = (int) ((size + partSize - 1) / partSize);
+
+            final var partFile = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+            final var stateFile = target.resolveSibling(target.getFileName() + STATE_SUFFIX);
+            final var state = DownloadState.load(stateFile, head.eTag(), size, partSize);
+            if (!Files.exists(partFile)) {
+                state.completed().clear();
+            }
+            final var resumed = state.completed().size();
+
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            try (var channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                if (resumed == 0) {
+                    channel.truncate(0);
+                }
+                preallocate(channel, size);
+                channel.force(true);
+                state.save();
+
+                downloadParts(bucketName, key, head.eTag(), size, partSize, partCount, channel, state);
+                channel.force(true);
+            }
+
+            final var verification = verify(head, partFile);
+            if (!verification.matches()) {
+                Files.deleteIfExists(partFile);
+                Files.deleteIfExists(stateFile);
+                throw new IllegalStateException("Downloaded file does not match the object %s".formatted(
+                        verification.method()));
+            }
+
+            final var decodedFile = target.resolveSibling(target.getFileName() + DECODED_SUFFIX);
+            final var bytes = decoded ? decode(partFile, decodedFile, head, key) : size;
+            Files.move(decoded ? decodedFile : partFile, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(partFile);
+            Files.deleteIfExists(stateFile);
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Downloaded '{}/{}' to '{}': {} bytes in {} parts ({} resumed){} in {} ms", bucketName, key,
+                    target, bytes, partCount, resumed, decoded ? ", decompressed" : "", elapsedMillis);
+
+            return new DownloadS3ObjectResponse(target.toString(), bytes, partCount, resumed, elapsedMillis,
+                    head.eTag(), verification.verified(), verification.method());
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected download of object '{}/{}': {}", bucketName, key, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while downloading object '{}/{}' to '{}'", bucketName, key, localPath, e);
+            throw new RuntimeException(e.statusCode() == 412
+                    ? "Object changed during the download, retry to start over"
+                    : "Failed to download object from S3", e);
+        } catch (Exception e) {
+            log.error("Error while downloading object '{}/{}' to '{}'", bucketName, key, localPath, e);
+            throw new RuntimeException("Error while downloading object", e);
+        }
+    }
+
+    @Override
+    public UploadS3ObjectResponse uploadFromFile(final String bucketName, final String key, final String localPath,
+                                                 final String contentType) {
+        final var startedAt = System.nanoTime();
+        try {
+            final var source = LocalPaths.resolve(localPath, properties.getTransfer().getLocalRoot());
+            if (!Files.isRegularFile(source)) {
+                throw new IllegalArgumentException("Local file '%s' does not exist".formatted(source));
+            }
+            final var size = Files.size(source);
+            final var type = contentTypeOf(source, contentType);
+
+            final String eTag;
+            final int parts;
+            if (size > multipartUploader.multipartThreshold()) {
+                try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                    final var result = multipartUploader.upload(CreateMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .contentType(type)
+                            .build(), mappedParts(channel, size, multipartUploader.partSizeFor(size)));
+                    eTag = result.eTag();
+                    parts = result.parts();
+                }
+            } else {
+                eTag = s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(type)
+                        .build(), RequestBody.fromFile(source)).eTag();
+                parts = 1;
+            }
+
+            eventPublisher.publishEvent(new S3ObjectsChangedEvent(bucketName, key));
+
+            final var elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Uploaded '{}' to '{}/{}': {} bytes in {} parts in {} ms", source, bucketName, key, size, parts,
+                    elapsedMillis);
+
+            return new UploadS3ObjectResponse(bucketName, key, eTag, size, parts, elapsedMillis);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected upload of '{}' to '{}/{}': {}", localPath, bucketName, key, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while uploading '{}' to '{}/{}'", localPath, bucketName, key, e);
+            throw new RuntimeException("Failed to upload object to S3", e);
+        } catch (Exception e) {
+            log.error("Error while uploading '{}' to '{}/{}'", localPath, bucketName, key, e);
+            throw new RuntimeException("Error while uploading object", e);
+        }
+    }
+
+    /**
+     * Decompresses a downloaded object whose stored bytes were verified already. The content is checked against its
+     * recorded size and CRC32C on the way, and a mismatch keeps the stored bytes for the next attempt.
+     */
+    private static long decode(final Path partFile, final Path decodedFile, final HeadObjectResponse head,
+                               final String key) throws IOException {
+        try (var stored = Files.newInputStream(partFile);
+             var content = S3ObjectEncoding.decode(stored, head.metadata(), key)) {
+            return Files.copy(content, decodedFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(decodedFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps each part only when the uploader asks for it; a retried part re-reads its slice from the start.
+     */
+    private static S3MultipartUploader.PartSource mappedParts(final FileChannel channel, final long size,
+                                                              final long partSize) {
+        return partNumber -> {
+            final var offset = (partNumber - 1) * partSize;
+            if (offset >= size) {
+                return null;
+            }
+            final var length = Math.min(partSize, size - offset);
+            final var slice = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            return RequestBody.fromContentProvider(() -> new ByteBufferInputStream(slice.duplicate()), length,
+                    S3MultipartUploader.OCTET_STREAM);
+        };
+    }
+
+    private static String contentTypeOf(final Path source, final String contentType) throws IOException {
+        if (contentType != null && !contentType.isBlank()) {
+            return contentType;
+        }
+        final var probed = Files.probeContentType(source);
+        return probed == null ? S3MultipartUploader.OCTET_STREAM : probed;
+    }
+
+    private void downloadParts(final String bucketName, final String key, final String eTag, final long size,
+                               final long partSize, final int partCount, final FileChannel channel,
+                               final DownloadState state) throws InterruptedException {
+        final var permits = new Semaphore(properties.getTransfer().getMaxConcurrency());
+        final var futures = new ArrayList<CompletableFuture<Void>>();
+
+        for (var part = 0; part < partCount; part++) {
+            if (state.completed().contains(part)) {
+                continue;
+            }
+            final var index = part;
+            final var start = index * partSize;
+            final var end = Math.min(size, start + partSize) - 1;
+
+            permits.acquire();
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    downloadPart(bucketName, key, eTag, start, end, channel);
+                    state.markCompleted(index);
+                } finally {
+                    permits.release();
+                }
+            }, s3IoExecutor));
+
+            // Stop scheduling further parts as soon as one failed, the completed ones stay resumable
+            if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                break;
+            }
+        }
+
+        Futures.join(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)));
+    }
+
+    private void downloadPart(final String bucketName, final String key, final String eTag, final long start,
+                              final long end, final FileChannel channel) {
+        final var request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + start + "-" + end)
+                .ifMatch(eTag)
+                .build();
+
+        final var buffer = new byte[Math.toIntExact(properties.getTransfer().getBufferSize().toBytes())];
+        try (var body = s3Client.getObject(request)) {
+            var position = start;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                final var chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+            if (position != end + 1) {
+                throw new IOException("Part %d-%d ended after %d bytes".formatted(start, end, position - start));
+            }
+            // The part is only recorded afterwards, so a crash can never leave a recorded part that is not on disk
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write part %d-%d of '%s'".formatted(start, end, key), e);
+        }
+    }
+
+    private static void preallocate(final FileChannel channel, final long size) throws IOException {
+        if (channel.size() < size) {
+            // Writing the last byte extends the file, so every part can be written at its own offset
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+        } else if (channel.size() > size) {
+            channel.truncate(size);
+        }
+    }
+
+    /**
+     * Verifies the file against the full-object checksum S3 stored, or against the ETag when it is a plain MD5.
+     * Multipart ETags cannot be recomputed locally; those downloads rely on every part being pinned by If-Match.
+     */
+    static Verification verify(final HeadObjectResponse head, final Path file) throws IOException {
+        if (head.checksumType() == ChecksumType.FULL_OBJECT) {
+            final var expected = firstNonNull(head.checksumCRC64NVME(), head.checksumCRC32C(), head.checksumCRC32(),
+                    head.checksumSHA256());
+            final var algorithm = head.checksumCRC64NVME() != null ? DefaultChecksumAlgorithm.CRC64NVME
+                    : head.checksumCRC32C() != null ? DefaultChecksumAlgorithm.CRC32C
+                    : head.checksumCRC32() != null ? DefaultChecksumAlgorithm.CRC32
+                    : DefaultChecksumAlgorithm.SHA256;
+            if (expected != null) {
+                try {
+                    final var actual = Base64.getEncoder().encodeToString(checksum(file, algorithm));
+                    return new Verification(true, expected.equals(actual), algorithm.algorithmId());
+                } catch (RuntimeException e) {
+                    log.debug("Checksum algorithm {} is not available locally", algorithm.algorithmId(), e);
+                }
+            }
+        }
+
+        final var eTag = head.eTag() == null ? "" : head.eTag().replace("\"", "");
+        final var encryption = head.serverSideEncryptionAsString();
+        final var kms = encryption != null && encryption.startsWith("aws:kms");
+        if (eTag.length() == 32 && !eTag.contains("-") && !kms) {
+            final var actual = HexFormat.of().formatHex(checksum(file, DefaultChecksumAlgorithm.MD5));
+            return new Verification(true, eTag.equalsIgnoreCase(actual), "MD5");
+        }
+        return new Verification(false, true, "If-Match");
+    }
+
+    static byte[] checksum(final Path file, final ChecksumAlgorithm algorithm) throws IOException {
+        final var checksum = SdkChecksum.forAlgorithm(algorithm);
+        final var buffer = ByteBuffer.allocate(1024 * 1024);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                checksum.update(buffer);
+                buffer.clear();
+            }
+        }
+        return checksum.getChecksumBytes();
+    }
+
+    private static String firstNonNull(final String... values) {
+        for (final var value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    record Verification(boolean verified, boolean matches, String method) {
+    }
+
+    /**
+     * Completed parts of a download, persisted next to the partial file. The header pins the object version and
+     * part layout; a state written for anything else is discarded and the download starts over.
+     */
+    record DownloadState(Path file, String header, Set<Integer> completed) {
+
+        static DownloadState load(final Path file, final String eTag, final long size, final long partSize)
+                throws IOException {
+            final var header = "%s %d %d".formatted(eTag, size, partSize);
+            final Set<Integer> completed = ConcurrentHashMap.newKeySet();
+            if (Files.exists(file)) {
+                final var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                if (!lines.isEmpty() && lines.getFirst().equals(header)) {
+                    lines.stream().skip(1).filter(line -> !line.isBlank()).map(Integer::valueOf)
+                            .forEach(completed::add);
+                }
+            }
+            return new DownloadState(file, header, completed);
+        }
+
+        void save() throws IOException {
+            final var content = new StringBuilder(header).append('\n');
+            completed.forEach(part -> content.append(part).append('\n'));
+            Files.writeString(file, content, StandardCharsets.UTF_8);
+        }
+
+        synchronized void markCompleted(final int part) {
+            completed.add(part);
+            try {
+                Files.writeString(file, part + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to record completed part " + part, e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.S3UploadSessionResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.UploadS3ObjectResponse;
+
+/**
+ * Builds one object from many small tool calls. Each session is backed by an S3 multipart upload; appended chunks
+ * are buffered until they fill a part.
+ *
+ * @author dvindas
+ */
+public interface S3UploadSessionService {
+
+    S3UploadSessionResponse begin(String bucketName, String key, String contentType);
+
+    /**
+     * Appends a Base64 chunk. When {@code offset} is given it must equal the bytes received so far, which makes a
+     * retried call after a lost response detectable instead of silently duplicating data.
+     */
+    S3UploadSessionResponse append(String sessionId, String base64Chunk, Long offset);
+
+    UploadS3ObjectResponse complete(String sessionId);
+
+    void abort(String sessionId);
+
+}
@@ -0,0 +1,326 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3UploadSessionResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.UploadS3ObjectResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps upload sessions in memory. Each session owns a part-sized direct buffer, so chunks wait off-heap until they
+ * reach the 5 MB part minimum. Idle sessions are expired by a background sweep, and on the next call to the service,
+ * and their multipart upload is aborted; sessions still open at shutdown are aborted as well. Each open session holds
+ * one permit of a semaphore sized to {@code s3-toolbox.upload-session.max-sessions}, so concurrent begins cannot
+ * exceed the limit.
+ *
+ * @author dvindas
+ */
+@Service
+@Slf4j
+public class S3UploadSessionServiceImpl implements S3UploadSessionService {
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final S3MultipartUploader multipartUploader;
+    private final S3ToolboxProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Semaphore slots;
+
+    private ScheduledExecutorService sweeper;
+
+    public S3UploadSessionServiceImpl(final S3MultipartUploader multipartUploader,
+                                      final S3ToolboxProperties properties,
+                                      final ApplicationEventPublisher eventPublisher) {
+        this.multipartUploader = multipartUploader;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.slots = new Semaphore(properties.getUploadSession().getMaxSessions());
+    }
+
+    @Override
+    public S3UploadSessionResponse begin(final String bucketName, final String key, final String contentType) {
+        try {
+            expireIdleSessions();
+            if (!slots.tryAcquire()) {
+                throw new IllegalStateException("%d upload sessions are already open, complete or abort one first"
+                        .formatted(properties.getUploadSession().getMaxSessions()));
+            }
+
+            final UploadSession session;
+            try {
+                final var uploadId = multipartUploader.create(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build());
+                final var partSize = Math.toIntExact(multipartUploader.partSizeFor(0));
+                session = new UploadSession(UUID.randomUUID().toString(), bucketName, key, uploadId,
+                        ByteBuffer.allocateDirect(partSize), System.nanoTime());
+                sessions.put(session.id, session);
+            } catch (RuntimeException | Error e) {
+                slots.release();
+                throw e;
+            }
+
+            log.info("Began upload session '{}' for '{}/{}'", session.id, bucketName, key);
+            return toResponse(session);
+
+        } catch (IllegalStateException e) {
+            log.warn("Rejected upload session for '{}/{}': {}", bucketName, key, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while beginning upload of '{}/{}'", bucketName, key, e);
+            throw new RuntimeException("Failed to begin upload to S3", e);
+        } catch (Exception e) {
+            log.error("Error while beginning upload of '{}/{}'", bucketName, key, e);
+            throw new RuntimeException("Error while beginning upload", e);
+        }
+    }
+
+    @Override
+    public S3UploadSessionResponse append(final String sessionId, final String base64Chunk, final Long offset) {
+        try {
+            expireIdleSessions();
+            final var session = session(sessionId);
+            synchronized (session) {
+                session.ensureOpen();
+                if (offset != null && offset != session.bytesReceived) {
+                    throw new IllegalArgumentException("offset %d does not match the %d bytes received so far"
+                            .formatted(offset, session.bytesReceived));
+                }
+
+                // Decoded before touching the buffer, so an invalid chunk leaves the session unchanged
+                final var chunk = Base64.getDecoder().decode(base64Chunk == null ? "" : base64Chunk);
+                var position = 0;
+                while (position < chunk.length) {
+                    final var count = Math.min(chunk.length - position, session.buffer.remaining());
+                    session.buffer.put(chunk, position, count);
+                    position += count;
+                    if (!session.buffer.hasRemaining()) {
+                        flush(session);
+                    }
+                }
+                session.bytesReceived += chunk.length;
+                session.lastActivity = System.nanoTime();
+                return toResponse(session);
+            }
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn("Rejected chunk for upload session '{}': {}", sessionId, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while appending to upload session '{}'", sessionId, e);
+            throw new RuntimeException("Failed to upload part to S3, the upload session was aborted", e);
+        } catch (Exception e) {
+            log.error("Error while appending to upload session '{}'", sessionId, e);
+            throw new RuntimeException("Error while appending to upload session", e);
+        }
+    }
+
+    @Override
+    public UploadS3ObjectResponse complete(final String sessionId) {
+        try {
+            expireIdleSessions();
+            final var session = session(sessionId);
+            synchronized (session) {
+                session.ensureOpen();
+                // The last part may be smaller than the minimum; an empty object still needs one part
+                if (session.buffer.position() > 0 || session.parts.isEmpty()) {
+                    flush(session);
+                }
+                final var result = multipartUploader.complete(session.bucketName, session.key, session.uploadId,
+                        session.parts);
+                close(session);
+                eventPublisher.publishEvent(new S3ObjectsChangedEvent(session.bucketName, session.key));
+
+                final var elapsedMillis = (System.nanoTime() - session.startedAt) / 1_000_000;
+                log.info("Completed upload session '{}' for '{}/{}': {} bytes in {} parts in {} ms", sessionId,
+                        session.bucketName, session.key, session.bytesReceived, result.parts(), elapsedMillis);
+
+                return new UploadS3ObjectResponse(session.bucketName, session.key, result.eTag(),
+                        session.bytesReceived, result.parts(), elapsedMillis);
+            }
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn("Rejected completion of upload session '{}': {}", sessionId, e.getMessage());
+            throw e;
+        } catch (S3Exception e) {
+            log.error("S3 error while completing upload session '{}'", sessionId, e);
+            throw new RuntimeException("Failed to complete upload to S3", e);
+        } catch (Exception e) {
+            log.error("Error while completing upload session '{}'", sessionId, e);
+            throw new RuntimeException("Error while completing upload", e);
+        }
+    }
+
+    @Override
+    public void abort(final String sessionId) {
+        final var session = session(sessionId);
+        synchronized (session) {
+            abortSession(session);
+        }
+    }
+
+    /**
+     * Aborts every session that has been idle for longer than {@code s3-toolbox.upload-session.idle-timeout}.
+     */
+    void expireIdleSessions() {
+        final var idleNanos = properties.getUploadSession().getIdleTimeout().toNanos();
+        final var now = System.nanoTime();
+        for (final var session : sessions.values()) {
+            if (now - session.lastActivity > idleNanos) {
+                synchronized (session) {
+                    if (!session.closed && now - session.lastActivity > idleNanos) {
+                        log.warn("Upload session '{}' for '{}/{}' expired", session.id, session.bucketName,
+                                session.key);
+                        abortSession(session);
+                    }
+                }
+            }
+        }
+    }
+
+    int openSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Sweeps every tenth of the idle timeout, so an abandoned session is aborted at most 10% late even when no
+     * further call arrives.
+     */
+    @PostConstruct
+    void startSweeper() {
+        final var interval = Math.max(1, properties.getUploadSession().getIdleTimeout().toMillis() / 10);
+        sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("upload-session-sweeper").daemon(true).factory());
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void sweep() {
+        try {
+            expireIdleSessions();
+        } catch (RuntimeException e) {
+            // Keeps the schedule alive; the expired session is already closed and the next sweep goes on
+            log.warn("Could not abort an expired upload session: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void abortOpenSessions() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        sessions.values().forEach(session -> {
+            synchronized (session) {
+                abortSession(session);
+            }
+        });
+    }
+
+    private void flush(final UploadSession session) {
+        if (session.parts.size() == S3MultipartUploader.MAX_PARTS) {
+            abortSession(session);
+            throw new IllegalStateException("Upload session reached the limit of %d parts"
+                    .formatted(S3MultipartUploader.MAX_PARTS));
+        }
+
+        final var part = session.buffer.flip().asReadOnlyBuffer();
+        final var partNumber = session.parts.size() + 1;
+        try {
+            session.parts.add(multipartUploader.uploadPart(session.bucketName, session.key, session.uploadId,
+                    partNumber, RequestBody.fromContentProvider(() -> new ByteBufferInputStream(part.duplicate()),
+                            part.remaining(), S3MultipartUploader.OCTET_STREAM)));
+        } catch (RuntimeException e) {
+            // The part is already buffered and partly accounted for, so the session cannot be resumed consistently
+            abortSession(session);
+            throw e;
+        }
+        session.buffer.clear();
+    }
+
+    private void abortSession(final UploadSession session) {
+        if (!session.closed) {
+            close(session);
+            multipartUploader.abort(session.bucketName, session.key, session.uploadId);
+        }
+    }
+
+    private void close(final UploadSession session) {
+        session.closed = true;
+        if (sessions.remove(session.id) != null) {
+            slots.release();
+        }
+    }
+
+    private UploadSession session(final String sessionId) {
+        final var session = sessionId == null ? null : sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Upload session '%s' does not exist or has expired"
+                    .formatted(sessionId));
+        }
+        return session;
+    }
+
+    private S3UploadSessionResponse toResponse(final UploadSession session) {
+        final var idleTimeout = properties.getUploadSession().getIdleTimeout();
+        return new S3UploadSessionResponse(session.id, session.bucketName, session.key, session.buffer.capacity(),
+                session.bytesReceived, session.parts.size(), Instant.now().plus(idleTimeout));
+    }
+
+    /**
+     * Mutable state of one session, guarded by its own monitor.
+     */
+    private static final class UploadSession {
+
+        private final String id;
+        private final String bucketName;
+        private final String key;
+        private final String uploadId;
+        private final ByteBuffer buffer;
+        private final long startedAt;
+        private final List<CompletedPart> parts = new ArrayList<>();
+
+        private long bytesReceived;
+        private volatile long lastActivity;
+        private boolean closed;
+
+        UploadSession(final String id, final String bucketName, final String key, final String uploadId,
+                      final ByteBuffer buffer, final long startedAt) {
+            this.id = id;
+            this.bucketName = bucketName;
+            this.key = key;
+            this.uploadId = uploadId;
+            this.buffer = buffer;
+            this.startedAt = startedAt;
+            this.lastActivity = startedAt;
+        }
+
+        void ensureOpen() {
+            if (closed) {
+                throw new IllegalArgumentException("Upload session '%s' does not exist or has expired"
+                        .formatted(id));
+            }
+        }
+    }
+
+}
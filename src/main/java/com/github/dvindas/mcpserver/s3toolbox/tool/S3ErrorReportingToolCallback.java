@@ -0,0 +1,73 @@
+package com.github.dvindas.mcpserver.s3toolbox.tool;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.util.function.Supplier;
+
+/**
+ * Adds the S3 error code and HTTP status to the message of a failed tool call, which is all the client gets to see.
+ * The services wrap S3 errors in generic exceptions, so without this a 503 SlowDown and a missing bucket look the
+ * same. A call that failed because S3 throttled it is reported as {@link S3ThrottledException} with a hint to back
+ * off.
+ *
+ * @author dvindas
+ */
+public class S3ErrorReportingToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+
+    public S3ErrorReportingToolCallback(final ToolCallback delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(final String toolInput) {
+        return reported(() -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(final String toolInput, final ToolContext toolContext) {
+        return reported(() -> delegate.call(toolInput, toolContext));
+    }
+
+    private static String reported(final Supplier<String> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            throw describe(e);
+        }
+    }
+
+    static RuntimeException describe(final RuntimeException e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof AwsServiceException)) {
+            cause = cause.getCause();
+        }
+        if (!(cause instanceof AwsServiceException serviceException)) {
+            return e;
+        }
+        final var details = serviceException.awsErrorDetails();
+        final var code = details == null || details.errorCode() == null ? "HTTP " + serviceException.statusCode()
+                : details.errorCode() + ", HTTP " + serviceException.statusCode();
+        if (serviceException.isThrottlingException()) {
+            return new S3ThrottledException("%s: S3 is throttling requests (%s) and retries did not help; wait before trying again or reduce the number of parallel calls on this prefix"
+                    .formatted(e.getMessage(), code), e);
+        }
+        return new RuntimeException("%s (%s)".formatted(e.getMessage(), code), e);
+    }
+
+}
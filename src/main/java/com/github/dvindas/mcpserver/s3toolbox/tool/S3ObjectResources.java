@@ -0,0 +1,107 @@
+package com.github.dvindas.mcpserver.s3toolbox.tool;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectResourceResponse;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3ActionsService;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out S3 objects as MCP resources, so a tool result carries an {@code s3://bucket/key} reference instead of the
+ * Base64 content. The client reads the content with {@code resources/read} when, and only if, it needs it. Only the
+ * most recently requested objects stay registered, each one removed from the server when it falls out.
+ *
+ * @author dvindas
+ */
+@Slf4j
+@Component
+public class S3ObjectResources {
+
+    static final String SCHEME = "s3://";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final S3ActionsService s3ActionsService;
+    private final ObjectProvider<McpSyncServer> mcpSyncServer;
+    private final int maxRegistered;
+    private final Map<String, Boolean> registered = new LinkedHashMap<>(16, 0.75f, true);
+
+    public S3ObjectResources(final S3ActionsService s3ActionsService,
+                             final ObjectProvider<McpSyncServer> mcpSyncServer,
+                             final S3ToolboxProperties properties) {
+        this.s3ActionsService = s3ActionsService;
+        this.mcpSyncServer = mcpSyncServer;
+        this.maxRegistered = Math.max(1, properties.getResources().getMaxRegistered());
+    }
+
+    public S3ObjectResourceResponse register(final String bucketName, final String key) {
+        if (bucketName == null || bucketName.isBlank() || key == null || key.isBlank()) {
+            throw new IllegalArgumentException("bucketName and key are required");
+        }
+        final var server = mcpSyncServer.getIfAvailable();
+        if (server == null) {
+            throw new IllegalStateException("MCP resources are not available in this server");
+        }
+        final var metadata = s3ActionsService.getObjectMetadata(bucketName, key);
+        final var contentType = metadata.contentType() == null ? DEFAULT_CONTENT_TYPE : metadata.contentType();
+        final var uri = uriOf(bucketName, key);
+
+        synchronized (registered) {
+            if (registered.get(uri) == null) {
+                server.addResource(new McpServerFeatures.SyncResourceSpecification(
+                        new McpSchema.Resource(uri, key, "S3 object '%s' of bucket '%s'".formatted(key, bucketName),
+                                contentType, null),
+                        (exchange, request) -> read(bucketName, key, uri)));
+                registered.put(uri, Boolean.TRUE);
+                evict(server);
+            }
+        }
+        return new S3ObjectResourceResponse(uri, bucketName, key, contentType, metadata.contentLength(),
+                metadata.eTag());
+    }
+
+    McpSchema.ReadResourceResult read(final String bucketName, final String key, final String uri) {
+        final var object = s3ActionsService.getObject(bucketName, key);
+        final var contentType = object.contentType() == null ? DEFAULT_CONTENT_TYPE : object.contentType();
+        final McpSchema.ResourceContents contents = isText(contentType)
+                ? new McpSchema.TextResourceContents(uri, contentType,
+                new String(object.content(), StandardCharsets.UTF_8))
+                : new McpSchema.BlobResourceContents(uri, contentType,
+                Base64.getEncoder().encodeToString(object.content()));
+        return new McpSchema.ReadResourceResult(List.of(contents));
+    }
+
+    private void evict(final McpSyncServer server) {
+        final var entries = registered.keySet().iterator();
+        while (registered.size() > maxRegistered && entries.hasNext()) {
+            final var eldest = entries.next();
+            entries.remove();
+            try {
+                server.removeResource(eldest);
+            } catch (RuntimeException e) {
+                log.warn("Could not remove MCP resource '{}'", eldest, e);
+            }
+        }
+    }
+
+    static String uriOf(final String bucketName, final String key) {
+        return SCHEME + bucketName + "/" + UriUtils.encodePath(key, StandardCharsets.UTF_8);
+    }
+
+    static boolean isText(final String contentType) {
+        final var type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml") || type.contains("yaml")
+                || type.contains("csv") || type.contains("javascript");
+    }
+
+}
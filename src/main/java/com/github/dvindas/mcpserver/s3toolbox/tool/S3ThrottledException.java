@@ -0,0 +1,14 @@
+package com.github.dvindas.mcpserver.s3toolbox.tool;
+
+/**
+ * A tool call failed because S3 kept throttling its requests after all retries.
+ *
+ * @author dvindas
+ */
+public class S3ThrottledException extends RuntimeException {
+
+    public S3ThrottledException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -1,16 +1,49 @@
 package com.github.dvindas.mcpserver.s3toolbox.tool;
 
+import com.github.dvindas.mcpserver.s3toolbox.model.CompactS3Listing;
+import com.github.dvindas.mcpserver.s3toolbox.model.CopyS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.CopyS3PrefixResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.DeleteS3ObjectsResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ArchiveResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.FindS3ObjectsResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectChunkResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectsMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.ListS3ObjectsPageResponse;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.QueryS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3CacheStats;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectResourceResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3PrefixSummaryResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3UploadSessionResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.SyncS3PrefixResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.UploadS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.service.CachingS3ActionsService;
 import com.github.dvindas.mcpserver.s3toolbox.service.S3ActionsService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3ArchiveService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3BatchService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3CopyService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3KeyIndexService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3QueryService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3RequestCoalescer;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3ShardedListingEngine;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3SyncService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3TransferService;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3UploadSessionService;
+import io.modelcontextprotocol.spec.McpSchema;
 import lombok.RequiredArgsConstructor;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author dvindas
@@ -20,31 +53,168 @@ import java.util.List;
 public class S3Tool {
 
     private final S3ActionsService s3ActionsService;
+    private final S3ShardedListingEngine s3ShardedListingEngine;
+    private final S3TransferService s3TransferService;
+    private final S3UploadSessionService s3UploadSessionService;
+    private final S3BatchService s3BatchService;
+    private final S3QueryService s3QueryService;
+    private final S3CopyService s3CopyService;
+    private final S3SyncService s3SyncService;
+    private final S3ArchiveService s3ArchiveService;
+    private final S3KeyIndexService s3KeyIndexService;
+    private final S3ObjectResources s3ObjectResources;
+    private final ObjectProvider<CachingS3ActionsService> cachingS3ActionsService;
+    private final S3RequestCoalescer s3RequestCoalescer;
 
     @Tool(name = "list_s3_buckets", description = "Lists all the s3 buckets for the given account.")
     public List<String> listS3Buckets() {
         return s3ActionsService.listBuckets();
     }
 
-    @Tool(name = "list_s3_files", description = "Returns a list of object keys in the specified S3 bucket, optionally filtered by a prefix.")
+    @Tool(name = "list_s3_files", description = "Returns a list of object keys in the specified S3 bucket, optionally filtered by a prefix. Returns at most the first 1000 keys; use list_s3_files_page for larger listings.")
     public List<String> listS3Files(@ToolParam(description = "Name of the S3 bucket to search") String bucketName, @ToolParam(description = "Optional prefix to filter results (e.g. 'invoices/'). Use empty string or omit to list all objects.") String prefix) {
         return s3ActionsService.listObjects(bucketName, prefix);
     }
 
+    @Tool(name = "list_s3_files_page", description = "Returns one page of objects (key, size, last modified, ETag, storage class) in the specified S3 bucket, optionally filtered by a prefix. When the result is truncated, pass the returned nextContinuationToken to fetch the next page.")
+    public ListS3ObjectsPageResponse listS3FilesPage(@ToolParam(description = "Name of the S3 bucket to search") String bucketName,
+                                                     @ToolParam(description = "Optional prefix to filter results (e.g. 'invoices/'). Use empty string or omit to list all objects.", required = false) String prefix,
+                                                     @ToolParam(description = "Optional continuation token returned by a previous call. Omit to start from the beginning.", required = false) String continuationToken,
+                                                     @ToolParam(description = "Optional number of keys requested from S3 per call (1-1000, default 1000).", required = false) Integer pageSize,
+                                                     @ToolParam(description = "Optional maximum number of objects to return in this page (default 1000, max 10000).", required = false) Integer maxResults) {
+        return s3ActionsService.listObjectsPage(bucketName, prefix, continuationToken, pageSize, maxResults);
+    }
+
+    @Tool(name = "list_s3_files_compact", description = "Returns the keys under a prefix in a compact form for large listings: keys are grouped by directory, each directory written once, and the full key of a name is prefix + dir + name. With deltaEncoded, each name is written as '<n>:<rest>', meaning the first n characters of the previous name in its group followed by rest.")
+    public CompactS3Listing listS3FilesCompact(@ToolParam(description = "Name of the S3 bucket to search") String bucketName,
+                                               @ToolParam(description = "Optional prefix to filter results (e.g. 'logs/2025/'). Use empty string or omit to list all objects.", required = false) String prefix,
+                                               @ToolParam(description = "Optional flag to delta-encode the names of each group against the previous name. Smaller for numbered or dated names. Defaults to false.", required = false) Boolean deltaEncoded,
+                                               @ToolParam(description = "Optional maximum number of keys to return (default 5000, max 50000).", required = false) Integer maxResults) {
+        return s3ActionsService.listObjectsCompact(bucketName, prefix, Boolean.TRUE.equals(deltaEncoded), maxResults);
+    }
+
+    @Tool(name = "find_s3_objects", description = "Finds the keys matching a glob (e.g. '**/2025-*/report.csv') or a regular expression among the objects of a bucket, returning only the matches. Runs against a local index of the keys that is built on first use, so later searches of the same bucket or prefix take milliseconds. Changes made through this server are picked up at once, others once the index expires.")
+    public FindS3ObjectsResponse findS3Objects(@ToolParam(description = "Name of the S3 bucket to search") String bucketName,
+                                               @ToolParam(description = "Glob matched against the whole key: '*' and '?' stay within a path segment, '**' spans segments, '{a,b}' and '[abc]' are supported. With regex=true, a Java regular expression matched anywhere in the key unless anchored with ^ and $.") String pattern,
+                                               @ToolParam(description = "Optional prefix to index and search (e.g. 'logs/'). Narrower prefixes are indexed faster. Use empty string or omit for the whole bucket.", required = false) String prefix,
+                                               @ToolParam(description = "Optional flag to treat the pattern as a regular expression instead of a glob. Defaults to false.", required = false) Boolean regex,
+                                               @ToolParam(description = "Optional maximum number of keys to return (default 1000, max 10000). The total match count is always returned.", required = false) Integer maxResults,
+                                               @ToolParam(description = "Optional flag to list the prefix again from scratch before searching, picking up changes made outside this server. Defaults to false.", required = false) Boolean refresh) {
+        return s3KeyIndexService.find(bucketName, prefix, pattern, Boolean.TRUE.equals(regex), maxResults,
+                Boolean.TRUE.equals(refresh));
+    }
+
+    @Tool(name = "summarize_s3_prefix", description = "Counts the objects and total bytes under a prefix of the specified S3 bucket, listing it in parallel shards. Suitable for buckets with millions of keys.")
+    public S3PrefixSummaryResponse summarizeS3Prefix(@ToolParam(description = "Name of the S3 bucket to summarize") String bucketName,
+                                                     @ToolParam(description = "Optional prefix to summarize (e.g. 'logs/2025/'). Use empty string or omit to summarize the whole bucket.", required = false) String prefix) {
+        return s3ShardedListingEngine.summarize(bucketName, prefix);
+    }
+
     @Tool(name = "get_s3_object_metadata", description = "Retrieves metadata (e.g., size, content-type, last modified) for the specified S3 object.")
     public GetS3ObjectMetadataResponse getS3ObjectMetadata(@ToolParam(description = "Name of the S3 bucket containing the object") String bucketName, @ToolParam(description = "Key (path and filename) of the S3 object to retrieve metadata for") String key) {
         return s3ActionsService.getObjectMetadata(bucketName, key);
     }
 
+    @Tool(name = "get_s3_objects_metadata", description = "Retrieves metadata for many S3 objects in one call, either for a list of keys or for the objects under a prefix. Lookups run concurrently; a key that fails is reported with an error instead of failing the whole call.")
+    public GetS3ObjectsMetadataResponse getS3ObjectsMetadata(@ToolParam(description = "Name of the S3 bucket containing the objects") String bucketName,
+                                                             @ToolParam(description = "Optional keys (path and filename) of the objects. When omitted, the objects under the prefix are used.", required = false) List<String> keys,
+                                                             @ToolParam(description = "Optional prefix whose objects are described when no keys are given (e.g. 'invoices/'). Use empty string or omit for the whole bucket.", required = false) String prefix,
+                                                             @ToolParam(description = "Optional maximum number of objects to describe (default 1000, max 10000).", required = false) Integer maxResults,
+                                                             @ToolParam(description = "Optional flag to describe prefix objects from the listing alone (size, last modified, ETag, storage class) without content type or custom metadata. Much faster. Defaults to false.", required = false) Boolean listingOnly) {
+        return s3BatchService.getObjectsMetadata(bucketName, keys, prefix, maxResults, Boolean.TRUE.equals(listingOnly));
+    }
+
     @Tool(name = "put_s3_object", description = "Upload file bytes to S3 with optional prefix, returning ETag")
     public PutS3ObjectResponse putS3Object(PutS3ObjectRequest putS3ObjectRequest) {
         return s3ActionsService.putObject(putS3ObjectRequest);
     }
 
-    @Tool(name = "get_s3_object", description = "Download an object from S3 by bucket name and key, returning its content and metadata such as content type, size, and ETag.")
+    @Tool(name = "put_s3_object_from_file", description = "Uploads a local file to S3 without passing its content through the conversation. Large files are sent as a parallel multipart upload. Returns the ETag and transfer statistics.")
+    public UploadS3ObjectResponse putS3ObjectFromFile(@ToolParam(description = "Name of the target S3 bucket (e.g., 'my-bucket')") String bucketName,
+                                                      @ToolParam(description = "The full key (path/filename) to store the object under (e.g. 'invoices/2025/report.pdf').") String key,
+                                                      @ToolParam(description = "Local file path to upload (e.g. '/tmp/report.pdf').") String localPath,
+                                                      @ToolParam(description = "Optional MIME type of the file. Detected from the file name when omitted.", required = false) String contentType) {
+        return s3TransferService.uploadFromFile(bucketName, key, localPath, contentType);
+    }
+
+    @Tool(name = "begin_s3_upload", description = "Starts an upload session for an object too large to send in a single put_s3_object call. Send its content with append_s3_upload_chunk, then call complete_s3_upload. Sessions expire when left idle. Parts have the configured part size (8 MB by default) and S3 allows at most 10,000 of them, so a session holds about 80 GB at most.")
+    public S3UploadSessionResponse beginS3Upload(@ToolParam(description = "Name of the target S3 bucket (e.g., 'my-bucket')") String bucketName,
+                                                 @ToolParam(description = "The full key (path/filename) to store the object under (e.g. 'exports/data.csv').") String key,
+                                                 @ToolParam(description = "Optional MIME type of the object (e.g. 'text/csv').", required = false) String contentType) {
+        return s3UploadSessionService.begin(bucketName, key, contentType);
+    }
+
+    @Tool(name = "append_s3_upload_chunk", description = "Appends the next piece of content to an upload session. Each chunk must be a complete Base64 string on its own. Returns the bytes received so far.")
+    public S3UploadSessionResponse appendS3UploadChunk(@ToolParam(description = "Session id returned by begin_s3_upload.") String sessionId,
+                                                       @ToolParam(description = "The next piece of the content, Base64-encoded.") String base64Chunk,
+                                                       @ToolParam(description = "Optional number of bytes already received (bytesReceived of the previous response). The chunk is rejected when it does not match, which guards against sending a chunk twice.", required = false) Long offset) {
+        return s3UploadSessionService.append(sessionId, base64Chunk, offset);
+    }
+
+    @Tool(name = "complete_s3_upload", description = "Completes an upload session, making the object available in S3. Returns the ETag and transfer statistics.")
+    public UploadS3ObjectResponse completeS3Upload(@ToolParam(description = "Session id returned by begin_s3_upload.") String sessionId) {
+        return s3UploadSessionService.complete(sessionId);
+    }
+
+    @Tool(name = "abort_s3_upload", description = "Cancels an upload session and discards the content sent so far.")
+    public void abortS3Upload(@ToolParam(description = "Session id returned by begin_s3_upload.") String sessionId) {
+        s3UploadSessionService.abort(sessionId);
+    }
+
+    @Tool(name = "get_s3_object", description = "Download an object from S3 by bucket name and key, returning its content and metadata such as content type, size, and ETag. Objects above the server's inline limit must be read with offset/length or with get_s3_object_chunk. Objects stored compressed are decompressed; a range of one is decompressed from the start of the object, so prefer whole reads of those.")
     public GetS3ObjectResponse getS3Object(@ToolParam(description = "The name of the S3 bucket where the object is stored.") String bucketName,
-                                           @ToolParam(description = "The full key (path/filename) of the object to retrieve.") String key) {
-        return s3ActionsService.getObject(bucketName, key);
+                                           @ToolParam(description = "The full key (path/filename) of the object to retrieve.") String key,
+                                           @ToolParam(description = "Optional zero-based byte offset to start reading from.", required = false) Long offset,
+                                           @ToolParam(description = "Optional number of bytes to read starting at offset. Omit to read until the end of the object.", required = false) Long length) {
+        return s3ActionsService.getObject(bucketName, key, offset, length);
+    }
+
+    @Tool(name = "get_s3_object_resource", description = "Returns an s3:// resource URI for an object instead of its content, plus its content type, size and ETag. Read the content with resources/read on that URI only when it is needed; text objects are returned as text, others as a blob.")
+    public S3ObjectResourceResponse getS3ObjectResource(@ToolParam(description = "The name of the S3 bucket where the object is stored.") String bucketName,
+                                                        @ToolParam(description = "The full key (path/filename) of the object.") String key) {
+        return s3ObjectResources.register(bucketName, key);
+    }
+
+    @Tool(name = "get_s3_object_chunk", description = "Reads a large S3 object piece by piece. Returns one chunk of content plus a nextCursor; call again with that cursor until nextCursor is null. Objects stored compressed are returned decompressed, each chunk decompressing the object from its start.")
+    public GetS3ObjectChunkResponse getS3ObjectChunk(@ToolParam(description = "The name of the S3 bucket where the object is stored.") String bucketName,
+                                                     @ToolParam(description = "The full key (path/filename) of the object to read.") String key,
+                                                     @ToolParam(description = "Cursor returned by the previous call. Omit to start at the beginning of the object.", required = false) String cursor,
+                                                     @ToolParam(description = "Optional chunk size in bytes. Defaults to the server's configured chunk size.", required = false) Integer chunkSize) {
+        return s3ActionsService.getObjectChunk(bucketName, key, cursor, chunkSize);
+    }
+
+    @Tool(name = "query_s3_object", description = "Returns only the rows of a CSV, JSON Lines, Parquet or text object that match a filter, instead of downloading the whole object. An SQL expression runs inside S3 with S3 Select (e.g. \"SELECT * FROM S3Object s WHERE s.status = '500'\"), returning records as JSON. A pattern streams the object, gunzipping it when compressed, and returns the lines matching the regular expression. When both are given, the pattern is used if S3 Select is not available.")
+    public QueryS3ObjectResponse queryS3Object(@ToolParam(description = "The name of the S3 bucket where the object is stored.") String bucketName,
+                                               @ToolParam(description = "The full key (path/filename) of the object to query.") String key,
+                                               @ToolParam(description = "Optional S3 Select SQL expression; the object is referenced as S3Object and CSV columns by their header names.", required = false) String expression,
+                                               @ToolParam(description = "Optional Java regular expression matched against each line (e.g. 'ERROR|WARN').", required = false) String pattern,
+                                               @ToolParam(description = "Optional object format: CSV, JSON, PARQUET or TEXT. Detected from the key's extension by default.", required = false) String format,
+                                               @ToolParam(description = "Optional maximum number of rows to return (default 100, max 1000).", required = false) Integer maxResults) {
+        return s3QueryService.queryObject(bucketName, key, expression, pattern, format, maxResults);
+    }
+
+    @Tool(name = "download_s3_object_to_file", description = "Downloads an S3 object to a local file using parallel ranged requests, verifying its checksum. Returns the local path and transfer statistics instead of the content. Interrupted downloads of the same object resume where they stopped. Objects stored compressed by put_s3_object are written decompressed.")
+    public DownloadS3ObjectResponse downloadS3ObjectToFile(@ToolParam(description = "The name of the S3 bucket where the object is stored.") String bucketName,
+                                                           @ToolParam(description = "The full key (path/filename) of the object to download.") String key,
+                                                           @ToolParam(description = "Local file path to write the object to (e.g. '/tmp/report.pdf').") String localPath,
+                                                           @ToolParam(description = "Optional flag to replace an existing local file. Defaults to false.", required = false) Boolean overwrite) {
+        return s3TransferService.downloadToFile(bucketName, key, localPath, Boolean.TRUE.equals(overwrite), true);
+    }
+
+    @Tool(name = "download_s3_prefix_archive", description = "Packs every object under a prefix into one zip or tar.gz archive instead of downloading the objects one by one. Objects are streamed from S3 while the next ones are fetched, so memory use stays fixed whatever the total size. With localPath the archive is written to that local file and only statistics are returned. Without it the archive content is returned in chunks: call again with the returned nextCursor until it is null. Objects that cannot be read are skipped and reported in errors. Objects stored compressed by put_s3_object are archived decompressed.")
+    public DownloadS3ArchiveResponse downloadS3PrefixArchive(@ToolParam(description = "The name of the S3 bucket where the objects are stored.") String bucketName,
+                                                             @ToolParam(description = "Prefix of the objects to archive (e.g. 'invoices/2025/'). Entry names start after its last '/'. Use empty string for the whole bucket.") String prefix,
+                                                             @ToolParam(description = "Optional archive format, 'zip' or 'tar.gz'. Defaults to 'zip'.", required = false) String format,
+                                                             @ToolParam(description = "Optional local file path to write the archive to (e.g. '/tmp/invoices.zip'). When omitted, the archive is returned in chunks.", required = false) String localPath,
+                                                             @ToolParam(description = "Optional flag to replace an existing local file. Defaults to false.", required = false) Boolean overwrite,
+                                                             @ToolParam(description = "Optional nextCursor returned by the previous call, to read the next chunk of the same archive.", required = false) String cursor,
+                                                             ToolContext toolContext) {
+        final var archiveFormat = S3ArchiveService.Format.of(format);
+        if (localPath != null && !localPath.isBlank()) {
+            return s3ArchiveService.archiveToFile(bucketName, prefix, archiveFormat, localPath,
+                    Boolean.TRUE.equals(overwrite), progressOf(toolContext));
+        }
+        return s3ArchiveService.readChunk(bucketName, prefix, archiveFormat, cursor);
     }
 
     @Tool(name = "delete_s3_object", description = "Delete an object from S3 by bucket name and key. Returns DeleteMarker and VersionId if applicable.")
@@ -52,4 +222,80 @@ public class S3Tool {
         s3ActionsService.deleteObject(bucketName, key);
     }
 
+    @Tool(name = "delete_s3_objects", description = "Deletes many objects of a bucket at once, batching up to 1000 keys per request. Reports per-key errors. Use dryRun to check the keys first.")
+    public DeleteS3ObjectsResponse deleteS3Objects(@ToolParam(description = "Name of the S3 bucket that contains the objects to delete.") String bucketName,
+                                                   @ToolParam(description = "Keys (path/filename) of the objects to delete.") List<String> keys,
+                                                   @ToolParam(description = "Optional flag to only count the keys without deleting anything. Defaults to false.", required = false) Boolean dryRun) {
+        return s3BatchService.deleteObjects(bucketName, keys, Boolean.TRUE.equals(dryRun));
+    }
+
+    @Tool(name = "delete_s3_prefix", description = "Deletes every object under a prefix, deleting batches of up to 1000 keys while the prefix is still being listed. Reports per-key errors. Use dryRun to see how many objects match first.")
+    public DeleteS3ObjectsResponse deleteS3Prefix(@ToolParam(description = "Name of the S3 bucket that contains the objects to delete.") String bucketName,
+                                                  @ToolParam(description = "Prefix of the objects to delete (e.g. 'tmp/2024/'). Must not be empty.") String prefix,
+                                                  @ToolParam(description = "Optional flag to only count and sample the matching keys without deleting anything. Defaults to false.", required = false) Boolean dryRun) {
+        return s3BatchService.deletePrefix(bucketName, prefix, Boolean.TRUE.equals(dryRun));
+    }
+
+    @Tool(name = "copy_s3_object", description = "Copies an object inside S3, within a bucket or to another bucket, without its content passing through this server. Objects above 5 GB are copied as parallel part copies. Returns the new ETag.")
+    public CopyS3ObjectResponse copyS3Object(@ToolParam(description = "Name of the S3 bucket that contains the object to copy.") String bucketName,
+                                             @ToolParam(description = "Key (path/filename) of the object to copy.") String key,
+                                             @ToolParam(description = "Key (path/filename) of the copy (e.g. 'archive/2025/report.pdf').") String destinationKey,
+                                             @ToolParam(description = "Optional bucket of the copy. Defaults to the source bucket.", required = false) String destinationBucketName) {
+        return s3CopyService.copyObject(bucketName, key, destinationBucketName, destinationKey);
+    }
+
+    @Tool(name = "copy_s3_prefix", description = "Copies every object under a prefix to another prefix or bucket inside S3, copying objects concurrently while the prefix is still being listed. No content passes through this server. Reports progress as log notifications and per-key errors in the result. Use dryRun to see how many objects match first.")
+    public CopyS3PrefixResponse copyS3Prefix(@ToolParam(description = "Name of the S3 bucket that contains the objects to copy.") String bucketName,
+                                             @ToolParam(description = "Prefix of the objects to copy (e.g. 'reports/2024/'). Use empty string to copy the whole bucket to another bucket.") String prefix,
+                                             @ToolParam(description = "Prefix replacing the source prefix in the copied keys (e.g. 'archive/reports/2024/'). Use empty string to copy to the root.") String destinationPrefix,
+                                             @ToolParam(description = "Optional bucket of the copies. Defaults to the source bucket.", required = false) String destinationBucketName,
+                                             @ToolParam(description = "Optional flag to only count and sample the matching keys without copying anything. Defaults to false.", required = false) Boolean dryRun,
+                                             ToolContext toolContext) {
+        return s3CopyService.copyPrefix(bucketName, prefix, destinationBucketName, destinationPrefix, false,
+                Boolean.TRUE.equals(dryRun), progressOf(toolContext));
+    }
+
+    @Tool(name = "move_s3_prefix", description = "Moves every object under a prefix to another prefix or bucket: copies them inside S3, then deletes each source object that was copied. Objects that failed to copy are kept. Reports progress as log notifications and per-key errors in the result. Use dryRun to see how many objects match first.")
+    public CopyS3PrefixResponse moveS3Prefix(@ToolParam(description = "Name of the S3 bucket that contains the objects to move.") String bucketName,
+                                             @ToolParam(description = "Prefix of the objects to move (e.g. 'incoming/2024/'). Must not be empty.") String prefix,
+                                             @ToolParam(description = "Prefix replacing the source prefix in the moved keys (e.g. 'processed/2024/'). Use empty string to move to the root.") String destinationPrefix,
+                                             @ToolParam(description = "Optional bucket to move the objects to. Defaults to the source bucket.", required = false) String destinationBucketName,
+                                             @ToolParam(description = "Optional flag to only count and sample the matching keys without moving anything. Defaults to false.", required = false) Boolean dryRun,
+                                             ToolContext toolContext) {
+        return s3CopyService.copyPrefix(bucketName, prefix, destinationBucketName, destinationPrefix, true,
+                Boolean.TRUE.equals(dryRun), progressOf(toolContext));
+    }
+
+    @Tool(name = "sync_s3_prefix", description = "Mirrors a local directory and an S3 prefix in one call, transferring only files that are missing or changed (by size, timestamp and ETag) on the target side, concurrently and without content passing through the conversation. Direction 'upload' makes the prefix match the directory, 'download' the directory match the prefix. Reports progress as log notifications; returns counts and bytes transferred plus per-file errors. Use dryRun to see what would change first.")
+    public SyncS3PrefixResponse syncS3Prefix(@ToolParam(description = "Local directory to sync (e.g. '/builds/app/dist').") String localPath,
+                                             @ToolParam(description = "Name of the S3 bucket to sync with.") String bucketName,
+                                             @ToolParam(description = "Prefix the directory maps to (e.g. 'artifacts/app/'); a trailing '/' is added when missing. Use empty string for the bucket root.") String prefix,
+                                             @ToolParam(description = "'upload' to copy local changes to S3, or 'download' to copy S3 changes to the local directory.") String direction,
+                                             @ToolParam(description = "Optional flag to delete target files or objects that do not exist on the source side. Defaults to false.", required = false) Boolean delete,
+                                             @ToolParam(description = "Optional flag to only compare both sides and sample the changed keys without transferring or deleting anything. Defaults to false.", required = false) Boolean dryRun,
+                                             ToolContext toolContext) {
+        return s3SyncService.sync(localPath, bucketName, prefix, S3SyncService.Direction.of(direction),
+                Boolean.TRUE.equals(delete), Boolean.TRUE.equals(dryRun), progressOf(toolContext));
+    }
+
+    @Tool(name = "get_s3_cache_stats", description = "Returns entry, hit, miss and eviction counts of the server's bucket, listing and metadata caches, and of the object content cache when it is enabled. Also returns, per operation, how many calls joined an identical in-flight S3 request (hits) instead of sending their own (misses).")
+    public List<S3CacheStats> getS3CacheStats() {
+        return Stream.concat(cachingS3ActionsService.stream().flatMap(cache -> cache.stats().stream()),
+                s3RequestCoalescer.stats().stream()).toList();
+    }
+
+    /**
+     * MCP 0.10 has no progress notifications, so progress is sent to the client as log messages.
+     */
+    private static S3CopyService.ProgressListener progressOf(final ToolContext toolContext) {
+        return McpToolUtils.getMcpExchange(toolContext)
+                .<S3CopyService.ProgressListener>map(exchange -> message -> exchange.loggingNotification(
+                        McpSchema.LoggingMessageNotification.builder()
+                                .level(McpSchema.LoggingLevel.INFO)
+                                .logger("s3-toolbox")
+                                .data(message)
+                                .build()))
+                .orElse(S3CopyService.ProgressListener.NONE);
+    }
+
 }
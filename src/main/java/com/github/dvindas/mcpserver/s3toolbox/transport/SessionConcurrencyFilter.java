@@ -0,0 +1,107 @@
+package com.github.dvindas.mcpserver.s3toolbox.transport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the messages each MCP session has in flight on the SSE message endpoint. The transport answers a POST only
+ * once the message is handled, so holding a permit for the request covers the whole tool call. A message beyond the
+ * limit waits up to {@code queueTimeout} for a permit and is then rejected with 429, which keeps one busy agent from
+ * taking every S3 connection from the others.
+ * <p>
+ * Sessions are tracked only while they have messages waiting or in flight, so closed sessions leave nothing behind.
+ *
+ * @author dvindas
+ */
+@Slf4j
+public class SessionConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final String SESSION_ID = "sessionId";
+
+    private final int maxConcurrentCalls;
+    private final Duration queueTimeout;
+    private final Counter rejected;
+    private final Map<String, SessionPermits> sessions = new ConcurrentHashMap<>();
+
+    public SessionConcurrencyFilter(final int maxConcurrentCalls, final Duration queueTimeout,
+                                    final MeterRegistry registry) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.queueTimeout = queueTimeout;
+        this.rejected = Counter.builder("s3.mcp.session.rejected")
+                .description("Messages rejected because their session had too many in flight")
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final var sessionId = request.getParameter(SESSION_ID);
+        if (sessionId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final var permits = sessions.compute(sessionId, (id, existing) -> {
+            final var session = existing == null ? new SessionPermits(maxConcurrentCalls) : existing;
+            session.users++;
+            return session;
+        });
+        try {
+            if (!permits.semaphore.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                log.warn("Rejected message of MCP session '{}': {} messages already in flight", sessionId,
+                        maxConcurrentCalls);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader("Retry-After", "1");
+                response.getWriter().write("Too many concurrent requests for this session");
+                return;
+            }
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                permits.semaphore.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        } finally {
+            sessions.computeIfPresent(sessionId, (id, session) -> --session.users == 0 ? null : session);
+        }
+    }
+
+    /**
+     * Number of sessions with messages waiting or in flight.
+     */
+    int activeSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * {@code users} counts the requests holding or waiting for a permit and is only changed inside
+     * {@link ConcurrentHashMap#compute}, so the entry is dropped exactly when the last of them leaves.
+     */
+    private static final class SessionPermits {
+
+        private final Semaphore semaphore;
+        private int users;
+
+        private SessionPermits(final int permits) {
+            this.semaphore = new Semaphore(permits, true);
+        }
+    }
+
+}
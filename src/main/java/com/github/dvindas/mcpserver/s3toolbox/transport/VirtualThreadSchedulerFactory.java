@@ -0,0 +1,25 @@
+package com.github.dvindas.mcpserver.s3toolbox.transport;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Backs Reactor's bounded elastic scheduler with one virtual thread per task. The MCP server runs every synchronous
+ * tool call on that scheduler, which by default allows ten platform threads per CPU for all clients together; tool
+ * calls mostly wait on S3, so they are cheap to run on virtual threads and are bounded per session instead.
+ *
+ * @author dvindas
+ */
+public class VirtualThreadSchedulerFactory implements Schedulers.Factory {
+
+    @Override
+    public Scheduler newBoundedElastic(final int threadCap, final int queuedTaskCap, final ThreadFactory threadFactory,
+                                       final int ttlSeconds) {
+        return Schedulers.fromExecutorService(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-tool-", 0).factory()), "mcp-tool");
+    }
+
+}
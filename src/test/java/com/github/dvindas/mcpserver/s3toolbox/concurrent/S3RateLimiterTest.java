@@ -0,0 +1,72 @@
+package com.github.dvindas.mcpserver.s3toolbox.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void prefixOf_KeepsLeadingSegmentsUpToDepth() {
+        assertEquals("logs/", S3RateLimiter.prefixOf("logs/2025/app.log", 1));
+        assertEquals("logs/2025/", S3RateLimiter.prefixOf("logs/2025/app.log", 2));
+        assertEquals("logs/2025/", S3RateLimiter.prefixOf("logs/2025/app.log", 5));
+        assertEquals("", S3RateLimiter.prefixOf("app.log", 1));
+        assertEquals("", S3RateLimiter.prefixOf("logs/", 0));
+    }
+
+    @Test
+    void reserve_SpreadsRequestsBeyondTheBurstAtTheConfiguredRate() {
+        // Arrange
+        var bucket = new S3RateLimiter.TokenBucket(10, 1, 0.5, 30 * SECOND, 0);
+        for (var i = 0; i < 10; i++) {
+            assertEquals(0, bucket.reserve(0));
+        }
+
+        // Act
+        var firstWait = bucket.reserve(0);
+        var secondWait = bucket.reserve(0);
+
+        // Assert
+        assertEquals(SECOND / 10, firstWait);
+        assertEquals(2 * SECOND / 10, secondWait);
+        assertEquals(0, bucket.reserve(SECOND));
+    }
+
+    @Test
+    void throttled_CutsRateOncePerSignalAndRecoversLinearly() {
+        // Arrange
+        var bucket = new S3RateLimiter.TokenBucket(100, 10, 0.5, 10 * SECOND, 0);
+
+        // Act & Assert
+        assertTrue(bucket.throttled(SECOND));
+        assertFalse(bucket.throttled(SECOND + 1));
+        assertEquals(50, bucket.rate(), 0.01);
+        assertTrue(bucket.throttled(2 * SECOND));
+        assertEquals(30, bucket.rate(), 0.01);
+        assertEquals(SECOND / 30, bucket.reserve(2 * SECOND), 1);
+
+        bucket.reserve(4 * SECOND);
+        assertEquals(50, bucket.rate(), 0.01);
+        bucket.reserve(60 * SECOND);
+        assertEquals(100, bucket.rate(), 0.01);
+    }
+
+    @Test
+    void throttled_NeverGoesBelowMinimumRate() {
+        // Arrange
+        var bucket = new S3RateLimiter.TokenBucket(100, 10, 0.1, 1000 * SECOND, 0);
+
+        // Act
+        for (var i = 1; i <= 5; i++) {
+            bucket.throttled(i * SECOND);
+        }
+
+        // Assert
+        assertEquals(10, bucket.rate(), 0.5);
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.dvindas.mcpserver.s3toolbox.config;
+
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3DeleteError;
+import com.github.dvindas.mcpserver.s3toolbox.tool.S3Tool;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ToolRuntimeHintsTest {
+
+    @Test
+    void registerHints_CoversToolMethodsArgumentsAndNestedResultTypes() throws Exception {
+        // Arrange
+        var hints = new RuntimeHints();
+
+        // Act
+        new S3ToolRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Assert
+        var reflection = RuntimeHintsPredicates.reflection();
+        assertTrue(reflection.onType(S3Tool.class).withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)
+                .test(hints));
+        assertTrue(reflection.onMethod(PutS3ObjectRequest.class.getMethod("base64Content")).test(hints));
+        assertTrue(reflection.onMethod(GetS3ObjectResponse.class.getMethod("content")).test(hints));
+        // Reachable only through DeleteS3ObjectsResponse.errors()
+        assertTrue(reflection.onType(S3DeleteError.class).test(hints));
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.dvindas.mcpserver.s3toolbox.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedToolCallbackTest {
+
+    @Test
+    void bucketOf_ArgumentOrRequestObject_ReturnsBucketName() {
+        // Act & Assert
+        assertEquals("logs", InstrumentedToolCallback.bucketOf("{\"bucketName\":\"logs\",\"key\":\"a.txt\"}"));
+        assertEquals("uploads", InstrumentedToolCallback.bucketOf(
+                "{\"putS3ObjectRequest\":{\"base64Content\":\"YWJj\",\"bucketName\":\"uploads\"}}"));
+    }
+
+    @Test
+    void bucketOf_DeeperOrMissingBucketName_ReturnsNone() {
+        // Act & Assert
+        assertEquals("none", InstrumentedToolCallback.bucketOf(
+                "{\"request\":{\"target\":{\"bucketName\":\"nested\"}},\"keys\":[{\"bucketName\":\"other\"}]}"));
+        assertEquals("none", InstrumentedToolCallback.bucketOf("{\"bucketName\":\"\"}"));
+        assertEquals("none", InstrumentedToolCallback.bucketOf("not json"));
+    }
+}
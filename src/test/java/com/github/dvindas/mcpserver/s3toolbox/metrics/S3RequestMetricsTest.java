@@ -0,0 +1,114 @@
+package com.github.dvindas.mcpserver.s3toolbox.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RequestMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private Deque<Integer> statusCodes;
+    private S3Client s3Client;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        statusCodes = new ArrayDeque<>();
+        s3Client = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("http://localhost:9000"))
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .httpClient(new ScriptedHttpClient())
+                .overrideConfiguration(configuration -> configuration
+                        .addExecutionInterceptor(new S3RequestMetrics(registry))
+                        .addMetricPublisher(new S3HttpClientMetrics(registry)))
+                .build();
+    }
+
+    @Test
+    void getObject_RecordsThrottledAttemptRetryAndLatencyByOperationAndBucket() {
+        // Arrange
+        statusCodes.add(503);
+        statusCodes.add(200);
+
+        // Act
+        s3Client.getObjectAsBytes(GetObjectRequest.builder().bucket("testBucket").key("a.txt").build());
+
+        // Assert
+        var timer = registry.get("s3.client.requests")
+                .tags("operation", "GetObject", "bucket", "testBucket", "outcome", "success", "status", "200")
+                .timer();
+        assertEquals(1, timer.count());
+        assertEquals(1, registry.get("s3.client.retries").tags("operation", "GetObject").counter().count());
+        assertEquals(1, registry.get("s3.client.throttled").tags("bucket", "testBucket").counter().count());
+        assertEquals(128, registry.get("s3.client.bytes").tags("direction", "received").summary().totalAmount());
+    }
+
+    @Test
+    void headObject_Failure_IsRecordedWithItsStatus() {
+        // Arrange
+        statusCodes.add(404);
+
+        // Act
+        assertThrows(Exception.class,
+                () -> s3Client.headObject(HeadObjectRequest.builder().bucket("testBucket").key("a.txt").build()));
+
+        // Assert
+        assertEquals(1, registry.get("s3.client.requests").tags("outcome", "error", "status", "404").timer().count());
+        assertTrue(registry.find("s3.client.retries").counters().isEmpty());
+        assertTrue(registry.find("s3.client.bytes").summaries().isEmpty());
+    }
+
+    /**
+     * Answers each request with the next scripted status code; successful responses carry a 128 byte body.
+     */
+    private class ScriptedHttpClient implements SdkHttpClient {
+
+        @Override
+        public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+            return new ExecutableHttpRequest() {
+                @Override
+                public HttpExecuteResponse call() {
+                    var statusCode = statusCodes.poll();
+                    var body = new byte[statusCode == 200 ? 128 : 0];
+                    return HttpExecuteResponse.builder()
+                            .response(SdkHttpResponse.builder()
+                                    .statusCode(statusCode)
+                                    .putHeader("Content-Length", String.valueOf(body.length))
+                                    .putHeader("ETag", "\"etag\"")
+                                    .build())
+                            .responseBody(AbortableInputStream.create(new ByteArrayInputStream(body)))
+                            .build();
+                }
+
+                @Override
+                public void abort() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
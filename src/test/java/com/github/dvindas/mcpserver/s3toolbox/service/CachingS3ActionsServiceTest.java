@@ -0,0 +1,158 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.ListS3ObjectsPageResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingS3ActionsServiceTest {
+
+    @Mock
+    private S3ActionsService delegate;
+
+    private S3ToolboxProperties properties;
+    private CachingS3ActionsService cachingService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new S3ToolboxProperties();
+        cachingService = new CachingS3ActionsService(delegate, Optional.empty(), properties);
+    }
+
+    @Test
+    void getObjectMetadata_SecondCallIsServedFromCache() {
+        // Arrange
+        when(delegate.getObjectMetadata("bucket", "a.txt")).thenReturn(metadata(3L));
+
+        // Act
+        var first = cachingService.getObjectMetadata("bucket", "a.txt");
+        var second = cachingService.getObjectMetadata("bucket", "a.txt");
+
+        // Assert
+        assertSame(first, second);
+        verify(delegate, times(1)).getObjectMetadata("bucket", "a.txt");
+        var stats = cachingService.stats().stream()
+                .filter(cacheStats -> cacheStats.cache().equals("metadata"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void putObjectFollowedByItsEvent_InvalidatesMetadataAndOverlappingListings() {
+        // Arrange
+        when(delegate.getObjectMetadata("bucket", "docs/a.txt")).thenReturn(metadata(3L), metadata(5L));
+        when(delegate.listObjects("bucket", "docs/"))
+                .thenReturn(List.of("docs/b.txt"), List.of("docs/a.txt", "docs/b.txt"));
+        when(delegate.listObjects("bucket", "img/")).thenReturn(List.of("img/c.png"));
+        when(delegate.putObject(any())).thenReturn(new PutS3ObjectResponse("etag"));
+        cachingService.getObjectMetadata("bucket", "docs/a.txt");
+        cachingService.listObjects("bucket", "docs/");
+        cachingService.listObjects("bucket", "img/");
+
+        // Act
+        cachingService.putObject(new PutS3ObjectRequest("bucket", "docs/", "a.txt", "text/plain", "YWJj", null,
+                null));
+        cachingService.onObjectsChanged(new S3ObjectsChangedEvent("bucket", "docs/a.txt"));
+
+        // Assert
+        assertEquals(5L, cachingService.getObjectMetadata("bucket", "docs/a.txt").contentLength());
+        assertEquals(2, cachingService.listObjects("bucket", "docs/").size());
+        assertEquals(1, cachingService.listObjects("bucket", "img/").size());
+        verify(delegate, times(1)).listObjects("bucket", "img/");
+    }
+
+    @Test
+    void getObjectMetadata_SlowLoadOverlappingWriteEvent_IsNotCached() throws Exception {
+        // Arrange
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(delegate.getObjectMetadata("bucket", "docs/a.txt"))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return metadata(3L);
+                })
+                .thenReturn(metadata(5L));
+        var stale = CompletableFuture.supplyAsync(() -> cachingService.getObjectMetadata("bucket", "docs/a.txt"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Act
+        cachingService.onObjectsChanged(new S3ObjectsChangedEvent("bucket", "docs/a.txt"));
+        release.countDown();
+
+        // Assert
+        assertEquals(3L, stale.get(5, TimeUnit.SECONDS).contentLength());
+        assertEquals(5L, cachingService.getObjectMetadata("bucket", "docs/a.txt").contentLength());
+        verify(delegate, times(2)).getObjectMetadata("bucket", "docs/a.txt");
+    }
+
+    @Test
+    void onObjectsChanged_InvalidatesEntriesUnderPrefix() {
+        // Arrange
+        var page = new ListS3ObjectsPageResponse(List.of(), null, false);
+        when(delegate.listObjectsPage("bucket", null, null, null, null)).thenReturn(page);
+        when(delegate.listObjects("bucket", null)).thenReturn(List.of("tmp/a.txt"));
+        cachingService.listObjectsPage("bucket", null, null, null, null);
+        cachingService.listObjects("bucket", null);
+
+        // Act
+        cachingService.onObjectsChanged(new S3ObjectsChangedEvent("bucket", "tmp/"));
+        cachingService.listObjectsPage("bucket", null, null, null, null);
+        cachingService.listObjects("bucket", null);
+
+        // Assert
+        verify(delegate, times(2)).listObjectsPage("bucket", null, null, null, null);
+        verify(delegate, times(2)).listObjects("bucket", null);
+    }
+
+    @Test
+    void getObjectMetadata_ExpiresAfterTtl() throws Exception {
+        // Arrange
+        properties.getCache().setMetadataTtl(Duration.ofMillis(20));
+        cachingService = new CachingS3ActionsService(delegate, Optional.empty(), properties);
+        when(delegate.getObjectMetadata("bucket", "a.txt")).thenReturn(metadata(3L));
+        cachingService.getObjectMetadata("bucket", "a.txt");
+
+        // Act
+        Thread.sleep(50);
+        cachingService.getObjectMetadata("bucket", "a.txt");
+
+        // Assert
+        verify(delegate, times(2)).getObjectMetadata("bucket", "a.txt");
+    }
+
+    @Test
+    void ofKeys_UsesLongestCommonPrefix() {
+        var event = S3ObjectsChangedEvent.ofKeys("bucket", List.of("logs/2025/01.txt", "logs/2025/02.txt",
+                "logs/2024/12.txt"));
+
+        assertEquals("logs/202", event.prefix());
+    }
+
+    private static GetS3ObjectMetadataResponse metadata(Long contentLength) {
+        return new GetS3ObjectMetadataResponse("text/plain", contentLength, Instant.now(), "\"etag\"", "STANDARD",
+                Map.of());
+    }
+}
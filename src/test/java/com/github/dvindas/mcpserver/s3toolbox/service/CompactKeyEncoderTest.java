@@ -0,0 +1,80 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.CompactS3Listing;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactKeyEncoderTest {
+
+    @Test
+    void encode_GroupsConsecutiveKeysByDirectory() {
+        // Arrange
+        var keys = List.of("logs/a.txt", "logs/b/c.txt", "logs/b/d.txt", "logs/e.txt", "logs/f/");
+
+        // Act
+        var listing = CompactKeyEncoder.encode("testBucket", "logs/", keys.iterator(), false, 100);
+
+        // Assert
+        assertEquals(List.of(
+                new CompactS3Listing.KeyGroup("", List.of("a.txt")),
+                new CompactS3Listing.KeyGroup("b/", List.of("c.txt", "d.txt")),
+                new CompactS3Listing.KeyGroup("", List.of("e.txt")),
+                new CompactS3Listing.KeyGroup("f/", List.of(""))), listing.groups());
+        assertEquals(5, listing.count());
+        assertFalse(listing.truncated());
+        assertEquals(keys, CompactKeyEncoder.decode(listing));
+    }
+
+    @Test
+    void encode_DeltaEncoded_WritesSharedPrefixLengthAndRoundTrips() {
+        // Arrange
+        var keys = new ArrayList<String>();
+        for (var i = 998; i < 1003; i++) {
+            keys.add("2025/05/app-%05d.log".formatted(i));
+        }
+        keys.add("2025/05/😀a");
+        keys.add("2025/05/😁b");
+
+        // Act
+        var listing = CompactKeyEncoder.encode("testBucket", null, keys.iterator(), true, 100);
+
+        // Assert
+        assertEquals(List.of("0:app-00998.log", "8:9.log", "5:1000.log", "8:1.log", "8:2.log", "0:😀a",
+                "0:😁b"), listing.groups().getFirst().names());
+        assertEquals("", listing.prefix());
+        assertEquals(keys, CompactKeyEncoder.decode(listing));
+    }
+
+    @Test
+    void listObjectsCompact_StopsAtMaxResults() {
+        // Arrange
+        var s3Client = new InMemoryS3Client();
+        for (var i = 0; i < 30; i++) {
+            s3Client.putObject("testBucket", "data/part-%02d.csv".formatted(i), 1);
+        }
+        var properties = new S3ToolboxProperties();
+        try (var executor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1))) {
+            var service = new S3ActionsServiceImpl(s3Client, executor, properties,
+                    new S3MultipartUploader(s3Client, executor, properties), new S3RequestCoalescer(), event -> {
+            });
+
+            // Act
+            var listing = service.listObjectsCompact("testBucket", "data/", true, 20);
+
+            // Assert
+            assertEquals(20, listing.count());
+            assertTrue(listing.truncated());
+            assertEquals("data/part-19.csv", CompactKeyEncoder.decode(listing).getLast());
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package com.github.dvindas.mcpserver.s3toolbox.service;
 
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
 import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import software.amazon.awssdk.core.ResponseBytes;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,9 +37,25 @@ class S3ActionsServiceImplTest {
     @Mock
     private S3Client s3Client;
 
-    @InjectMocks
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
     private S3ActionsServiceImpl s3ActionsService;
 
+    @BeforeEach
+    void setUp() {
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        s3ActionsService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
     @Test
     void listBuckets_Success() {
         // Arrange
@@ -65,6 +92,89 @@ class S3ActionsServiceImplTest {
         verify(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
     }
 
+    @Test
+    void listObjectsPage_FollowsContinuationTokensUpToMaxResults() {
+        // Arrange
+        var lastModified = Instant.now();
+        var firstPage = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("test/file1.txt").size(10L).lastModified(lastModified).build(),
+                        S3Object.builder().key("test/file2.txt").size(20L).lastModified(lastModified).build())
+                .isTruncated(true)
+                .nextContinuationToken("token-1")
+                .build();
+        var secondPage = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("test/file3.txt").size(30L).lastModified(lastModified).build())
+                .isTruncated(true)
+                .nextContinuationToken("token-2")
+                .build();
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(firstPage, secondPage);
+
+        // Act
+        var result = s3ActionsService.listObjectsPage("testBucket", "test/", null, 2, 3);
+
+        // Assert
+        assertEquals(List.of("test/file1.txt", "test/file2.txt", "test/file3.txt"),
+                result.objects().stream().map(S3ObjectSummary::key).toList());
+        assertEquals(30L, result.objects().get(2).size());
+        assertEquals(lastModified, result.objects().get(0).lastModified());
+        assertTrue(result.truncated());
+        assertEquals("token-2", result.nextContinuationToken());
+
+        var captor = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3Client, times(2)).listObjectsV2(captor.capture());
+        assertNull(captor.getAllValues().get(0).continuationToken());
+        assertEquals(2, captor.getAllValues().get(0).maxKeys());
+        assertEquals("token-1", captor.getAllValues().get(1).continuationToken());
+        assertEquals(1, captor.getAllValues().get(1).maxKeys());
+    }
+
+    @Test
+    void listObjectsPage_LastPage_ReturnsNoToken() {
+        // Arrange
+        var response = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("test/file1.txt").build())
+                .isTruncated(false)
+                .build();
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(response);
+
+        // Act
+        var result = s3ActionsService.listObjectsPage("testBucket", "test/", "resume-token", null, null);
+
+        // Assert
+        assertEquals(1, result.objects().size());
+        assertFalse(result.truncated());
+        assertNull(result.nextContinuationToken());
+    }
+
+    @Test
+    void streamObjects_PullsPagesLazily() {
+        // Arrange
+        var firstPage = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("test/file1.txt").build(),
+                        S3Object.builder().key("test/file2.txt").build())
+                .isTruncated(true)
+                .nextContinuationToken("token-1")
+                .build();
+        var secondPage = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("test/file3.txt").build())
+                .isTruncated(false)
+                .build();
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation ->
+                invocation.<ListObjectsV2Request>getArgument(0).continuationToken() == null ? firstPage : secondPage);
+
+        // Act
+        var firstKey = s3ActionsService.streamObjects("testBucket", "test/").findFirst();
+
+        // Assert
+        assertEquals("test/file1.txt", firstKey.map(S3ObjectSummary::key).orElseThrow());
+        verify(s3Client, times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+
+        var allKeys = s3ActionsService.streamObjects("testBucket", "test/").map(S3ObjectSummary::key).toList();
+        assertEquals(List.of("test/file1.txt", "test/file2.txt", "test/file3.txt"), allKeys);
+    }
+
     @Test
     void getObjectMetadata_Success() {
         // Arrange
@@ -103,6 +213,25 @@ class S3ActionsServiceImplTest {
         assertEquals(eTag, result.eTag());
         assertEquals(storageClass, result.storageClass());
         assertEquals(metadata, result.customMetadata());
+        assertEquals(2, s3IoExecutor.stats().submitted());
+    }
+
+    @Test
+    void getObjectMetadata_HeadOnly_SkipsObjectAttributes() {
+        // Arrange
+        properties.getMetadata().setHeadOnly(true);
+        var headResponse = HeadObjectResponse.builder()
+                .contentType("text/plain")
+                .contentLength(10L)
+                .build();
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(headResponse);
+
+        // Act
+        var result = s3ActionsService.getObjectMetadata("testBucket", "test/file.txt");
+
+        // Assert
+        assertEquals("STANDARD", result.storageClass());
+        verify(s3Client, never()).getObjectAttributes(any(GetObjectAttributesRequest.class));
     }
 
     @Test
@@ -116,7 +245,8 @@ class S3ActionsServiceImplTest {
         var base64Content = Base64.getEncoder().encodeToString(content.getBytes());
         var expectedETag = "test-etag";
 
-        var request = new PutS3ObjectRequest(bucketName, prefix, fileName, contentType, base64Content);
+        var request = new PutS3ObjectRequest(bucketName, prefix, fileName, contentType, base64Content, null,
+                null);
         var response = PutObjectResponse.builder().eTag(expectedETag).build();
 
         when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenReturn(response);
@@ -138,12 +268,8 @@ class S3ActionsServiceImplTest {
         var content = "Hello World";
         var contentType = "text/plain";
 
-        var response = ResponseBytes.fromByteArray(
-            GetObjectResponse.builder().contentType(contentType).build(),
-            content.getBytes()
-        );
-
-        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(response);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(responseStream(GetObjectResponse.builder().contentType(contentType), content.getBytes()));
 
         // Act
         var result = s3ActionsService.getObject(bucketName, key);
@@ -155,6 +281,66 @@ class S3ActionsServiceImplTest {
         assertArrayEquals(content.getBytes(), result.content());
     }
 
+    @Test
+    void getObject_WithRange_RequestsByteWindow() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(responseStream(GetObjectResponse.builder().contentRange("bytes 6-10/11"), "World".getBytes()));
+
+        // Act
+        var result = s3ActionsService.getObject("testBucket", "test/file.txt", 6L, 5L);
+
+        // Assert
+        assertArrayEquals("World".getBytes(), result.content());
+        var captor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(captor.capture());
+        assertEquals("bytes=6-10", captor.getValue().range());
+    }
+
+    @Test
+    void getObject_AboveInlineLimit_ThrowsIllegalArgumentException() {
+        // Arrange
+        properties.getGet().setMaxInlineSize(DataSize.ofBytes(4));
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(responseStream(GetObjectResponse.builder(), "Hello World".getBytes()));
+
+        // Act
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> s3ActionsService.getObject("testBucket", "test/file.txt"));
+
+        // Assert
+        assertTrue(exception.getMessage().contains("get_s3_object_chunk"));
+    }
+
+    @Test
+    void getObjectChunk_ReturnsCursorUntilEndOfObject() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            return request.range().equals("bytes=0-5")
+                    ? responseStream(GetObjectResponse.builder().eTag("etag").contentRange("bytes 0-5/11"), "Hello ".getBytes())
+                    : responseStream(GetObjectResponse.builder().eTag("etag").contentRange("bytes 6-10/11"), "World".getBytes());
+        });
+
+        // Act
+        var first = s3ActionsService.getObjectChunk("testBucket", "test/file.txt", null, 6);
+        var second = s3ActionsService.getObjectChunk("testBucket", "test/file.txt", first.nextCursor(), 6);
+
+        // Assert
+        assertArrayEquals("Hello ".getBytes(), first.content());
+        assertEquals(11, first.totalSize());
+        assertNotNull(first.nextCursor());
+        assertArrayEquals("World".getBytes(), second.content());
+        assertEquals(6, second.offset());
+        assertNull(second.nextCursor());
+
+        var captor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObject(captor.capture());
+        assertNull(captor.getAllValues().get(0).ifMatch());
+        assertEquals("etag", captor.getAllValues().get(1).ifMatch());
+        assertEquals("bytes=6-11", captor.getAllValues().get(1).range());
+    }
+
     @Test
     void deleteObject_Success() {
         // Arrange
@@ -208,7 +394,9 @@ class S3ActionsServiceImplTest {
                 "prefix/",
                 "file.txt",
                 "text/plain",
-                Base64.getEncoder().encodeToString("test".getBytes())
+                Base64.getEncoder().encodeToString("test".getBytes()),
+                null,
+                null
         );
 
         // Act & Assert
@@ -218,11 +406,17 @@ class S3ActionsServiceImplTest {
     @Test
     void getObject_WhenS3Exception_ThrowsRuntimeException() {
         // Arrange
-        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+        when(s3Client.getObject(any(GetObjectRequest.class)))
                 .thenThrow(S3Exception.builder().build());
 
         // Act & Assert
         assertThrows(RuntimeException.class, 
                 () -> s3ActionsService.getObject("testBucket", "key"));
     }
-} 
\ No newline at end of file
+
+    private static ResponseInputStream<GetObjectResponse> responseStream(GetObjectResponse.Builder response,
+                                                                         byte[] content) {
+        return new ResponseInputStream<>(response.contentLength((long) content.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,317 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.DownloadS3ArchiveResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ArchiveServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+    private static final String LONG_NAME = "deeply/nested/" + "directory-name/".repeat(8) + "invoice-0001.pdf";
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+    private S3ArchiveServiceImpl archiveService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        // Small enough for the larger objects to be streamed past their prefetched head
+        properties.getArchive().setPrefetchSize(DataSize.ofBytes(1024));
+        properties.getArchive().setChunkSize(DataSize.ofBytes(700));
+        archiveService = new S3ArchiveServiceImpl(s3Client, s3IoExecutor,
+                new S3ShardedListingEngine(s3Client, s3IoExecutor, properties), properties);
+
+        s3Client.putObject(BUCKET, "invoices/2025/a.txt", bytes("first invoice"));
+        s3Client.putObject(BUCKET, "invoices/2025/", new byte[0]);
+        s3Client.putObject(BUCKET, "invoices/2025/empty.txt", new byte[0]);
+        s3Client.putObject(BUCKET, "invoices/2025/large.bin", content(5000));
+        s3Client.putObject(BUCKET, "invoices/2025/" + LONG_NAME, bytes("long name"));
+        s3Client.putObject(BUCKET, "invoices/2024/old.txt", bytes("not archived"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void archiveToFile_Zip_StreamsEveryObjectUnderThePrefix() throws Exception {
+        // Arrange
+        var target = tempDir.resolve("out/invoices.zip");
+
+        // Act
+        var result = archiveService.archiveToFile(BUCKET, "invoices/2025/", S3ArchiveService.Format.ZIP,
+                target.toString(), false, S3CopyService.ProgressListener.NONE);
+
+        // Assert
+        assertEquals(4, result.entries());
+        assertEquals(5022, result.objectBytes());
+        assertEquals(Files.size(target), result.archiveBytes());
+        assertTrue(result.errors().isEmpty());
+        var entries = unzip(Files.readAllBytes(target));
+        assertEquals(4, entries.size());
+        assertEquals("first invoice", entries.get("a.txt"));
+        assertEquals("", entries.get("empty.txt"));
+        assertEquals(new String(content(5000), StandardCharsets.ISO_8859_1), entries.get("large.bin"));
+        assertEquals("long name", entries.get(LONG_NAME));
+        assertFalse(Files.exists(tempDir.resolve("out/invoices.zip.part")));
+    }
+
+    @Test
+    void archiveToFile_TarGz_KeepsLongNamesAndDirectoryOfPrefix() throws Exception {
+        // Arrange
+        var target = tempDir.resolve("invoices.tar.gz");
+
+        // Act
+        var result = archiveService.archiveToFile(BUCKET, "invoices/2025", S3ArchiveService.Format.TAR_GZ,
+                target.toString(), false, S3CopyService.ProgressListener.NONE);
+
+        // Assert
+        assertEquals("tar.gz", result.format());
+        var entries = untar(Files.readAllBytes(target));
+        assertEquals(4, entries.size());
+        assertEquals("first invoice", entries.get("2025/a.txt"));
+        assertEquals("long name", entries.get("2025/" + LONG_NAME));
+        assertEquals(5000, entries.get("2025/large.bin").length());
+    }
+
+    @Test
+    void archiveToFile_ObjectsCompressedByPut_AreArchivedDecompressed() throws Exception {
+        // Arrange
+        var content = "id,status\n".repeat(500);
+        var actionsService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+        for (var name : List.of("orders.csv", "unsized.csv")) {
+            actionsService.putObject(new PutS3ObjectRequest(BUCKET, "exports/", name, "text/csv",
+                    Base64.getEncoder().encodeToString(bytes(content)), "gzip", null));
+        }
+        var unsized = s3Client.headObject(b -> b.bucket(BUCKET).key("exports/unsized.csv"));
+        var metadata = new HashMap<>(unsized.metadata());
+        metadata.remove(S3ObjectEncoding.SIZE_METADATA);
+        var stored = s3Client.content(BUCKET, "exports/unsized.csv");
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key("exports/unsized.csv").metadata(metadata)
+                .build(), RequestBody.fromBytes(stored));
+        var target = tempDir.resolve("exports.tar.gz");
+
+        // Act
+        var result = archiveService.archiveToFile(BUCKET, "exports/", S3ArchiveService.Format.TAR_GZ,
+                target.toString(), false, S3CopyService.ProgressListener.NONE);
+
+        // Assert
+        var entries = untar(Files.readAllBytes(target));
+        assertEquals(content, entries.get("orders.csv"));
+        assertEquals(new String(stored, StandardCharsets.ISO_8859_1), entries.get("unsized.csv.gz"));
+        assertEquals(content.length() + stored.length, result.objectBytes());
+    }
+
+    @Test
+    void archiveToFile_ExistingFile_IsRejectedWithoutOverwrite() throws Exception {
+        // Arrange
+        var target = Files.writeString(tempDir.resolve("existing.zip"), "keep");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> archiveService.archiveToFile(BUCKET, "invoices/",
+                S3ArchiveService.Format.ZIP, target.toString(), false, S3CopyService.ProgressListener.NONE));
+        assertEquals("keep", Files.readString(target));
+    }
+
+    @Test
+    void readChunk_FollowingCursors_ReturnsTheWholeArchive() throws Exception {
+        // Arrange
+        var archive = new ByteArrayOutputStream();
+
+        // Act
+        var chunk = archiveService.readChunk(BUCKET, "invoices/2025/", S3ArchiveService.Format.ZIP, null);
+        var chunks = 1;
+        archive.write(chunk.content());
+        while (chunk.nextCursor() != null) {
+            var cursor = chunk.nextCursor();
+            chunk = archiveService.readChunk(null, null, null, cursor);
+            if (chunk.nextCursor() != null) {
+                // A retried call with the same cursor returns the same chunk
+                var retried = archiveService.readChunk(null, null, null, cursor);
+                assertArrayEquals(chunk.content(), retried.content());
+                assertEquals(chunk.nextCursor(), retried.nextCursor());
+            }
+            assertEquals(archive.size(), chunk.offset());
+            archive.write(chunk.content());
+            chunks++;
+        }
+
+        // Assert
+        assertTrue(chunks > 2);
+        assertEquals(4, chunk.entries());
+        assertEquals(archive.size(), chunk.archiveBytes());
+        assertEquals(0, archiveService.openStreams());
+        var entries = unzip(archive.toByteArray());
+        assertEquals("first invoice", entries.get("a.txt"));
+        assertEquals(5000, entries.get("large.bin").length());
+    }
+
+    @Test
+    void readChunk_IdleStream_IsCancelledAndItsCursorRejected() {
+        // Arrange
+        var first = archiveService.readChunk(BUCKET, "invoices/2025/", S3ArchiveService.Format.TAR_GZ, null);
+        properties.getArchive().setIdleTimeout(Duration.ZERO);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> archiveService.readChunk(null, null, null, first.nextCursor()));
+        assertEquals(0, archiveService.openStreams());
+    }
+
+    @Test
+    void readChunk_ConcurrentStarts_OpenAtMostMaxSessions() throws Exception {
+        // Arrange
+        properties.getArchive().setMaxSessions(3);
+        var service = new S3ArchiveServiceImpl(s3Client, s3IoExecutor,
+                new S3ShardedListingEngine(s3Client, s3IoExecutor, properties), properties);
+        var start = new CountDownLatch(1);
+        // Platform threads: a reader blocked on the pipe inside its stream's monitor would pin a carrier thread
+        var callers = Executors.newFixedThreadPool(10);
+
+        // Act
+        var calls = new ArrayList<CompletableFuture<DownloadS3ArchiveResponse>>();
+        for (var i = 0; i < 10; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    assertTrue(start.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return service.readChunk(BUCKET, "invoices/2025/", S3ArchiveService.Format.ZIP, null);
+            }, callers));
+        }
+        start.countDown();
+        var opened = 0;
+        var rejected = 0;
+        for (var call : calls) {
+            try {
+                assertNotNull(call.get(5, TimeUnit.SECONDS).nextCursor());
+                opened++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                rejected++;
+            }
+        }
+        var openBeforeExpiry = service.openStreams();
+        properties.getArchive().setIdleTimeout(Duration.ZERO);
+        service.expireIdleStreams();
+        properties.getArchive().setIdleTimeout(Duration.ofMinutes(5));
+        var afterExpiry = service.readChunk(BUCKET, "invoices/2025/", S3ArchiveService.Format.ZIP, null);
+
+        // Assert
+        assertEquals(3, opened);
+        assertEquals(7, rejected);
+        assertEquals(3, openBeforeExpiry);
+        assertNotNull(afterExpiry.nextCursor());
+        assertEquals(1, service.openStreams());
+        service.cancelOpenStreams();
+        callers.shutdown();
+    }
+
+    private static Map<String, String> unzip(final byte[] archive) throws IOException {
+        var entries = new LinkedHashMap<String, String>();
+        try (var zip = new ZipInputStream(new ByteArrayInputStream(archive), StandardCharsets.UTF_8)) {
+            for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.ISO_8859_1));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Minimal ustar reader honouring PAX path records, enough to check what the archive writer produces.
+     */
+    private static Map<String, String> untar(final byte[] archive) throws IOException {
+        var entries = new LinkedHashMap<String, String>();
+        try (InputStream tar = new GZIPInputStream(new ByteArrayInputStream(archive))) {
+            String paxPath = null;
+            while (true) {
+                var header = tar.readNBytes(512);
+                if (header.length < 512 || header[0] == 0) {
+                    break;
+                }
+                var name = new String(header, 0, indexOf(header, 0, 100), StandardCharsets.UTF_8);
+                var size = Long.parseLong(new String(header, 124, 11, StandardCharsets.US_ASCII).trim(), 8);
+                var data = tar.readNBytes((int) size);
+                tar.skipNBytes((512 - size % 512) % 512);
+                if (header[156] == 'x') {
+                    for (var record : new String(data, StandardCharsets.UTF_8).split("\n")) {
+                        var keyValue = record.substring(record.indexOf(' ') + 1);
+                        if (keyValue.startsWith("path=")) {
+                            paxPath = keyValue.substring("path=".length());
+                        }
+                    }
+                    continue;
+                }
+                entries.put(paxPath != null ? paxPath : name, new String(data, StandardCharsets.ISO_8859_1));
+                paxPath = null;
+            }
+        }
+        return entries;
+    }
+
+    private static int indexOf(final byte[] bytes, final int from, final int length) {
+        for (var i = from; i < from + length; i++) {
+            if (bytes[i] == 0) {
+                return i - from;
+            }
+        }
+        return length;
+    }
+
+    private static byte[] content(final int size) {
+        var content = new byte[size];
+        for (var i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + i / 7);
+        }
+        return content;
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectMetadataResult;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3BatchServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client(Duration.ofMillis(5));
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        properties.getListing().setMaxConcurrency(4);
+        properties.getBatch().setMaxConcurrency(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void deletePrefix_DeletesEveryObjectInBatchesOfAtMostThousandKeys() {
+        // Arrange
+        for (var shard = 0; shard < 5; shard++) {
+            for (var i = 0; i < 700; i++) {
+                s3Client.putObject(BUCKET, "tmp/%d/file-%04d.txt".formatted(shard, i), 1);
+            }
+        }
+        s3Client.putObject(BUCKET, "keep/file.txt", 1);
+
+        // Act
+        var result = batchService(s3Client).deletePrefix(BUCKET, "tmp/", false);
+
+        // Assert
+        assertEquals(3500, result.matched());
+        assertEquals(3500, result.deleted());
+        assertEquals(0, result.failed());
+        assertEquals(4, result.batches());
+        assertFalse(s3Client.exists(BUCKET, "tmp/0/file-0000.txt"));
+        assertTrue(s3Client.exists(BUCKET, "keep/file.txt"));
+    }
+
+    @Test
+    void deletePrefix_SendsFirstBatchBeforeListingFinishes() {
+        // Arrange
+        var listedPages = new AtomicInteger();
+        var pagesListedAtFirstDelete = new AtomicInteger(-1);
+        var client = new InMemoryS3Client(Duration.ofMillis(50)) {
+            @Override
+            public ListObjectsV2Response listObjectsV2(final ListObjectsV2Request request) {
+                var response = super.listObjectsV2(request);
+                listedPages.incrementAndGet();
+                return response;
+            }
+
+            @Override
+            public DeleteObjectsResponse deleteObjects(final DeleteObjectsRequest request) {
+                pagesListedAtFirstDelete.compareAndSet(-1, listedPages.get());
+                return super.deleteObjects(request);
+            }
+        };
+        for (var i = 0; i < 3000; i++) {
+            client.putObject(BUCKET, "tmp/file-%04d.txt".formatted(i), 1);
+        }
+
+        // Act
+        var result = batchService(client).deletePrefix(BUCKET, "tmp/", false);
+
+        // Assert
+        assertEquals(3000, result.deleted());
+        assertEquals(3, listedPages.get());
+        assertTrue(pagesListedAtFirstDelete.get() < listedPages.get());
+    }
+
+    @Test
+    void deletePrefix_DryRunOnlyCountsAndSamples() {
+        // Arrange
+        for (var i = 0; i < 150; i++) {
+            s3Client.putObject(BUCKET, "tmp/file-%03d.txt".formatted(i), 1);
+        }
+
+        // Act
+        var result = batchService(s3Client).deletePrefix(BUCKET, "tmp/", true);
+
+        // Assert
+        assertTrue(result.dryRun());
+        assertEquals(150, result.matched());
+        assertEquals(0, result.deleted());
+        assertEquals(S3BatchServiceImpl.DRY_RUN_SAMPLE_SIZE, result.sampleKeys().size());
+        assertEquals("tmp/file-000.txt", result.sampleKeys().getFirst());
+        assertTrue(s3Client.exists(BUCKET, "tmp/file-149.txt"));
+    }
+
+    @Test
+    void deleteObjects_ReportsPerKeyErrors() {
+        // Arrange
+        var lockedClient = new InMemoryS3Client() {
+            @Override
+            protected S3Error deleteError(String bucketName, String key) {
+                return key.startsWith("locked/")
+                        ? S3Error.builder().key(key).code("AccessDenied").message("Access Denied").build()
+                        : null;
+            }
+        };
+        lockedClient.putObject(BUCKET, "a.txt", 1);
+        lockedClient.putObject(BUCKET, "locked/b.txt", 1);
+
+        // Act
+        var result = batchService(lockedClient).deleteObjects(BUCKET, List.of("a.txt", "locked/b.txt", "a.txt"),
+                false);
+
+        // Assert
+        assertEquals(2, result.matched());
+        assertEquals(1, result.deleted());
+        assertEquals(1, result.failed());
+        assertEquals("locked/b.txt", result.errors().getFirst().key());
+        assertEquals("AccessDenied", result.errors().getFirst().code());
+        assertFalse(lockedClient.exists(BUCKET, "a.txt"));
+    }
+
+    @Test
+    void deletePrefix_BatchFailingOnTheClientSide_FailsItsKeysAndKeepsTheOtherBatches() {
+        // Arrange
+        var batches = new AtomicInteger();
+        var client = new InMemoryS3Client() {
+            @Override
+            public DeleteObjectsResponse deleteObjects(final DeleteObjectsRequest request) {
+                if (request.delete().objects().getFirst().key().equals("tmp/file-0000.txt")) {
+                    throw SdkClientException.create("Unable to execute HTTP request: Connection reset");
+                }
+                batches.incrementAndGet();
+                return super.deleteObjects(request);
+            }
+        };
+        for (var i = 0; i < 1500; i++) {
+            client.putObject(BUCKET, "tmp/file-%04d.txt".formatted(i), 1);
+        }
+
+        // Act
+        var result = batchService(client).deletePrefix(BUCKET, "tmp/", false);
+
+        // Assert
+        assertEquals(1500, result.matched());
+        assertEquals(500, result.deleted());
+        assertEquals(1000, result.failed());
+        assertEquals(1, batches.get());
+        assertEquals("SdkClientException", result.errors().getFirst().code());
+        assertTrue(client.exists(BUCKET, "tmp/file-0000.txt"));
+        assertFalse(client.exists(BUCKET, "tmp/file-1499.txt"));
+    }
+
+    @Test
+    void deletePrefix_WithEmptyPrefix_IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> batchService(s3Client).deletePrefix(BUCKET, "", false));
+    }
+
+    @Test
+    void getObjectsMetadata_ForKeys_ReportsMissingKeysWithoutFailing() {
+        // Arrange
+        s3Client.putObject(BUCKET, "a.txt", 3);
+        s3Client.putObject(BUCKET, "b.txt", 5);
+
+        // Act
+        var result = batchService(s3Client).getObjectsMetadata(BUCKET, List.of("a.txt", "missing.txt", "b.txt"),
+                null, null, false);
+
+        // Assert
+        assertEquals(List.of("a.txt", "missing.txt", "b.txt"),
+                result.objects().stream().map(S3ObjectMetadataResult::key).toList());
+        assertEquals(3L, result.objects().getFirst().metadata().contentLength());
+        assertEquals("STANDARD", result.objects().getFirst().metadata().storageClass());
+        assertEquals("NoSuchKey", result.objects().get(1).error());
+        assertNull(result.objects().get(1).metadata());
+        assertEquals(1, result.failed());
+    }
+
+    @Test
+    void getObjectsMetadata_ForPrefix_HeadsConcurrentlyUpToLimit() {
+        // Arrange
+        for (var i = 0; i < 40; i++) {
+            s3Client.putObject(BUCKET, "docs/file-%02d.txt".formatted(i), i);
+        }
+        properties.getMetadata().setMaxConcurrency(8);
+
+        // Act
+        var result = batchService(s3Client).getObjectsMetadata(BUCKET, null, "docs/", 30, false);
+
+        // Assert
+        assertEquals(30, result.objects().size());
+        assertTrue(result.truncated());
+        assertEquals(29L, result.objects().getLast().metadata().contentLength());
+        assertTrue(s3Client.maxInFlight() > 1);
+        assertTrue(s3Client.maxInFlight() <= 9);
+    }
+
+    @Test
+    void getObjectsMetadata_ListingOnly_SkipsHeadRequests() {
+        // Arrange
+        for (var i = 0; i < 10; i++) {
+            s3Client.putObject(BUCKET, "docs/file-%02d.txt".formatted(i), i);
+        }
+
+        // Act
+        var result = batchService(s3Client).getObjectsMetadata(BUCKET, null, "docs/", null, true);
+
+        // Assert
+        assertEquals(10, result.objects().size());
+        assertFalse(result.truncated());
+        assertEquals(1, s3Client.requestCount());
+        assertEquals(9L, result.objects().getLast().metadata().contentLength());
+    }
+
+    private S3BatchServiceImpl batchService(InMemoryS3Client client) {
+        var actionsService = new S3ActionsServiceImpl(client, s3IoExecutor, properties,
+                new S3MultipartUploader(client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+        return new S3BatchServiceImpl(client, s3IoExecutor, actionsService, properties, event -> {
+        });
+    }
+}
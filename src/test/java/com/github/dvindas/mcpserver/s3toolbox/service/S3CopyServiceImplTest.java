@@ -0,0 +1,188 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CopyObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3CopyServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client(Duration.ofMillis(5));
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        properties.getListing().setMaxConcurrency(4);
+        properties.getCopy().setMaxConcurrency(6);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void copyObject_SmallObject_UsesSingleCopyToOtherBucket() {
+        // Arrange
+        s3Client.putObject(BUCKET, "reports/q1.csv", new byte[]{1, 2, 3});
+
+        // Act
+        var result = copyService(s3Client).copyObject(BUCKET, "reports/q1.csv", "archiveBucket", "2025/q1.csv");
+
+        // Assert
+        assertEquals(0, result.parts());
+        assertEquals(3, result.size());
+        assertEquals("archiveBucket", result.destinationBucketName());
+        assertArrayEquals(new byte[]{1, 2, 3}, s3Client.content("archiveBucket", "2025/q1.csv"));
+        assertTrue(s3Client.exists(BUCKET, "reports/q1.csv"));
+    }
+
+    @Test
+    void copyObject_AboveThreshold_CopiesPartsAndKeepsMetadata() {
+        // Arrange
+        var content = new byte[12 * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        s3Client.putObject(PutObjectRequest.builder()
+                .bucket(BUCKET)
+                .key("video.mp4")
+                .contentType("video/mp4")
+                .metadata(Map.of("owner", "media"))
+                .build(), RequestBody.fromBytes(content));
+        properties.getCopy().setMultipartThreshold(DataSize.ofMegabytes(5));
+        properties.getCopy().setPartSize(DataSize.ofMegabytes(5));
+
+        // Act
+        var result = copyService(s3Client).copyObject(BUCKET, "video.mp4", null, "copies/video.mp4");
+
+        // Assert
+        assertEquals(3, result.parts());
+        assertArrayEquals(content, s3Client.content(BUCKET, "copies/video.mp4"));
+        var head = s3Client.headObject(builder -> builder.bucket(BUCKET).key("copies/video.mp4"));
+        assertEquals("video/mp4", head.contentType());
+        assertEquals(Map.of("owner", "media"), head.metadata());
+        assertEquals(0, s3Client.openUploads());
+    }
+
+    @Test
+    void copyPrefix_CopiesConcurrentlyAndReportsProgress() {
+        // Arrange
+        for (var i = 0; i < 200; i++) {
+            s3Client.putObject(BUCKET, "logs/%d/app-%03d.log".formatted(i % 4, i), 10);
+        }
+        s3Client.putObject(BUCKET, "other/file.txt", 1);
+        properties.getCopy().setProgressInterval(Duration.ofMillis(20));
+        var messages = new CopyOnWriteArrayList<String>();
+
+        // Act
+        var result = copyService(s3Client).copyPrefix(BUCKET, "logs/", null, "backup/logs/", false, false,
+                messages::add);
+
+        // Assert
+        assertEquals(200, result.matched());
+        assertEquals(200, result.copied());
+        assertEquals(2000, result.bytesCopied());
+        assertEquals(0, result.deleted());
+        assertTrue(s3Client.exists(BUCKET, "backup/logs/3/app-199.log"));
+        assertTrue(s3Client.exists(BUCKET, "logs/3/app-199.log"));
+        assertFalse(s3Client.exists(BUCKET, "backup/other/file.txt"));
+        assertTrue(s3Client.maxInFlight() > 1);
+        assertTrue(s3Client.maxInFlight() <= 6 + 4);
+        assertEquals("Copied 200 of 200 objects (2,000 bytes), 0 failed", messages.getLast());
+    }
+
+    @Test
+    void movePrefix_DeletesOnlyCopiedSources() {
+        // Arrange
+        var lockedClient = new InMemoryS3Client() {
+            @Override
+            public CopyObjectResponse copyObject(CopyObjectRequest request) {
+                if (request.sourceKey().contains("locked")) {
+                    throw error(403, "AccessDenied");
+                }
+                return super.copyObject(request);
+            }
+        };
+        for (var i = 0; i < 1500; i++) {
+            lockedClient.putObject(BUCKET, "in/file-%04d.txt".formatted(i), 1);
+        }
+        lockedClient.putObject(BUCKET, "in/locked.txt", 1);
+
+        // Act
+        var result = copyService(lockedClient).copyPrefix(BUCKET, "in/", "processedBucket", "out/", true, false,
+                null);
+
+        // Assert
+        assertEquals(1501, result.matched());
+        assertEquals(1500, result.copied());
+        assertEquals(1500, result.deleted());
+        assertEquals(1, result.failed());
+        assertEquals("in/locked.txt", result.errors().getFirst().key());
+        assertEquals("AccessDenied", result.errors().getFirst().code());
+        assertTrue(lockedClient.exists(BUCKET, "in/locked.txt"));
+        assertFalse(lockedClient.exists(BUCKET, "in/file-0000.txt"));
+        assertTrue(lockedClient.exists("processedBucket", "out/file-1499.txt"));
+    }
+
+    @Test
+    void copyPrefix_DryRunOnlyCountsAndSamples() {
+        // Arrange
+        for (var i = 0; i < 5; i++) {
+            s3Client.putObject(BUCKET, "in/file-%d.txt".formatted(i), 1);
+        }
+
+        // Act
+        var result = copyService(s3Client).copyPrefix(BUCKET, "in/", null, "out/", true, true, null);
+
+        // Assert
+        assertEquals(5, result.matched());
+        assertEquals(5, result.sampleKeys().size());
+        assertEquals(0, result.copied());
+        assertFalse(s3Client.exists(BUCKET, "out/file-0.txt"));
+        assertTrue(s3Client.exists(BUCKET, "in/file-0.txt"));
+    }
+
+    @Test
+    void copyPrefix_DestinationInsideSource_IsRejected() {
+        var copyService = copyService(s3Client);
+        assertThrows(IllegalArgumentException.class,
+                () -> copyService.copyPrefix(BUCKET, "data/", null, "data/copy/", false, false, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> copyService.copyPrefix(BUCKET, "", "otherBucket", "", true, false, null));
+    }
+
+    private S3CopyServiceImpl copyService(InMemoryS3Client client) {
+        var uploader = new S3MultipartUploader(client, s3IoExecutor, properties);
+        var actionsService = new S3ActionsServiceImpl(client, s3IoExecutor, properties, uploader,
+                new S3RequestCoalescer(), event -> {
+        });
+        var listingEngine = new S3ShardedListingEngine(client, s3IoExecutor, properties);
+        var batchService = new S3BatchServiceImpl(client, s3IoExecutor, actionsService, properties,
+                event -> {
+                });
+        return new S3CopyServiceImpl(client, s3IoExecutor, uploader, listingEngine, batchService, properties,
+                event -> {
+                });
+    }
+}
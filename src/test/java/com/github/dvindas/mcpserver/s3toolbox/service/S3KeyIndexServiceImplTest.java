@@ -0,0 +1,196 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3KeyIndexServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+    private S3KeyIndexServiceImpl indexService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        properties.getIndex().setDirectory(tempDir);
+        properties.getIndex().setBlockSize(4);
+        indexService = new S3KeyIndexServiceImpl(new S3ShardedListingEngine(s3Client, s3IoExecutor, properties),
+                properties);
+        for (var month = 1; month <= 3; month++) {
+            for (var day = 1; day <= 20; day++) {
+                s3Client.putObject(BUCKET, "reports/2025-%02d-%02d/report.csv".formatted(month, day), 10);
+                s3Client.putObject(BUCKET, "reports/2025-%02d-%02d/raw.json".formatted(month, day), 1);
+            }
+        }
+        s3Client.putObject(BUCKET, "reports/2024-12-31/report.csv", 10);
+        s3Client.putObject(BUCKET, "archive/2025-01-01/report.csv", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void find_Glob_ReturnsOnlyMatchesAndSeeksToLiteralPrefix() {
+        // Act
+        var result = indexService.find(BUCKET, null, "reports/2025-02-*/report.csv", false, null, false);
+
+        // Assert
+        assertEquals(20, result.matched());
+        assertEquals(200, result.matchedBytes());
+        assertEquals("reports/2025-02-01/report.csv", result.keys().getFirst());
+        assertEquals(40, result.scanned());
+        assertEquals(122, result.indexedKeys());
+        assertFalse(result.truncated());
+    }
+
+    @Test
+    void find_DoubleStarGlobAndRegex_MatchAcrossSegments() {
+        // Act
+        var anyDepth = indexService.find(BUCKET, "", "**/2025-01-0[1-3]/report.csv", false, 2, false);
+        var regex = indexService.find(BUCKET, "reports/", "2024-.*\\.csv$", true, null, false);
+
+        // Assert
+        assertEquals(4, anyDepth.matched());
+        assertEquals(List.of("archive/2025-01-01/report.csv", "reports/2025-01-01/report.csv"), anyDepth.keys());
+        assertTrue(anyDepth.truncated());
+        assertEquals(List.of("reports/2024-12-31/report.csv"), regex.keys());
+        // The narrower prefix is served from the bucket index built by the first search
+        assertEquals(122, regex.indexedKeys());
+    }
+
+    @Test
+    void find_AfterWritesThroughServer_RelistsOnlyChangedPrefixes() {
+        // Arrange
+        indexService.find(BUCKET, "reports/", "**", false, null, false);
+        s3Client.putObject(BUCKET, "reports/2025-04-01/report.csv", 10);
+        s3Client.deleteObject(builder -> builder.bucket(BUCKET).key("reports/2025-01-01/report.csv"));
+        indexService.onObjectsChanged(new S3ObjectsChangedEvent(BUCKET, "reports/2025-04-01/report.csv"));
+        indexService.onObjectsChanged(new S3ObjectsChangedEvent(BUCKET, "reports/2025-01-01/report.csv"));
+        var requestsBefore = s3Client.requestCount();
+
+        // Act
+        var result = indexService.find(BUCKET, "reports/", "reports/*/report.csv", false, null, false);
+
+        // Assert
+        assertEquals(61, result.matched());
+        assertTrue(result.keys().contains("reports/2025-04-01/report.csv"));
+        assertFalse(result.keys().contains("reports/2025-01-01/report.csv"));
+        assertTrue(s3Client.requestCount() - requestsBefore <= 2);
+    }
+
+    @Test
+    void find_AfterRestart_ReusesIndexFile() {
+        // Arrange
+        indexService.find(BUCKET, "reports/", "**", false, null, false);
+        var restarted = new S3KeyIndexServiceImpl(new S3ShardedListingEngine(s3Client, s3IoExecutor, properties),
+                properties);
+        var requestsBefore = s3Client.requestCount();
+
+        // Act
+        var result = restarted.find(BUCKET, "reports/", "reports/2024-*/**", false, null, false);
+
+        // Assert
+        assertEquals(1, result.matched());
+        assertEquals(requestsBefore, s3Client.requestCount());
+    }
+
+    @Test
+    void find_BeyondMaxSize_DropsLeastRecentlyQueriedIndexAndItsFile() {
+        // Arrange
+        properties.getIndex().setMaxSize(DataSize.ofBytes(1));
+        indexService.find(BUCKET, "reports/", "**", false, null, false);
+        assertTrue(Files.exists(tempDir.resolve(S3KeyIndexServiceImpl.fileNameOf(BUCKET, "reports/"))));
+
+        // Act
+        var result = indexService.find(BUCKET, "archive/", "**", false, null, false);
+
+        // Assert
+        assertEquals(1, result.matched());
+        assertEquals(1, indexService.openIndexes());
+        assertFalse(Files.exists(tempDir.resolve(S3KeyIndexServiceImpl.fileNameOf(BUCKET, "reports/"))));
+        assertTrue(Files.exists(tempDir.resolve(S3KeyIndexServiceImpl.fileNameOf(BUCKET, "archive/"))));
+    }
+
+    @Test
+    void find_ExpiredIndexOfAnotherPrefix_IsDroppedWithItsFile() throws Exception {
+        // Arrange
+        properties.getIndex().setMaxAge(Duration.ofMillis(50));
+        indexService.find(BUCKET, "reports/", "**", false, null, false);
+        Thread.sleep(100);
+
+        // Act
+        indexService.find(BUCKET, "archive/", "**", false, null, false);
+
+        // Assert
+        assertEquals(1, indexService.openIndexes());
+        assertFalse(Files.exists(tempDir.resolve(S3KeyIndexServiceImpl.fileNameOf(BUCKET, "reports/"))));
+    }
+
+    @Test
+    void keyIndexFile_RoundTripsFrontCodedKeys() throws Exception {
+        // Arrange
+        var keys = new ArrayList<String>();
+        for (var i = 0; i < 1000; i++) {
+            keys.add("data/part-%05d.parquet".formatted(i));
+        }
+        keys.add("data/zé/ñ.txt");
+        var file = tempDir.resolve("keys.idx");
+        try (var writer = new KeyIndexFile.Writer(file, 16)) {
+            for (var key : keys) {
+                writer.add(key, key.length());
+            }
+        }
+
+        // Act
+        var index = KeyIndexFile.open(file);
+        var all = new ArrayList<String>();
+        index.scan("").forEachRemaining(entry -> all.add(entry.key()));
+        var range = new ArrayList<KeyIndexFile.Entry>();
+        index.scan("data/part-0099").forEachRemaining(range::add);
+
+        // Assert
+        assertEquals(keys, all);
+        assertEquals(10, range.size());
+        assertEquals("data/part-00990.parquet", range.getFirst().key());
+        assertEquals(23, range.getFirst().size());
+        assertFalse(index.scan("data/q").hasNext());
+    }
+
+    @Test
+    void globToRegex_TranslatesWildcards() {
+        assertTrue("a/b/c.txt".matches(S3KeyIndexServiceImpl.globToRegex("**/*.txt")));
+        assertTrue("c.txt".matches(S3KeyIndexServiceImpl.globToRegex("**/*.txt")));
+        assertFalse("a/c.txt".matches(S3KeyIndexServiceImpl.globToRegex("*.txt")));
+        assertTrue("logs/app.log.gz".matches(S3KeyIndexServiceImpl.globToRegex("logs/*.{log,log.gz}")));
+        assertFalse("logs/b.log".matches(S3KeyIndexServiceImpl.globToRegex("logs/[!b].log")));
+        assertEquals("logs/2025-", S3KeyIndexServiceImpl.globLiteralPrefix("logs/2025-*/x"));
+        assertEquals("logs/202", S3KeyIndexServiceImpl.regexLiteralPrefix("^logs/2025?/"));
+        assertEquals("", S3KeyIndexServiceImpl.regexLiteralPrefix("^a|^b"));
+    }
+}
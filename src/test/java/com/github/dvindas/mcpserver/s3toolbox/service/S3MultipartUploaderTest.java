@@ -0,0 +1,111 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3MultipartUploaderTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client(Duration.ofMillis(20));
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        properties.getTransfer().setPartSize(DataSize.ofMegabytes(5));
+        properties.getTransfer().setMultipartThreshold(DataSize.ofMegabytes(5));
+        properties.getTransfer().setMaxConcurrency(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void putObject_AboveThresholdUploadsPartsConcurrently() {
+        // Arrange
+        var uploader = new S3MultipartUploader(s3Client, s3IoExecutor, properties);
+        var service = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties, uploader,
+                new S3RequestCoalescer(), event -> {
+        });
+        var content = randomBytes(16 * 1024 * 1024 + 3);
+        var request = new PutS3ObjectRequest(BUCKET, null, "blob.bin", "application/octet-stream",
+                Base64.getEncoder().encodeToString(content), null, null);
+
+        // Act
+        var result = service.putObject(request);
+
+        // Assert
+        assertArrayEquals(content, s3Client.content(BUCKET, "blob.bin"));
+        assertTrue(result.eTag().endsWith("-4\""));
+        assertTrue(s3Client.maxInFlight() <= 2);
+        assertEquals(0, s3Client.openUploads());
+    }
+
+    @Test
+    void upload_WhenPartFails_AbortsUpload() {
+        // Arrange
+        var failingClient = new InMemoryS3Client() {
+            @Override
+            public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+                if (request.partNumber() == 2) {
+                    throw error(500, "InternalError");
+                }
+                return super.uploadPart(request, requestBody);
+            }
+        };
+        var uploader = new S3MultipartUploader(failingClient, s3IoExecutor, properties);
+        var content = randomBytes(12 * 1024 * 1024);
+        var createRequest = CreateMultipartUploadRequest.builder().bucket(BUCKET).key("blob.bin").build();
+
+        // Act & Assert
+        assertThrows(RuntimeException.class,
+                () -> uploader.upload(createRequest, new ByteArrayInputStream(content), content.length));
+        assertEquals(0, failingClient.openUploads());
+        assertFalse(failingClient.exists(BUCKET, "blob.bin"));
+    }
+
+    @Test
+    void partSizeFor_StaysWithinPartLimit() {
+        // Arrange
+        var uploader = new S3MultipartUploader(s3Client, s3IoExecutor, properties);
+        var size = 100L * 1024 * 1024 * 1024;
+
+        // Act
+        var partSize = uploader.partSizeFor(size);
+
+        // Assert
+        assertTrue((size + partSize - 1) / partSize <= S3MultipartUploader.MAX_PARTS);
+        assertEquals(S3MultipartUploader.MIN_PART_SIZE, uploader.partSizeFor(1024));
+    }
+
+    private static byte[] randomBytes(int size) {
+        var bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ObjectContentCacheTest {
+
+    private static final String BUCKET = "testBucket";
+
+    @TempDir
+    Path directory;
+
+    private InMemoryS3Client s3Client;
+    private S3ToolboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        properties = new S3ToolboxProperties();
+        properties.getContentCache().setDirectory(directory);
+    }
+
+    @Test
+    void getObject_UnchangedObjectIsRevalidatedAndServedFromDisk() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "docs/a.txt", bytes("hello world"));
+        var cache = new S3ObjectContentCache(s3Client, new S3RequestCoalescer(), properties);
+        cache.getObject(BUCKET, "docs/a.txt", null, null);
+
+        // Act
+        var result = cache.getObject(BUCKET, "docs/a.txt", null, null);
+        var range = cache.getObject(BUCKET, "docs/a.txt", 6L, 5L);
+
+        // Assert
+        assertArrayEquals(bytes("hello world"), result.content());
+        assertArrayEquals(bytes("world"), range.content());
+        assertEquals(2, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(11, cache.size());
+    }
+
+    @Test
+    void getObject_ConcurrentRevalidationsOfOneKey_SendOneS3Request() throws Exception {
+        // Arrange
+        var slowClient = new InMemoryS3Client(Duration.ofMillis(200));
+        slowClient.putObject(BUCKET, "docs/a.txt", bytes("hello world"));
+        var cache = new S3ObjectContentCache(slowClient, new S3RequestCoalescer(), properties);
+        cache.getObject(BUCKET, "docs/a.txt", null, null);
+        var start = new CountDownLatch(1);
+
+        // Act
+        var calls = new ArrayList<CompletableFuture<byte[]>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < 8; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        assertTrue(start.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return cache.getObject(BUCKET, "docs/a.txt", null, null).content();
+                }, executor));
+            }
+            start.countDown();
+        }
+
+        // Assert
+        var first = calls.getFirst().get(5, TimeUnit.SECONDS);
+        for (var call : calls) {
+            assertSame(first, call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, slowClient.requestCount());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void getObject_ChangedObjectIsDownloadedAgainAndReplacesTheCachedFile() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "a.txt", bytes("first"));
+        var cache = new S3ObjectContentCache(s3Client, new S3RequestCoalescer(), properties);
+        cache.getObject(BUCKET, "a.txt", null, null);
+        s3Client.putObject(BUCKET, "a.txt", bytes("second"));
+
+        // Act
+        var result = cache.getObject(BUCKET, "a.txt", null, null);
+
+        // Assert
+        assertArrayEquals(bytes("second"), result.content());
+        assertEquals(0, cache.stats().hits());
+        assertEquals(6, cache.size());
+        assertEquals(1, cachedFiles());
+    }
+
+    @Test
+    void getObject_EvictsLeastRecentlyReadObjectsAboveMaxSize() throws Exception {
+        // Arrange
+        properties.getContentCache().setMaxSize(DataSize.ofBytes(25));
+        s3Client.putObject(BUCKET, "a.txt", new byte[10]);
+        s3Client.putObject(BUCKET, "b.txt", new byte[10]);
+        s3Client.putObject(BUCKET, "c.txt", new byte[10]);
+        var cache = new S3ObjectContentCache(s3Client, new S3RequestCoalescer(), properties);
+        cache.getObject(BUCKET, "a.txt", null, null);
+        cache.getObject(BUCKET, "b.txt", null, null);
+        cache.getObject(BUCKET, "a.txt", null, null);
+
+        // Act
+        cache.getObject(BUCKET, "c.txt", null, null);
+        cache.getObject(BUCKET, "b.txt", null, null);
+
+        // Assert
+        assertEquals(1, cache.stats().hits());
+        assertEquals(2, cache.stats().evictions());
+        assertEquals(2, cache.stats().entries());
+        assertEquals(2, cachedFiles());
+    }
+
+    @Test
+    void invalidate_RemovesCachedFilesUnderPrefix() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "tmp/a.txt", bytes("a"));
+        s3Client.putObject(BUCKET, "keep/b.txt", bytes("b"));
+        var cache = new S3ObjectContentCache(s3Client, new S3RequestCoalescer(), properties);
+        cache.getObject(BUCKET, "tmp/a.txt", null, null);
+        cache.getObject(BUCKET, "keep/b.txt", null, null);
+
+        // Act
+        cache.invalidate(BUCKET, "tmp/");
+
+        // Assert
+        assertEquals(1, cache.stats().entries());
+        assertEquals(1, cache.size());
+        assertEquals(1, cachedFiles());
+    }
+
+    @Test
+    void constructor_SweepsLeftoversOfStoppedProcessesOnly_AndCloseDeletesItsOwnDirectory() throws Exception {
+        // Arrange
+        var stopped = Files.createDirectories(directory.resolve("process-" + Long.MAX_VALUE));
+        Files.write(stopped.resolve("old.s3cache"), bytes("old"));
+        var running = Files.createDirectories(directory.resolve("process-" + ProcessHandle.current().parent()
+                .orElseThrow().pid()));
+        Files.write(running.resolve("live.s3cache"), bytes("live"));
+        Files.write(directory.resolve("legacy.s3cache"), bytes("legacy"));
+        Files.write(directory.resolve("download-123.tmp"), bytes("partial"));
+        s3Client.putObject(BUCKET, "docs/a.txt", bytes("a"));
+
+        // Act
+        var cache = new S3ObjectContentCache(s3Client, new S3RequestCoalescer(), properties);
+        cache.getObject(BUCKET, "docs/a.txt", null, null);
+        var ownFiles = cachedFiles();
+        cache.close();
+
+        // Assert
+        assertEquals(1, ownFiles);
+        assertFalse(Files.exists(stopped));
+        assertTrue(Files.exists(running.resolve("live.s3cache")));
+        assertFalse(Files.exists(directory.resolve("legacy.s3cache")));
+        assertFalse(Files.exists(directory.resolve("download-123.tmp")));
+        assertFalse(Files.exists(directory.resolve("process-" + ProcessHandle.current().pid())));
+    }
+
+    private long cachedFiles() throws Exception {
+        try (var files = Files.list(directory.resolve("process-" + ProcessHandle.current().pid()))) {
+            return files.count();
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
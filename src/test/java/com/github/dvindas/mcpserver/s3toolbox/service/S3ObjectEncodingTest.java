@@ -0,0 +1,239 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ObjectEncodingTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ActionsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        var properties = new S3ToolboxProperties();
+        service = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void putObject_Gzip_StoresCompressedBytesAndGetObjectRestoresThem() throws Exception {
+        // Arrange
+        var log = "2025-01-01T00:00:00Z INFO request served in 12ms\n".repeat(500);
+
+        // Act
+        service.putObject(request("app.log", log, "gzip", "CRC32C"));
+        var response = service.getObject(BUCKET, "logs/app.log", null, null);
+
+        // Assert
+        var stored = s3Client.content(BUCKET, "logs/app.log");
+        assertTrue(stored.length < log.length() / 10);
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(stored))) {
+            assertEquals(log, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        var metadata = s3Client.headObject(HeadObjectRequest.builder().bucket(BUCKET).key("logs/app.log").build())
+                .metadata();
+        assertEquals("gzip", metadata.get(S3ObjectEncoding.ENCODING_METADATA));
+        assertEquals(String.valueOf(log.length()), metadata.get(S3ObjectEncoding.SIZE_METADATA));
+        assertEquals(log, new String(response.content(), StandardCharsets.UTF_8));
+        assertEquals("text/plain", response.contentType());
+    }
+
+    @Test
+    void putObject_GzipAboveMultipartThreshold_CompressesWhileUploadingParts() throws Exception {
+        // Arrange
+        var log = "2025-01-01T00:00:00Z INFO request %08d served in 12ms\n";
+        var content = new StringBuilder();
+        for (var i = 0; content.length() < 6 * 1024 * 1024; i++) {
+            content.append(log.formatted(i));
+        }
+        var properties = new S3ToolboxProperties();
+        properties.getTransfer().setMultipartThreshold(DataSize.ofMegabytes(5));
+        var multipartService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+
+        // Act
+        multipartService.putObject(request("big.log", content.toString(), "gzip", "CRC32C"));
+        var response = multipartService.getObject(BUCKET, "logs/big.log", 100L, 60L);
+
+        // Assert
+        var stored = s3Client.content(BUCKET, "logs/big.log");
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(stored))) {
+            assertEquals(content.toString(), new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        var head = s3Client.headObject(HeadObjectRequest.builder().bucket(BUCKET).key("logs/big.log").build());
+        assertTrue(head.eTag().endsWith("-1\""));
+        assertEquals(String.valueOf(content.length()), head.metadata().get(S3ObjectEncoding.SIZE_METADATA));
+        assertEquals(content.substring(100, 160), new String(response.content(), StandardCharsets.UTF_8));
+        assertEquals(0, s3Client.openUploads());
+    }
+
+    @Test
+    void getObject_CompressedObjectWithRange_ReturnsWindowOfDecompressedContent() {
+        // Arrange
+        var content = "0123456789".repeat(100);
+        service.putObject(request("digits.txt", content, "gzip", null));
+
+        // Act
+        var window = service.getObject(BUCKET, "logs/digits.txt", 995L, 10L);
+
+        // Assert
+        assertEquals("56789", new String(window.content(), StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getObject(BUCKET, "logs/digits.txt", 1000L, null));
+    }
+
+    @Test
+    void getObjectChunk_CompressedObject_ReturnsChunksOfDecompressedContent() {
+        // Arrange
+        var content = "0123456789".repeat(100);
+        service.putObject(request("digits.txt", content, "gzip", null));
+
+        // Act
+        var chunks = new StringBuilder();
+        var chunk = service.getObjectChunk(BUCKET, "logs/digits.txt", null, 400);
+        chunks.append(new String(chunk.content(), StandardCharsets.UTF_8));
+        while (chunk.nextCursor() != null) {
+            chunk = service.getObjectChunk(BUCKET, "logs/digits.txt", chunk.nextCursor(), 400);
+            chunks.append(new String(chunk.content(), StandardCharsets.UTF_8));
+        }
+
+        // Assert
+        assertEquals(content, chunks.toString());
+        assertEquals(1000, chunk.totalSize());
+        assertEquals(800, chunk.offset());
+    }
+
+    @Test
+    void getObject_CompressedObjectWithoutRecordedSize_IsStillDecompressed() {
+        // Arrange
+        var content = "0123456789".repeat(100);
+        service.putObject(request("digits.txt", content, "gzip", null));
+        var head = s3Client.headObject(HeadObjectRequest.builder().bucket(BUCKET).key("logs/digits.txt").build());
+        var metadata = new HashMap<>(head.metadata());
+        metadata.remove(S3ObjectEncoding.SIZE_METADATA);
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key("logs/digits.txt").metadata(metadata)
+                .build(), RequestBody.fromBytes(s3Client.content(BUCKET, "logs/digits.txt")));
+
+        // Act
+        var whole = service.getObject(BUCKET, "logs/digits.txt");
+        var window = service.getObject(BUCKET, "logs/digits.txt", 990L, 20L);
+        var chunk = service.getObjectChunk(BUCKET, "logs/digits.txt", null, 600);
+
+        // Assert
+        assertEquals(content, new String(whole.content(), StandardCharsets.UTF_8));
+        assertEquals("0123456789", new String(window.content(), StandardCharsets.UTF_8));
+        assertEquals(-1, chunk.totalSize());
+        assertNotNull(chunk.nextCursor());
+    }
+
+    @Test
+    void getObject_UncompressedRangePastTheEnd_OnlyProbesTheFirstByte() {
+        // Arrange
+        var ranges = new ArrayList<String>();
+        var client = new InMemoryS3Client() {
+            @Override
+            public <ReturnT> ReturnT getObject(final GetObjectRequest request,
+                                               final ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+                ranges.add(request.range());
+                return super.getObject(request, transformer);
+            }
+        };
+        client.putObject(BUCKET, "logs/plain.txt", "abc".getBytes(StandardCharsets.UTF_8));
+        var properties = new S3ToolboxProperties();
+        var plainService = new S3ActionsServiceImpl(client, s3IoExecutor, properties,
+                new S3MultipartUploader(client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> plainService.getObject(BUCKET, "logs/plain.txt", 10L, 5L));
+        assertEquals(List.of("bytes=10-14", "bytes=0-0"), ranges);
+    }
+
+    @Test
+    void getObject_ChecksumMismatchAfterDecompression_IsRejected() {
+        // Arrange
+        service.putObject(request("data.json", "{\"id\":1}", "gzip", null));
+        var head = s3Client.headObject(HeadObjectRequest.builder().bucket(BUCKET).key("logs/data.json").build());
+        var metadata = new HashMap<>(head.metadata());
+        metadata.put(S3ObjectEncoding.CRC32C_METADATA, "AAAAAA==");
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key("logs/data.json").metadata(metadata).build(),
+                RequestBody.fromBytes(s3Client.content(BUCKET, "logs/data.json")));
+
+        // Act & Assert
+        var error = assertThrows(RuntimeException.class, () -> service.getObject(BUCKET, "logs/data.json"));
+        assertTrue(error.getCause().getMessage().contains("CRC32C"));
+    }
+
+    @Test
+    void putObject_UnpaddedBase64_StoresDecodedContent() {
+        // Arrange
+        var content = "unpadded payload";
+        var base64Content = Base64.getEncoder().withoutPadding()
+                .encodeToString(content.getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        service.putObject(new PutS3ObjectRequest(BUCKET, "logs/", "plain.txt", "text/plain", base64Content, null,
+                null));
+        service.putObject(new PutS3ObjectRequest(BUCKET, "logs/", "packed.txt", "text/plain", base64Content, "gzip",
+                null));
+
+        // Assert
+        assertEquals(content, new String(s3Client.content(BUCKET, "logs/plain.txt"), StandardCharsets.UTF_8));
+        assertEquals(content, new String(service.getObject(BUCKET, "logs/packed.txt").content(),
+                StandardCharsets.UTF_8));
+        assertThrows(RuntimeException.class, () -> service.putObject(new PutS3ObjectRequest(BUCKET, "logs/",
+                "broken.txt", "text/plain", base64Content + "AAA", null, null)));
+    }
+
+    @Test
+    void putObject_UnsupportedOptions_AreRejectedBeforeUploading() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> service.putObject(request("a.txt", "abc", "zstd", null)));
+        assertThrows(RuntimeException.class, () -> service.putObject(request("a.txt", "abc", null, "MD5")));
+        assertFalse(s3Client.exists(BUCKET, "logs/a.txt"));
+    }
+
+    private static PutS3ObjectRequest request(final String fileName, final String content, final String compression,
+                                              final String checksumAlgorithm) {
+        return new PutS3ObjectRequest(BUCKET, "logs/", fileName, "text/plain",
+                Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8)), compression,
+                checksumAlgorithm);
+    }
+}
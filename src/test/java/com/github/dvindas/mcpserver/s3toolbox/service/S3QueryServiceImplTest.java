@@ -0,0 +1,218 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3QueryServiceImplTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private ObjectProvider<S3AsyncClient> s3AsyncClientProvider;
+
+    private InMemoryS3Client s3Client;
+    private S3QueryServiceImpl s3QueryService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        lenient().when(s3AsyncClientProvider.getObject()).thenReturn(s3AsyncClient);
+        s3QueryService = new S3QueryServiceImpl(s3Client, s3AsyncClientProvider, new S3ToolboxProperties());
+    }
+
+    @Test
+    void queryObject_Pattern_ScansGzippedObjectAndReturnsMatchingLines() throws Exception {
+        // Arrange
+        s3Client.putObject("testBucket", "logs/app.log.gz", gzip("INFO start\r\nERROR disk full\nINFO ok\nERROR timeout"));
+
+        // Act
+        var result = s3QueryService.queryObject("testBucket", "logs/app.log.gz", null, "^ERROR", null, null);
+
+        // Assert
+        assertEquals("SCAN", result.method());
+        assertEquals(List.of("ERROR disk full", "ERROR timeout"), result.rows());
+        assertFalse(result.truncated());
+        assertNull(result.header());
+        verifyNoInteractions(s3AsyncClient);
+    }
+
+    @Test
+    void queryObject_Pattern_StopsAtMaxResults() {
+        // Arrange
+        s3Client.putObject("testBucket", "data.txt", "match\n".repeat(50).getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        var result = s3QueryService.queryObject("testBucket", "data.txt", null, "match", null, 3);
+
+        // Assert
+        assertEquals(3, result.rows().size());
+        assertTrue(result.truncated());
+        assertEquals(15, result.bytesReturned());
+    }
+
+    @Test
+    void queryObject_PatternOnCsv_ReturnsHeaderSeparately() {
+        // Arrange
+        s3Client.putObject("testBucket", "orders.csv",
+                "id,status\n1,shipped\n2,failed\n3,shipped\n".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        var result = s3QueryService.queryObject("testBucket", "orders.csv", null, "failed", null, null);
+
+        // Assert
+        assertEquals("id,status", result.header());
+        assertEquals(List.of("2,failed"), result.rows());
+    }
+
+    @Test
+    void queryObject_Expression_RunsS3SelectAndSplitsRecordsAcrossEvents() {
+        // Arrange
+        when(s3AsyncClient.selectObjectContent(any(SelectObjectContentRequest.class),
+                any(SelectObjectContentResponseHandler.class))).thenAnswer(invocation -> {
+            SelectObjectContentResponseHandler handler = invocation.getArgument(1);
+            handler.responseReceived(SelectObjectContentResponse.builder().build());
+            handler.onEventStream(publisher(
+                    records("{\"id\":\"2\",\"sta"),
+                    records("tus\":\"failed\"}\n{\"id\":\"5\",\"status\":\"failed\"}\n"),
+                    SelectObjectContentEventStream.statsBuilder()
+                            .details(Stats.builder().bytesScanned(4096L).build())
+                            .build(),
+                    SelectObjectContentEventStream.endBuilder().build()));
+            handler.complete();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // Act
+        var result = s3QueryService.queryObject("testBucket", "orders.csv.gz",
+                "SELECT * FROM S3Object s WHERE s.status = 'failed'", null, null, null);
+
+        // Assert
+        assertEquals("S3_SELECT", result.method());
+        assertEquals(List.of("{\"id\":\"2\",\"status\":\"failed\"}", "{\"id\":\"5\",\"status\":\"failed\"}"),
+                result.rows());
+        assertEquals(4096L, result.bytesScanned());
+        verify(s3AsyncClient).selectObjectContent(argThat((SelectObjectContentRequest request) ->
+                request.inputSerialization().compressionType() == CompressionType.GZIP
+                        && request.inputSerialization().csv().fileHeaderInfo() == FileHeaderInfo.USE),
+                any(SelectObjectContentResponseHandler.class));
+    }
+
+    @Test
+    void queryObject_ExpressionOnObjectCompressedByPut_TellsS3SelectToGunzip() throws Exception {
+        // Arrange
+        s3Client.putObject(PutObjectRequest.builder().bucket("testBucket").key("orders.csv")
+                        .metadata(Map.of(S3ObjectEncoding.ENCODING_METADATA, S3ObjectEncoding.GZIP)).build(),
+                RequestBody.fromBytes(gzip("id,status\n2,failed\n")));
+        when(s3AsyncClient.selectObjectContent(any(SelectObjectContentRequest.class),
+                any(SelectObjectContentResponseHandler.class))).thenAnswer(invocation -> {
+            SelectObjectContentResponseHandler handler = invocation.getArgument(1);
+            handler.responseReceived(SelectObjectContentResponse.builder().build());
+            handler.onEventStream(publisher(records("{\"id\":\"2\",\"status\":\"failed\"}\n"),
+                    SelectObjectContentEventStream.endBuilder().build()));
+            handler.complete();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // Act
+        var result = s3QueryService.queryObject("testBucket", "orders.csv",
+                "SELECT * FROM S3Object s WHERE s.status = 'failed'", null, null, null);
+
+        // Assert
+        assertEquals(List.of("{\"id\":\"2\",\"status\":\"failed\"}"), result.rows());
+        verify(s3AsyncClient).selectObjectContent(argThat((SelectObjectContentRequest request) ->
+                        request.inputSerialization().compressionType() == CompressionType.GZIP),
+                any(SelectObjectContentResponseHandler.class));
+    }
+
+    @Test
+    void queryObject_SelectNotAvailable_FallsBackToPatternScan() {
+        // Arrange
+        s3Client.putObject("testBucket", "events.jsonl",
+                "{\"level\":\"error\"}\n{\"level\":\"info\"}\n".getBytes(StandardCharsets.UTF_8));
+        when(s3AsyncClient.selectObjectContent(any(SelectObjectContentRequest.class),
+                any(SelectObjectContentResponseHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder()
+                        .statusCode(501)
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("NotImplemented").build())
+                        .build()));
+
+        // Act
+        var result = s3QueryService.queryObject("testBucket", "events.jsonl",
+                "SELECT * FROM S3Object s WHERE s.level = 'error'", "\"error\"", null, null);
+
+        // Assert
+        assertEquals("SCAN", result.method());
+        assertEquals(List.of("{\"level\":\"error\"}"), result.rows());
+    }
+
+    @Test
+    void queryObject_NoExpressionOrPattern_ThrowsIllegalArgumentException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> s3QueryService.queryObject("testBucket", "data.csv", " ", null, null, null));
+    }
+
+    private static byte[] gzip(String content) throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SelectObjectContentEventStream records(String payload) {
+        return SelectObjectContentEventStream.recordsBuilder().payload(SdkBytes.fromUtf8String(payload)).build();
+    }
+
+    /**
+     * Emits the events on request, then completes.
+     */
+    private static SdkPublisher<SelectObjectContentEventStream> publisher(SelectObjectContentEventStream... events) {
+        return subscriber -> {
+            var remaining = new ArrayDeque<>(List.of(events));
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    for (var i = 0; i < n && !remaining.isEmpty(); i++) {
+                        subscriber.onNext(remaining.poll());
+                    }
+                    if (remaining.isEmpty()) {
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    remaining.clear();
+                }
+            });
+        };
+    }
+}
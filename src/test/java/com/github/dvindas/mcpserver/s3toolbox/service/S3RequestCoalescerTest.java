@@ -0,0 +1,179 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RequestCoalescerTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        coalescer = new S3RequestCoalescer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void coalesce_ConcurrentIdenticalCalls_ShareOneExecution() throws Exception {
+        // Arrange
+        var release = new CountDownLatch(1);
+        var executions = new AtomicInteger();
+        var leader = CompletableFuture.supplyAsync(() -> coalescer.coalesce(S3RequestCoalescer.GET_OBJECT, BUCKET,
+                "a.txt", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return new byte[]{1, 2, 3};
+                }, null, null), s3IoExecutor);
+        awaitInFlight(1);
+
+        // Act
+        var followers = new ArrayList<CompletableFuture<byte[]>>();
+        for (var i = 0; i < 5; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> coalescer.coalesce(S3RequestCoalescer.GET_OBJECT,
+                    BUCKET, "a.txt", () -> {
+                        executions.incrementAndGet();
+                        return new byte[0];
+                    }, null, null), s3IoExecutor));
+        }
+        // A different range of the same object is a different call
+        var other = coalescer.coalesce(S3RequestCoalescer.GET_OBJECT, BUCKET, "a.txt", () -> new byte[]{9},
+                0L, 1L);
+        awaitStats(5);
+        release.countDown();
+
+        // Assert
+        var result = leader.get(5, TimeUnit.SECONDS);
+        for (var follower : followers) {
+            assertSame(result, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertArrayEquals(new byte[]{9}, other);
+        assertEquals(1, executions.get());
+        assertEquals(0, coalescer.inFlight());
+        var stats = coalescer.stats().getFirst();
+        assertEquals("coalesced-getObject", stats.cache());
+        assertEquals(5, stats.hits());
+        assertEquals(2, stats.misses());
+    }
+
+    @Test
+    void coalesce_FailedCall_FailsEveryWaiterAndIsNotKept() throws Exception {
+        // Arrange
+        var release = new CountDownLatch(1);
+        var failure = new RuntimeException("Failed to get object from S3");
+        var leader = CompletableFuture.supplyAsync(() -> coalescer.coalesce(S3RequestCoalescer.GET_OBJECT_METADATA,
+                BUCKET, "a.txt", () -> {
+                    await(release);
+                    throw failure;
+                }), s3IoExecutor);
+        awaitInFlight(1);
+        var follower = CompletableFuture.supplyAsync(() -> coalescer.coalesce(S3RequestCoalescer.GET_OBJECT_METADATA,
+                BUCKET, "a.txt", () -> "not called"), s3IoExecutor);
+        awaitStats(1);
+
+        // Act
+        release.countDown();
+
+        // Assert
+        var leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        var followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderError.getCause());
+        assertSame(failure, followerError.getCause());
+        assertEquals("fresh", coalescer.coalesce(S3RequestCoalescer.GET_OBJECT_METADATA, BUCKET, "a.txt",
+                () -> "fresh"));
+    }
+
+    @Test
+    void coalesce_AfterWrite_StartsFreshRequestInsteadOfJoining() throws Exception {
+        // Arrange
+        var release = new CountDownLatch(1);
+        var stale = CompletableFuture.supplyAsync(() -> coalescer.coalesce(S3RequestCoalescer.LIST_OBJECTS, BUCKET,
+                "logs/", () -> {
+                    await(release);
+                    return "before write";
+                }), s3IoExecutor);
+        awaitInFlight(1);
+
+        // Act
+        coalescer.onObjectsChanged(new S3ObjectsChangedEvent(BUCKET, "logs/app.log"));
+        var fresh = coalescer.coalesce(S3RequestCoalescer.LIST_OBJECTS, BUCKET, "logs/", () -> "after write");
+        release.countDown();
+
+        // Assert
+        assertEquals("after write", fresh);
+        assertEquals("before write", stale.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void getObject_ConcurrentToolCalls_SendOneS3Request() throws Exception {
+        // Arrange
+        var s3Client = new InMemoryS3Client(Duration.ofMillis(200));
+        var properties = new S3ToolboxProperties();
+        var service = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), coalescer, event -> {
+        });
+        s3Client.putObject(BUCKET, "report.csv", "a,b\n1,2\n".getBytes());
+        var start = new CountDownLatch(1);
+
+        // Act
+        var calls = new ArrayList<CompletableFuture<byte[]>>();
+        for (var i = 0; i < 8; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                return service.getObject(BUCKET, "report.csv").content();
+            }, s3IoExecutor));
+        }
+        start.countDown();
+
+        // Assert
+        var first = calls.getFirst().get(5, TimeUnit.SECONDS);
+        for (var call : calls) {
+            assertSame(first, call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, s3Client.requestCount());
+    }
+
+    private void awaitInFlight(final int expected) throws InterruptedException {
+        for (var i = 0; i < 500 && coalescer.inFlight() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, coalescer.inFlight());
+    }
+
+    private void awaitStats(final long coalesced) throws InterruptedException {
+        for (var i = 0; i < 500 && coalescer.stats().getFirst().hits() < coalesced; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
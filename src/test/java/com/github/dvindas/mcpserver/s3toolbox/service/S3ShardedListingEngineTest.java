@@ -0,0 +1,171 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3ObjectSummary;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ShardedListingEngineTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private final InstrumentedExecutorService s3IoExecutor = new InstrumentedExecutorService("test",
+            Executors.newVirtualThreadPerTaskExecutor(), Duration.ofSeconds(1));
+
+    private S3ShardedListingEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void summarize_CountsEveryObjectAcrossShards() {
+        // Arrange
+        var s3Client = new InMemoryS3Client();
+        var expectedBytes = 0L;
+        for (var day = 1; day <= 12; day++) {
+            for (var file = 0; file < 25; file++) {
+                s3Client.putObject(BUCKET, "logs/2025-01-%02d/part-%03d.log".formatted(day, file), day);
+                expectedBytes += day;
+            }
+        }
+        s3Client.putObject(BUCKET, "logs/README", 7);
+        s3Client.putObject(BUCKET, "other/file.txt", 100);
+        engine = new S3ShardedListingEngine(s3Client, s3IoExecutor, properties(4, 8, 3));
+
+        // Act
+        var result = engine.summarize(BUCKET, "logs/");
+
+        // Assert
+        assertEquals(301, result.objectCount());
+        assertEquals(expectedBytes + 7, result.totalBytes());
+        assertEquals(12, result.shardCount());
+        assertEquals(25, result.shards().get(0).objectCount());
+    }
+
+    @Test
+    void streamSorted_MergesShardsAndLooseKeysInS3Order() {
+        // Arrange
+        var s3Client = new InMemoryS3Client();
+        var keys = new ArrayList<>(List.of("a", "a/b", "a/b/c", "a/b/d", "a/c", "a0", "b/x/1", "b/y/2", "b/y/3",
+                "c", "😀/emoji", "�/replacement"));
+        keys.forEach(key -> s3Client.putObject(BUCKET, key, 1));
+        engine = new S3ShardedListingEngine(s3Client, s3IoExecutor, properties(2, 100, 2));
+
+        // Act
+        var result = engine.streamSorted(BUCKET, "").map(S3ObjectSummary::key).toList();
+
+        // Assert
+        keys.sort(S3ShardedListingEngine.S3_KEY_ORDER);
+        assertEquals(keys, result);
+    }
+
+    @Test
+    void summarize_RespectsConcurrencyLimitAndBeatsSequentialListing() {
+        // Arrange
+        var s3Client = new InMemoryS3Client(Duration.ofMillis(10));
+        for (var shard = 0; shard < 16; shard++) {
+            for (var file = 0; file < 1500; file++) {
+                s3Client.putObject(BUCKET, "data/shard-%02d/%05d".formatted(shard, file), 1);
+            }
+        }
+        engine = new S3ShardedListingEngine(s3Client, s3IoExecutor, properties(8, 16, 1));
+
+        // Act
+        var sequentialStart = System.nanoTime();
+        var sequentialService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, new S3ToolboxProperties(),
+                new S3MultipartUploader(s3Client, s3IoExecutor, new S3ToolboxProperties()),
+                new S3RequestCoalescer(), event -> {
+        });
+        var sequentialCount = sequentialService.streamObjects(BUCKET, "data/").count();
+        var sequentialNanos = System.nanoTime() - sequentialStart;
+
+        var shardedStart = System.nanoTime();
+        var result = engine.summarize(BUCKET, "data/");
+        var shardedNanos = System.nanoTime() - shardedStart;
+
+        // Assert
+        assertEquals(sequentialCount, result.objectCount());
+        assertTrue(s3Client.maxInFlight() <= 8, "max in flight was " + s3Client.maxInFlight());
+        assertTrue(shardedNanos < sequentialNanos,
+                "sharded %d ms vs sequential %d ms".formatted(shardedNanos / 1_000_000, sequentialNanos / 1_000_000));
+    }
+
+    @Test
+    void summarize_FlatPrefix_SplitsIntoParallelRangesAndCapsReportedShards() {
+        // Arrange
+        var s3Client = new InMemoryS3Client(Duration.ofMillis(5));
+        for (var file = 0; file < 20_000; file++) {
+            s3Client.putObject(BUCKET, "flat/object-%06d.json".formatted(file * 7), 2);
+        }
+        var properties = properties(8, 64, 3);
+        properties.getListing().setMaxReportedShards(1);
+        engine = new S3ShardedListingEngine(s3Client, s3IoExecutor, properties);
+
+        // Act
+        var result = engine.summarize(BUCKET, "flat/");
+
+        // Assert
+        assertEquals(20_000, result.objectCount());
+        assertEquals(40_000, result.totalBytes());
+        assertEquals(1, result.shards().size());
+        assertEquals("flat/object-006993.json", result.shards().getFirst().startAfter());
+        assertTrue(s3Client.maxInFlight() > 1, "max in flight was " + s3Client.maxInFlight());
+        assertTrue(s3Client.maxInFlight() <= 8, "max in flight was " + s3Client.maxInFlight());
+    }
+
+    @Test
+    void streamSorted_FlatAndNestedKeys_ListsEveryKeyOnceInOrder() {
+        // Arrange
+        var s3Client = new InMemoryS3Client();
+        var keys = new ArrayList<String>();
+        for (var file = 0; file < 4500; file++) {
+            keys.add("mixed/%s-%05d".formatted(file % 3 == 0 ? "Zeta" : "alpha", file));
+            if (file % 500 == 0) {
+                keys.add("mixed/alpha-%05d/nested/%d".formatted(file, file));
+            }
+        }
+        keys.forEach(key -> s3Client.putObject(BUCKET, key, 1));
+        engine = new S3ShardedListingEngine(s3Client, s3IoExecutor, properties(4, 8, 2));
+
+        // Act
+        var result = engine.streamSorted(BUCKET, "mixed/").map(S3ObjectSummary::key).toList();
+
+        // Assert
+        keys.sort(S3ShardedListingEngine.S3_KEY_ORDER);
+        assertEquals(keys, result);
+    }
+
+    @Test
+    void splitKey_ReturnsPrintableKeyStrictlyBetweenBounds() {
+        // Act
+        var open = S3ShardedListingEngine.splitKey("logs/", "logs/app-000999.log", null);
+        var bounded = S3ShardedListingEngine.splitKey("logs/", "logs/app-000999.log", "logs/app-002000.log");
+        var adjacent = S3ShardedListingEngine.splitKey("logs/", "logs/a", "logs/a ");
+
+        // Assert
+        assertTrue(S3ShardedListingEngine.S3_KEY_ORDER.compare("logs/app-000999.log", open) < 0);
+        assertTrue(S3ShardedListingEngine.S3_KEY_ORDER.compare("logs/app-000999.log", bounded) < 0);
+        assertTrue(S3ShardedListingEngine.S3_KEY_ORDER.compare(bounded, "logs/app-002000.log") < 0);
+        assertTrue(bounded.startsWith("logs/app-00"));
+        assertNull(adjacent);
+    }
+
+    private static S3ToolboxProperties properties(int maxConcurrency, int targetShards, int maxShardDepth) {
+        var properties = new S3ToolboxProperties();
+        properties.getListing().setMaxConcurrency(maxConcurrency);
+        properties.getListing().setTargetShards(targetShards);
+        properties.getListing().setMaxShardDepth(maxShardDepth);
+        return properties;
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3SyncServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3SyncServiceImpl syncService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        var properties = new S3ToolboxProperties();
+        properties.getSync().setMaxConcurrency(4);
+        var uploader = new S3MultipartUploader(s3Client, s3IoExecutor, properties);
+        var actionsService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties, uploader,
+                new S3RequestCoalescer(), event -> {
+        });
+        var listingEngine = new S3ShardedListingEngine(s3Client, s3IoExecutor, properties);
+        var batchService = new S3BatchServiceImpl(s3Client, s3IoExecutor, actionsService, properties,
+                event -> {
+                });
+        var transferService = new S3TransferServiceImpl(s3Client, s3IoExecutor, properties, uploader, event -> {
+        });
+        syncService = new S3SyncServiceImpl(s3IoExecutor, listingEngine, transferService, batchService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void sync_Upload_TransfersOnlyMissingAndChangedFilesAndDeletesExtras() throws Exception {
+        // Arrange
+        write("index.html", "<html/>", Instant.now().minusSeconds(60));
+        write("css/site.css", "body{}", Instant.now());
+        write("app.js", "let a = 1;", Instant.now().minusSeconds(60));
+        s3Client.putObject(BUCKET, "site/index.html", bytes("<html/>"));
+        s3Client.putObject(BUCKET, "site/app.js", bytes("let a = 0; // old"));
+        s3Client.putObject(BUCKET, "site/removed.js", bytes("gone"));
+        var messages = new CopyOnWriteArrayList<String>();
+
+        // Act
+        var result = syncService.sync(tempDir.toString(), BUCKET, "site/", S3SyncService.Direction.UPLOAD, true,
+                false, messages::add);
+
+        // Assert
+        assertEquals(3, result.localFiles());
+        assertEquals(3, result.remoteObjects());
+        assertEquals(1, result.unchanged());
+        assertEquals(2, result.transferred());
+        assertEquals(16, result.bytesTransferred());
+        assertEquals(1, result.extras());
+        assertEquals(1, result.deleted());
+        assertArrayEquals(bytes("body{}"), s3Client.content(BUCKET, "site/css/site.css"));
+        assertArrayEquals(bytes("let a = 1;"), s3Client.content(BUCKET, "site/app.js"));
+        assertFalse(s3Client.exists(BUCKET, "site/removed.js"));
+        assertEquals("Transferred 2 of 2 changed files (16 bytes), 1 unchanged, 0 failed", messages.getLast());
+    }
+
+    @Test
+    void sync_Upload_NewerFileOfSameSize_IsComparedWithETag() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "data/same.txt", bytes("hello"));
+        s3Client.putObject(BUCKET, "data/edited.txt", bytes("WORLD"));
+        write("same.txt", "hello", Instant.now().plusSeconds(60));
+        write("edited.txt", "world", Instant.now().plusSeconds(60));
+
+        // Act
+        var result = syncService.sync(tempDir.toString(), BUCKET, "data/", S3SyncService.Direction.UPLOAD, false,
+                false, null);
+
+        // Assert
+        assertEquals(1, result.unchanged());
+        assertEquals(1, result.changed());
+        assertArrayEquals(bytes("world"), s3Client.content(BUCKET, "data/edited.txt"));
+    }
+
+    @Test
+    void sync_Download_MirrorsPrefixAndSecondSyncTransfersNothing() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "builds/42/app.jar", bytes("jar"));
+        s3Client.putObject(BUCKET, "builds/42/lib/dep.jar", bytes("dependency"));
+        s3Client.putObject(BUCKET, "builds/42/lib/", new byte[0]);
+        write("stale.txt", "stale", Instant.now());
+
+        // Act
+        var first = syncService.sync(tempDir.toString(), BUCKET, "builds/42/", S3SyncService.Direction.DOWNLOAD,
+                true, false, null);
+        var second = syncService.sync(tempDir.toString(), BUCKET, "builds/42/", S3SyncService.Direction.DOWNLOAD,
+                true, false, null);
+
+        // Assert
+        assertEquals(2, first.transferred());
+        assertEquals(1, first.deleted());
+        assertEquals("dependency", Files.readString(tempDir.resolve("lib/dep.jar")));
+        assertFalse(Files.exists(tempDir.resolve("stale.txt")));
+        assertEquals(0, second.transferred());
+        assertEquals(2, second.unchanged());
+    }
+
+    @Test
+    void sync_DryRun_OnlyComparesAndSamples() throws Exception {
+        // Arrange
+        write("a.txt", "a", Instant.now());
+        write("b.txt", "b", Instant.now());
+        s3Client.putObject(BUCKET, "out/extra.txt", bytes("x"));
+
+        // Act
+        var result = syncService.sync(tempDir.toString(), BUCKET, "out/", S3SyncService.Direction.UPLOAD, true,
+                true, null);
+
+        // Assert
+        assertEquals(2, result.changed());
+        assertEquals(0, result.transferred());
+        assertEquals(0, result.deleted());
+        assertEquals(List.of("out/a.txt", "out/b.txt", "out/extra.txt"),
+                result.sampleKeys().stream().sorted().toList());
+        assertFalse(s3Client.exists(BUCKET, "out/a.txt"));
+        assertTrue(s3Client.exists(BUCKET, "out/extra.txt"));
+    }
+
+    @Test
+    void sync_PrefixWithoutTrailingSlash_LeavesSiblingPrefixesAlone() throws Exception {
+        // Arrange
+        write("index.html", "<html/>", Instant.now());
+        s3Client.putObject(BUCKET, "artifacts/app/removed.js", bytes("gone"));
+        s3Client.putObject(BUCKET, "artifacts/app-old/x", bytes("keep"));
+        s3Client.putObject(BUCKET, "artifacts/appendix.txt", bytes("keep"));
+
+        // Act
+        var result = syncService.sync(tempDir.toString(), BUCKET, "artifacts/app", S3SyncService.Direction.UPLOAD,
+                true, false, null);
+
+        // Assert
+        assertEquals("artifacts/app/", result.prefix());
+        assertEquals(1, result.remoteObjects());
+        assertEquals(1, result.deleted());
+        assertArrayEquals(bytes("<html/>"), s3Client.content(BUCKET, "artifacts/app/index.html"));
+        assertFalse(s3Client.exists(BUCKET, "artifacts/appindex.html"));
+        assertFalse(s3Client.exists(BUCKET, "artifacts/app/removed.js"));
+        assertTrue(s3Client.exists(BUCKET, "artifacts/app-old/x"));
+        assertTrue(s3Client.exists(BUCKET, "artifacts/appendix.txt"));
+    }
+
+    @Test
+    void sync_DownloadDryRun_LeavesLocalTimestampsAlone() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "docs/readme.txt", bytes("same"));
+        var modified = Instant.now().minusSeconds(3600);
+        write("readme.txt", "same", modified);
+
+        // Act
+        var result = syncService.sync(tempDir.toString(), BUCKET, "docs/", S3SyncService.Direction.DOWNLOAD, false,
+                true, null);
+
+        // Assert
+        assertEquals(1, result.unchanged());
+        assertEquals(FileTime.from(modified).toMillis(),
+                Files.getLastModifiedTime(tempDir.resolve("readme.txt")).toMillis());
+    }
+
+    @Test
+    void sync_InvalidArguments_AreRejected() {
+        var directory = tempDir.toString();
+        assertThrows(IllegalArgumentException.class, () -> syncService.sync(directory, BUCKET, "",
+                S3SyncService.Direction.UPLOAD, true, false, null));
+        assertThrows(IllegalArgumentException.class, () -> syncService.sync(tempDir.resolve("missing").toString(),
+                BUCKET, "out/", S3SyncService.Direction.UPLOAD, false, false, null));
+        assertThrows(IllegalArgumentException.class, () -> S3SyncService.Direction.of("sideways"));
+    }
+
+    private void write(String relative, String content, Instant modified) throws Exception {
+        var file = tempDir.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
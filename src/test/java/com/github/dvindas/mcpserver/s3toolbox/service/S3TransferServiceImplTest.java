@@ -0,0 +1,184 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.PutS3ObjectRequest;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3TransferServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+    private S3TransferServiceImpl transferService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        properties.getTransfer().setPartSize(DataSize.ofKilobytes(64));
+        properties.getTransfer().setBufferSize(DataSize.ofKilobytes(4));
+        properties.getTransfer().setMaxConcurrency(4);
+        properties.getTransfer().setMultipartThreshold(DataSize.ofMegabytes(5));
+        transferService = new S3TransferServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), event -> {
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void uploadFromFile_SmallFileUsesSinglePut() throws Exception {
+        // Arrange
+        var content = randomBytes(1024);
+        var source = Files.write(tempDir.resolve("notes.txt"), content);
+
+        // Act
+        var result = transferService.uploadFromFile(BUCKET, "docs/notes.txt", source.toString(), null);
+
+        // Assert
+        assertArrayEquals(content, s3Client.content(BUCKET, "docs/notes.txt"));
+        assertEquals(1, result.parts());
+        assertEquals(content.length, result.bytes());
+        assertEquals("text/plain", s3Client.headObject(b -> b.bucket(BUCKET).key("docs/notes.txt")).contentType());
+    }
+
+    @Test
+    void uploadFromFile_LargeFileUsesMappedMultipartUpload() throws Exception {
+        // Arrange
+        var content = randomBytes(11 * 1024 * 1024 + 5);
+        var source = Files.write(tempDir.resolve("blob.bin"), content);
+
+        // Act
+        var result = transferService.uploadFromFile(BUCKET, "data/blob.bin", source.toString(),
+                "application/octet-stream");
+
+        // Assert
+        assertArrayEquals(content, s3Client.content(BUCKET, "data/blob.bin"));
+        assertEquals(3, result.parts());
+        assertTrue(result.eTag().endsWith("-3\""));
+        assertEquals(0, s3Client.openUploads());
+    }
+
+    @Test
+    void downloadToFile_WritesAllPartsAndVerifiesMd5() throws Exception {
+        // Arrange
+        var content = randomBytes(300 * 1024 + 17);
+        s3Client.putObject(BUCKET, "data/blob.bin", content);
+        var target = tempDir.resolve("out/blob.bin");
+
+        // Act
+        var result = transferService.downloadToFile(BUCKET, "data/blob.bin", target.toString(), false, true);
+
+        // Assert
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(content.length, result.bytes());
+        assertEquals(5, result.parts());
+        assertEquals(0, result.partsResumed());
+        assertTrue(result.verified());
+        assertEquals("MD5", result.verification());
+        assertFalse(Files.exists(tempDir.resolve("out/blob.bin" + S3TransferServiceImpl.STATE_SUFFIX)));
+    }
+
+    @Test
+    void downloadToFile_ResumesFromRecordedParts() throws Exception {
+        // Arrange
+        var content = randomBytes(256 * 1024);
+        s3Client.putObject(BUCKET, "data/blob.bin", content);
+        var target = tempDir.resolve("blob.bin");
+        var partFile = tempDir.resolve("blob.bin" + S3TransferServiceImpl.PART_SUFFIX);
+        var partial = new byte[content.length];
+        System.arraycopy(content, 0, partial, 0, 128 * 1024);
+        Files.write(partFile, partial);
+        var eTag = s3Client.headObject(b -> b.bucket(BUCKET).key("data/blob.bin")).eTag();
+        Files.writeString(tempDir.resolve("blob.bin" + S3TransferServiceImpl.STATE_SUFFIX),
+                "%s %d %d\n0\n1\n".formatted(eTag, content.length, 64 * 1024));
+        var requestsBefore = s3Client.requestCount();
+
+        // Act
+        var result = transferService.downloadToFile(BUCKET, "data/blob.bin", target.toString(), false, true);
+
+        // Assert
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(2, result.partsResumed());
+        assertEquals(3, s3Client.requestCount() - requestsBefore, "one HEAD and two ranged GETs");
+    }
+
+    @Test
+    void downloadToFile_ExistingFileWithoutOverwrite_ThrowsIllegalArgumentException() throws Exception {
+        // Arrange
+        s3Client.putObject(BUCKET, "data/blob.bin", randomBytes(10));
+        var target = Files.writeString(tempDir.resolve("blob.bin"), "existing");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.downloadToFile(BUCKET, "data/blob.bin", target.toString(), false, true));
+        assertEquals("existing", Files.readString(target));
+    }
+
+    @Test
+    void downloadToFile_ObjectCompressedByPut_WritesDecompressedContentOnlyWhenAsked() throws Exception {
+        // Arrange
+        var content = "2025-01-01T00:00:00Z INFO request served in 12ms\n".repeat(4000);
+        var actionsService = new S3ActionsServiceImpl(s3Client, s3IoExecutor, properties,
+                new S3MultipartUploader(s3Client, s3IoExecutor, properties), new S3RequestCoalescer(), event -> {
+        });
+        actionsService.putObject(new PutS3ObjectRequest(BUCKET, "logs/", "app.log", "text/plain",
+                Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8)), "gzip", null));
+        var decompressed = tempDir.resolve("app.log");
+        var stored = tempDir.resolve("mirror/app.log");
+
+        // Act
+        var result = transferService.downloadToFile(BUCKET, "logs/app.log", decompressed.toString(), false, true);
+        transferService.downloadToFile(BUCKET, "logs/app.log", stored.toString(), false, false);
+
+        // Assert
+        assertEquals(content, Files.readString(decompressed));
+        assertEquals(content.length(), result.bytes());
+        assertTrue(result.verified());
+        assertArrayEquals(s3Client.content(BUCKET, "logs/app.log"), Files.readAllBytes(stored));
+        assertFalse(Files.exists(tempDir.resolve("app.log" + S3TransferServiceImpl.DECODED_SUFFIX)));
+        assertFalse(Files.exists(tempDir.resolve("app.log" + S3TransferServiceImpl.PART_SUFFIX)));
+    }
+
+    @Test
+    void downloadToFile_OutsideLocalRoot_ThrowsIllegalArgumentException() {
+        // Arrange
+        properties.getTransfer().setLocalRoot(tempDir.resolve("root"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.downloadToFile(BUCKET, "data/blob.bin", "../escape.bin", false, true));
+    }
+
+    private static byte[] randomBytes(int size) {
+        var bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
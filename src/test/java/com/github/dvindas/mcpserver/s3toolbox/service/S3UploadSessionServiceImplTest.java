@@ -0,0 +1,189 @@
+package com.github.dvindas.mcpserver.s3toolbox.service;
+
+import com.github.dvindas.mcpserver.s3toolbox.concurrent.InstrumentedExecutorService;
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.S3UploadSessionResponse;
+import com.github.dvindas.mcpserver.s3toolbox.support.InMemoryS3Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3UploadSessionServiceImplTest {
+
+    private static final String BUCKET = "testBucket";
+
+    private InMemoryS3Client s3Client;
+    private InstrumentedExecutorService s3IoExecutor;
+    private S3ToolboxProperties properties;
+    private S3UploadSessionServiceImpl sessionService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        s3IoExecutor = new InstrumentedExecutorService("test", Executors.newVirtualThreadPerTaskExecutor(),
+                Duration.ofSeconds(1));
+        properties = new S3ToolboxProperties();
+        properties.getTransfer().setPartSize(DataSize.ofMegabytes(5));
+        sessionService = new S3UploadSessionServiceImpl(new S3MultipartUploader(s3Client, s3IoExecutor, properties),
+                properties, event -> {
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3IoExecutor.close();
+    }
+
+    @Test
+    void appendAndComplete_BuffersChunksIntoMinimumSizedParts() {
+        // Arrange
+        var content = randomBytes(11 * 1024 * 1024 + 100);
+        var session = sessionService.begin(BUCKET, "exports/data.bin", "application/octet-stream");
+        var chunkSize = 300 * 1024;
+
+        // Act
+        for (var position = 0; position < content.length; position += chunkSize) {
+            var chunk = Arrays.copyOfRange(content, position, Math.min(content.length, position + chunkSize));
+            sessionService.append(session.sessionId(), Base64.getEncoder().encodeToString(chunk), (long) position);
+        }
+        var result = sessionService.complete(session.sessionId());
+
+        // Assert
+        assertArrayEquals(content, s3Client.content(BUCKET, "exports/data.bin"));
+        assertEquals(3, result.parts());
+        assertEquals(content.length, result.bytes());
+        assertEquals(0, s3Client.openUploads());
+        assertEquals(0, sessionService.openSessions());
+    }
+
+    @Test
+    void append_WithStaleOffset_RejectsChunkAndKeepsSession() {
+        // Arrange
+        var session = sessionService.begin(BUCKET, "notes.txt", "text/plain");
+        var chunk = Base64.getEncoder().encodeToString("hello ".getBytes());
+        sessionService.append(session.sessionId(), chunk, 0L);
+
+        // Act
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> sessionService.append(session.sessionId(), chunk, 0L));
+        sessionService.append(session.sessionId(), Base64.getEncoder().encodeToString("world".getBytes()), 6L);
+        sessionService.complete(session.sessionId());
+
+        // Assert
+        assertTrue(exception.getMessage().contains("offset 0"));
+        assertEquals("hello world", new String(s3Client.content(BUCKET, "notes.txt")));
+    }
+
+    @Test
+    void complete_WithoutChunks_CreatesEmptyObject() {
+        // Arrange
+        var session = sessionService.begin(BUCKET, "empty.txt", "text/plain");
+
+        // Act
+        var result = sessionService.complete(session.sessionId());
+
+        // Assert
+        assertEquals(0, result.bytes());
+        assertEquals(0, s3Client.content(BUCKET, "empty.txt").length);
+    }
+
+    @Test
+    void expireIdleSessions_AbortsMultipartUpload() throws Exception {
+        // Arrange
+        properties.getUploadSession().setIdleTimeout(Duration.ofMillis(10));
+        var session = sessionService.begin(BUCKET, "abandoned.bin", null);
+        Thread.sleep(50);
+
+        // Act
+        sessionService.expireIdleSessions();
+
+        // Assert
+        assertEquals(0, sessionService.openSessions());
+        assertEquals(0, s3Client.openUploads());
+        assertThrows(IllegalArgumentException.class, () -> sessionService.complete(session.sessionId()));
+    }
+
+    @Test
+    void startSweeper_AbortsIdleSessionsWithoutFurtherCalls() throws Exception {
+        // Arrange
+        properties.getUploadSession().setIdleTimeout(Duration.ofMillis(100));
+        sessionService.begin(BUCKET, "abandoned.bin", null);
+
+        // Act
+        sessionService.startSweeper();
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (sessionService.openSessions() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        sessionService.abortOpenSessions();
+
+        // Assert
+        assertEquals(0, sessionService.openSessions());
+        assertEquals(0, s3Client.openUploads());
+    }
+
+    @Test
+    void begin_ConcurrentCalls_OpenAtMostMaxSessions() throws Exception {
+        // Arrange
+        properties.getUploadSession().setMaxSessions(3);
+        var slowClient = new InMemoryS3Client(Duration.ofMillis(100));
+        var service = new S3UploadSessionServiceImpl(new S3MultipartUploader(slowClient, s3IoExecutor, properties),
+                properties, event -> {
+                });
+        var start = new CountDownLatch(1);
+
+        // Act
+        var calls = new ArrayList<CompletableFuture<S3UploadSessionResponse>>();
+        for (var i = 0; i < 10; i++) {
+            var key = "upload-" + i + ".bin";
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    assertTrue(start.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return service.begin(BUCKET, key, null);
+            }, s3IoExecutor));
+        }
+        start.countDown();
+        var opened = new ArrayList<S3UploadSessionResponse>();
+        var rejected = 0;
+        for (var call : calls) {
+            try {
+                opened.add(call.get(5, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                rejected++;
+            }
+        }
+        service.abort(opened.getFirst().sessionId());
+        var afterAbort = service.begin(BUCKET, "after-abort.bin", null);
+
+        // Assert
+        assertEquals(3, opened.size());
+        assertEquals(7, rejected);
+        assertNotNull(afterAbort.sessionId());
+        assertEquals(3, service.openSessions());
+        assertEquals(3, slowClient.openUploads());
+    }
+
+    private static byte[] randomBytes(int size) {
+        var bytes = new byte[size];
+        new Random(11).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,438 @@
+package com.github.dvindas.mcpserver.s3toolbox.support;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-process stand-in for S3 used to exercise and benchmark the service layer offline. Keys are kept in UTF-8 binary
+ * order like S3, and every request can be delayed by a fixed latency to emulate the network round trip.
+ *
+ * @author dvindas
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private final Map<String, NavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final Duration latency;
+
+    public InMemoryS3Client() {
+        this(Duration.ZERO);
+    }
+
+    public InMemoryS3Client(final Duration latency) {
+        this.latency = latency;
+    }
+
+    public void putObject(final String bucketName, final String key, final byte[] content) {
+        bucket(bucketName).put(key, StoredObject.of(content, null, Map.of()));
+    }
+
+    public byte[] content(final String bucketName, final String key) {
+        return find(bucketName, key).content();
+    }
+
+    public boolean exists(final String bucketName, final String key) {
+        return bucket(bucketName).containsKey(key);
+    }
+
+    public void putObject(final String bucketName, final String key, final long size) {
+        putObject(bucketName, key, new byte[(int) size]);
+    }
+
+    public int openUploads() {
+        return uploads.size();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(final ListObjectsV2Request request) {
+        return execute(() -> {
+            final var objects = buckets.get(request.bucket());
+            if (objects == null) {
+                throw NoSuchBucketException.builder().message("The specified bucket does not exist").build();
+            }
+
+            final var prefix = request.prefix() == null ? "" : request.prefix();
+            final var delimiter = request.delimiter();
+            final var maxKeys = request.maxKeys() == null ? 1000 : request.maxKeys();
+            final var after = request.continuationToken() != null ? request.continuationToken() : request.startAfter();
+
+            final var tail = after == null ? objects.tailMap(prefix, true) : objects.tailMap(after, false);
+            final var contents = new ArrayList<S3Object>();
+            final var commonPrefixes = new ArrayList<CommonPrefix>();
+            String lastReturned = null;
+            var truncated = false;
+
+            for (final var entry : tail.entrySet()) {
+                final var key = entry.getKey();
+                if (!key.startsWith(prefix)) {
+                    break;
+                }
+                final var rolledUp = rollUp(key, prefix, delimiter);
+                if (rolledUp != null && rolledUp.equals(lastReturned)) {
+                    continue;
+                }
+                if (after != null && rolledUp != null && after.startsWith(rolledUp)) {
+                    continue;
+                }
+                if (contents.size() + commonPrefixes.size() == maxKeys) {
+                    truncated = true;
+                    break;
+                }
+                if (rolledUp != null) {
+                    commonPrefixes.add(CommonPrefix.builder().prefix(rolledUp).build());
+                    lastReturned = rolledUp;
+                } else {
+                    contents.add(entry.getValue().toS3Object(key));
+                    lastReturned = key;
+                }
+            }
+
+            // The continuation token is the last returned key or common prefix, so resuming skips what was returned
+            return ListObjectsV2Response.builder()
+                    .name(request.bucket())
+                    .prefix(request.prefix())
+                    .delimiter(delimiter)
+                    .contents(contents)
+                    .commonPrefixes(commonPrefixes)
+                    .keyCount(contents.size() + commonPrefixes.size())
+                    .isTruncated(truncated)
+                    .nextContinuationToken(truncated ? lastReturned : null)
+                    .build();
+        });
+    }
+
+    @Override
+    public HeadObjectResponse headObject(final HeadObjectRequest request) {
+        return execute(() -> {
+            final var stored = find(request.bucket(), request.key());
+            return HeadObjectResponse.builder()
+                    .contentLength((long) stored.content().length)
+                    .contentType(stored.contentType())
+                    .lastModified(stored.lastModified())
+                    .eTag(stored.eTag())
+                    .metadata(stored.metadata())
+                    .build();
+        });
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(final GetObjectRequest request,
+                                       final ResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+        final var response = execute(() -> {
+            final var stored = find(request.bucket(), request.key());
+            if (request.ifMatch() != null && !request.ifMatch().equals(stored.eTag())) {
+                throw error(412, "PreconditionFailed");
+            }
+            if (request.ifNoneMatch() != null && request.ifNoneMatch().equals(stored.eTag())) {
+                throw error(304, "NotModified");
+            }
+
+            final var content = stored.content();
+            var start = 0;
+            var end = content.length - 1;
+            String contentRange = null;
+            if (request.range() != null) {
+                final var range = request.range().substring("bytes=".length()).split("-", -1);
+                start = Integer.parseInt(range[0]);
+                end = range[1].isEmpty() ? content.length - 1 : Math.min(content.length - 1, Integer.parseInt(range[1]));
+                if (start >= content.length) {
+                    throw error(416, "InvalidRange");
+                }
+                contentRange = "bytes %d-%d/%d".formatted(start, end, content.length);
+            }
+
+            final var window = Arrays.copyOfRange(content, start, end + 1);
+            return new Body(GetObjectResponse.builder()
+                    .contentLength((long) window.length)
+                    .contentRange(contentRange)
+                    .contentType(stored.contentType())
+                    .lastModified(stored.lastModified())
+                    .eTag(stored.eTag())
+                    .metadata(stored.metadata())
+                    .build(), window);
+        });
+
+        try {
+            return responseTransformer.transform(response.response(),
+                    AbortableInputStream.create(new ByteArrayInputStream(response.content())));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public PutObjectResponse putObject(final PutObjectRequest request, final RequestBody requestBody) {
+        return execute(() -> {
+            final var stored = StoredObject.of(read(requestBody), request.contentType(), request.metadata());
+            bucket(request.bucket()).put(request.key(), stored);
+            return PutObjectResponse.builder().eTag(stored.eTag()).build();
+        });
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(final DeleteObjectRequest request) {
+        return execute(() -> {
+            bucket(request.bucket()).remove(request.key());
+            return DeleteObjectResponse.builder().build();
+        });
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(final DeleteObjectsRequest request) {
+        return execute(() -> {
+            final var objects = request.delete().objects();
+            if (objects.size() > 1000) {
+                throw error(400, "MalformedXML");
+            }
+            final var deleted = new ArrayList<DeletedObject>();
+            final var errors = new ArrayList<S3Error>();
+            for (final var object : objects) {
+                final var error = deleteError(request.bucket(), object.key());
+                if (error != null) {
+                    errors.add(error);
+                    continue;
+                }
+                bucket(request.bucket()).remove(object.key());
+                if (!Boolean.TRUE.equals(request.delete().quiet())) {
+                    deleted.add(DeletedObject.builder().key(object.key()).build());
+                }
+            }
+            return DeleteObjectsResponse.builder().deleted(deleted).errors(errors).build();
+        });
+    }
+
+    @Override
+    public CopyObjectResponse copyObject(final CopyObjectRequest request) {
+        return execute(() -> {
+            final var source = find(request.sourceBucket(), request.sourceKey());
+            final var stored = StoredObject.of(source.content(), source.contentType(), source.metadata());
+            bucket(request.destinationBucket()).put(request.destinationKey(), stored);
+            return CopyObjectResponse.builder()
+                    .copyObjectResult(CopyObjectResult.builder().eTag(stored.eTag()).build())
+                    .build();
+        });
+    }
+
+    @Override
+    public UploadPartCopyResponse uploadPartCopy(final UploadPartCopyRequest request) {
+        return execute(() -> {
+            final var upload = upload(request.uploadId());
+            final var source = find(request.sourceBucket(), request.sourceKey());
+            if (request.copySourceIfMatch() != null && !request.copySourceIfMatch().equals(source.eTag())) {
+                throw error(412, "PreconditionFailed");
+            }
+            final var range = request.copySourceRange().substring("bytes=".length()).split("-");
+            final var part = Arrays.copyOfRange(source.content(), Integer.parseInt(range[0]),
+                    Integer.parseInt(range[1]) + 1);
+            upload.parts().put(request.partNumber(), part);
+            return UploadPartCopyResponse.builder()
+                    .copyPartResult(CopyPartResult.builder()
+                            .eTag(StoredObject.of(part, null, Map.of()).eTag())
+                            .build())
+                    .build();
+        });
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(final CreateMultipartUploadRequest request) {
+        return execute(() -> {
+            final var uploadId = "upload-" + uploadIds.incrementAndGet();
+            uploads.put(uploadId, new Upload(request, new ConcurrentSkipListMap<>()));
+            return CreateMultipartUploadResponse.builder()
+                    .bucket(request.bucket())
+                    .key(request.key())
+                    .uploadId(uploadId)
+                    .build();
+        });
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(final UploadPartRequest request, final RequestBody requestBody) {
+        return execute(() -> {
+            final var upload = upload(request.uploadId());
+            final var stored = StoredObject.of(read(requestBody), null, Map.of());
+            upload.parts().put(request.partNumber(), stored.content());
+            return UploadPartResponse.builder().eTag(stored.eTag()).build();
+        });
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(final CompleteMultipartUploadRequest request) {
+        return execute(() -> {
+            final var upload = upload(request.uploadId());
+            final var content = new ByteArrayOutputStream();
+            for (final var part : request.multipartUpload().parts()) {
+                final var bytes = upload.parts().get(part.partNumber());
+                if (bytes == null) {
+                    throw error(400, "InvalidPart");
+                }
+                content.writeBytes(bytes);
+            }
+            uploads.remove(request.uploadId());
+
+            final var created = upload.request();
+            final var stored = StoredObject.of(content.toByteArray(), created.contentType(), created.metadata());
+            // S3 reports multipart ETags as "<md5 of part md5s>-<part count>", which never equals a content MD5
+            final var multipartETag = stored.eTag().replace("\"", "") + "-" + request.multipartUpload().parts().size();
+            bucket(created.bucket()).put(created.key(), new StoredObject(stored.content(), stored.contentType(),
+                    stored.metadata(), "\"" + multipartETag + "\"", stored.lastModified()));
+            return CompleteMultipartUploadResponse.builder()
+                    .bucket(created.bucket())
+                    .key(created.key())
+                    .eTag("\"" + multipartETag + "\"")
+                    .build();
+        });
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(final AbortMultipartUploadRequest request) {
+        return execute(() -> {
+            uploads.remove(request.uploadId());
+            return AbortMultipartUploadResponse.builder().build();
+        });
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    protected NavigableMap<String, StoredObject> bucket(final String bucketName) {
+        return buckets.computeIfAbsent(bucketName, name -> new ConcurrentSkipListMap<>(
+                (left, right) -> Arrays.compareUnsigned(left.getBytes(StandardCharsets.UTF_8),
+                        right.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Hook for tests to fail the deletion of individual keys of a DeleteObjects request.
+     */
+    protected S3Error deleteError(final String bucketName, final String key) {
+        return null;
+    }
+
+    protected <T> T execute(final Supplier<T> operation) {
+        requestCount.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            return operation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    protected StoredObject find(final String bucketName, final String key) {
+        final var stored = bucket(bucketName).get(key);
+        if (stored == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("The specified key does not exist.").build();
+        }
+        return stored;
+    }
+
+    protected static S3Exception error(final int statusCode, final String code) {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(statusCode)
+                .message(code)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).build())
+                .build();
+    }
+
+    private Upload upload(final String uploadId) {
+        final var upload = uploads.get(uploadId);
+        if (upload == null) {
+            throw error(404, "NoSuchUpload");
+        }
+        return upload;
+    }
+
+    private static byte[] read(final RequestBody requestBody) {
+        try (var content = requestBody.contentStreamProvider().newStream()) {
+            return content.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String rollUp(final String key, final String prefix, final String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            return null;
+        }
+        final var index = key.indexOf(delimiter, prefix.length());
+        return index < 0 ? null : key.substring(0, index + delimiter.length());
+    }
+
+    private record Upload(CreateMultipartUploadRequest request, NavigableMap<Integer, byte[]> parts) {
+    }
+
+    private record Body(GetObjectResponse response, byte[] content) {
+    }
+
+    protected record StoredObject(byte[] content, String contentType, Map<String, String> metadata, String eTag,
+                                  Instant lastModified) {
+
+        static StoredObject of(final byte[] content, final String contentType, final Map<String, String> metadata) {
+            try {
+                final var md5 = MessageDigest.getInstance("MD5").digest(content);
+                return new StoredObject(content, contentType, metadata, "\"" + HexFormat.of().formatHex(md5) + "\"",
+                        Instant.now());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        S3Object toS3Object(final String key) {
+            return S3Object.builder()
+                    .key(key)
+                    .size((long) content.length)
+                    .lastModified(lastModified)
+                    .eTag(eTag)
+                    .storageClass("STANDARD")
+                    .build();
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.github.dvindas.mcpserver.s3toolbox.tool;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ErrorReportingToolCallbackTest {
+
+    @Test
+    void describe_SlowDown_IsReportedAsThrottling() {
+        // Arrange
+        var failure = new RuntimeException("Failed to delete objects from S3", s3Exception(503, "SlowDown"));
+
+        // Act
+        var described = S3ErrorReportingToolCallback.describe(failure);
+
+        // Assert
+        assertInstanceOf(S3ThrottledException.class, described);
+        assertTrue(described.getMessage().startsWith("Failed to delete objects from S3: S3 is throttling requests (SlowDown, HTTP 503)"));
+        assertSame(failure, described.getCause());
+    }
+
+    @Test
+    void describe_OtherS3Error_AddsCodeAndStatus() {
+        // Arrange
+        var failure = new RuntimeException("Failed to list objects from S3", s3Exception(404, "NoSuchBucket"));
+
+        // Act
+        var described = S3ErrorReportingToolCallback.describe(failure);
+
+        // Assert
+        assertFalse(described instanceof S3ThrottledException);
+        assertEquals("Failed to list objects from S3 (NoSuchBucket, HTTP 404)", described.getMessage());
+    }
+
+    @Test
+    void describe_NonS3Error_IsUnchanged() {
+        // Arrange
+        var failure = new IllegalArgumentException("prefix must not be empty");
+
+        // Act & Assert
+        assertSame(failure, S3ErrorReportingToolCallback.describe(failure));
+    }
+
+    private static S3Exception s3Exception(int statusCode, String code) {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(statusCode)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).build())
+                .build();
+    }
+}
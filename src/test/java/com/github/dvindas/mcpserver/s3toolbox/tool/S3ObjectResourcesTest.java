@@ -0,0 +1,82 @@
+package com.github.dvindas.mcpserver.s3toolbox.tool;
+
+import com.github.dvindas.mcpserver.s3toolbox.config.S3ToolboxProperties;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectMetadataResponse;
+import com.github.dvindas.mcpserver.s3toolbox.model.GetS3ObjectResponse;
+import com.github.dvindas.mcpserver.s3toolbox.service.S3ActionsService;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3ObjectResourcesTest {
+
+    @Mock
+    private S3ActionsService s3ActionsService;
+
+    @Mock
+    private McpSyncServer mcpSyncServer;
+
+    @Mock
+    private ObjectProvider<McpSyncServer> mcpSyncServerProvider;
+
+    private S3ObjectResources resources;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new S3ToolboxProperties();
+        properties.getResources().setMaxRegistered(2);
+        when(mcpSyncServerProvider.getIfAvailable()).thenReturn(mcpSyncServer);
+        when(s3ActionsService.getObjectMetadata(eq("testBucket"), anyString())).thenReturn(
+                new GetS3ObjectMetadataResponse("text/csv", 12L, null, "\"etag\"", "STANDARD", Map.of()));
+        resources = new S3ObjectResources(s3ActionsService, mcpSyncServerProvider, properties);
+    }
+
+    @Test
+    void register_ReturnsReferenceAndServesContentAsText() {
+        // Arrange
+        when(s3ActionsService.getObject("testBucket", "reports/q 1.csv")).thenReturn(
+                new GetS3ObjectResponse("q 1.csv", "id,total\n1,2".getBytes(StandardCharsets.UTF_8), "text/csv"));
+
+        // Act
+        var result = resources.register("testBucket", "reports/q 1.csv");
+
+        // Assert
+        assertEquals("s3://testBucket/reports/q%201.csv", result.uri());
+        assertEquals(12L, result.size());
+        var specification = ArgumentCaptor.forClass(McpServerFeatures.SyncResourceSpecification.class);
+        verify(mcpSyncServer).addResource(specification.capture());
+        assertEquals(result.uri(), specification.getValue().resource().uri());
+        var read = specification.getValue().readHandler().apply(null, new McpSchema.ReadResourceRequest(result.uri()));
+        var contents = assertInstanceOf(McpSchema.TextResourceContents.class, read.contents().getFirst());
+        assertEquals("id,total\n1,2", contents.text());
+    }
+
+    @Test
+    void register_BeyondMaxRegistered_RemovesLeastRecentlyRequested() {
+        // Act
+        resources.register("testBucket", "a.csv");
+        resources.register("testBucket", "b.csv");
+        resources.register("testBucket", "a.csv");
+        resources.register("testBucket", "c.csv");
+
+        // Assert
+        verify(mcpSyncServer, times(3)).addResource(any());
+        verify(mcpSyncServer).removeResource("s3://testBucket/b.csv");
+        verifyNoMoreInteractions(mcpSyncServer);
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.dvindas.mcpserver.s3toolbox.transport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionConcurrencyFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private SessionConcurrencyFilter filter;
+    private ExecutorService executor;
+    private CountDownLatch entered;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new SessionConcurrencyFilter(1, Duration.ofMillis(50), registry);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    void doFilter_SessionAtItsLimit_RejectsFurtherMessagesWith429() throws Exception {
+        // Arrange
+        var inFlight = send("session-1", blockingChain());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // Act
+        var response = send("session-1", (request, servletResponse) -> fail("Message should not be handled"))
+                .get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, registry.get("s3.mcp.session.rejected").counter().count());
+        release.countDown();
+        assertEquals(200, inFlight.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void doFilter_OtherSession_IsNotLimitedByABusyOne() throws Exception {
+        // Arrange
+        var inFlight = send("session-1", blockingChain());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // Act
+        var response = send("session-2", (request, servletResponse) -> { }).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(1, filter.activeSessions());
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+        assertEquals(0, filter.activeSessions());
+    }
+
+    private Future<MockHttpServletResponse> send(String sessionId, FilterChain chain) {
+        return executor.submit(() -> {
+            var request = new MockHttpServletRequest("POST", "/mcp/message");
+            request.setParameter("sessionId", sessionId);
+            var response = new MockHttpServletResponse();
+            filter.doFilter(request, response, chain);
+            return response;
+        });
+    }
+
+    private FilterChain blockingChain() {
+        return (request, response) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+}